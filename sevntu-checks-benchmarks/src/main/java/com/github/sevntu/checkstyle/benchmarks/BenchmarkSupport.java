@@ -0,0 +1,174 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+
+import org.openjdk.jmh.annotations.Param;
+
+import com.puppycrawl.tools.checkstyle.Checker;
+import com.puppycrawl.tools.checkstyle.DefaultConfiguration;
+import com.puppycrawl.tools.checkstyle.TreeWalker;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.Configuration;
+
+/**
+ * Helpers shared by benchmarks: creation of checkers and input files.
+ */
+public final class BenchmarkSupport
+{
+    /** Package all sevntu checks are located in. */
+    public static final String CHECKS_PACKAGE =
+        "com.github.sevntu.checkstyle.checks.";
+
+    /**
+     * Names of sevntu checks relative to {@link #CHECKS_PACKAGE}. They are
+     * taken from parameters of {@link CheckBenchmark}, which must be
+     * constants of its annotation, so the list is kept only there.
+     */
+    public static final String[] ALL_CHECKS = getCheckBenchmarkParams();
+
+    /** Prevents instantiation. */
+    private BenchmarkSupport()
+    {
+    }
+
+    /**
+     * Gets names of checks measured by {@link CheckBenchmark}.
+     * @return values of the "check" parameter.
+     */
+    private static String[] getCheckBenchmarkParams()
+    {
+        try {
+            return CheckBenchmark.class.getField("check")
+                    .getAnnotation(Param.class).value();
+        }
+        catch (NoSuchFieldException e) {
+            throw new IllegalStateException(
+                    "CheckBenchmark has no check parameter", e);
+        }
+    }
+
+    /**
+     * Creates configuration of a sevntu check. Checks which do nothing
+     * without properties get the properties that make them inspect
+     * generated sources.
+     * @param aCheckName name of the check relative to
+     *        {@link #CHECKS_PACKAGE}, e.g. "coding.NestedTernaryCheck".
+     * @return check configuration.
+     */
+    public static DefaultConfiguration createCheckConfig(String aCheckName)
+    {
+        final DefaultConfiguration config =
+            new DefaultConfiguration(CHECKS_PACKAGE + aCheckName);
+        if ("annotation.ForbidAnnotationCheck".equals(aCheckName)) {
+            config.addAttribute("annotationNames", "Override");
+            config.addAttribute("annotationTargets", "METHOD_DEF");
+        }
+        else if ("coding.ForbidCertainImportsCheck".equals(aCheckName)) {
+            config.addAttribute("packageNameRegexp", ".+");
+            config.addAttribute("forbiddenImportsRegexp", "java\\.util\\..+");
+            config.addAttribute("forbiddenImportsExcludesRegexp", ".+List$");
+        }
+        else if ("coding.AvoidModifiersForTypesCheck".equals(aCheckName)) {
+            config.addAttribute("forbiddenClassesRegexpStatic", "Logger");
+        }
+        else if ("design.ChildBlockLengthCheck".equals(aCheckName)) {
+            config.addAttribute("blockTypes", "LITERAL_IF, LITERAL_ELSE,"
+                    + " LITERAL_FOR, LITERAL_WHILE, LITERAL_TRY, LITERAL_CATCH");
+            config.addAttribute("ignoreBlockLinesCount", "0");
+        }
+        return config;
+    }
+
+    /**
+     * Creates a checker with a single TreeWalker which contains all
+     * given checks.
+     * @param aChecks configurations of checks.
+     * @return configured checker.
+     * @throws CheckstyleException if checker cannot be configured.
+     */
+    public static Checker createChecker(Configuration... aChecks)
+        throws CheckstyleException
+    {
+        return createChecker(TreeWalker.class.getName(), aChecks);
+    }
+
+    /**
+     * Creates a checker with a single walker which contains all given
+     * checks.
+     * @param aWalkerName class name of TreeWalker or of its replacement.
+     * @param aChecks configurations of checks.
+     * @return configured checker.
+     * @throws CheckstyleException if checker cannot be configured.
+     */
+    public static Checker createChecker(String aWalkerName,
+            Configuration... aChecks)
+        throws CheckstyleException
+    {
+        final DefaultConfiguration treeWalker =
+            new DefaultConfiguration(aWalkerName);
+        for (Configuration check : aChecks) {
+            treeWalker.addChild(check);
+        }
+        final DefaultConfiguration root =
+            new DefaultConfiguration("configuration");
+        root.addAttribute("charset", SourceGenerator.CHARSET);
+        root.addChild(treeWalker);
+
+        final Checker checker = new Checker();
+        final Locale locale = Locale.ENGLISH;
+        checker.setLocaleCountry(locale.getCountry());
+        checker.setLocaleLanguage(locale.getLanguage());
+        checker.setModuleClassLoader(BenchmarkSupport.class.getClassLoader());
+        checker.configure(root);
+        return checker;
+    }
+
+    /**
+     * Creates a temporary directory for generated sources.
+     * @return created directory.
+     * @throws IOException if the directory cannot be created.
+     */
+    public static File createTempDirectory() throws IOException
+    {
+        final File dir = File.createTempFile("sevntu-benchmark", "");
+        if (!dir.delete() || !dir.mkdir()) {
+            throw new IOException("Cannot create directory " + dir);
+        }
+        return dir;
+    }
+
+    /**
+     * Deletes a directory with generated sources.
+     * @param aDirectory directory to delete.
+     */
+    public static void deleteDirectory(File aDirectory)
+    {
+        final File[] files = aDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        aDirectory.delete();
+    }
+}
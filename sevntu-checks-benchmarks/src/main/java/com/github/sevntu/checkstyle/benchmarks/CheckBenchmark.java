@@ -0,0 +1,159 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.benchmarks;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.sevntu.checkstyle.benchmarks.SourceGenerator.SourceSize;
+import com.puppycrawl.tools.checkstyle.Checker;
+
+/**
+ * Measures throughput of every sevntu check running alone in a TreeWalker.
+ * One operation is an audit of one generated file, so the score is files per
+ * second. Parsing is included in the score, compare with
+ * {@link ParseBenchmark} to get the cost of a check itself. Allocation rate
+ * can be obtained with "-prof gc".
+ * <p>
+ * Usage example:
+ * <pre>
+ * java -jar target/benchmarks.jar CheckBenchmark -p size=HUGE -prof gc
+ * java -jar target/benchmarks.jar CheckBenchmark -p check=coding.NestedTernaryCheck
+ * </pre>
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CheckBenchmark
+{
+    /**
+     * Check to measure, relative to {@link BenchmarkSupport#CHECKS_PACKAGE}.
+     * These values are also {@link BenchmarkSupport#ALL_CHECKS}.
+     */
+    @Param({
+        "annotation.ForbidAnnotationCheck",
+        "coding.AvoidConstantAsFirstOperandInConditionCheck",
+        "coding.AvoidDefaultSerializableInInnerClasses",
+        "coding.AvoidHidingCauseExceptionCheck",
+        "coding.AvoidModifiersForTypesCheck",
+        "coding.AvoidNotShortCircuitOperatorsForBooleanCheck",
+        "coding.ConfusingConditionCheck",
+        "coding.CustomDeclarationOrderCheck",
+        "coding.DiamondOperatorForVariableDefinitionCheck",
+        "coding.EitherLogOrThrowCheck",
+        "coding.FinalizeImplementationCheck",
+        "coding.ForbidCCommentsInMethods",
+        "coding.ForbidCertainImportsCheck",
+        "coding.ForbidInstantiationCheck",
+        "coding.ForbidReturnInFinalBlockCheck",
+        "coding.ForbidThrowAnonymousExceptionsCheck",
+        "coding.IllegalCatchExtendedCheck",
+        "coding.LogicConditionNeedOptimizationCheck",
+        "coding.MapIterationInForEachLoopCheck",
+        "coding.MultipleStringLiteralsExtendedCheck",
+        "coding.MultipleVariableDeclarationsExtendedCheck",
+        "coding.NestedTernaryCheck",
+        "coding.NoNullForCollectionReturnCheck",
+        "coding.OverridableMethodInConstructorCheck",
+        "coding.RedundantReturnCheck",
+        "coding.ReturnBooleanFromTernary",
+        "coding.ReturnCountExtendedCheck",
+        "coding.ReturnNullInsteadOfBoolean",
+        "coding.SimpleAccessorNameNotationCheck",
+        "coding.UnnecessaryParenthesesExtendedCheck",
+        "design.CauseParameterInExceptionCheck",
+        "design.ChildBlockLengthCheck",
+        "design.ForbidWildcardAsReturnTypeCheck",
+        "design.HideUtilityClassConstructorCheck",
+        "design.InnerClassCheck",
+        "design.NoMainMethodInAbstractClassCheck",
+        "design.VariableDeclarationUsageDistanceCheck",
+        "naming.AbbreviationAsWordInNameCheck",
+        "naming.EnumValueNameCheck",
+        "naming.InterfaceTypeParameterNameCheck",
+        "sizes.LineLengthExtendedCheck"
+    })
+    public String check;
+
+    /** Size of the audited file. */
+    @Param({"SMALL", "MEDIUM", "HUGE"})
+    public SourceSize size;
+
+    /** Directory with the generated file. */
+    private File mDirectory;
+
+    /** Checker with the measured check. */
+    private Checker mChecker;
+
+    /** Files to audit in one operation. */
+    private List<File> mFiles;
+
+    /**
+     * Generates the input file and configures the checker.
+     * @throws Exception if the checker cannot be configured.
+     */
+    @Setup
+    public void setUp() throws Exception
+    {
+        mDirectory = BenchmarkSupport.createTempDirectory();
+        mFiles = Collections.singletonList(
+                SourceGenerator.writeSource(mDirectory, "Generated", size));
+        mChecker = BenchmarkSupport.createChecker(
+                BenchmarkSupport.createCheckConfig(check));
+    }
+
+    /**
+     * Releases the checker and removes generated file.
+     */
+    @TearDown
+    public void tearDown()
+    {
+        mChecker.destroy();
+        BenchmarkSupport.deleteDirectory(mDirectory);
+    }
+
+    /**
+     * Audits the generated file.
+     * @return count of found violations.
+     */
+    @Benchmark
+    public int audit()
+    {
+        return mChecker.process(mFiles);
+    }
+}
@@ -0,0 +1,288 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Generates synthetic Java sources that are used as input for benchmarks.
+ * <p>
+ * Every generated class consists of a number of similar "units". Each unit
+ * contains the constructs most of sevntu checks are subscribed to: fields with
+ * different modifiers, getters and setters, constructor helpers that lead to
+ * overridable methods, loops over maps, catch blocks with logging, string
+ * literals, C-style comments, nested blocks and inner classes. So the cost of
+ * a check grows with the number of units the same way it grows with the size
+ * of a real-life class.
+ * </p>
+ */
+public final class SourceGenerator
+{
+    /** Line separator of generated sources. */
+    private static final String EOL = "\n";
+
+    /** Encoding of generated sources, the same as sevntu tests use. */
+    public static final String CHARSET = "iso-8859-1";
+
+    /**
+     * Predefined sizes of generated sources.
+     */
+    public enum SourceSize
+    {
+        /** About a hundred lines, a typical small class. */
+        SMALL(1),
+        /** About two thousand lines. */
+        MEDIUM(25),
+        /** About thirty thousand lines, like a big generated source. */
+        HUGE(400);
+
+        /** Count of units in a generated class. */
+        private final int mUnits;
+
+        /**
+         * Creates source size.
+         * @param aUnits count of units in a generated class.
+         */
+        private SourceSize(int aUnits)
+        {
+            mUnits = aUnits;
+        }
+
+        /**
+         * @return count of units in a generated class.
+         */
+        public int getUnits()
+        {
+            return mUnits;
+        }
+    }
+
+    /** Prevents instantiation. */
+    private SourceGenerator()
+    {
+    }
+
+    /**
+     * Writes a generated class to the file in the given directory.
+     * @param aDirectory directory to create the file in.
+     * @param aClassName simple name of the generated class.
+     * @param aSize size of the generated class.
+     * @return created file.
+     * @throws IOException if the file cannot be written.
+     */
+    public static File writeSource(File aDirectory, String aClassName,
+            SourceSize aSize) throws IOException
+    {
+        final File file = new File(aDirectory, aClassName + ".java");
+        final Writer writer = new OutputStreamWriter(
+                new FileOutputStream(file), CHARSET);
+        try {
+            writer.write(generate(aClassName, aSize.getUnits()));
+        }
+        finally {
+            writer.close();
+        }
+        return file;
+    }
+
+    /**
+     * Generates the source of a class.
+     * @param aClassName simple name of the generated class.
+     * @param aUnits count of units in the generated class.
+     * @return source text.
+     */
+    public static String generate(String aClassName, int aUnits)
+    {
+        final StringBuilder sb = new StringBuilder();
+        line(sb, "package com.github.sevntu.checkstyle.benchmarks.generated;");
+        line(sb, "");
+        line(sb, "import java.io.Serializable;");
+        line(sb, "import java.util.ArrayList;");
+        line(sb, "import java.util.HashMap;");
+        line(sb, "import java.util.List;");
+        line(sb, "import java.util.Map;");
+        line(sb, "");
+        line(sb, "import org.slf4j.Logger;");
+        line(sb, "import org.slf4j.LoggerFactory;");
+        line(sb, "");
+        line(sb, "public class " + aClassName + " implements Cloneable, Serializable");
+        line(sb, "{");
+        line(sb, "    private static final long serialVersionUID = 1L;");
+        line(sb, "");
+        line(sb, "    private static final Logger LOG = LoggerFactory.getLogger("
+                + aClassName + ".class);");
+        line(sb, "");
+        for (int i = 0; i < aUnits; i++) {
+            appendFields(sb, i);
+        }
+        line(sb, "    public " + aClassName + "()");
+        line(sb, "    {");
+        for (int i = 0; i < aUnits; i++) {
+            line(sb, "        initUnit" + i + "();");
+        }
+        line(sb, "    }");
+        line(sb, "");
+        line(sb, "    @Override");
+        line(sb, "    public Object clone() throws CloneNotSupportedException");
+        line(sb, "    {");
+        line(sb, "        prepareUnit0();");
+        line(sb, "        return super.clone();");
+        line(sb, "    }");
+        line(sb, "");
+        for (int i = 0; i < aUnits; i++) {
+            appendMethods(sb, i);
+        }
+        line(sb, "    public static void main(String[] aArgs)");
+        line(sb, "    {");
+        line(sb, "        new " + aClassName + "();");
+        line(sb, "    }");
+        line(sb, "}");
+        return sb.toString();
+    }
+
+    /**
+     * Appends fields of a unit.
+     * @param aSb buffer to append to.
+     * @param aUnit number of the unit.
+     */
+    private static void appendFields(StringBuilder aSb, int aUnit)
+    {
+        line(aSb, "    public static final String CONSTANT_" + aUnit
+                + " = \"constant\";");
+        line(aSb, "    protected int mCounter" + aUnit + ";");
+        line(aSb, "    private final Map<String, Integer> mValues" + aUnit
+                + " = new HashMap<String, Integer>();");
+        line(aSb, "    private String mName" + aUnit + " = \"name\";");
+        line(aSb, "");
+    }
+
+    /**
+     * Appends methods and inner classes of a unit.
+     * @param aSb buffer to append to.
+     * @param aUnit number of the unit.
+     */
+    private static void appendMethods(StringBuilder aSb, int aUnit)
+    {
+        final String n = String.valueOf(aUnit);
+        line(aSb, "    public int getCounter" + n + "()");
+        line(aSb, "    {");
+        line(aSb, "        return mCounter" + n + ";");
+        line(aSb, "    }");
+        line(aSb, "");
+        line(aSb, "    public void setCounter" + n + "(int aCounter)");
+        line(aSb, "    {");
+        line(aSb, "        mCounter" + n + " = aCounter;");
+        line(aSb, "    }");
+        line(aSb, "");
+        line(aSb, "    private void initUnit" + n + "()");
+        line(aSb, "    {");
+        line(aSb, "        /* C-style comment inside of the method */");
+        line(aSb, "        validateUnit" + n + "();");
+        line(aSb, "    }");
+        line(aSb, "");
+        line(aSb, "    private void validateUnit" + n + "()");
+        line(aSb, "    {");
+        line(aSb, "        if (mName" + n + " != null) {");
+        line(aSb, "            prepareUnit" + n + "();");
+        line(aSb, "        }");
+        line(aSb, "    }");
+        line(aSb, "");
+        line(aSb, "    protected void prepareUnit" + n + "()");
+        line(aSb, "    {");
+        line(aSb, "        mValues" + n + ".put(\"key\", mCounter" + n + ");");
+        line(aSb, "    }");
+        line(aSb, "");
+        line(aSb, "    public String process" + n
+                + "(Map<String, Integer> aMap, List<String> aItems)");
+        line(aSb, "    {");
+        line(aSb, "        int total = 0;");
+        line(aSb, "        String result = \"\";");
+        line(aSb, "        final StringBuilder builder = new StringBuilder();");
+        line(aSb, "        final Map<String, Integer> copy = new HashMap<String, Integer>(aMap);");
+        line(aSb, "        for (String key : copy.keySet()) {");
+        line(aSb, "            total += copy.get(key);");
+        line(aSb, "            builder.append(\"key\").append(key);");
+        line(aSb, "        }");
+        line(aSb, "        for (String item : aItems) {");
+        line(aSb, "            if (item == null || item.length() == 0) {");
+        line(aSb, "                continue;");
+        line(aSb, "            }");
+        line(aSb, "            if (\"key\".equals(item)) {");
+        line(aSb, "                result = item + \"key\";");
+        line(aSb, "            }");
+        line(aSb, "            else {");
+        line(aSb, "                result = total > 10 ? (total > 100 ? \"big\" : \"medium\") : \"small\";");
+        line(aSb, "            }");
+        line(aSb, "        }");
+        line(aSb, "        try {");
+        line(aSb, "            total = Integer.parseInt(result);");
+        line(aSb, "        }");
+        line(aSb, "        catch (NumberFormatException e) {");
+        line(aSb, "            LOG.error(\"cannot parse \" + result, e);");
+        line(aSb, "            throw new IllegalStateException(\"cannot parse\");");
+        line(aSb, "        }");
+        line(aSb, "        catch (RuntimeException ex) {");
+        line(aSb, "            ex.printStackTrace();");
+        line(aSb, "        }");
+        line(aSb, "        while (total > 0) {");
+        line(aSb, "            if (total % 2 == 0) {");
+        line(aSb, "                total = total / 2;");
+        line(aSb, "            }");
+        line(aSb, "            else {");
+        line(aSb, "                total--;");
+        line(aSb, "            }");
+        line(aSb, "        }");
+        line(aSb, "        return builder.toString() + result + \"a long string literal"
+                + " that makes this particular line exceed the maximum length\";");
+        line(aSb, "    }");
+        line(aSb, "");
+        line(aSb, "    public List<String> items" + n + "(boolean aFlag)");
+        line(aSb, "    {");
+        line(aSb, "        if (aFlag & mCounter" + n + " > 0) {");
+        line(aSb, "            return null;");
+        line(aSb, "        }");
+        line(aSb, "        return new ArrayList<String>();");
+        line(aSb, "    }");
+        line(aSb, "");
+        line(aSb, "    class InnerXMLHelper" + n + " implements Serializable");
+        line(aSb, "    {");
+        line(aSb, "        private int mValue;");
+        line(aSb, "");
+        line(aSb, "        public int getValue()");
+        line(aSb, "        {");
+        line(aSb, "            return mValue;");
+        line(aSb, "        }");
+        line(aSb, "    }");
+        line(aSb, "");
+    }
+
+    /**
+     * Appends a line of source.
+     * @param aSb buffer to append to.
+     * @param aLine text of the line.
+     */
+    private static void line(StringBuilder aSb, String aLine)
+    {
+        aSb.append(aLine).append(EOL);
+    }
+}
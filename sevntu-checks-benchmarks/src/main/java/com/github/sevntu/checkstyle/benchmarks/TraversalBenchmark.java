@@ -0,0 +1,216 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.benchmarks;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.sevntu.checkstyle.ast.AstTraversal;
+import com.github.sevntu.checkstyle.benchmarks.SourceGenerator.SourceSize;
+import com.puppycrawl.tools.checkstyle.TreeWalker;
+import com.puppycrawl.tools.checkstyle.api.DetailAST;
+import com.puppycrawl.tools.checkstyle.api.FileContents;
+import com.puppycrawl.tools.checkstyle.api.FileText;
+import com.puppycrawl.tools.checkstyle.api.TokenTypes;
+
+/**
+ * <p>
+ * Compares {@link AstTraversal} with copying of children into lists, which
+ * checks used before. Allocation is reported when the benchmark is run
+ * with the GC profiler:
+ * </p>
+ * <pre>
+ * java -jar target/benchmarks.jar TraversalBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TraversalBenchmark
+{
+    /** Size of the traversed file. */
+    @Param({"SMALL", "MEDIUM", "HUGE"})
+    public SourceSize size;
+
+    /** Root of the parsed file. */
+    private DetailAST mRoot;
+
+    /**
+     * Generates and parses the input file.
+     * @throws Exception if the file cannot be parsed.
+     */
+    @Setup
+    public void setUp() throws Exception
+    {
+        final File directory = BenchmarkSupport.createTempDirectory();
+        try {
+            final File file =
+                SourceGenerator.writeSource(directory, "Generated", size);
+            mRoot = TreeWalker.parse(
+                    new FileContents(new FileText(file, "UTF-8")));
+        }
+        finally {
+            BenchmarkSupport.deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * Visits every node, children are copied into a list first.
+     * @return count of visited nodes.
+     */
+    @Benchmark
+    public int childrenCopied()
+    {
+        int count = 0;
+        for (DetailAST node = mRoot; node != null;
+            node = node.getNextSibling())
+        {
+            count += countCopied(node);
+        }
+        return count;
+    }
+
+    /**
+     * Visits every node, children are iterated by {@link AstTraversal}.
+     * @return count of visited nodes.
+     */
+    @Benchmark
+    public int childrenIterated()
+    {
+        int count = 0;
+        for (DetailAST node = mRoot; node != null;
+            node = node.getNextSibling())
+        {
+            count += countIterated(node);
+        }
+        return count;
+    }
+
+    /**
+     * Collects identifiers by recursion over copied children.
+     * @return count of identifiers.
+     */
+    @Benchmark
+    public int findAllRecursive()
+    {
+        final List<DetailAST> result = new ArrayList<DetailAST>();
+        for (DetailAST node = mRoot; node != null;
+            node = node.getNextSibling())
+        {
+            collectRecursive(node, TokenTypes.IDENT, result);
+        }
+        return result.size();
+    }
+
+    /**
+     * Collects identifiers by {@link AstTraversal#findAll}.
+     * @return count of identifiers.
+     */
+    @Benchmark
+    public int findAllWalked()
+    {
+        final List<DetailAST> result = new ArrayList<DetailAST>();
+        for (DetailAST node = mRoot; node != null;
+            node = node.getNextSibling())
+        {
+            AstTraversal.findAll(node, TokenTypes.IDENT, result);
+        }
+        return result.size();
+    }
+
+    /**
+     * Counts nodes of a subtree, children are copied into a list first.
+     * @param aNode the root of the subtree.
+     * @return count of nodes.
+     */
+    private static int countCopied(DetailAST aNode)
+    {
+        int count = 1;
+        for (DetailAST child : copyChildren(aNode)) {
+            count += countCopied(child);
+        }
+        return count;
+    }
+
+    /**
+     * Counts nodes of a subtree, children are iterated in place.
+     * @param aNode the root of the subtree.
+     * @return count of nodes.
+     */
+    private static int countIterated(DetailAST aNode)
+    {
+        int count = 1;
+        for (DetailAST child : AstTraversal.children(aNode)) {
+            count += countIterated(child);
+        }
+        return count;
+    }
+
+    /**
+     * Collects nodes of a type by recursion over copied children.
+     * @param aNode the root of the subtree.
+     * @param aType type of nodes.
+     * @param aResult list to add nodes to.
+     */
+    private static void collectRecursive(DetailAST aNode, int aType,
+            List<DetailAST> aResult)
+    {
+        if (aNode.getType() == aType) {
+            aResult.add(aNode);
+        }
+        for (DetailAST child : copyChildren(aNode)) {
+            collectRecursive(child, aType, aResult);
+        }
+    }
+
+    /**
+     * Copies children of a node the way checks did before
+     * {@link AstTraversal}.
+     * @param aNode the node.
+     * @return list of children.
+     */
+    private static List<DetailAST> copyChildren(DetailAST aNode)
+    {
+        final List<DetailAST> result = new LinkedList<DetailAST>();
+        DetailAST child = aNode.getFirstChild();
+        while (child != null) {
+            result.add(child);
+            child = child.getNextSibling();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,121 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.benchmarks;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.sevntu.checkstyle.benchmarks.SourceGenerator.SourceSize;
+import com.github.sevntu.checkstyle.walker.FusedTreeWalker;
+import com.puppycrawl.tools.checkstyle.Checker;
+import com.puppycrawl.tools.checkstyle.TreeWalker;
+import com.puppycrawl.tools.checkstyle.api.Configuration;
+
+/**
+ * Compares throughput of TreeWalker and {@link FusedTreeWalker} running all
+ * sevntu checks from {@link BenchmarkSupport#ALL_CHECKS} at once. One
+ * operation is an audit of one generated file.
+ * <p>
+ * Usage example:
+ * <pre>
+ * java -jar target/benchmarks.jar WalkerBenchmark -p size=HUGE -prof gc
+ * </pre>
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class WalkerBenchmark
+{
+    /** Walker to measure. */
+    @Param({"TreeWalker", "FusedTreeWalker"})
+    public String walker;
+
+    /** Size of the audited file. */
+    @Param({"SMALL", "MEDIUM", "HUGE"})
+    public SourceSize size;
+
+    /** Directory with the generated file. */
+    private File mDirectory;
+
+    /** Checker with all checks. */
+    private Checker mChecker;
+
+    /** Files to audit in one operation. */
+    private List<File> mFiles;
+
+    /**
+     * Generates the input file and configures the checker.
+     * @throws Exception if the checker cannot be configured.
+     */
+    @Setup
+    public void setUp() throws Exception
+    {
+        mDirectory = BenchmarkSupport.createTempDirectory();
+        mFiles = Collections.singletonList(
+                SourceGenerator.writeSource(mDirectory, "Generated", size));
+        final Configuration[] checks =
+            new Configuration[BenchmarkSupport.ALL_CHECKS.length];
+        for (int i = 0; i < checks.length; i++) {
+            checks[i] = BenchmarkSupport.createCheckConfig(
+                    BenchmarkSupport.ALL_CHECKS[i]);
+        }
+        final String walkerName = "FusedTreeWalker".equals(walker)
+            ? FusedTreeWalker.class.getName() : TreeWalker.class.getName();
+        mChecker = BenchmarkSupport.createChecker(walkerName, checks);
+    }
+
+    /**
+     * Releases the checker and removes generated file.
+     */
+    @TearDown
+    public void tearDown()
+    {
+        mChecker.destroy();
+        BenchmarkSupport.deleteDirectory(mDirectory);
+    }
+
+    /**
+     * Audits the generated file.
+     * @return count of found violations.
+     */
+    @Benchmark
+    public int audit()
+    {
+        return mChecker.process(mFiles);
+    }
+}
@@ -0,0 +1,211 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.runner;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.List;
+
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.Utils;
+
+/**
+ * Sends requests to {@link AuditDaemon}. The port and the token of the
+ * daemon are read from the port file written by the daemon.
+ */
+public final class AuditClient
+{
+    /** Port of the daemon. */
+    private final int mPort;
+
+    /** Token of the daemon. */
+    private final String mToken;
+
+    /**
+     * Creates the client of a daemon.
+     * @param aPortFile port file written by the daemon.
+     * @throws CheckstyleException if the port file cannot be read.
+     */
+    public AuditClient(File aPortFile) throws CheckstyleException
+    {
+        String content = null;
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(
+                    new FileInputStream(aPortFile), AuditDaemon.CHARSET));
+            content = reader.readLine();
+        }
+        catch (final IOException e) {
+            throw new CheckstyleException("Unable to read port file "
+                    + aPortFile, e);
+        }
+        finally {
+            Utils.closeQuietly(reader);
+        }
+        final String[] parts = content == null
+            ? new String[0] : content.trim().split(" ");
+        if (parts.length != 2) {
+            throw new CheckstyleException("Invalid port file " + aPortFile);
+        }
+        try {
+            mPort = Integer.parseInt(parts[0]);
+        }
+        catch (final NumberFormatException e) {
+            throw new CheckstyleException("Invalid port file " + aPortFile,
+                    e);
+        }
+        mToken = parts[1];
+    }
+
+    /**
+     * Audits files by the daemon and copies results to a stream as they
+     * arrive.
+     * @param aFiles files to audit.
+     * @param aOut stream to copy results to.
+     * @return count of errors.
+     * @throws CheckstyleException if the daemon fails to audit files.
+     */
+    public int audit(List<File> aFiles, PrintStream aOut)
+        throws CheckstyleException
+    {
+        final StringBuilder request = new StringBuilder();
+        request.append(AuditDaemon.AUDIT_COMMAND).append(' ').append(mToken)
+            .append('\n');
+        for (File file : aFiles) {
+            request.append(file.getAbsolutePath()).append('\n');
+        }
+        request.append('\n');
+
+        final Socket socket = connect();
+        try {
+            final BufferedReader reader = send(socket, request.toString());
+            String line = reader.readLine();
+            while (line != null) {
+                if (line.startsWith(AuditDaemon.ERRORS_PREFIX)) {
+                    aOut.flush();
+                    return Integer.parseInt(line.substring(
+                            AuditDaemon.ERRORS_PREFIX.length()));
+                }
+                checkFailed(line);
+                aOut.println(line);
+                aOut.flush();
+                line = reader.readLine();
+            }
+            throw new CheckstyleException("Daemon closed connection");
+        }
+        catch (final IOException e) {
+            throw new CheckstyleException("Unable to audit files", e);
+        }
+        finally {
+            close(socket);
+        }
+    }
+
+    /**
+     * Stops the daemon.
+     * @throws CheckstyleException if the daemon cannot be stopped.
+     */
+    public void stop() throws CheckstyleException
+    {
+        final Socket socket = connect();
+        try {
+            final BufferedReader reader = send(socket,
+                    AuditDaemon.STOP_COMMAND + " " + mToken + "\n");
+            final String line = reader.readLine();
+            if (line != null) {
+                checkFailed(line);
+            }
+        }
+        catch (final IOException e) {
+            throw new CheckstyleException("Unable to stop daemon", e);
+        }
+        finally {
+            close(socket);
+        }
+    }
+
+    /**
+     * Connects to the daemon.
+     * @return the connection.
+     * @throws CheckstyleException if the daemon is not running.
+     */
+    private Socket connect() throws CheckstyleException
+    {
+        try {
+            return new Socket(InetAddress.getByName("127.0.0.1"), mPort);
+        }
+        catch (final IOException e) {
+            throw new CheckstyleException("Unable to connect to daemon on port "
+                    + mPort, e);
+        }
+    }
+
+    /**
+     * Closes a connection, failure to close is only logged.
+     * @param aSocket the connection.
+     */
+    private static void close(Socket aSocket)
+    {
+        try {
+            aSocket.close();
+        }
+        catch (final IOException e) {
+            Utils.getExceptionLogger().debug("Unable to close socket.", e);
+        }
+    }
+
+    /**
+     * Sends a request.
+     * @param aSocket connection to the daemon.
+     * @param aRequest the request.
+     * @return reader of the response.
+     * @throws IOException if the connection fails.
+     */
+    private static BufferedReader send(Socket aSocket, String aRequest)
+        throws IOException
+    {
+        final Writer writer = new OutputStreamWriter(
+                aSocket.getOutputStream(), AuditDaemon.CHARSET);
+        writer.write(aRequest);
+        writer.flush();
+        return new BufferedReader(new InputStreamReader(
+                aSocket.getInputStream(), AuditDaemon.CHARSET));
+    }
+
+    /**
+     * Checks whether a line of a response reports failure of a request.
+     * @param aLine the line.
+     * @throws CheckstyleException if the request failed.
+     */
+    private static void checkFailed(String aLine) throws CheckstyleException
+    {
+        if (aLine.startsWith(AuditDaemon.FAILED_PREFIX)) {
+            throw new CheckstyleException("Daemon failed: "
+                    + aLine.substring(AuditDaemon.FAILED_PREFIX.length()));
+        }
+    }
+}
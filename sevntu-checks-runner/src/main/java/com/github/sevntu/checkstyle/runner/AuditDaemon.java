@@ -0,0 +1,444 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.runner;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.puppycrawl.tools.checkstyle.api.AuditEvent;
+import com.puppycrawl.tools.checkstyle.api.AuditListener;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.SeverityLevel;
+import com.puppycrawl.tools.checkstyle.api.Utils;
+
+/**
+ * <p>
+ * Long-lived process which keeps a configured {@link ParallelChecker} warm
+ * and audits files on request, so a client does not pay startup of the
+ * JVM, loading of checks and parsing of the configuration for every audit.
+ * The daemon accepts connections on the loopback interface only and serves
+ * them one by one; files of a request are audited by the worker threads of
+ * the checker.
+ * </p>
+ * <p>
+ * The protocol is line based text in UTF-8. The first line of a request is
+ * a command followed by the token of the daemon, which is written to the
+ * port file together with the port, so only clients which can read the file
+ * are served:
+ * </p>
+ * <pre>
+ * AUDIT &lt;token&gt;
+ * /absolute/path/First.java
+ * /absolute/path/Second.java
+ * &lt;empty line&gt;
+ * </pre>
+ * <p>
+ * Results are sent in the format of the plain logger of checkstyle and are
+ * flushed after every file, as soon as the file is audited. The last line
+ * of the response is "ERRORS &lt;count&gt;", or "FAILED &lt;reason&gt;" if the
+ * request cannot be served. "STOP &lt;token&gt;" stops the daemon.
+ * </p>
+ * <p>
+ * Requests are served one by one, so a client which connects and sends
+ * nothing would block all other clients. Reading of a request times out
+ * and the connection is closed, see {@link #setReadTimeout(int)}.
+ * </p>
+ */
+public final class AuditDaemon
+{
+    /** Command to audit files. */
+    static final String AUDIT_COMMAND = "AUDIT";
+
+    /** Command to stop the daemon. */
+    static final String STOP_COMMAND = "STOP";
+
+    /** Prefix of the last line of a successful audit. */
+    static final String ERRORS_PREFIX = "ERRORS ";
+
+    /** Prefix of the last line of a failed request. */
+    static final String FAILED_PREFIX = "FAILED ";
+
+    /** Response to the stop command. */
+    static final String STOPPED_RESPONSE = "STOPPED";
+
+    /** Encoding of requests and responses. */
+    static final String CHARSET = "UTF-8";
+
+    /** Count of bytes in the token. */
+    private static final int TOKEN_BYTES = 16;
+
+    /** Maximum count of pending connections. */
+    private static final int BACKLOG = 16;
+
+    /** Default timeout of reading a request, in milliseconds. */
+    private static final int DEFAULT_READ_TIMEOUT = 10000;
+
+    /** Checker which audits requested files. */
+    private final ParallelChecker mChecker;
+
+    /** Socket to accept connections with. */
+    private final ServerSocket mServerSocket;
+
+    /** Token a client should send with every command. */
+    private final String mToken;
+
+    /** Timeout of reading a request, in milliseconds. */
+    private int mReadTimeout = DEFAULT_READ_TIMEOUT;
+
+    /** Whether the daemon is stopped. */
+    private volatile boolean mStopped;
+
+    /**
+     * Creates the daemon and binds it to a port of the loopback interface.
+     * @param aChecker checker which audits requested files.
+     * @param aPort port to listen on, zero for any free port.
+     * @throws IOException if the port cannot be bound.
+     */
+    public AuditDaemon(ParallelChecker aChecker, int aPort)
+        throws IOException
+    {
+        mChecker = aChecker;
+        mServerSocket = new ServerSocket(aPort, BACKLOG,
+                InetAddress.getByName("127.0.0.1"));
+        mToken = createToken();
+    }
+
+    /**
+     * @return port the daemon listens on.
+     */
+    public int getPort()
+    {
+        return mServerSocket.getLocalPort();
+    }
+
+    /**
+     * @return token a client should send with every command.
+     */
+    public String getToken()
+    {
+        return mToken;
+    }
+
+    /**
+     * Sets the timeout of reading a request. A connection which sends
+     * nothing for the timeout is closed, so it does not block other clients.
+     * @param aMillis the timeout in milliseconds, must be positive.
+     */
+    public void setReadTimeout(int aMillis)
+    {
+        if (aMillis <= 0) {
+            throw new IllegalArgumentException(
+                    "Read timeout should be positive: " + aMillis);
+        }
+        mReadTimeout = aMillis;
+    }
+
+    /**
+     * Writes the port and the token to a file which is read by clients.
+     * The file is replaced by a new one which only its owner can read and
+     * write before the token is written, so other local users cannot take
+     * the token from it.
+     * @param aPortFile file to write.
+     * @throws IOException if the file cannot be created or written.
+     */
+    public void writePortFile(File aPortFile)
+        throws IOException
+    {
+        // an existing file may be readable by others, and a file which
+        // cannot be created anew may be created by another user
+        if (aPortFile.exists() && !aPortFile.delete()
+            || !aPortFile.createNewFile())
+        {
+            throw new IOException("Unable to create " + aPortFile);
+        }
+        // removing permissions of others is not supported on some
+        // platforms, files of users are private there
+        aPortFile.setReadable(false, false);
+        aPortFile.setWritable(false, false);
+        if (!aPortFile.setReadable(true, true)
+            || !aPortFile.setWritable(true, true))
+        {
+            throw new IOException(
+                    "Unable to restrict permissions of " + aPortFile);
+        }
+        final Writer writer =
+            new OutputStreamWriter(new FileOutputStream(aPortFile), CHARSET);
+        try {
+            writer.write(getPort() + " " + mToken + "\n");
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Serves connections until the daemon is stopped.
+     * @throws IOException if a connection cannot be accepted.
+     */
+    public void serve()
+        throws IOException
+    {
+        while (!mStopped) {
+            final Socket socket;
+            try {
+                socket = mServerSocket.accept();
+            }
+            catch (final SocketException e) {
+                if (mStopped) {
+                    break;
+                }
+                throw e;
+            }
+            try {
+                handle(socket);
+            }
+            catch (final IOException e) {
+                // the client has gone, the daemon serves the next one
+                Utils.getExceptionLogger().debug("Request failed.", e);
+            }
+            finally {
+                close(socket);
+            }
+        }
+    }
+
+    /**
+     * Stops the daemon, a request which is being served is finished first.
+     */
+    public void stop()
+    {
+        mStopped = true;
+        try {
+            mServerSocket.close();
+        }
+        catch (final IOException e) {
+            Utils.getExceptionLogger().debug("Unable to close socket.", e);
+        }
+    }
+
+    /**
+     * Serves a connection.
+     * @param aSocket the connection.
+     * @throws IOException if the connection fails.
+     */
+    private void handle(Socket aSocket)
+        throws IOException
+    {
+        aSocket.setSoTimeout(mReadTimeout);
+        final BufferedReader reader = new BufferedReader(
+                new InputStreamReader(aSocket.getInputStream(), CHARSET));
+        final PrintWriter writer = new PrintWriter(
+                new OutputStreamWriter(aSocket.getOutputStream(), CHARSET));
+        final String request = reader.readLine();
+        if (request != null) {
+            final int separator = request.indexOf(' ');
+            final String command = separator < 0
+                ? request : request.substring(0, separator);
+            final String token = separator < 0
+                ? "" : request.substring(separator + 1);
+            if (!mToken.equals(token)) {
+                writeLine(writer, FAILED_PREFIX + "invalid token");
+            }
+            else if (AUDIT_COMMAND.equals(command)) {
+                audit(reader, writer);
+            }
+            else if (STOP_COMMAND.equals(command)) {
+                writeLine(writer, STOPPED_RESPONSE);
+                stop();
+            }
+            else {
+                writeLine(writer, FAILED_PREFIX + "unknown command "
+                        + command);
+            }
+        }
+    }
+
+    /**
+     * Audits files of a request and streams results to the client.
+     * @param aReader reader of the rest of the request.
+     * @param aWriter writer of the response.
+     * @throws IOException if the connection fails.
+     */
+    private void audit(BufferedReader aReader, PrintWriter aWriter)
+        throws IOException
+    {
+        final List<File> files = new ArrayList<File>();
+        String line = aReader.readLine();
+        while (line != null && line.length() > 0) {
+            files.add(new File(line));
+            line = aReader.readLine();
+        }
+        final AuditListener listener = new StreamingLogger(aWriter);
+        mChecker.addListener(listener);
+        try {
+            final int errorCount = mChecker.process(files);
+            writeLine(aWriter, ERRORS_PREFIX + errorCount);
+        }
+        catch (final CheckstyleException e) {
+            writeLine(aWriter, FAILED_PREFIX + e.getMessage());
+        }
+        catch (final RuntimeException e) {
+            // the checker stays usable, the daemon serves the next request
+            Utils.getExceptionLogger().debug("Audit failed.", e);
+            writeLine(aWriter, FAILED_PREFIX + e);
+        }
+        finally {
+            mChecker.removeListener(listener);
+        }
+    }
+
+    /**
+     * Writes a line of the response and flushes it.
+     * @param aWriter writer of the response.
+     * @param aLine the line.
+     * @throws IOException if the connection fails.
+     */
+    private static void writeLine(PrintWriter aWriter, String aLine)
+        throws IOException
+    {
+        aWriter.print(aLine);
+        aWriter.print('\n');
+        aWriter.flush();
+        if (aWriter.checkError()) {
+            throw new IOException("Unable to write response");
+        }
+    }
+
+    /**
+     * Closes a connection, failure to close is only logged.
+     * @param aSocket the connection.
+     */
+    private static void close(Socket aSocket)
+    {
+        try {
+            aSocket.close();
+        }
+        catch (final IOException e) {
+            Utils.getExceptionLogger().debug("Unable to close socket.", e);
+        }
+    }
+
+    /**
+     * Creates a random token.
+     * @return the token in hex.
+     */
+    private static String createToken()
+    {
+        final byte[] bytes = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(bytes);
+        final StringBuilder result = new StringBuilder();
+        for (byte b : bytes) {
+            result.append(Integer.toHexString((b >> 4) & 0xF))
+                .append(Integer.toHexString(b & 0xF));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Writes events in the format of the plain logger of checkstyle and
+     * flushes them after every file.
+     */
+    private static final class StreamingLogger implements AuditListener
+    {
+        /** Writer of the response. */
+        private final PrintWriter mWriter;
+
+        /**
+         * Creates the logger.
+         * @param aWriter writer of the response.
+         */
+        StreamingLogger(PrintWriter aWriter)
+        {
+            mWriter = aWriter;
+        }
+
+        @Override
+        public void auditStarted(AuditEvent aEvt)
+        {
+            println("Starting audit...");
+        }
+
+        @Override
+        public void auditFinished(AuditEvent aEvt)
+        {
+            println("Audit done.");
+            mWriter.flush();
+        }
+
+        @Override
+        public void fileStarted(AuditEvent aEvt)
+        {
+        }
+
+        @Override
+        public void fileFinished(AuditEvent aEvt)
+        {
+            mWriter.flush();
+        }
+
+        @Override
+        public void addError(AuditEvent aEvt)
+        {
+            final SeverityLevel severityLevel = aEvt.getSeverityLevel();
+            if (!SeverityLevel.IGNORE.equals(severityLevel)) {
+                final StringBuilder line = new StringBuilder();
+                line.append(aEvt.getFileName()).append(':')
+                    .append(aEvt.getLine());
+                if (aEvt.getColumn() > 0) {
+                    line.append(':').append(aEvt.getColumn());
+                }
+                if (SeverityLevel.WARNING.equals(severityLevel)) {
+                    line.append(": warning");
+                }
+                line.append(": ").append(aEvt.getMessage());
+                println(line.toString());
+            }
+        }
+
+        @Override
+        public void addException(AuditEvent aEvt, Throwable aThrowable)
+        {
+            println("Error auditing " + aEvt.getFileName());
+            aThrowable.printStackTrace(mWriter);
+        }
+
+        /**
+         * Writes a line with the separator of the protocol.
+         * @param aLine the line.
+         */
+        private void println(String aLine)
+        {
+            mWriter.print(aLine);
+            mWriter.print('\n');
+        }
+    }
+}
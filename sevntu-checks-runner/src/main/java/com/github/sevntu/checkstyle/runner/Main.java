@@ -0,0 +1,382 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.runner;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.cli.PosixParser;
+
+import com.puppycrawl.tools.checkstyle.ConfigurationLoader;
+import com.puppycrawl.tools.checkstyle.DefaultLogger;
+import com.puppycrawl.tools.checkstyle.PropertiesExpander;
+import com.puppycrawl.tools.checkstyle.XMLLogger;
+import com.puppycrawl.tools.checkstyle.api.AuditListener;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.Configuration;
+import com.puppycrawl.tools.checkstyle.api.Utils;
+
+/**
+ * Command line entry point which audits files with {@link ParallelChecker}.
+ * Accepts the same options as checkstyle Main plus "-t" to set the count
+ * of worker threads. With "-d" the checker is kept warm in
+ * {@link AuditDaemon}, "-a" audits files by the running daemon and "-x"
+ * stops it.
+ */
+public final class Main
+{
+    /** The options to the command line. */
+    private static final Options OPTS = new Options();
+
+    static {
+        OPTS.addOption("c", true, "The check configuration file to use.");
+        OPTS.addOption("r", true, "Traverse the directory for source files");
+        OPTS.addOption("o", true, "Sets the output file. Defaults to stdout");
+        OPTS.addOption("p", true, "Loads the properties file");
+        OPTS.addOption("f", true,
+                "Sets the output format. (plain|xml). Defaults to plain");
+        OPTS.addOption("t", true,
+                "Sets the count of worker threads. Defaults to the count"
+                + " of available processors");
+        OPTS.addOption("d", true, "Runs the audit daemon which writes its"
+                + " port to the given file");
+        OPTS.addOption("a", true, "Audits files by the daemon which wrote"
+                + " the given port file");
+        OPTS.addOption("x", true, "Stops the daemon which wrote the given"
+                + " port file");
+    }
+
+    /** Prevents instantiation. */
+    private Main()
+    {
+    }
+
+    /**
+     * Loops over the files specified checking them for errors. The exit code
+     * is the number of errors found in all the files.
+     * @param aArgs the command line arguments
+     */
+    public static void main(String[] aArgs)
+    {
+        final CommandLine line = parseCommandLine(aArgs);
+        if (line.hasOption("x")) {
+            stopDaemon(new File(line.getOptionValue("x")));
+        }
+        if (line.hasOption("a")) {
+            auditByDaemon(new File(line.getOptionValue("a")),
+                    getFilesToProcess(line));
+        }
+
+        final Properties props = line.hasOption("p")
+            ? loadProperties(new File(line.getOptionValue("p")))
+            : System.getProperties();
+
+        if (!line.hasOption("c")) {
+            System.out.println("Must specify a config XML file.");
+            usage();
+        }
+        final Configuration config = loadConfig(line, props);
+        if (line.hasOption("d")) {
+            runDaemon(config, getThreadCount(line),
+                    new File(line.getOptionValue("d")));
+        }
+
+        OutputStream out = System.out;
+        boolean closeOut = false;
+        if (line.hasOption("o")) {
+            final String fname = line.getOptionValue("o");
+            try {
+                out = new FileOutputStream(fname);
+                closeOut = true;
+            }
+            catch (final FileNotFoundException e) {
+                System.out.println("Could not find file: '" + fname + "'");
+                System.exit(1);
+            }
+        }
+        final AuditListener listener = createListener(line, out, closeOut);
+        final List<File> files = getFilesToProcess(line);
+
+        final ParallelChecker checker = new ParallelChecker(config,
+                Main.class.getClassLoader(), getThreadCount(line));
+        checker.addListener(listener);
+        int numErrs = 0;
+        try {
+            numErrs = checker.process(files);
+        }
+        catch (final CheckstyleException e) {
+            System.out.println("Unable to audit files: " + e.getMessage());
+            e.printStackTrace(System.out);
+            System.exit(1);
+        }
+        finally {
+            checker.destroy();
+        }
+        System.exit(numErrs);
+    }
+
+    /**
+     * Runs the audit daemon until it is stopped, then exits.
+     * @param aConfig the configuration of the checker.
+     * @param aThreadCount count of worker threads.
+     * @param aPortFile file to write the port of the daemon to.
+     */
+    private static void runDaemon(Configuration aConfig, int aThreadCount,
+            File aPortFile)
+    {
+        final ParallelChecker checker = new ParallelChecker(aConfig,
+                Main.class.getClassLoader(), aThreadCount);
+        try {
+            final AuditDaemon daemon = new AuditDaemon(checker, 0);
+            daemon.writePortFile(aPortFile);
+            try {
+                daemon.serve();
+            }
+            finally {
+                aPortFile.delete();
+            }
+        }
+        catch (final IOException e) {
+            System.out.println("Audit daemon failed: " + e.getMessage());
+            e.printStackTrace(System.out);
+            System.exit(1);
+        }
+        finally {
+            checker.destroy();
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Audits files by the running daemon and exits, the exit code is the
+     * number of errors found in all the files.
+     * @param aPortFile port file written by the daemon.
+     * @param aFiles files to audit.
+     */
+    private static void auditByDaemon(File aPortFile, List<File> aFiles)
+    {
+        int numErrs = 0;
+        try {
+            numErrs = new AuditClient(aPortFile).audit(aFiles, System.out);
+        }
+        catch (final CheckstyleException e) {
+            System.out.println("Unable to audit files: " + e.getMessage());
+            e.printStackTrace(System.out);
+            System.exit(1);
+        }
+        System.exit(numErrs);
+    }
+
+    /**
+     * Stops the running daemon and exits.
+     * @param aPortFile port file written by the daemon.
+     */
+    private static void stopDaemon(File aPortFile)
+    {
+        try {
+            new AuditClient(aPortFile).stop();
+        }
+        catch (final CheckstyleException e) {
+            System.out.println("Unable to stop daemon: " + e.getMessage());
+            e.printStackTrace(System.out);
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Parses the command line.
+     * @param aArgs the command line arguments.
+     * @return parsed command line.
+     */
+    private static CommandLine parseCommandLine(String[] aArgs)
+    {
+        CommandLine line = null;
+        try {
+            line = new PosixParser().parse(OPTS, aArgs);
+        }
+        catch (final ParseException e) {
+            e.printStackTrace();
+            usage();
+        }
+        return line;
+    }
+
+    /**
+     * Gets the count of worker threads.
+     * @param aLine the command line.
+     * @return the count of worker threads.
+     */
+    private static int getThreadCount(CommandLine aLine)
+    {
+        int result = Runtime.getRuntime().availableProcessors();
+        if (aLine.hasOption("t")) {
+            try {
+                result = Integer.parseInt(aLine.getOptionValue("t"));
+            }
+            catch (final NumberFormatException e) {
+                result = 0;
+            }
+            if (result < 1) {
+                System.out.println("Invalid count of threads: ("
+                        + aLine.getOptionValue("t") + ").");
+                usage();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Loads the configuration file.
+     * @param aLine the command line.
+     * @param aProps the properties to expand the configuration with.
+     * @return the loaded configuration.
+     */
+    private static Configuration loadConfig(CommandLine aLine,
+            Properties aProps)
+    {
+        Configuration result = null;
+        try {
+            result = ConfigurationLoader.loadConfiguration(
+                    aLine.getOptionValue("c"), new PropertiesExpander(aProps));
+        }
+        catch (final CheckstyleException e) {
+            System.out.println("Error loading configuration file");
+            e.printStackTrace(System.out);
+            System.exit(1);
+        }
+        return result;
+    }
+
+    /**
+     * Creates the audit listener.
+     * @param aLine the command line.
+     * @param aOut the stream to log to.
+     * @param aCloseOut whether the stream should be closed.
+     * @return a fresh new <code>AuditListener</code>
+     */
+    private static AuditListener createListener(CommandLine aLine,
+            OutputStream aOut, boolean aCloseOut)
+    {
+        final String format =
+            aLine.hasOption("f") ? aLine.getOptionValue("f") : "plain";
+
+        AuditListener listener = null;
+        if ("xml".equals(format)) {
+            listener = new XMLLogger(aOut, aCloseOut);
+        }
+        else if ("plain".equals(format)) {
+            listener = new DefaultLogger(aOut, aCloseOut);
+        }
+        else {
+            System.out.println("Invalid format: (" + format
+                    + "). Must be 'plain' or 'xml'.");
+            usage();
+        }
+        return listener;
+    }
+
+    /**
+     * Determines the files to process.
+     * @param aLine the command line.
+     * @return list of files to process.
+     */
+    private static List<File> getFilesToProcess(CommandLine aLine)
+    {
+        final List<File> files = new ArrayList<File>();
+        if (aLine.hasOption("r")) {
+            for (String element : aLine.getOptionValues("r")) {
+                traverse(new File(element), files);
+            }
+        }
+        for (String element : aLine.getArgs()) {
+            files.add(new File(element));
+        }
+        if (files.isEmpty() && !aLine.hasOption("r")) {
+            System.out.println("Must specify files to process");
+            usage();
+        }
+        return files;
+    }
+
+    /**
+     * Traverses a specified node looking for files to check.
+     * @param aNode the node to start traversing from.
+     * @param aFiles list to add found files to.
+     */
+    private static void traverse(File aNode, List<File> aFiles)
+    {
+        if (aNode.canRead()) {
+            if (aNode.isDirectory()) {
+                final File[] nodes = aNode.listFiles();
+                for (File element : nodes) {
+                    traverse(element, aFiles);
+                }
+            }
+            else if (aNode.isFile()) {
+                aFiles.add(aNode);
+            }
+        }
+    }
+
+    /**
+     * Loads properties from a File.
+     * @param aFile the properties file
+     * @return the properties in aFile
+     */
+    private static Properties loadProperties(File aFile)
+    {
+        final Properties properties = new Properties();
+        FileInputStream fis = null;
+        try {
+            fis = new FileInputStream(aFile);
+            properties.load(fis);
+        }
+        catch (final IOException ex) {
+            System.out.println("Unable to load properties from file: "
+                    + aFile.getAbsolutePath());
+            ex.printStackTrace(System.out);
+            System.exit(1);
+        }
+        finally {
+            Utils.closeQuietly(fis);
+        }
+        return properties;
+    }
+
+    /** Prints the usage information and exits. */
+    private static void usage()
+    {
+        final HelpFormatter hf = new HelpFormatter();
+        hf.printHelp("java " + Main.class.getName()
+                + " [options] -c <config.xml> file...", OPTS);
+        System.exit(1);
+    }
+}
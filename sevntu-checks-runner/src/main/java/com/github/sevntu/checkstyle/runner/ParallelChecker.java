@@ -0,0 +1,836 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.runner;
+
+import java.io.File;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.sevntu.checkstyle.walker.AuditAware;
+import com.github.sevntu.checkstyle.walker.FusedTreeWalker;
+import com.puppycrawl.tools.checkstyle.Checker;
+import com.puppycrawl.tools.checkstyle.PackageNamesLoader;
+import com.puppycrawl.tools.checkstyle.TreeWalker;
+import com.puppycrawl.tools.checkstyle.api.AbstractFileSetCheck;
+import com.puppycrawl.tools.checkstyle.api.AuditEvent;
+import com.puppycrawl.tools.checkstyle.api.AuditListener;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.Configuration;
+import com.puppycrawl.tools.checkstyle.api.FileSetCheck;
+
+/**
+ * <p>
+ * Audits files in parallel. Checks keep the state of the file which is
+ * currently processed in their fields, so one {@link Checker} can process
+ * only one file at a time. This class creates an isolated {@link Checker}
+ * (with its own instances of all checks, filters and file set checks) for
+ * every worker thread from the same configuration. Every worker runs a
+ * single audit of its checker and takes files from the common queue one by
+ * one until the queue is empty, so long files do not hold up the whole
+ * partition and file set checks are started and finished once per audit.
+ * </p>
+ * <p>
+ * Events produced by workers are buffered per file and passed to listeners
+ * in the order of the input list, as soon as all previous files are
+ * finished. Events fired by workers at the end of their audits follow
+ * events of all files. So the output is the same as the output of a single
+ * {@link Checker} and does not depend on the count of threads.
+ * </p>
+ * <p>
+ * Modules which need all files of an audit, like TranslationCheck or checks
+ * of {@link FusedTreeWalker} which implement {@link AuditAware}, would see
+ * only the files of their worker, so they are rejected unless the checker
+ * runs a single thread.
+ * </p>
+ * <p>
+ * Note: "cacheFile" property of TreeWalker is not supported, every worker
+ * would overwrite the cache of the others.
+ * </p>
+ */
+public class ParallelChecker
+{
+    /** Configuration of the Checker which is used for every worker. */
+    private final Configuration mConfiguration;
+
+    /** Class loader to load modules with. */
+    private final ClassLoader mModuleClassLoader;
+
+    /** Count of worker threads. */
+    private final int mThreadCount;
+
+    /** Listeners of merged events. */
+    private final List<AuditListener> mListeners =
+        new ArrayList<AuditListener>();
+
+    /** All workers created so far, they are destroyed in {@link #destroy()}. */
+    private final List<Worker> mWorkers =
+        Collections.synchronizedList(new ArrayList<Worker>());
+
+    /** Worker of the current thread. */
+    private final ThreadLocal<Worker> mWorker = new ThreadLocal<Worker>();
+
+    /** Executes audits of workers. */
+    private final ExecutorService mExecutor;
+
+    /** Whether modules of the configuration are checked for threads. */
+    private boolean mModulesChecked;
+
+    /**
+     * Creates a parallel checker.
+     * @param aConfiguration
+     *        configuration of a Checker, usually loaded by
+     *        {@link com.puppycrawl.tools.checkstyle.ConfigurationLoader}.
+     * @param aModuleClassLoader
+     *        class loader to load modules with.
+     * @param aThreadCount
+     *        count of worker threads.
+     */
+    public ParallelChecker(Configuration aConfiguration,
+            ClassLoader aModuleClassLoader, int aThreadCount)
+    {
+        if (aThreadCount < 1) {
+            throw new IllegalArgumentException(
+                    "Count of threads should be positive: " + aThreadCount);
+        }
+        mConfiguration = aConfiguration;
+        mModuleClassLoader = aModuleClassLoader;
+        mThreadCount = aThreadCount;
+        mExecutor = Executors.newFixedThreadPool(aThreadCount,
+                new WorkerThreadFactory());
+    }
+
+    /**
+     * @return count of worker threads.
+     */
+    public int getThreadCount()
+    {
+        return mThreadCount;
+    }
+
+    /**
+     * Adds the listener of audit events.
+     * @param aListener the listener to add.
+     */
+    public void addListener(AuditListener aListener)
+    {
+        mListeners.add(aListener);
+    }
+
+    /**
+     * Removes the listener of audit events.
+     * @param aListener the listener to remove.
+     */
+    public void removeListener(AuditListener aListener)
+    {
+        mListeners.remove(aListener);
+    }
+
+    /**
+     * Audits the files and passes events to listeners in the order of files.
+     * @param aFiles files to audit.
+     * @return count of errors found.
+     * @throws CheckstyleException
+     *         if a worker cannot be configured or fails, or the
+     *         configuration contains modules which need all files of an
+     *         audit and the checker runs several threads.
+     */
+    public int process(List<File> aFiles) throws CheckstyleException
+    {
+        if (mThreadCount > 1 && !mModulesChecked) {
+            checkModules();
+            mModulesChecked = true;
+        }
+        final FileQueue queue = new FileQueue(aFiles);
+        final List<Future<WorkerAudit>> results =
+            new ArrayList<Future<WorkerAudit>>(mThreadCount);
+        for (int i = 0; i < mThreadCount; i++) {
+            results.add(mExecutor.submit(new Callable<WorkerAudit>() {
+                @Override
+                public WorkerAudit call() throws CheckstyleException
+                {
+                    boolean finished = false;
+                    try {
+                        final WorkerAudit result = getWorker().audit(queue);
+                        finished = true;
+                        return result;
+                    }
+                    finally {
+                        if (!finished) {
+                            // files taken by the worker will never be
+                            // finished, so other workers stop too
+                            queue.fail();
+                        }
+                    }
+                }
+            }));
+        }
+
+        int errorCount = 0;
+        fireAuditStarted();
+        try {
+            for (int i = 0; i < aFiles.size(); i++) {
+                final List<RecordedEvent> events = queue.take(i);
+                if (events == null) {
+                    break;
+                }
+                fireEvents(events);
+            }
+            // a failure of a worker is thrown here
+            for (Future<WorkerAudit> result : results) {
+                final WorkerAudit audit = result.get();
+                errorCount += audit.getErrorCount();
+                fireEvents(audit.getEvents());
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queue.fail();
+            cancel(results);
+            throw new CheckstyleException("Audit was interrupted", e);
+        }
+        catch (ExecutionException e) {
+            cancel(results);
+            final Throwable cause = e.getCause();
+            if (cause instanceof CheckstyleException) {
+                throw (CheckstyleException) cause;
+            }
+            throw new CheckstyleException("Audit failed: " + cause, cause);
+        }
+        fireAuditFinished();
+        return errorCount;
+    }
+
+    /**
+     * Stops worker threads and destroys their checkers.
+     */
+    public void destroy()
+    {
+        mExecutor.shutdownNow();
+        synchronized (mWorkers) {
+            for (Worker worker : mWorkers) {
+                worker.destroy();
+            }
+            mWorkers.clear();
+        }
+        mListeners.clear();
+    }
+
+    /**
+     * Gets the worker of the current thread, creates it at the first call.
+     * @return worker of the current thread.
+     * @throws CheckstyleException if checker of worker cannot be configured.
+     */
+    private Worker getWorker() throws CheckstyleException
+    {
+        Worker worker = mWorker.get();
+        if (worker == null) {
+            worker = new Worker(createChecker());
+            mWorker.set(worker);
+            mWorkers.add(worker);
+        }
+        return worker;
+    }
+
+    /**
+     * Creates a checker for a worker thread.
+     * @return configured checker.
+     * @throws CheckstyleException if checker cannot be configured.
+     */
+    protected Checker createChecker() throws CheckstyleException
+    {
+        final Checker checker = new Checker();
+        checker.setModuleClassLoader(mModuleClassLoader);
+        checker.configure(mConfiguration);
+        return checker;
+    }
+
+    /**
+     * Checks that the configuration does not contain modules which need all
+     * files of an audit: file set checks which report violations when
+     * processing is finished and checks of {@link FusedTreeWalker} which
+     * implement {@link AuditAware}.
+     * @throws CheckstyleException if such a module is found or a module
+     *         cannot be created.
+     */
+    private void checkModules() throws CheckstyleException
+    {
+        final Set<String> packages =
+            PackageNamesLoader.getPackageNames(mModuleClassLoader);
+        for (Configuration child : mConfiguration.getChildren()) {
+            final Class<?> module = loadModuleClass(child.getName(), packages);
+            if (module == null) {
+                // the checker of a worker reports unknown modules
+                continue;
+            }
+            if (FusedTreeWalker.class.isAssignableFrom(module)) {
+                for (Configuration check : child.getChildren()) {
+                    final Class<?> checkClass =
+                        loadModuleClass(check.getName(), packages);
+                    if (checkClass != null
+                            && AuditAware.class.isAssignableFrom(checkClass))
+                    {
+                        throw createThreadsException(check.getName());
+                    }
+                }
+            }
+            else if (FileSetCheck.class.isAssignableFrom(module)
+                    && !TreeWalker.class.isAssignableFrom(module)
+                    && overridesFinishProcessing(module))
+            {
+                throw createThreadsException(child.getName());
+            }
+        }
+    }
+
+    /**
+     * Loads the class of a module by its name in the configuration, the
+     * same way as the checker does: the name may be a qualified name of
+     * the class or a name in one of the packages of modules, optionally
+     * without "Check" suffix.
+     * @param aName name of the module.
+     * @param aPackages packages of modules.
+     * @return the class or null if it is not found.
+     */
+    private Class<?> loadModuleClass(String aName, Set<String> aPackages)
+    {
+        final List<String> names = new ArrayList<String>();
+        for (String name : new String[] {aName, aName + "Check"}) {
+            names.add(name);
+            for (String packageName : aPackages) {
+                names.add(packageName + name);
+            }
+        }
+        Class<?> result = null;
+        for (int i = 0; result == null && i < names.size(); i++) {
+            try {
+                result = Class.forName(names.get(i), false, mModuleClassLoader);
+            }
+            catch (final ClassNotFoundException e) {
+                // try the next name
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether a class of file set checks overrides
+     * finishProcessing() of {@link AbstractFileSetCheck}.
+     * @param aModule the class.
+     * @return true if the method is overridden.
+     */
+    private static boolean overridesFinishProcessing(Class<?> aModule)
+    {
+        try {
+            return aModule.getMethod("finishProcessing")
+                .getDeclaringClass() != AbstractFileSetCheck.class;
+        }
+        catch (final NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Creates the exception about a module which needs all files of
+     * an audit.
+     * @param aModuleName name of the module.
+     * @return the exception.
+     */
+    private CheckstyleException createThreadsException(String aModuleName)
+    {
+        return new CheckstyleException("Module " + aModuleName
+                + " needs all files of an audit and cannot be run in "
+                + mThreadCount + " threads, use a single thread");
+    }
+
+    /**
+     * Cancels audits which are not finished yet.
+     * @param aResults results of audits.
+     */
+    private static void cancel(List<Future<WorkerAudit>> aResults)
+    {
+        for (Future<WorkerAudit> result : aResults) {
+            result.cancel(true);
+        }
+    }
+
+    /** Notifies listeners about the beginning of the audit. */
+    private void fireAuditStarted()
+    {
+        final AuditEvent event = new AuditEvent(this);
+        for (AuditListener listener : mListeners) {
+            listener.auditStarted(event);
+        }
+    }
+
+    /** Notifies listeners about the end of the audit. */
+    private void fireAuditFinished()
+    {
+        final AuditEvent event = new AuditEvent(this);
+        for (AuditListener listener : mListeners) {
+            listener.auditFinished(event);
+        }
+    }
+
+    /**
+     * Passes recorded events to listeners.
+     * @param aEvents events recorded for one file or at the end of an audit.
+     */
+    private void fireEvents(List<RecordedEvent> aEvents)
+    {
+        for (RecordedEvent recorded : aEvents) {
+            for (AuditListener listener : mListeners) {
+                recorded.fire(listener);
+            }
+        }
+    }
+
+    /**
+     * Checker of a worker thread with the listener recording its events.
+     */
+    private static final class Worker
+    {
+        /** Checker of the worker thread. */
+        private final Checker mChecker;
+
+        /** Records events of the checker. */
+        private final RecordingListener mRecorder = new RecordingListener();
+
+        /**
+         * Creates a worker.
+         * @param aChecker checker of the worker thread.
+         */
+        Worker(Checker aChecker)
+        {
+            mChecker = aChecker;
+            mChecker.addListener(mRecorder);
+        }
+
+        /**
+         * Audits files of the queue until it is empty.
+         * @param aQueue the queue of files of the audit.
+         * @return events recorded at the end of the audit.
+         */
+        WorkerAudit audit(FileQueue aQueue)
+        {
+            mRecorder.start(aQueue);
+            final int errorCount =
+                mChecker.process(new QueuedFiles(aQueue, mRecorder));
+            return new WorkerAudit(mRecorder.finish(), errorCount);
+        }
+
+        /** Destroys checker of the worker. */
+        void destroy()
+        {
+            mChecker.destroy();
+        }
+    }
+
+    /**
+     * Result of the audit of a worker.
+     */
+    private static final class WorkerAudit
+    {
+        /** Events fired after the last file of the worker. */
+        private final List<RecordedEvent> mEvents;
+
+        /** Count of errors in all files of the worker. */
+        private final int mErrorCount;
+
+        /**
+         * Creates result of an audit.
+         * @param aEvents events fired after the last file of the worker.
+         * @param aErrorCount count of errors in all files of the worker.
+         */
+        WorkerAudit(List<RecordedEvent> aEvents, int aErrorCount)
+        {
+            mEvents = aEvents;
+            mErrorCount = aErrorCount;
+        }
+
+        /**
+         * @return events fired after the last file of the worker.
+         */
+        List<RecordedEvent> getEvents()
+        {
+            return mEvents;
+        }
+
+        /**
+         * @return count of errors in all files of the worker.
+         */
+        int getErrorCount()
+        {
+            return mErrorCount;
+        }
+    }
+
+    /**
+     * Files of an audit which are taken by workers and events of files
+     * which are finished.
+     */
+    private static final class FileQueue
+    {
+        /** Files of the audit. */
+        private final List<File> mFiles;
+
+        /** Events of finished files which are not taken yet. */
+        private final List<List<RecordedEvent>> mEvents;
+
+        /** Index of the next file to take. */
+        private int mNext;
+
+        /** Whether a worker has failed. */
+        private boolean mFailed;
+
+        /**
+         * Creates a queue.
+         * @param aFiles files of the audit.
+         */
+        FileQueue(List<File> aFiles)
+        {
+            mFiles = aFiles;
+            mEvents = new ArrayList<List<RecordedEvent>>(
+                    Collections.<List<RecordedEvent>>nCopies(
+                            aFiles.size(), null));
+        }
+
+        /**
+         * Takes the next file to audit.
+         * @return index of the file or -1 if there are no more files.
+         */
+        synchronized int next()
+        {
+            return mFailed || mNext == mFiles.size() ? -1 : mNext++;
+        }
+
+        /**
+         * @param aIndex index of a file.
+         * @return the file.
+         */
+        File get(int aIndex)
+        {
+            return mFiles.get(aIndex);
+        }
+
+        /**
+         * Stores events of a finished file.
+         * @param aIndex index of the file.
+         * @param aEvents events of the file.
+         */
+        synchronized void finish(int aIndex, List<RecordedEvent> aEvents)
+        {
+            mEvents.set(aIndex, aEvents);
+            notifyAll();
+        }
+
+        /** Stops the audit after a failure of a worker. */
+        synchronized void fail()
+        {
+            mFailed = true;
+            notifyAll();
+        }
+
+        /**
+         * Waits until a file is finished and takes its events.
+         * @param aIndex index of the file.
+         * @return events of the file or null if a worker has failed.
+         * @throws InterruptedException if the thread is interrupted.
+         */
+        synchronized List<RecordedEvent> take(int aIndex)
+            throws InterruptedException
+        {
+            while (mEvents.get(aIndex) == null && !mFailed) {
+                wait();
+            }
+            return mEvents.set(aIndex, null);
+        }
+    }
+
+    /**
+     * Files of the queue as a list which is passed to the checker of
+     * a worker. Files are taken from the queue when the checker asks for
+     * them, so the list supports only a single iteration; size() and get()
+     * are not supported since files of the worker are not known until the
+     * queue is drained. This relies on Checker.process of Checkstyle 5.7,
+     * which only iterates over files;
+     * ParallelCheckerTest.testCheckerOnlyIteratesFiles fails if another
+     * version of Checkstyle calls other methods of the list.
+     */
+    private static final class QueuedFiles extends AbstractList<File>
+    {
+        /** The queue. */
+        private final FileQueue mQueue;
+
+        /** Recorder which is told about taken files. */
+        private final RecordingListener mRecorder;
+
+        /**
+         * Creates a list.
+         * @param aQueue the queue.
+         * @param aRecorder recorder which is told about taken files.
+         */
+        QueuedFiles(FileQueue aQueue, RecordingListener aRecorder)
+        {
+            mQueue = aQueue;
+            mRecorder = aRecorder;
+        }
+
+        @Override
+        public Iterator<File> iterator()
+        {
+            return new Iterator<File>() {
+                /** Index of the taken file which is not returned yet. */
+                private int mNextIndex = -2;
+
+                @Override
+                public boolean hasNext()
+                {
+                    if (mNextIndex == -2) {
+                        mNextIndex = mQueue.next();
+                    }
+                    return mNextIndex >= 0;
+                }
+
+                @Override
+                public File next()
+                {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    final int index = mNextIndex;
+                    mNextIndex = -2;
+                    mRecorder.startFile(index);
+                    return mQueue.get(index);
+                }
+
+                @Override
+                public void remove()
+                {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public File get(int aIndex)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int size()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Type of the recorded event, defines the method of the listener the
+     * event is passed to.
+     */
+    private enum EventType
+    {
+        /** {@link AuditListener#fileStarted(AuditEvent)}. */
+        FILE_STARTED,
+        /** {@link AuditListener#addError(AuditEvent)}. */
+        ERROR,
+        /** {@link AuditListener#addException(AuditEvent, Throwable)}. */
+        EXCEPTION,
+        /** {@link AuditListener#fileFinished(AuditEvent)}. */
+        FILE_FINISHED
+    }
+
+    /**
+     * Event which is recorded to be passed to listeners later.
+     */
+    private static final class RecordedEvent
+    {
+        /** Type of the event. */
+        private final EventType mType;
+
+        /** The event itself. */
+        private final AuditEvent mEvent;
+
+        /** Exception for {@link EventType#EXCEPTION} events. */
+        private final Throwable mThrowable;
+
+        /**
+         * Creates a recorded event.
+         * @param aType type of the event.
+         * @param aEvent the event itself.
+         * @param aThrowable exception of the event or null.
+         */
+        RecordedEvent(EventType aType, AuditEvent aEvent, Throwable aThrowable)
+        {
+            mType = aType;
+            mEvent = aEvent;
+            mThrowable = aThrowable;
+        }
+
+        /**
+         * Passes the event to the listener.
+         * @param aListener listener to pass the event to.
+         */
+        void fire(AuditListener aListener)
+        {
+            switch (mType) {
+            case FILE_STARTED:
+                aListener.fileStarted(mEvent);
+                break;
+            case ERROR:
+                aListener.addError(mEvent);
+                break;
+            case EXCEPTION:
+                aListener.addException(mEvent, mThrowable);
+                break;
+            case FILE_FINISHED:
+                aListener.fileFinished(mEvent);
+                break;
+            default:
+                throw new IllegalStateException("Unknown event: " + mType);
+            }
+        }
+    }
+
+    /**
+     * Records events of a worker checker. Events of a file are passed to the
+     * queue when the file is finished, events fired after the last file are
+     * kept until the end of the audit. Audit level events are ignored, they
+     * are fired by {@link ParallelChecker} itself.
+     */
+    private static final class RecordingListener implements AuditListener
+    {
+        /** Queue of the current audit. */
+        private FileQueue mQueue;
+
+        /** Index of the current file or -1 after the last file. */
+        private int mFileIndex = -1;
+
+        /**
+         * Events recorded since the current file is started or, after the
+         * last file, since the last file is finished.
+         */
+        private List<RecordedEvent> mEvents = new ArrayList<RecordedEvent>();
+
+        /**
+         * Starts recording of an audit.
+         * @param aQueue queue of files of the audit.
+         */
+        void start(FileQueue aQueue)
+        {
+            mQueue = aQueue;
+            mFileIndex = -1;
+            mEvents = new ArrayList<RecordedEvent>();
+        }
+
+        /**
+         * Starts recording of a file.
+         * @param aIndex index of the file in the queue.
+         */
+        void startFile(int aIndex)
+        {
+            mFileIndex = aIndex;
+            mEvents = new ArrayList<RecordedEvent>();
+        }
+
+        /**
+         * Finishes recording of the audit.
+         * @return events recorded after the last file.
+         */
+        List<RecordedEvent> finish()
+        {
+            final List<RecordedEvent> result = mEvents;
+            mQueue = null;
+            mEvents = new ArrayList<RecordedEvent>();
+            return result;
+        }
+
+        @Override
+        public void auditStarted(AuditEvent aEvt)
+        {
+        }
+
+        @Override
+        public void auditFinished(AuditEvent aEvt)
+        {
+        }
+
+        @Override
+        public void fileStarted(AuditEvent aEvt)
+        {
+            mEvents.add(new RecordedEvent(EventType.FILE_STARTED, aEvt, null));
+        }
+
+        @Override
+        public void fileFinished(AuditEvent aEvt)
+        {
+            mEvents.add(new RecordedEvent(EventType.FILE_FINISHED, aEvt, null));
+            // file set checks report files again when processing is
+            // finished, these events are kept until the end of the audit
+            if (mFileIndex >= 0) {
+                mQueue.finish(mFileIndex, mEvents);
+                mFileIndex = -1;
+                mEvents = new ArrayList<RecordedEvent>();
+            }
+        }
+
+        @Override
+        public void addError(AuditEvent aEvt)
+        {
+            mEvents.add(new RecordedEvent(EventType.ERROR, aEvt, null));
+        }
+
+        @Override
+        public void addException(AuditEvent aEvt, Throwable aThrowable)
+        {
+            mEvents.add(
+                    new RecordedEvent(EventType.EXCEPTION, aEvt, aThrowable));
+        }
+    }
+
+    /**
+     * Creates daemon worker threads with recognizable names.
+     */
+    private static final class WorkerThreadFactory implements ThreadFactory
+    {
+        /** Number of the next thread. */
+        private final AtomicInteger mNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable aRunnable)
+        {
+            final Thread thread = new Thread(aRunnable,
+                    "sevntu-audit-" + mNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
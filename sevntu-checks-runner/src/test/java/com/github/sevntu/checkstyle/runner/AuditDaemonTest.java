@@ -0,0 +1,318 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.runner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.puppycrawl.tools.checkstyle.Checker;
+import com.puppycrawl.tools.checkstyle.DefaultConfiguration;
+import com.puppycrawl.tools.checkstyle.DefaultLogger;
+import com.puppycrawl.tools.checkstyle.api.AuditEvent;
+import com.puppycrawl.tools.checkstyle.api.AuditListener;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+
+public class AuditDaemonTest extends Assert
+{
+    private static final int INPUT_FILES_COUNT = 4;
+
+    private static final int IDLE_TIMEOUT = 200;
+
+    @Test
+    public void testSameOutputAsChecker()
+        throws Exception
+    {
+        final DefaultConfiguration config = ParallelCheckerTest.createConfig();
+        final List<File> files = getInputFiles();
+
+        final Checker checker = new Checker();
+        checker.setModuleClassLoader(getClass().getClassLoader());
+        checker.configure(config);
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        checker.addListener(new DefaultLogger(expected, false));
+        final int expectedErrors = checker.process(files);
+        checker.destroy();
+        assertTrue("Input files should contain errors", expectedErrors > 0);
+
+        final File portFile = File.createTempFile("audit-daemon", ".port");
+        final ParallelChecker parallelChecker =
+            new ParallelChecker(config, getClass().getClassLoader(), 2);
+        final AuditDaemon daemon = new AuditDaemon(parallelChecker, 0);
+        final Thread thread = startDaemon(daemon);
+        try {
+            daemon.writePortFile(portFile);
+            final AuditClient client = new AuditClient(portFile);
+            // second audit should reuse warm checkers
+            for (int i = 0; i < 2; i++) {
+                final ByteArrayOutputStream actual =
+                    new ByteArrayOutputStream();
+                assertEquals(expectedErrors, client.audit(files,
+                        new PrintStream(actual, true, "UTF-8")));
+                assertEquals(toLines(expected.toString()),
+                        toLines(actual.toString("UTF-8")));
+            }
+
+            client.stop();
+            thread.join(10000);
+            assertFalse("Daemon should be stopped", thread.isAlive());
+        }
+        finally {
+            daemon.stop();
+            parallelChecker.destroy();
+            portFile.delete();
+        }
+    }
+
+    @Test
+    public void testInvalidToken()
+        throws Exception
+    {
+        final ParallelChecker parallelChecker = new ParallelChecker(
+                ParallelCheckerTest.createConfig(),
+                getClass().getClassLoader(), 1);
+        final AuditDaemon daemon = new AuditDaemon(parallelChecker, 0);
+        final Thread thread = startDaemon(daemon);
+        final File portFile = File.createTempFile("audit-daemon", ".port");
+        try {
+            final PrintStream out = new PrintStream(portFile, "UTF-8");
+            out.println(daemon.getPort() + " 0123");
+            out.close();
+            final AuditClient client = new AuditClient(portFile);
+            try {
+                client.stop();
+                fail("Daemon should reject invalid token");
+            }
+            catch (final CheckstyleException e) {
+                assertTrue(e.getMessage(),
+                        e.getMessage().contains("invalid token"));
+            }
+            assertTrue("Daemon should be running", thread.isAlive());
+        }
+        finally {
+            daemon.stop();
+            thread.join(10000);
+            parallelChecker.destroy();
+            portFile.delete();
+        }
+    }
+
+    @Test
+    public void testPortFileIsPrivate()
+        throws Exception
+    {
+        final File portFile = File.createTempFile("audit-daemon", ".port");
+        Assume.assumeTrue(Files.getFileAttributeView(portFile.toPath(),
+                PosixFileAttributeView.class) != null);
+        final ParallelChecker parallelChecker = new ParallelChecker(
+                ParallelCheckerTest.createConfig(),
+                getClass().getClassLoader(), 1);
+        final AuditDaemon daemon = new AuditDaemon(parallelChecker, 0);
+        try {
+            // the existing file is readable by everybody
+            Files.setPosixFilePermissions(portFile.toPath(), EnumSet.of(
+                    PosixFilePermission.OWNER_READ,
+                    PosixFilePermission.OWNER_WRITE,
+                    PosixFilePermission.GROUP_READ,
+                    PosixFilePermission.OTHERS_READ));
+            daemon.writePortFile(portFile);
+            assertEquals(EnumSet.of(PosixFilePermission.OWNER_READ,
+                    PosixFilePermission.OWNER_WRITE),
+                    Files.getPosixFilePermissions(portFile.toPath()));
+            assertTrue(portFile.length() > 0);
+        }
+        finally {
+            daemon.stop();
+            parallelChecker.destroy();
+            portFile.delete();
+        }
+    }
+
+    @Test
+    public void testIdleConnection()
+        throws Exception
+    {
+        final ParallelChecker parallelChecker = new ParallelChecker(
+                ParallelCheckerTest.createConfig(),
+                getClass().getClassLoader(), 1);
+        final AuditDaemon daemon = new AuditDaemon(parallelChecker, 0);
+        daemon.setReadTimeout(IDLE_TIMEOUT);
+        final Thread thread = startDaemon(daemon);
+        final File portFile = File.createTempFile("audit-daemon", ".port");
+        final Socket idle = new Socket("127.0.0.1", daemon.getPort());
+        try {
+            daemon.writePortFile(portFile);
+            // the idle connection sends nothing and is closed on timeout
+            new AuditClient(portFile).stop();
+            thread.join(10000);
+            assertFalse("Daemon should be stopped", thread.isAlive());
+            assertEquals(-1, idle.getInputStream().read());
+        }
+        finally {
+            idle.close();
+            daemon.stop();
+            thread.join(10000);
+            parallelChecker.destroy();
+            portFile.delete();
+        }
+    }
+
+    @Test
+    public void testRuntimeFailure()
+        throws Exception
+    {
+        final ParallelChecker parallelChecker = new ParallelChecker(
+                ParallelCheckerTest.createConfig(),
+                getClass().getClassLoader(), 2);
+        final FailingListener listener = new FailingListener();
+        parallelChecker.addListener(listener);
+        final AuditDaemon daemon = new AuditDaemon(parallelChecker, 0);
+        final Thread thread = startDaemon(daemon);
+        final File portFile = File.createTempFile("audit-daemon", ".port");
+        try {
+            daemon.writePortFile(portFile);
+            final AuditClient client = new AuditClient(portFile);
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            try {
+                client.audit(getInputFiles(), new PrintStream(output));
+                fail("Audit should fail");
+            }
+            catch (final CheckstyleException e) {
+                assertTrue(e.getMessage(),
+                        e.getMessage().contains("listener failed"));
+            }
+            assertTrue("Daemon should be running", thread.isAlive());
+
+            listener.mFail = false;
+            assertTrue(client.audit(getInputFiles(),
+                    new PrintStream(output)) > 0);
+            client.stop();
+            thread.join(10000);
+            assertFalse("Daemon should be stopped", thread.isAlive());
+        }
+        finally {
+            daemon.stop();
+            thread.join(10000);
+            parallelChecker.destroy();
+            portFile.delete();
+        }
+    }
+
+    @Test(expected = CheckstyleException.class)
+    public void testInvalidPortFile()
+        throws Exception
+    {
+        final File portFile = File.createTempFile("audit-daemon", ".port");
+        try {
+            new AuditClient(portFile);
+        }
+        finally {
+            portFile.delete();
+        }
+    }
+
+    private static Thread startDaemon(final AuditDaemon aDaemon)
+    {
+        final Thread result = new Thread() {
+            @Override
+            public void run()
+            {
+                try {
+                    aDaemon.serve();
+                }
+                catch (final Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        result.start();
+        return result;
+    }
+
+    private static List<String> toLines(String aOutput)
+    {
+        final List<String> result = new ArrayList<String>();
+        for (String line : aOutput.split("\r?\n")) {
+            result.add(line);
+        }
+        return result;
+    }
+
+    /**
+     * Fails at the start of an audit while it is asked to.
+     */
+    private static class FailingListener implements AuditListener
+    {
+        private volatile boolean mFail = true;
+
+        @Override
+        public void auditStarted(AuditEvent aEvt)
+        {
+            if (mFail) {
+                throw new IllegalStateException("listener failed");
+            }
+        }
+
+        @Override
+        public void auditFinished(AuditEvent aEvt)
+        {
+        }
+
+        @Override
+        public void fileStarted(AuditEvent aEvt)
+        {
+        }
+
+        @Override
+        public void fileFinished(AuditEvent aEvt)
+        {
+        }
+
+        @Override
+        public void addError(AuditEvent aEvt)
+        {
+        }
+
+        @Override
+        public void addException(AuditEvent aEvt, Throwable aThrowable)
+        {
+        }
+    }
+
+    private List<File> getInputFiles()
+    {
+        final List<File> result = new ArrayList<File>();
+        for (int i = 1; i <= INPUT_FILES_COUNT; i++) {
+            result.add(new File(getClass().getResource(
+                    "InputParallelChecker" + i + ".java").getPath()));
+        }
+        return result;
+    }
+}
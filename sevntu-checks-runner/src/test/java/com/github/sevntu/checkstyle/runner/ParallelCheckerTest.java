@@ -0,0 +1,316 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.runner;
+
+import java.io.File;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.sevntu.checkstyle.checks.coding.EitherLogOrThrowCheck;
+import com.github.sevntu.checkstyle.checks.coding.ForbidInstantiationCheck;
+import com.github.sevntu.checkstyle.checks.coding.MultipleStringLiteralsExtendedCheck;
+import com.github.sevntu.checkstyle.checks.coding.OverridableMethodInConstructorCheck;
+import com.github.sevntu.checkstyle.checks.design.CauseParameterInExceptionCheck;
+import com.github.sevntu.checkstyle.walker.FusedTreeWalker;
+import com.puppycrawl.tools.checkstyle.Checker;
+import com.puppycrawl.tools.checkstyle.DefaultConfiguration;
+import com.puppycrawl.tools.checkstyle.TreeWalker;
+import com.puppycrawl.tools.checkstyle.api.AuditEvent;
+import com.puppycrawl.tools.checkstyle.api.AuditListener;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.checks.TranslationCheck;
+
+public class ParallelCheckerTest extends Assert
+{
+    private static final int INPUT_FILES_COUNT = 4;
+
+    private static final int COPIES_COUNT = 10;
+
+    @Test
+    public void testSameEventsAsSequentialChecker()
+        throws Exception
+    {
+        final DefaultConfiguration config = createConfig();
+        final List<File> files = getInputFiles();
+
+        final Checker checker = new Checker();
+        checker.setModuleClassLoader(getClass().getClassLoader());
+        checker.configure(config);
+        final EventsCollector expected = new EventsCollector();
+        checker.addListener(expected);
+        final int expectedErrors = checker.process(files);
+        checker.destroy();
+        assertTrue("Input files should contain errors", expectedErrors > 0);
+
+        for (int threads = 1; threads <= 4; threads++) {
+            final ParallelChecker parallelChecker = new ParallelChecker(
+                    config, getClass().getClassLoader(), threads);
+            final EventsCollector actual = new EventsCollector();
+            parallelChecker.addListener(actual);
+            try {
+                assertEquals(expectedErrors, parallelChecker.process(files));
+                // second run should reuse checkers of workers
+                assertEquals(expectedErrors, parallelChecker.process(files));
+            }
+            finally {
+                parallelChecker.destroy();
+            }
+            final List<String> expectedEvents =
+                new ArrayList<String>(expected.getEvents());
+            expectedEvents.addAll(expected.getEvents());
+            assertEquals("Threads: " + threads, expectedEvents,
+                    actual.getEvents());
+        }
+    }
+
+    @Test
+    public void testWholeAuditModuleInSingleThread()
+        throws Exception
+    {
+        final DefaultConfiguration config =
+            createConfig(new DefaultConfiguration(TranslationCheck.class.getName()));
+        final List<File> files = Arrays.asList(
+                getInputFile("InputParallelCheckerMessages.properties"),
+                getInputFile("InputParallelCheckerMessages_de.properties"));
+
+        final Checker checker = new Checker();
+        checker.setModuleClassLoader(getClass().getClassLoader());
+        checker.configure(config);
+        final EventsCollector expected = new EventsCollector();
+        checker.addListener(expected);
+        final int expectedErrors = checker.process(files);
+        checker.destroy();
+        assertEquals("Missing key should be reported", 1, expectedErrors);
+
+        final ParallelChecker parallelChecker = new ParallelChecker(
+                config, getClass().getClassLoader(), 1);
+        final EventsCollector actual = new EventsCollector();
+        parallelChecker.addListener(actual);
+        try {
+            assertEquals(expectedErrors, parallelChecker.process(files));
+        }
+        finally {
+            parallelChecker.destroy();
+        }
+        assertEquals(expected.getEvents(), actual.getEvents());
+    }
+
+    @Test
+    public void testWholeAuditModulesInSeveralThreads()
+        throws Exception
+    {
+        final DefaultConfiguration walker =
+            new DefaultConfiguration(FusedTreeWalker.class.getName());
+        walker.addChild(new DefaultConfiguration(
+                CauseParameterInExceptionCheck.class.getName()));
+        assertRejected(
+                new DefaultConfiguration(TranslationCheck.class.getName()),
+                TranslationCheck.class.getName());
+        assertRejected(walker, CauseParameterInExceptionCheck.class.getName());
+    }
+
+    /**
+     * Workers pass files to Checker as a list which can only be iterated.
+     */
+    @Test
+    public void testCheckerOnlyIteratesFiles()
+        throws Exception
+    {
+        final List<File> files = getInputFiles();
+        final Checker checker = new Checker();
+        checker.setModuleClassLoader(getClass().getClassLoader());
+        checker.configure(createConfig());
+        try {
+            final EventsCollector expected = new EventsCollector();
+            checker.addListener(expected);
+            final int expectedErrors = checker.process(files);
+            checker.removeListener(expected);
+
+            final EventsCollector actual = new EventsCollector();
+            checker.addListener(actual);
+            assertEquals(expectedErrors,
+                    checker.process(new IterationOnlyList(files)));
+            assertEquals(expected.getEvents(), actual.getEvents());
+        }
+        finally {
+            checker.destroy();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidThreadCount()
+    {
+        new ParallelChecker(createConfig(), getClass().getClassLoader(), 0);
+    }
+
+    private void assertRejected(DefaultConfiguration aModule,
+            String aModuleName)
+        throws Exception
+    {
+        final ParallelChecker parallelChecker = new ParallelChecker(
+                createConfig(aModule), getClass().getClassLoader(), 2);
+        try {
+            parallelChecker.process(getInputFiles());
+            fail("Module should be rejected: " + aModuleName);
+        }
+        catch (final CheckstyleException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(aModuleName));
+        }
+        finally {
+            parallelChecker.destroy();
+        }
+    }
+
+    static DefaultConfiguration createConfig()
+    {
+        return createConfig(null);
+    }
+
+    private static DefaultConfiguration createConfig(
+            DefaultConfiguration aModule)
+    {
+        final DefaultConfiguration treeWalker =
+            new DefaultConfiguration(TreeWalker.class.getName());
+        treeWalker.addChild(new DefaultConfiguration(
+                OverridableMethodInConstructorCheck.class.getName()));
+        treeWalker.addChild(new DefaultConfiguration(
+                MultipleStringLiteralsExtendedCheck.class.getName()));
+        treeWalker.addChild(new DefaultConfiguration(
+                ForbidInstantiationCheck.class.getName()));
+        treeWalker.addChild(new DefaultConfiguration(
+                EitherLogOrThrowCheck.class.getName()));
+
+        final DefaultConfiguration result =
+            new DefaultConfiguration("configuration");
+        result.addAttribute("charset", "iso-8859-1");
+        result.addAttribute("localeLanguage",
+                Locale.ENGLISH.getLanguage());
+        result.addChild(treeWalker);
+        if (aModule != null) {
+            result.addChild(aModule);
+        }
+        return result;
+    }
+
+    private List<File> getInputFiles()
+    {
+        final List<File> result = new ArrayList<File>();
+        for (int copy = 0; copy < COPIES_COUNT; copy++) {
+            for (int i = 1; i <= INPUT_FILES_COUNT; i++) {
+                result.add(getInputFile("InputParallelChecker" + i + ".java"));
+            }
+        }
+        return result;
+    }
+
+    private File getInputFile(String aName)
+    {
+        return new File(getClass().getResource(aName).getPath());
+    }
+
+    /**
+     * List which fails on any access but a single iteration.
+     */
+    private static final class IterationOnlyList extends AbstractList<File>
+    {
+        private final List<File> mFiles;
+
+        private boolean mIterated;
+
+        IterationOnlyList(List<File> aFiles)
+        {
+            mFiles = aFiles;
+        }
+
+        @Override
+        public Iterator<File> iterator()
+        {
+            assertFalse("Files should be iterated once", mIterated);
+            mIterated = true;
+            return Collections.unmodifiableList(mFiles).iterator();
+        }
+
+        @Override
+        public File get(int aIndex)
+        {
+            throw new UnsupportedOperationException("get");
+        }
+
+        @Override
+        public int size()
+        {
+            throw new UnsupportedOperationException("size");
+        }
+    }
+
+    private static final class EventsCollector implements AuditListener
+    {
+        private final List<String> mEvents = new ArrayList<String>();
+
+        public List<String> getEvents()
+        {
+            return mEvents;
+        }
+
+        @Override
+        public void auditStarted(AuditEvent aEvt)
+        {
+            mEvents.add("auditStarted");
+        }
+
+        @Override
+        public void auditFinished(AuditEvent aEvt)
+        {
+            mEvents.add("auditFinished");
+        }
+
+        @Override
+        public void fileStarted(AuditEvent aEvt)
+        {
+            mEvents.add("fileStarted " + aEvt.getFileName());
+        }
+
+        @Override
+        public void fileFinished(AuditEvent aEvt)
+        {
+            mEvents.add("fileFinished " + aEvt.getFileName());
+        }
+
+        @Override
+        public void addError(AuditEvent aEvt)
+        {
+            mEvents.add(aEvt.getFileName() + ":" + aEvt.getLine() + ":"
+                    + aEvt.getColumn() + ": " + aEvt.getMessage());
+        }
+
+        @Override
+        public void addException(AuditEvent aEvt, Throwable aThrowable)
+        {
+            mEvents.add("exception " + aEvt.getFileName() + " " + aThrowable);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.sevntu.checkstyle.runner;
+
+public class InputParallelChecker1 {
+
+    public static void main(String[] args) {
+
+        abstract class Base1 {
+             Base1() {
+                System.out.println("Base C-tor ");
+                overrideMe(); // no warnings here
+            }
+
+            private void overrideMe() {
+                System.out.println("Base overrideMe() ");
+            }
+
+        }
+
+        class Child1 extends Base1 {
+            final int x;
+
+            Child1(int x) {
+                this.x = x;
+            }
+
+            public void overrideMe() {
+                System.out.println("child`s overrideMe(): "+x);
+            }
+        }
+
+      new Child1(999); // will not print x =)
+    }
+
+}
\ No newline at end of file
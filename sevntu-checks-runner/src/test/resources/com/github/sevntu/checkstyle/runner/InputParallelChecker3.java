@@ -0,0 +1,19 @@
+package project;
+
+//import File;
+import java.io.File;
+
+public class InputParallelChecker3
+{        
+    public void method() {
+        NullPointerException ex = new NullPointerException("message"); // !
+        int []x = new int[10];
+        new InputParallelChecker3();
+        NullPointerException ex2 = new java.lang.NullPointerException("message"); // !
+        File File = new File();
+        File File = new java.io.File(); // 2 !
+        String a = new String(); // 2 !
+        InputParallelChecker3 c = new InputParallelChecker3();
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,459 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.ast;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+import com.puppycrawl.tools.checkstyle.api.DetailAST;
+
+/**
+ * <p>
+ * Index of nodes of a compilation unit by their token type. Nodes of every
+ * type are kept in document order (pre-order of the tree), so all nodes of
+ * a type in the file or in a subtree are found without walking the tree:
+ * </p>
+ * <pre>
+ * public void beginTree(DetailAST aRootAST)
+ * {
+ *     mIndex = AstIndex.of(aRootAST);
+ * }
+ *
+ * public void visitToken(DetailAST aAST)
+ * {
+ *     for (DetailAST call : mIndex.getNodes(aAST, TokenTypes.METHOD_CALL)) {
+ *         ...
+ *     }
+ * }
+ *
+ * public void finishTree(DetailAST aRootAST)
+ * {
+ *     mIndex = null;
+ *     AstIndex.release(aRootAST);
+ * }
+ * </pre>
+ * <p>
+ * The index is built by a single walk over the tree when it is queried for
+ * the first time. Checks of a TreeWalker get the same root, so all of them
+ * share the index of the file which is audited by the current thread. Checks
+ * release the index in finishTree, so the tree of the last file is not kept
+ * by a thread after the audit of the file.
+ * </p>
+ */
+public final class AstIndex
+{
+    /** Initial capacity of arrays of nodes. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** The index of the compilation unit audited by a thread. */
+    private static final ThreadLocal<AstIndex> LAST_INDEX =
+        new ThreadLocal<AstIndex>();
+
+    /** List of nodes of a type which is absent in the file. */
+    private static final List<DetailAST> EMPTY =
+        new NodeList(new DetailAST[0], 0, 0);
+
+    /** The first top level node of the compilation unit. */
+    private final DetailAST mRoot;
+
+    /** All nodes in document order, a position is the ordinal of a node. */
+    private DetailAST[] mNodes;
+
+    /** Ordinals of the last nodes of subtrees, by ordinals of their roots. */
+    private int[] mSubtreeEnds;
+
+    /** Nodes of every type in document order, by token type. */
+    private DetailAST[][] mNodesByType;
+
+    /** Ordinals of nodes in mNodesByType. */
+    private int[][] mOrdinalsByType;
+
+    /** Count of nodes of every type, by token type. */
+    private int[] mCounts;
+
+    /**
+     * Open addressing table from nodes to their ordinals. A slot contains
+     * the ordinal plus one, zero marks an empty slot.
+     */
+    private int[] mOrdinalTable;
+
+    /**
+     * Creates the index, it is built on demand.
+     * @param aRoot the first top level node of the compilation unit.
+     */
+    private AstIndex(DetailAST aRoot)
+    {
+        mRoot = aRoot;
+    }
+
+    /**
+     * Gets the index of a compilation unit. The index is shared while the
+     * same root is passed.
+     * @param aRoot the root which is passed to Check.beginTree.
+     * @return the index.
+     */
+    public static AstIndex of(DetailAST aRoot)
+    {
+        AstIndex result = LAST_INDEX.get();
+        if (result == null || result.mRoot != aRoot) {
+            result = new AstIndex(aRoot);
+            LAST_INDEX.set(result);
+        }
+        return result;
+    }
+
+    /**
+     * Releases the index of a compilation unit, checks which are sharing it
+     * keep their references. Nothing is done when the index of another root
+     * is kept.
+     * @param aRoot the root which is passed to Check.finishTree.
+     */
+    public static void release(DetailAST aRoot)
+    {
+        final AstIndex index = LAST_INDEX.get();
+        if (index != null && index.mRoot == aRoot) {
+            LAST_INDEX.remove();
+        }
+    }
+
+    /**
+     * Gets all nodes of a type in the compilation unit.
+     * @param aType token type, one of TokenTypes.
+     * @return unmodifiable list of nodes in document order.
+     */
+    public List<DetailAST> getNodes(int aType)
+    {
+        build();
+        List<DetailAST> result = EMPTY;
+        if (aType >= 0 && aType < mCounts.length && mCounts[aType] > 0) {
+            result = new NodeList(mNodesByType[aType], 0, mCounts[aType]);
+        }
+        return result;
+    }
+
+    /**
+     * Gets nodes of a type in a subtree, the root of the subtree is
+     * included if it has the type.
+     * @param aSubtree the root of the subtree, a node of this compilation
+     *        unit.
+     * @param aType token type, one of TokenTypes.
+     * @return unmodifiable list of nodes in document order.
+     */
+    public List<DetailAST> getNodes(DetailAST aSubtree, int aType)
+    {
+        build();
+        List<DetailAST> result = EMPTY;
+        if (aType >= 0 && aType < mCounts.length && mCounts[aType] > 0) {
+            final int first = getOrdinal(aSubtree);
+            final int[] ordinals = mOrdinalsByType[aType];
+            final int count = mCounts[aType];
+            final int from = lowerBound(ordinals, count, first);
+            final int to =
+                lowerBound(ordinals, count, mSubtreeEnds[first] + 1);
+            if (from < to) {
+                result = new NodeList(mNodesByType[aType], from, to);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets nodes of any of the types in a subtree, the root of the subtree
+     * is included if it has one of the types.
+     * @param aSubtree the root of the subtree, a node of this compilation
+     *        unit.
+     * @param aTypes token types, TokenTypes.
+     * @return unmodifiable list of nodes in document order.
+     */
+    public List<DetailAST> getNodes(DetailAST aSubtree, int... aTypes)
+    {
+        List<DetailAST> result;
+        if (aTypes.length == 1) {
+            result = getNodes(aSubtree, aTypes[0]);
+        }
+        else {
+            build();
+            final int first = getOrdinal(aSubtree);
+            final int last = mSubtreeEnds[first];
+            // ranges of nodes of every type in the subtree, merged by ordinals
+            final int[] positions = new int[aTypes.length];
+            final int[] ends = new int[aTypes.length];
+            int size = 0;
+            for (int i = 0; i < aTypes.length; i++) {
+                final int type = aTypes[i];
+                if (type >= 0 && type < mCounts.length) {
+                    final int[] ordinals = mOrdinalsByType[type];
+                    positions[i] = lowerBound(ordinals, mCounts[type], first);
+                    ends[i] =
+                        lowerBound(ordinals, mCounts[type], last + 1);
+                    size += ends[i] - positions[i];
+                }
+            }
+            final DetailAST[] nodes = new DetailAST[size];
+            for (int index = 0; index < size; index++) {
+                int next = -1;
+                for (int i = 0; i < aTypes.length; i++) {
+                    if (positions[i] < ends[i] && (next == -1
+                            || mOrdinalsByType[aTypes[i]][positions[i]]
+                                < mOrdinalsByType[aTypes[next]][positions[next]]))
+                    {
+                        next = i;
+                    }
+                }
+                nodes[index] = mNodesByType[aTypes[next]][positions[next]++];
+            }
+            result = new NodeList(nodes, 0, size);
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether a subtree contains a node of a type, the root of the
+     * subtree is checked too.
+     * @param aSubtree the root of the subtree, a node of this compilation
+     *        unit.
+     * @param aType token type, one of TokenTypes.
+     * @return true if the subtree contains a node of the type.
+     */
+    public boolean contains(DetailAST aSubtree, int aType)
+    {
+        build();
+        boolean result = false;
+        if (aType >= 0 && aType < mCounts.length) {
+            final int first = getOrdinal(aSubtree);
+            result = countInRange(aType, first, mSubtreeEnds[first]) > 0;
+        }
+        return result;
+    }
+
+    /**
+     * Counts nodes of a type with ordinals in a range.
+     * @param aType token type.
+     * @param aFirst the first ordinal of the range.
+     * @param aLast the last ordinal of the range.
+     * @return count of nodes.
+     */
+    private int countInRange(int aType, int aFirst, int aLast)
+    {
+        final int[] ordinals = mOrdinalsByType[aType];
+        final int count = mCounts[aType];
+        return lowerBound(ordinals, count, aLast + 1)
+            - lowerBound(ordinals, count, aFirst);
+    }
+
+    /**
+     * Gets the ordinal of a node.
+     * @param aNode the node.
+     * @return the position of the node in document order.
+     */
+    private int getOrdinal(DetailAST aNode)
+    {
+        final int mask = mOrdinalTable.length - 1;
+        int slot = hash(aNode) & mask;
+        while (mOrdinalTable[slot] != 0) {
+            final int ordinal = mOrdinalTable[slot] - 1;
+            if (mNodes[ordinal] == aNode) {
+                return ordinal;
+            }
+            slot = (slot + 1) & mask;
+        }
+        throw new IllegalArgumentException(
+                "Node is not in the compilation unit: " + aNode);
+    }
+
+    /**
+     * Builds the index if it is not built yet.
+     */
+    private void build()
+    {
+        if (mNodes != null) {
+            return;
+        }
+        DetailAST[] nodes = new DetailAST[INITIAL_CAPACITY];
+        int[] ends = new int[INITIAL_CAPACITY];
+        // ordinals of nodes whose subtrees are being walked
+        int[] open = new int[INITIAL_CAPACITY];
+        int depth = 0;
+        int count = 0;
+        DetailAST node = mRoot;
+        while (node != null) {
+            if (count == nodes.length) {
+                nodes = Arrays.copyOf(nodes, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+            nodes[count] = node;
+            DetailAST next = node.getFirstChild();
+            if (next != null) {
+                if (depth == open.length) {
+                    open = Arrays.copyOf(open, depth * 2);
+                }
+                open[depth++] = count;
+            }
+            else {
+                ends[count] = count;
+                next = node.getNextSibling();
+                while (next == null && depth > 0) {
+                    final int ancestor = open[--depth];
+                    ends[ancestor] = count;
+                    next = nodes[ancestor].getNextSibling();
+                }
+            }
+            count++;
+            node = next;
+        }
+        mSubtreeEnds = ends;
+        indexTypes(nodes, count);
+        indexOrdinals(nodes, count);
+        mNodes = nodes;
+    }
+
+    /**
+     * Fills arrays of nodes by type.
+     * @param aNodes all nodes in document order.
+     * @param aCount count of nodes.
+     */
+    private void indexTypes(DetailAST[] aNodes, int aCount)
+    {
+        int maxType = 0;
+        for (int i = 0; i < aCount; i++) {
+            maxType = Math.max(maxType, aNodes[i].getType());
+        }
+        mCounts = new int[maxType + 1];
+        for (int i = 0; i < aCount; i++) {
+            mCounts[aNodes[i].getType()]++;
+        }
+        mNodesByType = new DetailAST[maxType + 1][];
+        mOrdinalsByType = new int[maxType + 1][];
+        for (int type = 0; type <= maxType; type++) {
+            mNodesByType[type] = new DetailAST[mCounts[type]];
+            mOrdinalsByType[type] = new int[mCounts[type]];
+        }
+        Arrays.fill(mCounts, 0);
+        for (int i = 0; i < aCount; i++) {
+            final int type = aNodes[i].getType();
+            final int position = mCounts[type]++;
+            mNodesByType[type][position] = aNodes[i];
+            mOrdinalsByType[type][position] = i;
+        }
+    }
+
+    /**
+     * Fills the table of ordinals.
+     * @param aNodes all nodes in document order.
+     * @param aCount count of nodes.
+     */
+    private void indexOrdinals(DetailAST[] aNodes, int aCount)
+    {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < aCount * 2) {
+            capacity *= 2;
+        }
+        mOrdinalTable = new int[capacity];
+        final int mask = capacity - 1;
+        for (int i = 0; i < aCount; i++) {
+            int slot = hash(aNodes[i]) & mask;
+            while (mOrdinalTable[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            mOrdinalTable[slot] = i + 1;
+        }
+    }
+
+    /**
+     * Hashes the identity of a node.
+     * @param aNode the node.
+     * @return the hash.
+     */
+    private static int hash(DetailAST aNode)
+    {
+        final int hash = System.identityHashCode(aNode);
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Finds the first position of a sorted array with the value which is
+     * not less than the key.
+     * @param aValues sorted values.
+     * @param aCount count of values.
+     * @param aKey the key.
+     * @return the position, aCount if all values are less than the key.
+     */
+    private static int lowerBound(int[] aValues, int aCount, int aKey)
+    {
+        int low = 0;
+        int high = aCount;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (aValues[middle] < aKey) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Unmodifiable view of a range of an array of nodes.
+     */
+    private static final class NodeList extends AbstractList<DetailAST>
+        implements RandomAccess
+    {
+        /** Nodes. */
+        private final DetailAST[] mArray;
+
+        /** The first position of the range. */
+        private final int mFrom;
+
+        /** Size of the range. */
+        private final int mSize;
+
+        /**
+         * Creates the view.
+         * @param aArray nodes.
+         * @param aFrom the first position of the range.
+         * @param aTo the position after the range.
+         */
+        NodeList(DetailAST[] aArray, int aFrom, int aTo)
+        {
+            mArray = aArray;
+            mFrom = aFrom;
+            mSize = aTo - aFrom;
+        }
+
+        @Override
+        public DetailAST get(int aIndex)
+        {
+            if (aIndex < 0 || aIndex >= mSize) {
+                throw new IndexOutOfBoundsException("Index: " + aIndex
+                        + ", size: " + mSize);
+            }
+            return mArray[mFrom + aIndex];
+        }
+
+        @Override
+        public int size()
+        {
+            return mSize;
+        }
+    }
+}
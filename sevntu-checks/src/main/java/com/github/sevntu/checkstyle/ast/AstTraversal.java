@@ -0,0 +1,220 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.ast;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.puppycrawl.tools.checkstyle.api.DetailAST;
+
+/**
+ * <p>
+ * Traversal of AST shared by checks. Children are iterated over links
+ * between siblings instead of copying them into a list, and subtrees are
+ * walked without recursion and without allocation per node:
+ * </p>
+ * <pre>
+ * for (DetailAST child : AstTraversal.children(aAST, TokenTypes.ANNOTATION)) {
+ *     ...
+ * }
+ * </pre>
+ * <p>
+ * Children must not be added to or removed from the node while they are
+ * iterated.
+ * </p>
+ */
+public final class AstTraversal
+{
+    /** Marks iteration over children of any type. */
+    private static final int ANY_TYPE = -1;
+
+    /** Prevents instantiation. */
+    private AstTraversal()
+    {
+    }
+
+    /**
+     * Gets children of a node.
+     * @param aNode the node.
+     * @return children in order of their appearance.
+     */
+    public static Iterable<DetailAST> children(DetailAST aNode)
+    {
+        return new ChildIterator(aNode.getFirstChild(), ANY_TYPE);
+    }
+
+    /**
+     * Gets children of a node which have the given type.
+     * @param aNode the node.
+     * @param aType type of children, one of TokenTypes.
+     * @return children of the type in order of their appearance.
+     */
+    public static Iterable<DetailAST> children(DetailAST aNode, int aType)
+    {
+        return new ChildIterator(aNode.findFirstToken(aType), aType);
+    }
+
+    /**
+     * Walks a subtree in pre-order, the root is visited first.
+     * @param aRoot the root of the subtree.
+     * @param aVisitor visitor of nodes.
+     * @return false if the visitor stopped the traversal, true otherwise.
+     */
+    public static boolean walk(DetailAST aRoot, AstVisitor aVisitor)
+    {
+        DetailAST node = aRoot;
+        while (node != null) {
+            final AstVisitor.Action action = aVisitor.visit(node);
+            if (action == AstVisitor.Action.STOP) {
+                return false;
+            }
+            DetailAST next = null;
+            if (action == AstVisitor.Action.CONTINUE) {
+                next = node.getFirstChild();
+            }
+            while (next == null && node != aRoot) {
+                next = node.getNextSibling();
+                if (next == null) {
+                    node = node.getParent();
+                }
+            }
+            node = next;
+        }
+        return true;
+    }
+
+    /**
+     * Finds the first node of the given type in a subtree, the root is
+     * checked too.
+     * @param aRoot the root of the subtree.
+     * @param aType type of the node, one of TokenTypes.
+     * @return the first node of the type in pre-order or null if the subtree
+     *         does not contain it.
+     */
+    public static DetailAST findFirst(DetailAST aRoot, final int aType)
+    {
+        DetailAST node = aRoot;
+        while (node != null && node.getType() != aType) {
+            DetailAST next = node.getFirstChild();
+            while (next == null && node != aRoot) {
+                next = node.getNextSibling();
+                if (next == null) {
+                    node = node.getParent();
+                }
+            }
+            node = next;
+        }
+        return node;
+    }
+
+    /**
+     * Collects all nodes of the given type in a subtree, the root is
+     * checked too.
+     * @param <C> type of the collection.
+     * @param aRoot the root of the subtree.
+     * @param aType type of nodes, one of TokenTypes.
+     * @param aResult collection to add nodes to, in pre-order.
+     * @return aResult.
+     */
+    public static <C extends Collection<? super DetailAST>> C findAll(
+            DetailAST aRoot, final int aType, final C aResult)
+    {
+        walk(aRoot, new AstVisitor() {
+            @Override
+            public Action visit(DetailAST aNode)
+            {
+                if (aNode.getType() == aType) {
+                    aResult.add(aNode);
+                }
+                return Action.CONTINUE;
+            }
+        });
+        return aResult;
+    }
+
+    /**
+     * Iterates over siblings starting from the given one. An instance is
+     * both the iterable and its only iterator, so the iteration allocates a
+     * single small object which the JIT compiler usually eliminates.
+     */
+    private static final class ChildIterator
+        implements Iterable<DetailAST>, Iterator<DetailAST>
+    {
+        /** Type of children to return or ANY_TYPE. */
+        private final int mType;
+
+        /** The child to return next. */
+        private DetailAST mNext;
+
+        /** Whether the iterator was already returned. */
+        private boolean mIterated;
+
+        /**
+         * Creates the iterator.
+         * @param aFirst the first child to return, may be null.
+         * @param aType type of children to return or ANY_TYPE.
+         */
+        ChildIterator(DetailAST aFirst, int aType)
+        {
+            mNext = aFirst;
+            mType = aType;
+        }
+
+        @Override
+        public Iterator<DetailAST> iterator()
+        {
+            if (mIterated) {
+                throw new IllegalStateException(
+                        "Children can be iterated only once");
+            }
+            mIterated = true;
+            return this;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return mNext != null;
+        }
+
+        @Override
+        public DetailAST next()
+        {
+            final DetailAST result = mNext;
+            if (result == null) {
+                throw new NoSuchElementException();
+            }
+            DetailAST next = result.getNextSibling();
+            if (mType != ANY_TYPE) {
+                while (next != null && next.getType() != mType) {
+                    next = next.getNextSibling();
+                }
+            }
+            mNext = next;
+            return result;
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
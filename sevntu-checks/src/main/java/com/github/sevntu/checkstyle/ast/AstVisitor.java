@@ -0,0 +1,50 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.ast;
+
+import com.puppycrawl.tools.checkstyle.api.DetailAST;
+
+/**
+ * Visitor of nodes which are walked by
+ * {@link AstTraversal#walk(DetailAST, AstVisitor)}. The result of every
+ * visit tells the traversal how to continue, so a search can skip subtrees
+ * and stop as soon as it has found what it was looking for.
+ */
+public interface AstVisitor
+{
+    /**
+     * What the traversal should do after a node is visited.
+     */
+    enum Action
+    {
+        /** Visit children of the node, then continue. */
+        CONTINUE,
+        /** Do not visit children of the node, but continue. */
+        SKIP_CHILDREN,
+        /** Stop the traversal. */
+        STOP,
+    }
+
+    /**
+     * Visits a node.
+     * @param aNode the node.
+     * @return how to continue the traversal.
+     */
+    Action visit(DetailAST aNode);
+}
@@ -20,6 +20,8 @@ package com.github.sevntu.checkstyle.checks.coding;
 
 import java.util.Iterator;
 
+import com.github.sevntu.checkstyle.index.TypeHierarchy;
+import com.github.sevntu.checkstyle.walker.TypeHierarchyAware;
 import com.puppycrawl.tools.checkstyle.api.Check;
 import com.puppycrawl.tools.checkstyle.api.DetailAST;
 import com.puppycrawl.tools.checkstyle.api.TokenTypes;
@@ -33,9 +35,16 @@ import com.puppycrawl.tools.checkstyle.api.TokenTypes;
  * implement both methods. For more information read
  * "Effective Java (2nd edition)" chapter 11, item 74, page 294.
  * </p>
+ * <p>
+ * Without the type hierarchy of the project only classes which list
+ * Serializable in their implements clause are checked. With the hierarchy
+ * classes which extend a serializable class or implement an interface
+ * which extends Serializable are checked too.
+ * </p>
  * @author <a href="mailto:IliaDubinin91@gmail.com">Ilia Dubinin</a>
  */
 public class AvoidDefaultSerializableInInnerClasses extends Check
+    implements TypeHierarchyAware
 {
 	
 	public static final String MSG_KEY  = "avoid.default.serializable.in.inner.classes";
@@ -47,6 +56,11 @@ public class AvoidDefaultSerializableInInnerClasses extends Check
     */
     private boolean mAllowPartialImplementation;
 
+    /**
+     * Hierarchy of types of the project, null if it is not available.
+     */
+    private TypeHierarchy mTypeHierarchy;
+
     /**
      * <p>
      * Set allow partly implementation serializable interface.
@@ -59,6 +73,12 @@ public class AvoidDefaultSerializableInInnerClasses extends Check
         this.mAllowPartialImplementation = aAllow;
     }
 
+    @Override
+    public void setTypeHierarchy(TypeHierarchy aHierarchy)
+    {
+        mTypeHierarchy = aHierarchy;
+    }
+
     @Override
     public int[] getDefaultTokens()
     {
@@ -73,8 +93,12 @@ public class AvoidDefaultSerializableInInnerClasses extends Check
                 && !isStatic(aDetailAST)
                 && !hasSerialazableMethods(aDetailAST))
         {
-            final DetailAST implementsBlock = aDetailAST
+            DetailAST implementsBlock = aDetailAST
                     .findFirstToken(TokenTypes.IMPLEMENTS_CLAUSE);
+            if (implementsBlock == null) {
+                // serializable through a superclass
+                implementsBlock = aDetailAST;
+            }
             log(implementsBlock.getLineNo(),
                     MSG_KEY);
         }
@@ -289,13 +313,14 @@ public class AvoidDefaultSerializableInInnerClasses extends Check
 
     /**
      * <p>
-     * Return true, if class implement Serializable interface;
+     * Return true, if class implement Serializable interface, directly or
+     * through its supertypes when the type hierarchy is available;
      * </p>
      * @param aClassDefNode
      *        - the start node for class definition.
      * @return boolean value. True, if class implements Serializable interface.
      */
-    private static boolean isSerializable(DetailAST aClassDefNode)
+    private boolean isSerializable(DetailAST aClassDefNode)
     {
         DetailAST implementationsDef = aClassDefNode
                 .findFirstToken(TokenTypes.IMPLEMENTS_CLAUSE);
@@ -310,6 +335,11 @@ public class AvoidDefaultSerializableInInnerClasses extends Check
                 implementationsDef = implementationsDef.getNextSibling();
             }
         }
+        if (!result && mTypeHierarchy != null) {
+            result = mTypeHierarchy.isSubtype(
+                    mTypeHierarchy.getQualifiedName(aClassDefNode),
+                    "java.io.Serializable");
+        }
         return result;
     }
 }
@@ -18,9 +18,12 @@
 ////////////////////////////////////////////////////////////////////////////////
 package com.github.sevntu.checkstyle.checks.coding;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+import com.github.sevntu.checkstyle.ast.AstTraversal;
 import com.puppycrawl.tools.checkstyle.api.DetailAST;
 import com.puppycrawl.tools.checkstyle.api.TokenTypes;
 import com.puppycrawl.tools.checkstyle.api.Check;
@@ -62,6 +65,11 @@ import com.puppycrawl.tools.checkstyle.api.Check;
  *      }
  *       </pre> </code>
  * </ol>
+ * <p>
+ * Every catch block is examined in a single pass that collects the names
+ * assigned from the caught exception and the names used by each "throw"
+ * statement, so every name of a "throw" is resolved by a hash lookup.
+ * </p>
  * @author <a href="mailto:Daniil.Yaroslavtsev@gmail.com"> Daniil
  *         Yaroslavtsev</a>
  * @author <a href="mailto:IliaDubinin91@gmail.com">Ilja Dubinin</a>
@@ -70,6 +78,19 @@ public class AvoidHidingCauseExceptionCheck extends Check
 { 
 	public static final String MSG_KEY = "avoid.hiding.cause.exception";
 
+    /** The name of exception handled by the current "catch" block. */
+    private String mOriginExcName;
+
+    /**
+     * The name of the caught exception and names of variables
+     * the caught exception is assigned to.
+     */
+    private final Set<String> mWrapExcNames = new HashSet<String>();
+
+    /** "throw" statements of the current "catch" block. */
+    private final List<ThrowStatement> mThrowList =
+            new ArrayList<ThrowStatement>();
+
     @Override
     public int[] getDefaultTokens()
     {
@@ -79,203 +100,147 @@ public class AvoidHidingCauseExceptionCheck extends Check
     @Override
     public void visitToken(DetailAST aDetailAST)
     {
-
-        final String originExcName = aDetailAST
+        mOriginExcName = aDetailAST
                 .findFirstToken(TokenTypes.PARAMETER_DEF).getLastChild()
                 .getText();
-        
-        LinkedList<DetailAST> throwList = makeThrowList(aDetailAST);
-        
-        LinkedList<String> wrapExcNames = new LinkedList<String>();
-        wrapExcNames.add(originExcName);
-        wrapExcNames.addAll(makeExceptionsList(aDetailAST, aDetailAST, 
-                            originExcName));
+        mWrapExcNames.clear();
+        mWrapExcNames.add(mOriginExcName);
+        mThrowList.clear();
 
-        for (DetailAST throwAST : throwList) {
+        collect(aDetailAST, false, null);
 
-            if (throwAST.getType() == TokenTypes.LITERAL_THROW) {
-                
-                List<DetailAST> throwParamNamesList = 
-                        new LinkedList<DetailAST>();
-                getThrowParamNamesList(throwAST, throwParamNamesList);
-                if (!isContainsCaughtExc(throwParamNamesList, wrapExcNames))
-                {
-                    log(throwAST, MSG_KEY,
-                            originExcName);
-                }
+        for (ThrowStatement throwStatement : mThrowList) {
+            if (!throwStatement.isContainsCaughtExc(mWrapExcNames)) {
+                log(throwStatement.mThrowAST, MSG_KEY, mOriginExcName);
             }
         }
+        mThrowList.clear();
     }
 
     /**
-     * Returns true when aThrowParamNamesList contains caught exception
-     * @param aThrowParamNamesList
-     * @param aWrapExcNames
-     * @return true when aThrowParamNamesList contains caught exception
+     * Collects the names of exceptions that wrap the original exception
+     * object and the "throw" statements of the current "catch" block
+     * all levels below <code>aParentAST</code>. "throw" statements are
+     * collected without entering into nested try/catch blocks.
+     * @param aParentAST Current parent node to search from.
+     * @param aInNestedTry Whether <code>aParentAST</code> is inside
+     * a nested try/catch block.
+     * @param aThrow The "throw" statement <code>aParentAST</code> belongs
+     * to or null.
      */
-    private static boolean 
-                    isContainsCaughtExc(List<DetailAST> aThrowParamNamesList, 
-                                    LinkedList<String> aWrapExcNames)
+    private void collect(DetailAST aParentAST, boolean aInNestedTry,
+            ThrowStatement aThrow)
     {
-        boolean result = false;
-        for(DetailAST currentNode : aThrowParamNamesList)
-        {
-            if (currentNode != null
-                    && currentNode.getParent().getType() != TokenTypes.DOT
-                    && aWrapExcNames.contains(currentNode.getText()))
-            {
-                result = true;
+        for (DetailAST currentNode : AstTraversal.children(aParentAST)) {
+            boolean inNestedTry = aInNestedTry;
+            ThrowStatement throwStatement = aThrow;
+
+            switch (currentNode.getType()) {
+            case TokenTypes.IDENT:
+                if (currentNode.getParent().getType() != TokenTypes.DOT) {
+                    final String name = currentNode.getText();
+                    if (name.equals(mOriginExcName)) {
+                        addWrapExcName(currentNode);
+                    }
+                    if (throwStatement != null) {
+                        throwStatement.mParamNames.add(name);
+                    }
+                }
+                break;
+            case TokenTypes.LITERAL_THROW:
+                if (throwStatement == null && !inNestedTry) {
+                    throwStatement = new ThrowStatement(currentNode);
+                    mThrowList.add(throwStatement);
+                }
+                break;
+            case TokenTypes.LITERAL_TRY:
+                inNestedTry = true;
+                throwStatement = null;
+                break;
+            case TokenTypes.PARAMETER_DEF:
+                continue;
+            default:
                 break;
-            }
-        }
-        return result;
-    }
-    
-    /**
-     * Returns a List of<code>DetailAST</code> that contains the names of
-     * parameters  for current "throw" keyword.
-     * @param aStartNode The start node for exception name searching.
-     * @param aParamNamesAST The list, that will be contain names of the 
-     * parameters 
-     * @return A List of tokens (<code>DetailAST</code>) contains the
-     * thrown exception name if it was found or null otherwise.
-     */
-    private List<DetailAST> getThrowParamNamesList(DetailAST aStartNode, 
-                            List<DetailAST> aParamNamesAST)
-    {
-        for (DetailAST currentNode : getChildNodes(aStartNode)) {
-
-            if (currentNode.getType() == TokenTypes.IDENT) {
-                aParamNamesAST.add(currentNode);
             }
 
-            if (currentNode.getType() != TokenTypes.PARAMETER_DEF
-                    && currentNode.getType() != TokenTypes.LITERAL_TRY
-                    && currentNode.getNumberOfChildren() > 0)
-            {
-                getThrowParamNamesList(currentNode, aParamNamesAST);
+            if (currentNode.getNumberOfChildren() > 0) {
+                collect(currentNode, inNestedTry, throwStatement);
             }
-
         }
-        return aParamNamesAST;
     }
 
     /**
-     * Recursive method which searches for the <code>LITERAL_THROW</code>
-     * DetailASTs all levels below on the current <code>aParentAST</code> node
-     * without entering into nested try/catch blocks.
-     * @param aParentAST A start node for "throw" keyword <code>DetailASTs
-     * </code> searching.
-     * @return list of throw literals
+     * Adds the name of exception that wraps the original exception object
+     * when the given usage of the original exception is assigned.
+     * @param aExcNameAST Usage of the original exception.
      */
-    private LinkedList<DetailAST> makeThrowList(DetailAST aParentAST)
+    private void addWrapExcName(DetailAST aExcNameAST)
     {
+        DetailAST temp = aExcNameAST;
 
-        LinkedList<DetailAST> throwList = new LinkedList<DetailAST>();    
-        for (DetailAST currentNode : getChildNodes(aParentAST)) {
+        // stops at the nearest catch block, nested ones included
+        while (temp.getType() != TokenTypes.LITERAL_CATCH
+                && temp.getType() != TokenTypes.ASSIGN)
+        {
+            temp = temp.getParent();
+        }
 
-            if (currentNode.getType() == TokenTypes.LITERAL_THROW) {
-                throwList.add(currentNode);
+        if (temp.getType() == TokenTypes.ASSIGN) {
+            DetailAST convertedExc = null;
+            if (temp.getParent().getType() == TokenTypes.VARIABLE_DEF) {
+                convertedExc = temp.getParent().findFirstToken(
+                        TokenTypes.IDENT);
             }
-
-            if (currentNode.getType() != TokenTypes.PARAMETER_DEF
-                    && currentNode.getType() != TokenTypes.LITERAL_THROW
-                    && currentNode.getType() != TokenTypes.LITERAL_TRY
-                    && currentNode.getNumberOfChildren() > 0)
-            {
-                throwList.addAll(makeThrowList(currentNode));
+            else {
+                convertedExc = temp.findFirstToken(TokenTypes.IDENT);
             }
 
+            if (convertedExc != null) {
+                mWrapExcNames.add(convertedExc.getText());
+            }
         }
-        return throwList;
     }
 
     /**
-     * Searches for all exceptions that wraps the original exception
-     * object (only in current "catch" block).
-     * @param aCurrentCatchAST A LITERAL_CATCH node of the
-     * current "catch" block.
-     * @param aParentAST Current parent node to start search.
-     * @param aCurrentExcName The name of exception handled by
-     * current "catch" block.
-     * @return LinkedList<String> contains exceptions that wraps the original 
-     * exception object.
+     * A "throw" statement with the names of its parameters.
      */
-    private LinkedList<String> makeExceptionsList(DetailAST aCurrentCatchAST,
-            DetailAST aParentAST, String aCurrentExcName)
+    private static final class ThrowStatement
     {
-        LinkedList<String> wrapExcNames = new LinkedList<String>();
-
-        for (DetailAST currentNode : getChildNodes(aParentAST)) {
-
-            if (currentNode.getType() == TokenTypes.IDENT
-                    && currentNode.getText().equals(aCurrentExcName)
-                    && currentNode.getParent() != null
-                    && currentNode.getParent().getType() != TokenTypes.DOT)
-            {
-
-                DetailAST temp = currentNode;
-
-                while (!temp.equals(aCurrentCatchAST)
-                        && temp.getType() != TokenTypes.ASSIGN)
-                {
-                    temp = temp.getParent();
-                }
-
-                if (temp.getType() == TokenTypes.ASSIGN) {
-                    DetailAST convertedExc = null;
-                    if (temp.getParent().getType() == TokenTypes.VARIABLE_DEF) {
-                        convertedExc = temp.getParent().findFirstToken(
-                                TokenTypes.IDENT);
-                    }
-                    else {
-                        convertedExc = temp.findFirstToken(TokenTypes.IDENT);
-                    }
-
-                    if (convertedExc != null
-                            && !convertedExc.getText().equals(aCurrentExcName))
-                    {
-                        if (!wrapExcNames.contains(convertedExc
-                                .getText()))
-                        {
-                            wrapExcNames.add(convertedExc
-                                    .getText());
-                        }
-                    }
+        /** The LITERAL_THROW node. */
+        private final DetailAST mThrowAST;
+
+        /**
+         * Names used by the thrown expression except qualified ones,
+         * excluding nested try/catch blocks.
+         */
+        private final List<String> mParamNames = new ArrayList<String>();
+
+        /**
+         * Creates a new "throw" statement.
+         * @param aThrowAST The LITERAL_THROW node.
+         */
+        ThrowStatement(DetailAST aThrowAST)
+        {
+            mThrowAST = aThrowAST;
+        }
 
+        /**
+         * Returns true when the "throw" statement uses caught exception.
+         * @param aWrapExcNames The name of caught exception and names
+         * of exceptions that wrap it.
+         * @return true when the "throw" statement uses caught exception.
+         */
+        boolean isContainsCaughtExc(Set<String> aWrapExcNames)
+        {
+            boolean result = false;
+            for (String name : mParamNames) {
+                if (aWrapExcNames.contains(name)) {
+                    result = true;
+                    break;
                 }
-
-            }
-
-            if (currentNode.getType() != TokenTypes.PARAMETER_DEF
-                    && currentNode.getNumberOfChildren() > 0)
-            {
-                wrapExcNames.addAll(makeExceptionsList(aCurrentCatchAST, 
-                        currentNode, aCurrentExcName));
             }
-
+            return result;
         }
-        return wrapExcNames;
-    }
-
-    /**
-     * Gets all the children one level below on the current parent node.
-     * @param aNode Current parent node.
-     * @return List of children one level below on the current
-     *         parent node (aNode).
-     */
-    private static LinkedList<DetailAST> getChildNodes(DetailAST aNode)
-    {
-        final LinkedList<DetailAST> result = new LinkedList<DetailAST>();
-
-        DetailAST currNode = aNode.getFirstChild();
-
-        while (currNode != null) {
-            result.add(currNode);
-            currNode = currNode.getNextSibling();
-        }
-
-        return result;
     }
 
 }
@@ -22,6 +22,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.regex.Pattern;
 
+import com.github.sevntu.checkstyle.ast.AstTraversal;
 import com.puppycrawl.tools.checkstyle.api.Check;
 import com.puppycrawl.tools.checkstyle.api.DetailAST;
 import com.puppycrawl.tools.checkstyle.api.FullIdent;
@@ -247,28 +248,10 @@ public class AvoidModifiersForTypesCheck extends Check
         final List<Integer> modifiersList = new LinkedList<Integer>();
         final DetailAST modifiersAST = aVariableDefAst
                 .findFirstToken(TokenTypes.MODIFIERS);
-        for (DetailAST modifier : getChildren(modifiersAST)) {
+        for (DetailAST modifier : AstTraversal.children(modifiersAST)) {
             modifiersList.add(modifier.getType());
         }
         return modifiersList;
     }
 
-    /**
-     * Gets all the children which are one level below on the current DetailAST
-     * parent node.
-     * @param aNode
-     *        The parent node.
-     * @return The list of children one level below on the current parent node.
-     */
-    private static List<DetailAST> getChildren(final DetailAST aNode)
-    {
-        final List<DetailAST> result = new LinkedList<DetailAST>();
-        DetailAST curNode = aNode.getFirstChild();
-        while (curNode != null) {
-            result.add(curNode);
-            curNode = curNode.getNextSibling();
-        }
-        return result;
-    }
-
 }
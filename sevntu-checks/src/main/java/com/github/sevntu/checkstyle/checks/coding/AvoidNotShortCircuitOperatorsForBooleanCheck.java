@@ -20,6 +20,7 @@ package com.github.sevntu.checkstyle.checks.coding;
 
 import java.util.LinkedList;
 
+import com.github.sevntu.checkstyle.ast.AstTraversal;
 import com.puppycrawl.tools.checkstyle.api.DetailAST;
 import com.puppycrawl.tools.checkstyle.api.TokenTypes;
 import com.puppycrawl.tools.checkstyle.api.Check;
@@ -177,7 +178,7 @@ public class AvoidNotShortCircuitOperatorsForBooleanCheck extends Check
         }
 
         final int line = aNode.getLineNo();
-        for (DetailAST currentNode : getChildren(curNode.getLastChild())) {
+        for (DetailAST currentNode : AstTraversal.children(curNode.getLastChild())) {
             if (currentNode.getLineNo() < line
                     && currentNode.getType() == TokenTypes.VARIABLE_DEF)
             {
@@ -211,7 +212,7 @@ public class AvoidNotShortCircuitOperatorsForBooleanCheck extends Check
             final DetailAST aEXPRParentAST)
     {
 
-        for (DetailAST currentNode : getChildren(aEXPRParentAST)) {
+        for (DetailAST currentNode : AstTraversal.children(aEXPRParentAST)) {
 
             if (currentNode.getNumberOfChildren() > 0
                     && currentNode.getType() != TokenTypes.METHOD_CALL)
@@ -243,27 +244,11 @@ public class AvoidNotShortCircuitOperatorsForBooleanCheck extends Check
      */
     public final boolean hasTrueOrFalseLiteral(final DetailAST aParentAST)
     {
-
-        for (DetailAST currentNode : getChildren(aParentAST)) {
-
-            if (currentNode.getNumberOfChildren() > 0) {
-                hasTrueOrFalseLiteral(currentNode);
-            }
-
-            final int type = currentNode.getType();
-            if (type == TokenTypes.LITERAL_TRUE
-                    || type == TokenTypes.LITERAL_FALSE)
-            {
-                mHasTrueOrFalseLiteral = true;
-            }
-
-            if (currentNode.getNextSibling() != null) {
-                currentNode = currentNode.getNextSibling();
-            }
-
-            if (mHasTrueOrFalseLiteral) {
-                break;
-            }
+        if (AstTraversal.findFirst(aParentAST, TokenTypes.LITERAL_TRUE) != null
+                || AstTraversal.findFirst(aParentAST,
+                        TokenTypes.LITERAL_FALSE) != null)
+        {
+            mHasTrueOrFalseLiteral = true;
         }
         return mHasTrueOrFalseLiteral;
     }
@@ -273,7 +258,10 @@ public class AvoidNotShortCircuitOperatorsForBooleanCheck extends Check
      * @param aNode - current parent node.
      * @return an array of children one level below on the current parent node
      *         aNode.
+     * @deprecated iterate over {@link AstTraversal#children(DetailAST)}
+     *             instead, it does not copy children into a list.
      */
+    @Deprecated
     public final static LinkedList<DetailAST> getChildren(final DetailAST aNode)
     {
         final LinkedList<DetailAST> result = new LinkedList<DetailAST>();
@@ -33,6 +33,8 @@ import java.util.regex.PatternSyntaxException;
 
 import org.apache.commons.beanutils.ConversionException;
 
+import com.github.sevntu.checkstyle.ast.AstTraversal;
+import com.github.sevntu.checkstyle.ast.AstVisitor;
 import com.puppycrawl.tools.checkstyle.api.Check;
 import com.puppycrawl.tools.checkstyle.api.DetailAST;
 import com.puppycrawl.tools.checkstyle.api.TokenTypes;
@@ -194,6 +196,10 @@ public class CustomDeclarationOrderCheck extends Check
 
     private static final String SETTER_PREFIX = "set";
 
+    /** RegExp which matches formats of RegExp matching any text */
+    private static final Pattern MATCHING_ALL_FORMAT =
+        Pattern.compile("(\\()*\\.\\*(\\))*");
+
     /** Default format for custom declaration check */
     private static final String DEFAULT_DECLARATION = "Field(.*public.*) "
             + "### Field(.*protected.*) ### Field(.*private.*) ### CTOR(.*) ### "
@@ -216,6 +222,12 @@ public class CustomDeclarationOrderCheck extends Check
     private final List<FormatMatcher> mCustomOrderDeclaration =
         new ArrayList<FormatMatcher>();
 
+    /**
+     * Indexes of rules in mCustomOrderDeclaration for every token type
+     * of class member, in order of declaration. Indexed by token type.
+     */
+    private int[][] mRulesByTokenType = new int[0][];
+
     /** save compile flags for further usage */
     private int mCompileFlags;
 
@@ -267,6 +279,32 @@ public class CustomDeclarationOrderCheck extends Check
                         + currentState, exp);
             }
         }
+        compileRulesByTokenType();
+    }
+
+    /**
+     * Builds the table of rules for every token type of class member, so
+     * only rules of the same class member are matched against an AST node.
+     */
+    private void compileRulesByTokenType()
+    {
+        int maxTokenType = -1;
+        for (FormatMatcher currentRule : mCustomOrderDeclaration) {
+            maxTokenType = Math.max(maxTokenType, currentRule.getClassMember());
+        }
+        final int[] counts = new int[maxTokenType + 1];
+        for (FormatMatcher currentRule : mCustomOrderDeclaration) {
+            counts[currentRule.getClassMember()]++;
+        }
+        mRulesByTokenType = new int[maxTokenType + 1][];
+        for (int type = 0; type <= maxTokenType; type++) {
+            mRulesByTokenType[type] = new int[counts[type]];
+            counts[type] = 0;
+        }
+        for (int index = 0; index < mCustomOrderDeclaration.size(); index++) {
+            final int type = mCustomOrderDeclaration.get(index).getClassMember();
+            mRulesByTokenType[type][counts[type]++] = index;
+        }
     }
 
     /**
@@ -589,45 +627,52 @@ public class CustomDeclarationOrderCheck extends Check
     private int getPositionInOrderDeclaration(final DetailAST aAST)
     {
         int result = -1;
-        final String modifiers = getCombinedModifiersList(aAST);
-        for (int index = 0; index < mCustomOrderDeclaration.size(); index++) {
+        final int type = aAST.getType();
+        final int[] rules = type < mRulesByTokenType.length
+            ? mRulesByTokenType[type] : new int[0];
+        String modifiers = null;
+        for (int index : rules) {
             final FormatMatcher currentRule = mCustomOrderDeclaration.get(index);
-            if (currentRule.getClassMember() == aAST.getType()
-                    && currentRule.getRegexp().matcher(modifiers).find())
-            {
-                if (currentRule.hasRule(ANNON_CLASS_FIELD_MACRO)) {
-                    if (isAnonymousClassField(aAST)) {
-                        result = index;
-                        break;
-                    }
+            if (!currentRule.isMatchingAll()) {
+                if (modifiers == null) {
+                    modifiers = getCombinedModifiersList(aAST);
                 }
-                else if (currentRule.hasRule(GETTER_SETTER_MACRO)) {
-                    final String methodName = getIdentifier(aAST);
-                    final ClassDetail classDetail = mClassDetails.peek();
-                    if (classDetail.containsGetter(methodName)
-                            || classDetail.containsSetter(methodName))
-                    {
-                        result = index;
-                        break;
-                    }
+                if (!currentRule.getRegexp().matcher(modifiers).find()) {
+                    continue;
                 }
-                else if (currentRule.hasRule(MAIN_METHOD_MACRO)) {
-                    if (isMainMethod(aAST)) {
-                        result = index;
-                        break;
-                    }
+            }
+            if (currentRule.isAnnonClassFieldRule()) {
+                if (isAnonymousClassField(aAST)) {
+                    result = index;
+                    break;
                 }
-                else {
-                	// if more than one rule matches current AST node, then keep first one
-                    result = (result == -1) ? index : result;
-                    if (aAST.getType() == TokenTypes.METHOD_DEF
-                    		|| aAST.getType() == TokenTypes.VARIABLE_DEF)
-                    {
-                    	// continue to find more specific rule
-                    	continue;
-                    } else {
-                    	break;
-                    }
+            }
+            else if (currentRule.isGetterSetterRule()) {
+                final String methodName = getIdentifier(aAST);
+                final ClassDetail classDetail = mClassDetails.peek();
+                if (classDetail.containsGetter(methodName)
+                        || classDetail.containsSetter(methodName))
+                {
+                    result = index;
+                    break;
+                }
+            }
+            else if (currentRule.isMainMethodRule()) {
+                if (isMainMethod(aAST)) {
+                    result = index;
+                    break;
+                }
+            }
+            else {
+            	// if more than one rule matches current AST node, then keep first one
+                result = (result == -1) ? index : result;
+                if (type == TokenTypes.METHOD_DEF
+                		|| type == TokenTypes.VARIABLE_DEF)
+                {
+                	// continue to find more specific rule
+                	continue;
+                } else {
+                	break;
                 }
             }
         }
@@ -895,37 +940,24 @@ public class CustomDeclarationOrderCheck extends Check
      * @param aFieldName name of target field.
      * @return true if there is updating of aFieldName in aStatementsAst.
      */
-    private static boolean isFieldUpdate(DetailAST aStatementsAst, String aFieldName)
+    private static boolean isFieldUpdate(DetailAST aStatementsAst,
+            final String aFieldName)
     {
-        boolean result = false;
-        DetailAST currentStatement = aStatementsAst.getFirstChild();
-
-        while (currentStatement != null && currentStatement != aStatementsAst) {
-            
-            String nameOfSetterField = null;
-            if (currentStatement.getType() == TokenTypes.ASSIGN) {
-                nameOfSetterField = getNameOfAssignedField(currentStatement);
-            } else if (currentStatement.getType() == TokenTypes.METHOD_CALL) {
-                nameOfSetterField = getNameOfSuperClassUpdatedField(currentStatement);
-            }
-            
-            if (aFieldName.equalsIgnoreCase(nameOfSetterField)) {
-                result = true;
-                break;
-            }
-
-            DetailAST nextStatement = currentStatement.getFirstChild();
-
-            while ((currentStatement != null) && (nextStatement == null)) {
-                nextStatement = currentStatement.getNextSibling();
-                if (nextStatement == null) {
-                    currentStatement = currentStatement.getParent();
+        // the walk is stopped at the first update of the field
+        return !AstTraversal.walk(aStatementsAst, new AstVisitor() {
+            @Override
+            public Action visit(DetailAST aNode)
+            {
+                String nameOfSetterField = null;
+                if (aNode.getType() == TokenTypes.ASSIGN) {
+                    nameOfSetterField = getNameOfAssignedField(aNode);
+                } else if (aNode.getType() == TokenTypes.METHOD_CALL) {
+                    nameOfSetterField = getNameOfSuperClassUpdatedField(aNode);
                 }
+                return aFieldName.equalsIgnoreCase(nameOfSetterField)
+                    ? Action.STOP : Action.CONTINUE;
             }
-
-            currentStatement = nextStatement;
-        }
-        return result;
+        });
     }
 
     /**
@@ -1205,6 +1237,14 @@ public class CustomDeclarationOrderCheck extends Check
         private final String mRule;
         /** The string format of the RegExp */
         private String mFormat;
+        /** Whether the RegExp matches any text */
+        private boolean mMatchingAll;
+        /** Whether the rule is for fields keeping anonymous classes */
+        private final boolean mAnnonClassFieldRule;
+        /** Whether the rule is for getters and setters */
+        private final boolean mGetterSetterRule;
+        /** Whether the rule is for the main method */
+        private final boolean mMainMethodRule;
 
         /**
          * Creates a new <code>FormatMatcher</code> instance.
@@ -1219,6 +1259,11 @@ public class CustomDeclarationOrderCheck extends Check
         {
             mClassMember = aClassMember;
             mRule = aInputRule;
+            mAnnonClassFieldRule = hasRule(ANNON_CLASS_FIELD_MACRO);
+            mGetterSetterRule = !mAnnonClassFieldRule
+                && hasRule(GETTER_SETTER_MACRO);
+            mMainMethodRule = !mAnnonClassFieldRule && !mGetterSetterRule
+                && hasRule(MAIN_METHOD_MACRO);
         }
 
         /** @return the RegExp to match against */
@@ -1227,6 +1272,30 @@ public class CustomDeclarationOrderCheck extends Check
             return mRegExp;
         }
 
+        /** @return true if the RegExp matches any text, e.g. ".*" */
+        public final boolean isMatchingAll()
+        {
+            return mMatchingAll;
+        }
+
+        /** @return true if the rule is for fields keeping anonymous classes */
+        public final boolean isAnnonClassFieldRule()
+        {
+            return mAnnonClassFieldRule;
+        }
+
+        /** @return true if the rule is for getters and setters */
+        public final boolean isGetterSetterRule()
+        {
+            return mGetterSetterRule;
+        }
+
+        /** @return true if the rule is for the main method */
+        public final boolean isMainMethodRule()
+        {
+            return mMainMethodRule;
+        }
+
         /** @return the original immutable input rule */
         public final String getRule()
         {
@@ -1261,6 +1330,7 @@ public class CustomDeclarationOrderCheck extends Check
             try {
                 mRegExp = Utils.getPattern(aFormat, aCompileFlags);
                 mFormat = aFormat;
+                mMatchingAll = MATCHING_ALL_FORMAT.matcher(aFormat).matches();
             }
             catch (final PatternSyntaxException e) {
                 throw new ConversionException("unable to parse " + aFormat, e);
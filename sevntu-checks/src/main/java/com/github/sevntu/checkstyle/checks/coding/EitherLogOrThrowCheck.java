@@ -19,11 +19,9 @@
 
 package com.github.sevntu.checkstyle.checks.coding;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.regex.Pattern;
+import java.util.HashSet;
+import java.util.Set;
 
 import com.puppycrawl.tools.checkstyle.api.Check;
 import com.puppycrawl.tools.checkstyle.api.DetailAST;
@@ -135,21 +133,21 @@ public class EitherLogOrThrowCheck extends Check
     /**
      * Logger method names.
      */
-    private List<String> mLoggingMethodNames =
-            Arrays.asList("error", "warn", "info", "debug");
+    private Set<String> mLoggingMethodNames = new HashSet<String>(
+            Arrays.asList("error", "warn", "info", "debug"));
     /**
      * Variables names of logger variables.
      */
-    private List<String> mLoggerFieldNames = new LinkedList<String>();
+    private Set<String> mLoggerFieldNames = new HashSet<String>();
     /**
      * Logger class is in imports.
      */
     private boolean mHasLoggerClassInImports;
     /**
-     * Regexp of printStackTrace method.
+     * Name of printStackTrace method.
      */
-    private static final Pattern PRINT_STACK_TRACE_METHOD_PATTERN = Pattern
-            .compile(".+\\.printStackTrace");
+    private static final String PRINT_STACK_TRACE_METHOD_NAME =
+            "printStackTrace";
     /**
      * Considered class definition.
      */
@@ -162,7 +160,7 @@ public class EitherLogOrThrowCheck extends Check
      * Current local variable names of logger type. It can be method's parameter
      * or method's local variable.
      */
-    private List<String> mCurrentLocalLoggerVariableNames = new ArrayList<String>();
+    private Set<String> mCurrentLocalLoggerVariableNames = new HashSet<String>();
 
     /**
      * Set logger full class name and logger simple class name.
@@ -184,7 +182,8 @@ public class EitherLogOrThrowCheck extends Check
 
     public void setLoggingMethodNames(String[] aLoggingMethodNames)
     {
-        mLoggingMethodNames = Arrays.asList(aLoggingMethodNames);
+        mLoggingMethodNames = new HashSet<String>(
+                Arrays.asList(aLoggingMethodNames));
     }
 
     @Override
@@ -337,7 +336,7 @@ public class EitherLogOrThrowCheck extends Check
     {
         boolean isLoggingExceptionFound = false;
         int loggingExceptionLineNumber = 0;
-        final List<String> exceptionVariableNames = new LinkedList<String>();
+        final Set<String> exceptionVariableNames = new HashSet<String>();
         final String catchParameterName = getCatchParameterName(aCatchAst);
         final DetailAST statementsAst =
                 aCatchAst.findFirstToken(TokenTypes.SLIST);
@@ -366,8 +365,8 @@ public class EitherLogOrThrowCheck extends Check
             // logging exception or printStackTrace
             case TokenTypes.EXPR:
                 if (!isLoggingExceptionFound
-                        && (isLoggingExceptionArgument(currentStatementAst, catchParameterName)
-                        || isPrintStackTrace(currentStatementAst, catchParameterName)))
+                        && isLoggingExceptionOrPrintStackTrace(
+                                currentStatementAst, catchParameterName))
                 {
                     isLoggingExceptionFound = true;
                     loggingExceptionLineNumber = currentStatementAst.getLineNo();
@@ -480,33 +479,16 @@ public class EitherLogOrThrowCheck extends Check
     }
 
     /**
-     * Verify that expression is logging exception.
+     * Verify that expression is logging exception or is call of exception's
+     * printStackTrace method. Names of invoked object and method are
+     * extracted once for both cases.
      * @param aExpressionAst DetailAST of expression(EXPR).
      * @param aExceptionVariableName name of exception variable.
-     * @return true if expression is logging exception.
+     * @return true if expression is logging exception or printing its stack
+     *         trace.
      */
-    private boolean isLoggingExceptionArgument(
+    private boolean isLoggingExceptionOrPrintStackTrace(
             final DetailAST aExpressionAst, final String aExceptionVariableName)
-    {
-        boolean result = false;
-        if (isLoggingExpression(aExpressionAst)) {
-            final DetailAST loggingMethodCallAst =
-                    aExpressionAst.getFirstChild();
-            final DetailAST loggerParametersAst =
-                    loggingMethodCallAst.findFirstToken(TokenTypes.ELIST);
-            result = containsExceptionParameter(
-                    loggerParametersAst, aExceptionVariableName);
-        }
-        return result;
-    }
-
-    /**
-     * Verify that aExpressionAst is a logging expression.
-     * @param aExpressionAst
-     *        DetailAST of expression.
-     * @return true if aExpressionAst is a logging expression.
-     */
-    private boolean isLoggingExpression(final DetailAST aExpressionAst)
     {
         boolean result = false;
         final DetailAST methodCallAst = aExpressionAst.getFirstChild();
@@ -514,15 +496,30 @@ public class EitherLogOrThrowCheck extends Check
                 && hasChildToken(methodCallAst, TokenTypes.DOT))
         {
             final DetailAST dotAst = methodCallAst.getFirstChild();
-            final DetailAST loggerObjectAst = dotAst.getFirstChild();
-            final DetailAST invokedMethodAst = loggerObjectAst.getNextSibling();
-            final String loggerObjectIdentifier =
-                    FullIdent.createFullIdent(loggerObjectAst).getText();
-            final String invokedMethodIdentifier = invokedMethodAst.getText();
-            result = (mCurrentLocalLoggerVariableNames
-                    .contains(loggerObjectIdentifier)
-                    || mLoggerFieldNames.contains(loggerObjectIdentifier))
-                    && mLoggingMethodNames.contains(invokedMethodIdentifier);
+            final DetailAST invokedObjectAst = dotAst.getFirstChild();
+            final String invokedObjectIdentifier =
+                    FullIdent.createFullIdent(invokedObjectAst).getText();
+            final String invokedMethodIdentifier =
+                    invokedObjectAst.getNextSibling().getText();
+            if (mLoggingMethodNames.contains(invokedMethodIdentifier)
+                    && (mCurrentLocalLoggerVariableNames
+                            .contains(invokedObjectIdentifier)
+                    || mLoggerFieldNames.contains(invokedObjectIdentifier)))
+            {
+                final DetailAST loggerParametersAst =
+                        methodCallAst.findFirstToken(TokenTypes.ELIST);
+                result = containsExceptionParameter(
+                        loggerParametersAst, aExceptionVariableName);
+            }
+            if (!result
+                    && PRINT_STACK_TRACE_METHOD_NAME.equals(invokedMethodIdentifier))
+            {
+                final int firstDotIndex = invokedObjectIdentifier.indexOf('.');
+                final String usedObjectName = firstDotIndex == -1
+                        ? invokedObjectIdentifier
+                        : invokedObjectIdentifier.substring(0, firstDotIndex);
+                result = usedObjectName.equals(aExceptionVariableName);
+            }
         }
         return result;
     }
@@ -560,29 +557,6 @@ public class EitherLogOrThrowCheck extends Check
         return result;
     }
 
-    /**
-     * Verify that expression is call of exception's printStackTrace method.
-     * @param aExpressionAst
-     *        DetailAST of expression.
-     * @param aExceptionVariableName
-     *        name of exception variable.
-     * @return true if expression is call of exception's printStackTrace method.
-     */
-    private static boolean isPrintStackTrace(final DetailAST aExpressionAst,
-            final String aExceptionVariableName)
-    {
-        boolean result = false;
-        final DetailAST methodCallAst = aExpressionAst.getFirstChild();
-        if (isInstanceMethodCall(aExceptionVariableName, methodCallAst)) {
-            final String methodCallStr =
-                    FullIdent.createFullIdentBelow(methodCallAst).getText();
-            if (PRINT_STACK_TRACE_METHOD_PATTERN.matcher(methodCallStr).matches()) {
-                result = true;
-            }
-        }
-        return result;
-    }
-
     /**
      * Verify that method is invoked on aUsedInstanceName.
      * @param aUsedInstanseName name of instance.
@@ -18,6 +18,7 @@
 ////////////////////////////////////////////////////////////////////////////////
 package com.github.sevntu.checkstyle.checks.coding;
 
+import java.util.Arrays;
 import java.util.Set;
 
 import com.puppycrawl.tools.checkstyle.api.Check;
@@ -39,9 +40,9 @@ public class ForbidCCommentsInMethods extends Check
 	public final static String MSG_KEY = "forbid.c.comments.in.the.method.body";
 	
     /**
-     * Set contains C style comments from current file
+     * Sorted lines of C style comments from current file
      */
-    private Set<Integer> mCComments;
+    private int[] mCCommentLines;
 
     @Override
     public int[] getDefaultTokens()
@@ -52,13 +53,20 @@ public class ForbidCCommentsInMethods extends Check
     @Override
     public void beginTree(DetailAST aRootAST)
     {
-        mCComments = getFileContents().getCComments().keySet();
+        final Set<Integer> comments =
+                getFileContents().getCComments().keySet();
+        mCCommentLines = new int[comments.size()];
+        int index = 0;
+        for (final int commentLineNo : comments) {
+            mCCommentLines[index++] = commentLineNo;
+        }
+        Arrays.sort(mCCommentLines);
     }
 
     @Override
     public void visitToken(DetailAST aMethodNode)
     {
-        if (!mCComments.isEmpty()) {
+        if (mCCommentLines.length > 0) {
             final DetailAST borders =
                     aMethodNode.findFirstToken(TokenTypes.SLIST);
             //Could be null when aMethodNode doesn't have body 
@@ -67,12 +75,19 @@ public class ForbidCCommentsInMethods extends Check
             {
                 final int methodBodyBegin = borders.getLineNo();
                 final int methodBodyEnd = borders.getLastChild().getLineNo();
-                for (final int commentLineNo : mCComments) {
-                    if (commentLineNo > methodBodyBegin
-                            && commentLineNo < methodBodyEnd)
-                    {
-                        log(commentLineNo, MSG_KEY);
-                    }
+                int index = Arrays.binarySearch(mCCommentLines, methodBodyBegin);
+                // skip comment on the line of method body begin
+                if (index >= 0) {
+                    index++;
+                }
+                else {
+                    index = -index - 1;
+                }
+                while (index < mCCommentLines.length
+                        && mCCommentLines[index] < methodBodyEnd)
+                {
+                    log(mCCommentLines[index], MSG_KEY);
+                    index++;
                 }
             }
         }
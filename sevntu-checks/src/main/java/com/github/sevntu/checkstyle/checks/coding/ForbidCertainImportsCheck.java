@@ -20,6 +20,8 @@ package com.github.sevntu.checkstyle.checks.coding;
 
 import java.util.regex.Pattern;
 
+import com.github.sevntu.checkstyle.walker.LexicalFilter;
+import com.github.sevntu.checkstyle.walker.SourceHeader;
 import com.puppycrawl.tools.checkstyle.api.Check;
 import com.puppycrawl.tools.checkstyle.api.DetailAST;
 import com.puppycrawl.tools.checkstyle.api.FullIdent;
@@ -51,10 +53,13 @@ import com.puppycrawl.tools.checkstyle.api.TokenTypes;
  * <br/>
  * You can cover more sophisticated rules by means of few check instances.<br/>
  * <br/>
+ * Files out of the affected packages are rejected by the lexical filter, so
+ * FusedTreeWalker with "lexicalFiltering" does not parse them.<br/>
+ * <br/>
  * @author <a href="mailto:Daniil.Yaroslavtsev@gmail.com"> Daniil
  *         Yaroslavtsev</a>
  */
-public class ForbidCertainImportsCheck extends Check
+public class ForbidCertainImportsCheck extends Check implements LexicalFilter
 {
 
     /**
@@ -157,6 +162,20 @@ public class ForbidCertainImportsCheck extends Check
         return defaultTokens;
     }
 
+    @Override
+    public boolean isRelevant(SourceHeader aHeader)
+    {
+        final String packageName = aHeader.getPackageName();
+        return getDefaultTokens().length > 0 && packageName != null
+            && mPackageNamesRegexp.matcher(packageName).matches();
+    }
+
+    @Override
+    public void beginTree(DetailAST aRootAST)
+    {
+        mPackageMatches = false;
+    }
+
     @Override
     public void visitToken(DetailAST aAst)
     {
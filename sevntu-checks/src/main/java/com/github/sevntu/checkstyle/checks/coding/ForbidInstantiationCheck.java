@@ -23,6 +23,8 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 
+import com.github.sevntu.checkstyle.walker.LexicalFilter;
+import com.github.sevntu.checkstyle.walker.SourceHeader;
 import com.puppycrawl.tools.checkstyle.api.Check;
 import com.puppycrawl.tools.checkstyle.api.DetailAST;
 import com.puppycrawl.tools.checkstyle.api.FullIdent;
@@ -38,10 +40,16 @@ import com.puppycrawl.tools.checkstyle.api.TokenTypes;
  * Note: className should to be full: use "java.lang.NullPointerException"
  * instead of "NullpointerException".
  * </p>
+ * <p>
+ * Files which do not mention simple names of forbidden classes are rejected
+ * by the lexical filter, so FusedTreeWalker with "lexicalFiltering" does not
+ * parse them. Classes of "java.lang" are matched by a suffix of their name,
+ * so any file with "new" is accepted for them.
+ * </p>
  * @author <a href="mailto:Daniil.Yaroslavtsev@gmail.com"> Daniil
  *         Yaroslavtsev</a>
  */
-public class ForbidInstantiationCheck extends Check
+public class ForbidInstantiationCheck extends Check implements LexicalFilter
 {
 
     /**
@@ -87,6 +95,19 @@ public class ForbidInstantiationCheck extends Check
         }
     }
 
+    @Override
+    public boolean isRelevant(SourceHeader aHeader)
+    {
+        for (String forbiddenClass : mForbiddenClasses) {
+            final String word = forbiddenClass.startsWith("java.lang.")
+                ? "new" : getClassName(forbiddenClass);
+            if (aHeader.containsWord(word)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public void beginTree(final DetailAST aRootAST)
     {
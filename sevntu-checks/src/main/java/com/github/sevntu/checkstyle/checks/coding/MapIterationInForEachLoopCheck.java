@@ -20,10 +20,15 @@
 package com.github.sevntu.checkstyle.checks.coding;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import com.github.sevntu.checkstyle.ast.AstIndex;
+import com.github.sevntu.checkstyle.index.TypeHierarchy;
+import com.github.sevntu.checkstyle.walker.TypeHierarchyAware;
 import com.puppycrawl.tools.checkstyle.api.Check;
 import com.puppycrawl.tools.checkstyle.api.DetailAST;
 import com.puppycrawl.tools.checkstyle.api.FullIdent;
@@ -115,10 +120,16 @@ import com.puppycrawl.tools.checkstyle.api.TokenTypes;
  *     System.out.println(entry.getValue() + "   " + entry.getKey());
  * }
  * </pre>
+ * <p>
+ * When the type hierarchy of the project is available, a variable is also
+ * a map if it is initialized with any class which implements Map, even
+ * when the class is declared in another file.
+ * </p>
  * @author <a href="mailto:maxvetrenko2241@gmail.com">Max Vetrenko</a>
  */
 
 public class MapIterationInForEachLoopCheck extends Check
+    implements TypeHierarchyAware
 {
     /**
      * If this value is true, Checkstyle will process value() iterations.
@@ -179,9 +190,16 @@ public class MapIterationInForEachLoopCheck extends Check
     private static final String GET_KEY_NODE_NAME = "getKey";
 
     /**
-     * This list contains Map object's names.
+     * Names of Map objects by nodes of scopes (class body, block or for
+     * loop) they are declared in.
+     */
+    private final Map<DetailAST, Set<String>> mMapNamesByScope =
+            new HashMap<DetailAST, Set<String>>();
+
+    /**
+     * Index of nodes of the current file.
      */
-    private List<String> mMapNamesList = new ArrayList<String>();
+    private AstIndex mIndex;
 
     /**
      * This list contains all qualified imports.
@@ -194,6 +212,11 @@ public class MapIterationInForEachLoopCheck extends Check
      */
     private final Set<String> mSupportedMapImplQualifiedNames;
 
+    /**
+     * Hierarchy of types of the project, null if it is not available.
+     */
+    private TypeHierarchy mTypeHierarchy;
+
     /**
      * Creates default importList and mapImportClassesNamesList.
      */
@@ -261,12 +284,32 @@ public class MapIterationInForEachLoopCheck extends Check
         this.mProposeEntrySetUsage = aProposeEntrySetUsage;
     }
 
+    @Override
+    public void setTypeHierarchy(TypeHierarchy aHierarchy)
+    {
+        mTypeHierarchy = aHierarchy;
+    }
+
     @Override
     public int[] getDefaultTokens()
     {
         return new int[] {TokenTypes.LITERAL_FOR, TokenTypes.IMPORT, TokenTypes.VARIABLE_DEF, };
     }
 
+    @Override
+    public void beginTree(DetailAST aRootAST)
+    {
+        mMapNamesByScope.clear();
+        mIndex = AstIndex.of(aRootAST);
+    }
+
+    @Override
+    public void finishTree(DetailAST aRootAST)
+    {
+        mIndex = null;
+        AstIndex.release(aRootAST);
+    }
+
     @Override
     public void visitToken(DetailAST aAst)
     {
@@ -280,18 +323,27 @@ public class MapIterationInForEachLoopCheck extends Check
             break;
 
         case TokenTypes.VARIABLE_DEF:
-            if (!mQualifiedImportList.isEmpty() && isMapVariable(aAst)) {
+            if ((mTypeHierarchy != null || !mQualifiedImportList.isEmpty())
+                    && isMapVariable(aAst))
+            {
                 DetailAST mapIdentNode = aAst.findFirstToken(TokenTypes.TYPE).getNextSibling();
-                String mapName = mapIdentNode.getText();
-                //If Map name is contains into mMapNamesList, it doesn't need second inclusion
-                if (!mMapNamesList.contains(mapName)) {
-                    mMapNamesList.add(mapIdentNode.getText());
+                DetailAST scopeNode = aAst.getParent();
+                if (scopeNode.getType() == TokenTypes.FOR_INIT) {
+                    scopeNode = scopeNode.getParent();
+                }
+                Set<String> mapNames = mMapNamesByScope.get(scopeNode);
+                if (mapNames == null) {
+                    mapNames = new HashSet<String>();
+                    mMapNamesByScope.put(scopeNode, mapNames);
                 }
+                mapNames.add(mapIdentNode.getText());
             }
             break;
 
         case TokenTypes.LITERAL_FOR:
-            if (!mQualifiedImportList.isEmpty() && isForEach(aAst)) {
+            if ((mTypeHierarchy != null || !mQualifiedImportList.isEmpty())
+                    && isForEach(aAst))
+            {
                 final String warningMessageKey = validate(aAst);
                 if (warningMessageKey != null) {
                     log(aAst, warningMessageKey);
@@ -317,8 +369,9 @@ public class MapIterationInForEachLoopCheck extends Check
     {
         String warningMessageKey = null;
         final DetailAST forEachNode = aForLiteralNode.findFirstToken(TokenTypes.FOR_EACH_CLAUSE);
+        final Set<String> mapNames = getVisibleMapNames(aForLiteralNode);
         final DetailAST keySetOrEntrySetNode =
-                getKeySetOrEntrySetNode(forEachNode);
+                getKeySetOrEntrySetNode(forEachNode, mapNames);
         boolean isMapClassField = false;
         // Search for keySet or entrySet
         if (keySetOrEntrySetNode != null) {
@@ -333,7 +386,7 @@ public class MapIterationInForEachLoopCheck extends Check
                     :keySetOrEntrySetNode.getPreviousSibling().getText();
             final DetailAST forEachOpeningBrace = aForLiteralNode.getLastChild();
 
-            if (!isMapPassedIntoAnyMethod(forEachOpeningBrace)) {
+            if (!isMapPassedIntoAnyMethod(forEachOpeningBrace, mapNames)) {
 
                 if (mProposeKeySetUsage
                         && KEY_SET_METHOD_NAME.equals(
@@ -362,14 +415,38 @@ public class MapIterationInForEachLoopCheck extends Check
         return aForNode.findFirstToken(TokenTypes.FOR_EACH_CLAUSE) != null;
     }
     
+    /**
+     * Collects names of Map objects declared in scopes which contain
+     * the node.
+     * @param aNode
+     *        DetailAST node.
+     * @return names of visible Map objects.
+     */
+    private Set<String> getVisibleMapNames(DetailAST aNode)
+    {
+        final Set<String> result = new HashSet<String>();
+        for (DetailAST scopeNode = aNode; scopeNode != null;
+                scopeNode = scopeNode.getParent())
+        {
+            final Set<String> mapNames = mMapNamesByScope.get(scopeNode);
+            if (mapNames != null) {
+                result.addAll(mapNames);
+            }
+        }
+        return result;
+    }
+
     /**
      * Searches for keySet() or entrySet() node.
      * @param aForEachNode
      *        Contains current for node.
+     * @param aMapNames
+     *        Names of visible Map objects.
      * @return keySet() or entrySet() node. If such node didn't found, method
      *         return null.
      */
-    private DetailAST getKeySetOrEntrySetNode(DetailAST aForEachNode)
+    private DetailAST getKeySetOrEntrySetNode(DetailAST aForEachNode,
+            Set<String> aMapNames)
     {
         final List<DetailAST> identAndThisNodesList = getSubTreeNodesOfType(aForEachNode,
                 TokenTypes.IDENT, TokenTypes.LITERAL_THIS);
@@ -388,7 +465,7 @@ public class MapIterationInForEachLoopCheck extends Check
                 String mapClassName = isMapClassField
                         ? identNode.getPreviousSibling().getLastChild().getText()
                                 : identNode.getPreviousSibling().getText();
-                if (mMapNamesList.contains(mapClassName)) {
+                if (aMapNames.contains(mapClassName)) {
                     keySetOrEntrySetNode = identNode;
                     break;
                 }
@@ -399,42 +476,77 @@ public class MapIterationInForEachLoopCheck extends Check
 
     /**
      * Returns true, if any method call inside for loop contains map
-     * object as parameter.
+     * object as parameter. Identifiers passed into method calls are
+     * collected in one pass over the loop body.
      * @param aForEachOpeningBraceNode
-     *        List with subtree IDENT nodes.
+     *        For-each opening brace.
+     * @param aMapNames
+     *        Names of visible Map objects.
      * @return true, if any Method Call contains Map Parameter.
      */
-    private boolean isMapPassedIntoAnyMethod(DetailAST aForEachOpeningBraceNode)
+    private static boolean isMapPassedIntoAnyMethod(
+            DetailAST aForEachOpeningBraceNode, Set<String> aMapNames)
     {
-        final List<DetailAST> methodCallNodeList = getSubTreeNodesOfType(
-                aForEachOpeningBraceNode, TokenTypes.METHOD_CALL);
-        for (DetailAST methodCallNode : methodCallNodeList) {
-            if (hasMapAsParameter(methodCallNode)) {
-                return true;
+        boolean result = false;
+        if (!aMapNames.isEmpty()) {
+            final Set<String> parameterNames =
+                    getMethodCallParameterNames(aForEachOpeningBraceNode);
+            for (String mapName : aMapNames) {
+                if (parameterNames.contains(mapName)) {
+                    result = true;
+                    break;
+                }
             }
         }
-        return false;
+        return result;
     }
 
     /**
-     * Checks is map instance passed into method call, or not.
-     * @param aMethodCallNode
-     *        DetailAST node of Method Call.
-     * @return return true, if method call contain map as parameter.
+     * Collects identifiers which are passed into method calls, the subtree
+     * is walked the same way as in {@link #getSubTreeNodesOfType}.
+     * @param aRootNode
+     *        The root of subtree.
+     * @return names of identifiers.
      */
-    private boolean hasMapAsParameter(DetailAST aMethodCallNode)
+    private static Set<String> getMethodCallParameterNames(DetailAST aRootNode)
     {
-        boolean result = false;
-        final List<DetailAST> identNodesList = getSubTreeNodesOfType(aMethodCallNode,
-                TokenTypes.IDENT);
-        for (String mapName : mMapNamesList) {
-            for (DetailAST identNode : identNodesList) {
-                if (mapName.equals(identNode.getText())
-                        && identNode.getParent().getType() == TokenTypes.EXPR)
+        final Set<String> result = new HashSet<String>();
+        final DetailAST finishNode;
+        if (aRootNode.getNextSibling() == null) {
+            // a leaf root, such as ';' of a loop without braces, has nothing
+            // to walk and does not lead out of its subtree
+            finishNode = aRootNode.getFirstChild() == null
+                ? aRootNode : aRootNode.getLastChild();
+        }
+        else {
+            finishNode = aRootNode.getNextSibling();
+        }
+        int methodCallDepth = 0;
+        DetailAST curNode = aRootNode;
+        while (curNode != null && curNode != finishNode) {
+            if (curNode.getType() == TokenTypes.METHOD_CALL) {
+                methodCallDepth++;
+            }
+            else if (methodCallDepth > 0
+                    && curNode.getType() == TokenTypes.IDENT
+                    && curNode.getParent().getType() == TokenTypes.EXPR)
+            {
+                result.add(curNode.getText());
+            }
+            DetailAST toVisit = curNode.getFirstChild();
+            while ((curNode != null) && (toVisit == null)) {
+                // method calls above the root are left without entering
+                if (curNode.getType() == TokenTypes.METHOD_CALL
+                        && methodCallDepth > 0)
                 {
-                    result =  true;
+                    methodCallDepth--;
+                }
+                toVisit = curNode.getNextSibling();
+                if (toVisit == null) {
+                    curNode = curNode.getParent();
                 }
             }
+            curNode = toVisit;
         }
         return result;
     }
@@ -449,7 +561,7 @@ public class MapIterationInForEachLoopCheck extends Check
      *        Current map name.
      * @return keySet warning message key.
      */
-    private static String
+    private String
     checkForWrongKeySetUsage(DetailAST aForEachOpeningBraceNode,
             String aKeyName, String aMapName, boolean aIsMapClassField)
     {
@@ -520,7 +632,7 @@ public class MapIterationInForEachLoopCheck extends Check
      *        This variable contains Map.Entry name.
      * @return entrySet warning message key.
      */
-    private static String
+    private String
     checkForWrongEntrySetUsage(DetailAST aForEachOpeningBraceNode, String aEntryName)
     {
         String result = null;
@@ -570,24 +682,34 @@ public class MapIterationInForEachLoopCheck extends Check
         final List<DetailAST> literaNewNodeslList =
                 getSubTreeNodesOfType(aVariableDefNode,
                         TokenTypes.LITERAL_NEW, TokenTypes.ASSIGN);
-        final String className = getClassName(literaNewNodeslList);
+        final DetailAST classNameNode = getClassNameNode(literaNewNodeslList);
         if (getFirstNodeOfType(literaNewNodeslList, TokenTypes.ASSIGN)
-                != null && className != null) {
-            result = isMapImplementation(className);
+                != null && classNameNode != null) {
+            result = isMapImplementation(classNameNode);
         }
         return result;
     }
 
     /**
      * Checks, is current class a Map implementation or not.
-     * @param aClassName
-     *        Current class's name.
-     * @return true, if current class is contained inside mQualifiedImportList.
+     * @param aClassNameNode
+     *        Node of current class's name after "new".
+     * @return true, if current class is contained inside mQualifiedImportList
+     *        or the type hierarchy tells that it implements Map.
      */
-    private boolean isMapImplementation(String aClassName)
+    private boolean isMapImplementation(DetailAST aClassNameNode)
     {
-        return isClassContainsInsideQualifiedImportList(aClassName)
-                || containsInSupportedMapImplQualifiedNames(aClassName);
+        final String className = aClassNameNode.getText();
+        boolean result = isClassContainsInsideQualifiedImportList(className)
+                || containsInSupportedMapImplQualifiedNames(className);
+        if (!result && mTypeHierarchy != null) {
+            final String typeName = mTypeHierarchy.resolve(
+                    FullIdent.createFullIdent(aClassNameNode).getText(),
+                    aClassNameNode);
+            result = typeName != null
+                    && mTypeHierarchy.isSubtype(typeName, "java.util.Map");
+        }
+        return result;
     }
 
     /**
@@ -633,18 +755,19 @@ public class MapIterationInForEachLoopCheck extends Check
     }
 
     /**
-     * Returns the instance's class name.
+     * Returns the node of instance's class name.
      * @param aLiteraNewNodesList
      *        This list contains "new" literals.
-     * @return object's class name,
+     * @return node of object's class name,
      *        if class name is missed, returns null.
      */
-    private static String getClassName(final List<DetailAST> aLiteraNewNodesList)
+    private static DetailAST getClassNameNode(
+            final List<DetailAST> aLiteraNewNodesList)
     {
         for (DetailAST literalNewNode : aLiteraNewNodesList) {
             DetailAST exprNode = literalNewNode.getParent();
             if (exprNode.getParent().getType() == TokenTypes.ASSIGN) {
-                return literalNewNode.getFirstChild().getText();
+                return literalNewNode.getFirstChild();
             }
         }
         return null;
@@ -690,39 +813,24 @@ public class MapIterationInForEachLoopCheck extends Check
     }
 
     /**
-     * Searches over subtree for all tokens of necessary types.
+     * Searches over subtree for all tokens of necessary types. If the root
+     * is the last child of its parent, the subtree of its last child is not
+     * searched.
      * @param aRootNode
      *        The root of subtree.
      * @param aTokenTypes
      *        Token's necessary types into If condition.
      * @return DetailAST List with necessary tokens.
      */
-    private static List<DetailAST> getSubTreeNodesOfType(DetailAST aRootNode,
+    private List<DetailAST> getSubTreeNodesOfType(DetailAST aRootNode,
             int... aTokenTypes)
     {
-        final List<DetailAST> result = new ArrayList<DetailAST>();
-        final DetailAST finishNode;
-        if (aRootNode.getNextSibling() == null) {
-            finishNode = aRootNode.getLastChild();
-        }
-        else {
-            finishNode = aRootNode.getNextSibling();
-        }
-        DetailAST curNode = aRootNode;
-        while (curNode != null && curNode != finishNode) {
-            for (int tokenType : aTokenTypes) {
-                if (curNode.getType() == tokenType) {
-                    result.add(curNode);
-                }
-            }
-            DetailAST toVisit = curNode.getFirstChild();
-            while ((curNode != null) && (toVisit == null)) {
-                toVisit = curNode.getNextSibling();
-                if (toVisit == null) {
-                    curNode = curNode.getParent();
-                }
-            }
-            curNode = toVisit;
+        List<DetailAST> result = mIndex.getNodes(aRootNode, aTokenTypes);
+        final DetailAST lastChild = aRootNode.getLastChild();
+        if (aRootNode.getNextSibling() == null && lastChild != null) {
+            // nodes of the last child are at the end in document order
+            result = result.subList(0, result.size()
+                    - mIndex.getNodes(lastChild, aTokenTypes).size());
         }
         return result;
     }
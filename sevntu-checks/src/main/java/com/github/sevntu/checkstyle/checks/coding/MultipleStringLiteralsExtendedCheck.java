@@ -19,12 +19,10 @@
 package com.github.sevntu.checkstyle.checks.coding;
 
 import java.util.BitSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
 
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.puppycrawl.tools.checkstyle.api.Check;
 import com.puppycrawl.tools.checkstyle.api.DetailAST;
@@ -41,15 +39,21 @@ public class MultipleStringLiteralsExtendedCheck extends Check
 	public static final String MSG_KEY = "multiple.string.literal";
 	
 	/**
-	 * The found strings and their positions. <String, ArrayList>, with the ArrayList containing StringInfo objects.
+	 * The found strings and their positions.
 	 */
-	private final Map<String, List<StringInfo>> mStringMap = Maps.newHashMap();
+	private final Map<String, StringPositions> mStringMap = Maps.newHashMap();
 
 	/**
 	 * Marks the TokenTypes where duplicate strings should be ignored.
 	 */
 	private final BitSet mIgnoreOccurrenceContext = new BitSet();
 
+	/**
+	 * Count of entered tokens from {@link #mIgnoreOccurrenceContext} which
+	 * contain the current token.
+	 */
+	private int mIgnoreOccurrenceDepth;
+
 	/**
 	 * The allowed number of string duplicates in a file before an error is generated.
 	 */
@@ -133,47 +137,38 @@ public class MultipleStringLiteralsExtendedCheck extends Check
 	@Override
 	public int[] getDefaultTokens()
 	{
-		return new int[] { TokenTypes.STRING_LITERAL };
+		final BitSet tokens = (BitSet) mIgnoreOccurrenceContext.clone();
+		tokens.set(TokenTypes.STRING_LITERAL);
+		return toArray(tokens);
 	}
 
+	/**
+	 * Tokens of the ignored context are required, so they are visited
+	 * when "tokens" property is set, e.g. to STRING_LITERAL only.
+	 */
 	@Override
-	public void visitToken(DetailAST aAST)
+	public int[] getRequiredTokens()
 	{
-		if (isInIgnoreOccurrenceContext(aAST)) {
-			return;
-		}
-		final String currentString = aAST.getText();
-		if ((mPattern == null) || !mPattern.matcher(currentString).find()) {
-			List<StringInfo> hitList = mStringMap.get(currentString);
-			if (hitList == null) {
-				hitList = Lists.newArrayList();
-				mStringMap.put(currentString, hitList);
-			}
-			final int line = aAST.getLineNo();
-			final int col = aAST.getColumnNo();
-			hitList.add(new StringInfo(line, col));
-		}
+		return toArray(mIgnoreOccurrenceContext);
 	}
 
 	/**
-	 * Analyses the path from the AST root to a given AST for occurrences of the token types in
-	 * {@link #mIgnoreOccurrenceContext}.
+	 * Lists token types of a set.
 	 * 
-	 * @param aAST
-	 *            the node from where to start searching towards the root node
-	 * @return whether the path from the root node to aAST contains one of the token type in
-	 *         {@link #mIgnoreOccurrenceContext}.
+	 * @param aTokens
+	 *            the set of token types
+	 * @return the token types in ascending order.
 	 */
-	private boolean isInIgnoreOccurrenceContext(DetailAST aAST)
+	private static int[] toArray(BitSet aTokens)
 	{
-		for (DetailAST token = aAST; token.getParent() != null; token = token.getParent())
+		final int[] result = new int[aTokens.cardinality()];
+		int index = 0;
+		for (int type = aTokens.nextSetBit(0); type >= 0;
+				type = aTokens.nextSetBit(type + 1))
 		{
-			final int type = token.getType();
-			if (mIgnoreOccurrenceContext.get(type)) {
-				return true;
-			}
+			result[index++] = type;
 		}
-		return false;
+		return result;
 	}
 
 	@Override
@@ -181,6 +176,52 @@ public class MultipleStringLiteralsExtendedCheck extends Check
 	{
 		super.beginTree(aRootAST);
 		mStringMap.clear();
+		mIgnoreOccurrenceDepth = 0;
+	}
+
+	@Override
+	public void visitToken(DetailAST aAST)
+	{
+		if (isIgnoreOccurrenceContext(aAST)) {
+			mIgnoreOccurrenceDepth++;
+		}
+		if (aAST.getType() != TokenTypes.STRING_LITERAL
+				|| mIgnoreOccurrenceDepth > 0)
+		{
+			return;
+		}
+		final String currentString = aAST.getText();
+		if ((mPattern == null) || !mPattern.matcher(currentString).find()) {
+			StringPositions positions = mStringMap.get(currentString);
+			if (positions == null) {
+				positions = new StringPositions();
+				mStringMap.put(currentString, positions);
+			}
+			positions.add(aAST.getLineNo(), aAST.getColumnNo());
+		}
+	}
+
+	@Override
+	public void leaveToken(DetailAST aAST)
+	{
+		if (isIgnoreOccurrenceContext(aAST)) {
+			mIgnoreOccurrenceDepth--;
+		}
+	}
+
+	/**
+	 * Checks whether duplicate strings should be ignored inside the given
+	 * token. Top level tokens are not taken into account.
+	 * 
+	 * @param aAST
+	 *            the token
+	 * @return whether the token type is in {@link #mIgnoreOccurrenceContext}
+	 *         and the token has a parent.
+	 */
+	private boolean isIgnoreOccurrenceContext(DetailAST aAST)
+	{
+		return mIgnoreOccurrenceContext.get(aAST.getType())
+				&& aAST.getParent() != null;
 	}
 
 	@Override
@@ -188,69 +229,92 @@ public class MultipleStringLiteralsExtendedCheck extends Check
 	{
 		final Set<String> keys = mStringMap.keySet();
 		for (String key : keys) {
-			final List<StringInfo> hits = mStringMap.get(key);
-			if (hits.size() > mAllowedDuplicates) {
+			final StringPositions positions = mStringMap.get(key);
+			final int count = positions.size();
+			if (count > mAllowedDuplicates) {
 				int hitsSize = 1;
 				if (mHighlightAllDuplicates) {
-					hitsSize = hits.size();
+					hitsSize = count;
 				}
 				for (int index = 0; index < hitsSize; index++) {
-					final StringInfo firstFinding = hits.get(index);
-					final int line = firstFinding.getLine();
-					final int col = firstFinding.getCol();
-					log(line, col,
-							MSG_KEY, key, hits.size());
+					log(positions.getLine(index), positions.getCol(index),
+							MSG_KEY, key, count);
 				}
 			}
 		}
 	}
 
 	/**
-	 * This class contains information about where a string was found.
+	 * Positions where a string was found, lines and columns are packed into
+	 * one array one after another.
 	 */
-	private static final class StringInfo
+	private static final class StringPositions
 	{
 		/**
-		 * Line of finding
+		 * Initial count of positions to hold.
+		 */
+		private static final int INITIAL_CAPACITY = 4;
+
+		/**
+		 * Line and column of every finding.
 		 */
-		private final int mLine;
+		private int[] mPositions = new int[2 * INITIAL_CAPACITY];
+
 		/**
-		 * Column of finding
+		 * Count of findings.
 		 */
-		private final int mCol;
+		private int mSize;
 
 		/**
-		 * Creates information about a string position.
+		 * Adds position of a finding.
 		 * 
 		 * @param aLine
-		 *            int
+		 *            line of the finding
 		 * @param aCol
-		 *            int
+		 *            column of the finding
+		 */
+		private void add(int aLine, int aCol)
+		{
+			if (2 * mSize == mPositions.length) {
+				final int[] positions = new int[2 * mPositions.length];
+				System.arraycopy(mPositions, 0, positions, 0, mPositions.length);
+				mPositions = positions;
+			}
+			mPositions[2 * mSize] = aLine;
+			mPositions[2 * mSize + 1] = aCol;
+			mSize++;
+		}
+
+		/**
+		 * @return count of findings.
 		 */
-		private StringInfo(int aLine, int aCol)
+		private int size()
 		{
-			mLine = aLine;
-			mCol = aCol;
+			return mSize;
 		}
 
 		/**
 		 * The line where a string was found.
 		 * 
+		 * @param aIndex
+		 *            index of the finding
 		 * @return int Line of the string.
 		 */
-		private int getLine()
+		private int getLine(int aIndex)
 		{
-			return mLine;
+			return mPositions[2 * aIndex];
 		}
 
 		/**
 		 * The column where a string was found.
 		 * 
+		 * @param aIndex
+		 *            index of the finding
 		 * @return int Column of the string.
 		 */
-		private int getCol()
+		private int getCol(int aIndex)
 		{
-			return mCol;
+			return mPositions[2 * aIndex + 1];
 		}
 	}
 
@@ -18,9 +18,7 @@
 ////////////////////////////////////////////////////////////////////////////////
 package com.github.sevntu.checkstyle.checks.coding;
 
-import java.util.ArrayList;
-import java.util.List;
-
+import com.github.sevntu.checkstyle.ast.AstTraversal;
 import com.puppycrawl.tools.checkstyle.api.Check;
 import com.puppycrawl.tools.checkstyle.api.DetailAST;
 import com.puppycrawl.tools.checkstyle.api.TokenTypes;
@@ -137,7 +135,7 @@ public class NestedTernaryCheck extends Check {
 		final DetailAST modifiers = aMethodOrClassDefAST.findFirstToken(TokenTypes.MODIFIERS);
 
 		if (modifiers != null && modifiers.getChildCount() != 0) {
-			for (DetailAST curNode : getChildNodes(modifiers)) {
+			for (DetailAST curNode : AstTraversal.children(modifiers)) {
 				if (curNode.getType() == aModifierType) {
 					result = true;
 					break;
@@ -175,34 +173,10 @@ public class NestedTernaryCheck extends Check {
 	 *            the parent node
 	 * @param tokenType
 	 *            the given token type
-	 * @return the child node of given type
+	 * @return the first child node of given type or null
 	 */
 	private static DetailAST getChildNode(DetailAST aAst, int tokenType) {
-		for (DetailAST childNode : getChildNodes(aAst)) {
-			if (childNode.getType() == tokenType) {
-				return childNode;
-			}
-		}
-		return null;
-	}
-
-	/**
-	 * Gets all the children one level below on the current parent node.
-	 * 
-	 * @param aNode
-	 *            the parent node.
-	 * @return list of children one level below on the current parent node (aNode).
-	 */
-	private static List<DetailAST> getChildNodes(DetailAST aNode) {
-
-		final ArrayList<DetailAST> result = new ArrayList<DetailAST>(aNode.getChildCount());
-
-		DetailAST currNode = aNode.getFirstChild();
-		while (currNode != null) {
-			result.add(currNode);
-			currNode = currNode.getNextSibling();
-		}
-		return result;
+		return aAst.findFirstToken(tokenType);
 	}
 
 }
@@ -22,6 +22,7 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 
+import com.github.sevntu.checkstyle.ast.AstTraversal;
 import com.puppycrawl.tools.checkstyle.api.Check;
 import com.puppycrawl.tools.checkstyle.api.DetailAST;
 import com.puppycrawl.tools.checkstyle.api.TokenTypes;
@@ -80,6 +81,16 @@ public class NoNullForCollectionReturnCheck extends Check
      */
     private boolean mSearchThroughMethodBody = false;
 
+    /**
+     * <p>
+     * Types of loop and try blocks, in order they are searched for subblocks.
+     * </p>
+     */
+    private static final int[] LOOP_AND_TRY_TYPES = {
+        TokenTypes.LITERAL_WHILE, TokenTypes.LITERAL_DO,
+        TokenTypes.LITERAL_FOR, TokenTypes.LITERAL_TRY,
+    };
+
     /**
      * <p>
      * List of the method definition tokens, that returns collection.
@@ -233,9 +244,8 @@ public class NoNullForCollectionReturnCheck extends Check
                 {
                     for (DetailAST subblock : subblocks)
                     {
-                        List<DetailAST> expressions =
-                                getChildren(getBlockBody(subblock), TokenTypes.EXPR);
-                        for (DetailAST expression : expressions)
+                        for (DetailAST expression : AstTraversal.children(
+                                getBlockBody(subblock), TokenTypes.EXPR))
                         {
                             DetailAST assign = expression.findFirstToken(TokenTypes.ASSIGN);
                             if (assign != null
@@ -269,7 +279,11 @@ public class NoNullForCollectionReturnCheck extends Check
     {
         DetailAST blockBody = getBlockBody(aBlockDef);
         LinkedList<DetailAST> subblocks = new LinkedList<DetailAST>();
-        subblocks.addAll(getChildren(blockBody, TokenTypes.LITERAL_IF));
+        for (DetailAST currentIf
+                : AstTraversal.children(blockBody, TokenTypes.LITERAL_IF))
+        {
+            subblocks.add(currentIf);
+        }
         LinkedList<DetailAST> elseBlocks = new LinkedList<DetailAST>();
         for (DetailAST currentIf : subblocks)
         {
@@ -282,10 +296,13 @@ public class NoNullForCollectionReturnCheck extends Check
         {
             subblocks.addAll(elseBlocks);
         }
-        subblocks.addAll(getChildren(blockBody, TokenTypes.LITERAL_WHILE));
-        subblocks.addAll(getChildren(blockBody, TokenTypes.LITERAL_DO));
-        subblocks.addAll(getChildren(blockBody, TokenTypes.LITERAL_FOR));
-        subblocks.addAll(getChildren(blockBody, TokenTypes.LITERAL_TRY));
+        for (int type : LOOP_AND_TRY_TYPES)
+        {
+            for (DetailAST subblock : AstTraversal.children(blockBody, type))
+            {
+                subblocks.add(subblock);
+            }
+        }
         LinkedList<DetailAST> nestedSubblocks = new LinkedList<DetailAST>();
         for (DetailAST currentSubblock : subblocks)
         {
@@ -313,10 +330,9 @@ public class NoNullForCollectionReturnCheck extends Check
         boolean result = false;
         for (DetailAST subblock : aSubblocks)
         {
-            List<DetailAST> variableDefs =
-                    getChildren(getBlockBody(subblock), TokenTypes.VARIABLE_DEF);
             boolean isFinded = false;
-            for (DetailAST currentDef : variableDefs)
+            for (DetailAST currentDef : AstTraversal.children(
+                    getBlockBody(subblock), TokenTypes.VARIABLE_DEF))
             {
                 DetailAST variable = currentDef.findFirstToken(TokenTypes.IDENT);
 
@@ -345,35 +361,6 @@ public class NoNullForCollectionReturnCheck extends Check
         return result;
     }
 
-    /**
-     * <p>
-     * Returns all children of that have the specified type.
-     * </p>
-     * @param aRoot
-     *        - root token of a block
-     * @param aType
-     *        - type of children
-     * @return all children of that have the specified type.
-     */
-    private static List<DetailAST> getChildren(DetailAST aRoot, int aType)
-    {
-        List<DetailAST> children = new LinkedList<DetailAST>();
-        DetailAST currentChild = aRoot.findFirstToken(aType);
-        if (currentChild != null)
-        {
-            children.add(currentChild);
-        }
-        while (children.size() < aRoot.getChildCount(aType))
-        {
-            currentChild = currentChild.getNextSibling();
-            if (currentChild.getType() == aType)
-            {
-                children.add(currentChild);
-            }
-        }
-        return children;
-    }
-
     /**
      * <p>
      * Return DetailAST that contained method definition.
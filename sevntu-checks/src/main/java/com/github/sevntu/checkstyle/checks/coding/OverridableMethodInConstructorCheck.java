@@ -19,9 +19,20 @@
 
 package com.github.sevntu.checkstyle.checks.coding;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Set;
+
+import com.github.sevntu.checkstyle.ast.AstIndex;
+import com.github.sevntu.checkstyle.ast.AstTraversal;
+import com.github.sevntu.checkstyle.ast.AstVisitor;
+import com.github.sevntu.checkstyle.index.TypeHierarchy;
+import com.github.sevntu.checkstyle.walker.TypeHierarchyAware;
 import com.puppycrawl.tools.checkstyle.api.Check;
 import com.puppycrawl.tools.checkstyle.api.DetailAST;
 import com.puppycrawl.tools.checkstyle.api.TokenTypes;
@@ -124,6 +135,7 @@ import com.puppycrawl.tools.checkstyle.api.TokenTypes;
  * @author <a href="mailto:IliaDubinin91@gmail.com">Ilja Dubinin</a>
  */
 public class OverridableMethodInConstructorCheck extends Check
+    implements TypeHierarchyAware
 {
 
     /**
@@ -158,20 +170,60 @@ public class OverridableMethodInConstructorCheck extends Check
     private final String mKeyReadObject = "'readObject()' method";
 
     /**
-     * A list contains all METHOD_CALL DetailAST nodes that have been already
-     * visited by check.
+     * Private and final methods which have been already entered while
+     * searching an overridable method call from the current method call.
+     * */
+    private final Set<DetailAST> mEnteredMethods = new HashSet<DetailAST>();
+
+    /**
+     * Method definitions of every class by the method name, the index of a
+     * class is built when the class is searched for the first time.
      * */
-    private List<DetailAST> mVisitedMethodCalls = new LinkedList<DetailAST>();
+    private final Map<DetailAST, Map<String, List<DetailAST>>> mClassMethods =
+        new HashMap<DetailAST, Map<String, List<DetailAST>>>();
 
     /**
-     * A current MethodDef AST is being processed by check.
+     * Method definitions of METHOD_CALL nodes, null value means that the
+     * method definition is not found.
      * */
-    private DetailAST mCurMethodDef;
+    private final Map<DetailAST, DetailAST> mMethodDefs =
+        new HashMap<DetailAST, DetailAST>();
 
     /**
-     * A current root of the synthax tree is being processed.
+     * METHOD_CALL nodes of every METHOD_DEF node, edges of the call graph.
      * */
-    private DetailAST mTreeRootAST;
+    private final Map<DetailAST, List<DetailAST>> mMethodCalls =
+        new HashMap<DetailAST, List<DetailAST>>();
+
+    /**
+     * Whether methods which can be called from a METHOD_DEF node through
+     * private and final methods never call each other recursively.
+     * */
+    private final Map<DetailAST, Boolean> mAcyclicMethods =
+        new HashMap<DetailAST, Boolean>();
+
+    /**
+     * The name of the overridable method which is called from a METHOD_DEF
+     * node through private and final methods, null value means that there is
+     * no such call. Results are kept only for methods which are
+     * {@link #isAcyclic(DetailAST) acyclic}, since the result of a search
+     * which meets a recursive call depends on the path of the search.
+     * */
+    private final Map<DetailAST, String> mReachedOverridables =
+        new HashMap<DetailAST, String>();
+
+    /**
+     * CLASS_DEF nodes of the synthax tree is being processed by the class
+     * name, the first class is kept if several classes have the same name.
+     * */
+    private final Map<String, DetailAST> mClassDefs =
+        new HashMap<String, DetailAST>();
+
+    /**
+     * Base classes of every CLASS_DEF node which have been already resolved.
+     * */
+    private final Map<DetailAST, List<DetailAST>> mBaseClasses =
+        new HashMap<DetailAST, List<DetailAST>>();
 
     /**
      * A boolean check box that enables the searching of calls to overridable
@@ -194,14 +246,11 @@ public class OverridableMethodInConstructorCheck extends Check
     private boolean mMatchMethodsByArgCount;
 
     /**
-     * The name of current overridable method is being processed.
+     * Hierarchy of types of the project, which tells whether a class
+     * realizes an interface through a base class declared in another file,
+     * null if it is not available.
      */
-    private String mCurOverridableMetName;
-
-    /**
-     * Method definitions counter for class is currently being processed.
-     */
-    private int mCurMethodDefCount;
+    private TypeHierarchy mTypeHierarchy;
 
     /**
      * Enable|Disable searching of calls to overridable methods from body of any
@@ -243,6 +292,12 @@ public class OverridableMethodInConstructorCheck extends Check
         mCheckReadObjectMethod = aValue;
     }
 
+    @Override
+    public void setTypeHierarchy(TypeHierarchy aHierarchy)
+    {
+        mTypeHierarchy = aHierarchy;
+    }
+
     @Override
     public int[] getDefaultTokens()
     {
@@ -252,7 +307,20 @@ public class OverridableMethodInConstructorCheck extends Check
     @Override
     public void beginTree(DetailAST aRootAST)
     {
-        mTreeRootAST = aRootAST;
+        mClassDefs.clear();
+        mBaseClasses.clear();
+        collectClassDefs(aRootAST);
+        mClassMethods.clear();
+        mMethodDefs.clear();
+        mMethodCalls.clear();
+        mAcyclicMethods.clear();
+        mReachedOverridables.clear();
+    }
+
+    @Override
+    public void finishTree(DetailAST aRootAST)
+    {
+        AstIndex.release(aRootAST);
     }
 
     @Override
@@ -275,13 +343,15 @@ public class OverridableMethodInConstructorCheck extends Check
                         TokenTypes.IDENT).getText();
 
                 if (mCheckCloneMethod && "clone".equals(methodName)
-                        && realizesAnInterface(classDef, "Cloneable"))
+                        && realizesAnInterface(classDef,
+                            "java.lang.Cloneable"))
                 {
                     logWarnings(aDetailAST, mKeyClone);
                 }
                 else if (mCheckReadObjectMethod
                         && "readObject".equals(methodName)
-                        && realizesAnInterface(classDef, "Serializable"))
+                        && realizesAnInterface(classDef,
+                            "java.io.Serializable"))
                 {
                     logWarnings(aDetailAST, mKeyReadObject);
                 }
@@ -345,15 +415,18 @@ public class OverridableMethodInConstructorCheck extends Check
         final List<DetailAST> methodCallsList = getMethodCallsList(aParentAST);
 
         for (DetailAST curNode : methodCallsList) {
-            mVisitedMethodCalls.clear();
+            mEnteredMethods.clear();
             final DetailAST methodDef = getMethodDef(curNode);
             if (methodDef != null
                     && getMethodParamsCount(curNode)
-                        == getMethodParamsCount(methodDef)
-                    && isOverridableMethodCall(curNode))
+                        == getMethodParamsCount(methodDef))
             {
-                result.add(new OverridableMetCall(curNode,
-                        mCurOverridableMetName));
+                final String overridableMetName =
+                    getOverridableMethodName(curNode);
+                if (overridableMetName != null) {
+                    result.add(new OverridableMetCall(curNode,
+                            overridableMetName));
+                }
             }
         }
         return result;
@@ -361,57 +434,127 @@ public class OverridableMethodInConstructorCheck extends Check
 
     /**
      * Checks that current processed METHOD_CALL DetailAST is pointing to
-     * overridable method call.
+     * overridable method call directly or through private and final
+     * methods.
      *
      * @param aMethodCallAST
      *            A METHOD_CALL DetailAST is currently being processed.
-     * @return true if current processed METHOD_CALL node is pointing to the
-     *         overridable method call and false otherwise.
+     * @return the name of the overridable method if current processed
+     *         METHOD_CALL node leads to the overridable method call and null
+     *         otherwise.
      */
-    private boolean isOverridableMethodCall(final DetailAST aMethodCallAST)
+    private String getOverridableMethodName(final DetailAST aMethodCallAST)
     {
+        String result = null;
+        final DetailAST methodDef = getMethodDef(aMethodCallAST);
+        if (methodDef != null
+                && !hasModifier(methodDef, TokenTypes.LITERAL_STATIC))
+        {
+            if (isNotOverridable(methodDef)) {
+                result = getReachedOverridableName(methodDef);
+            }
+            else {
+                result = getMethodName(aMethodCallAST);
+            }
+        }
+        return result;
+    }
 
-        boolean result = false;
-        mVisitedMethodCalls.add(aMethodCallAST);
-
-        final String methodName = getMethodName(aMethodCallAST);
-
-        if (methodName != null) {
-            final DetailAST methodDef = getMethodDef(aMethodCallAST);
-            if (methodDef != null) {
-
-                if (hasModifier(methodDef, TokenTypes.LITERAL_STATIC)) {
-                    // do nothing
+    /**
+     * Searches for the first call of an overridable method from the body of
+     * a private or final method, including calls through other private or
+     * final methods. A method which has been already entered while searching
+     * from the current method call is not searched again.
+     *
+     * @param aMethodDef
+     *            METHOD_DEF DetailAST node of a private or final method.
+     * @return the name of the called overridable method or null if there
+     *         is no such call.
+     */
+    private String getReachedOverridableName(final DetailAST aMethodDef)
+    {
+        String result = null;
+        if (mReachedOverridables.containsKey(aMethodDef)) {
+            result = mReachedOverridables.get(aMethodDef);
+        }
+        else if (mEnteredMethods.add(aMethodDef)) {
+            for (DetailAST curNode : getMethodCalls(aMethodDef)) {
+                result = getOverridableMethodName(curNode);
+                if (result != null) {
+                    break;
                 }
-                else if (hasModifier(methodDef, TokenTypes.LITERAL_PRIVATE)
-                        || hasModifier(methodDef, TokenTypes.FINAL))
+            }
+            if (isAcyclic(aMethodDef)) {
+                mReachedOverridables.put(aMethodDef, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks that private and final methods which can be called from the
+     * method never lead to recursive calls. The result of the search of an
+     * overridable method call from such method does not depend on the way
+     * the method is reached, so it can be reused.
+     *
+     * @param aMethodDef
+     *            METHOD_DEF DetailAST node of a private or final method.
+     * @return true if there are no recursive calls.
+     */
+    private boolean isAcyclic(final DetailAST aMethodDef)
+    {
+        Boolean result = mAcyclicMethods.get(aMethodDef);
+        if (result == null) {
+            // the method is reached again only by the recursive call
+            mAcyclicMethods.put(aMethodDef, Boolean.FALSE);
+            result = Boolean.TRUE;
+            for (DetailAST curNode : getMethodCalls(aMethodDef)) {
+                final DetailAST methodDef = getMethodDef(curNode);
+                if (methodDef != null
+                        && !hasModifier(methodDef, TokenTypes.LITERAL_STATIC)
+                        && isNotOverridable(methodDef)
+                        && !isAcyclic(methodDef))
                 {
-                    final List<DetailAST> methodCallsList = getMethodCallsList(
-                            methodDef);
-                    for (DetailAST curNode : methodCallsList) {
-                        if (mVisitedMethodCalls.contains(curNode)) {
-                            result = false;
-                            break;
-                        }
-                        else if (isOverridableMethodCall(curNode)) {
-                            result = true;
-                            break;
-                        }
-                    }
-                }
-                else {
-                    mCurOverridableMetName = methodName;
-                    result = true;
+                    result = Boolean.FALSE;
+                    break;
                 }
             }
+            mAcyclicMethods.put(aMethodDef, result);
         }
-        else
-        {
-            result = false;
+        return result;
+    }
+
+    /**
+     * Gets all METHOD_CALL nodes from the body of the method.
+     *
+     * @param aMethodDef
+     *            METHOD_DEF DetailAST node.
+     * @return METHOD_CALL nodes in order of their appearance.
+     */
+    private List<DetailAST> getMethodCalls(final DetailAST aMethodDef)
+    {
+        List<DetailAST> result = mMethodCalls.get(aMethodDef);
+        if (result == null) {
+            result = getMethodCallsList(aMethodDef);
+            mMethodCalls.put(aMethodDef, result);
         }
         return result;
     }
 
+    /**
+     * Checks that the method can not be overridden, i.e. it is private or
+     * final.
+     *
+     * @param aMethodDef
+     *            METHOD_DEF DetailAST node.
+     * @return true if the method is private or final.
+     */
+    private static boolean isNotOverridable(final DetailAST aMethodDef)
+    {
+        return hasModifier(aMethodDef, TokenTypes.LITERAL_PRIVATE)
+            || hasModifier(aMethodDef, TokenTypes.FINAL);
+    }
+
    /**
      * Gets all METHOD_CALL nodes which are below on the current parent
      * METHOD_DEF or CTOR_DEF node.
@@ -423,19 +566,20 @@ public class OverridableMethodInConstructorCheck extends Check
      */
     private List<DetailAST> getMethodCallsList(final DetailAST aParentAST)
     {
-
-        final List<DetailAST> result = new LinkedList<DetailAST>();
-
-        for (DetailAST curNode : getChildren(aParentAST)) {
-            if (curNode.getNumberOfChildren() > 0) {
-                if (curNode.getType() == TokenTypes.METHOD_CALL) {
-                    result.add(curNode);
-                }
-                else {
-                    result.addAll(getMethodCallsList(curNode));
+        final List<DetailAST> result = new ArrayList<DetailAST>();
+        // calls in arguments of other calls are not collected
+        AstTraversal.walk(aParentAST, new AstVisitor() {
+            @Override
+            public Action visit(DetailAST aNode)
+            {
+                Action action = Action.CONTINUE;
+                if (aNode.getType() == TokenTypes.METHOD_CALL) {
+                    result.add(aNode);
+                    action = Action.SKIP_CHILDREN;
                 }
+                return action;
             }
-        }
+        });
         return result;
     }
 
@@ -475,8 +619,7 @@ public class OverridableMethodInConstructorCheck extends Check
                     final String curClassName = getClassDef(aMethodCallAST)
                             .findFirstToken(TokenTypes.IDENT).getText();
                     if (firstChild.getText().equals(curClassName)
-                            || getClassDef(mTreeRootAST,
-                                    firstChild.getText()) != null)
+                            || mClassDefs.containsKey(firstChild.getText()))
                     {
                         result = lastChild.getText();
                     }
@@ -497,11 +640,26 @@ public class OverridableMethodInConstructorCheck extends Check
      */
     private DetailAST getMethodDef(final DetailAST aMethodCallAST)
     {
+        DetailAST result = mMethodDefs.get(aMethodCallAST);
+        if (result == null && !mMethodDefs.containsKey(aMethodCallAST)) {
+            result = findMethodDef(aMethodCallAST);
+            mMethodDefs.put(aMethodCallAST, result);
+        }
+        return result;
+    }
 
-        DetailAST result = null;
+    /**
+     * Searches for the method definition is related to the current
+     * METHOD_CALL DetailAST node.
+     * @param aMethodCallAST
+     *            A METHOD_CALL DetailAST node is currently being processed.
+     * @return the METHOD_DEF DetailAST node or null if method definition
+     *         is not found.
+     */
+    private DetailAST findMethodDef(final DetailAST aMethodCallAST)
+    {
 
-        mCurMethodDef = null;
-        mCurMethodDefCount = 0;
+        DetailAST result = null;
 
         final String methodName = getMethodName(aMethodCallAST);
         if (methodName != null) {
@@ -509,31 +667,31 @@ public class OverridableMethodInConstructorCheck extends Check
             final DetailAST curClassAST = getClassDef(aMethodCallAST);
             final DetailAST callsChild = aMethodCallAST.getFirstChild();
             String variableTypeName;
+            List<DetailAST> methodDefs = Collections.emptyList();
 
             if (callsChild.getType() != TokenTypes.DOT ||
                     (variableTypeName = getVariableType(aMethodCallAST)) == null
                     || (isItTypeOfCurrentClass(variableTypeName, curClassAST) ||
                     "this".equals(variableTypeName)))
             {
-                getMethodDef(curClassAST, methodName);
+                methodDefs = getMethodDefs(curClassAST, methodName);
             }
 
-            if (mCurMethodDefCount == 0) {
+            if (methodDefs.isEmpty()) {
 
                 final List<DetailAST> baseClasses = getBaseClasses(curClassAST);
 
                 for (DetailAST curBaseClass : baseClasses) {
-                    mCurMethodDef = null;
-                    mCurMethodDefCount = 0;
-                    getMethodDef(curBaseClass, methodName);
-                    if (mCurMethodDefCount == 1) {
-                        result = mCurMethodDef;
+                    final List<DetailAST> baseMethodDefs =
+                        getMethodDefs(curBaseClass, methodName);
+                    if (baseMethodDefs.size() == 1) {
+                        result = baseMethodDefs.get(0);
                         break;
                     }
                 }
             }
-            else if (mCurMethodDefCount == 1) {
-                result = mCurMethodDef;
+            else if (methodDefs.size() == 1) {
+                result = methodDefs.get(0);
             }
             else
             {
@@ -643,16 +801,14 @@ public class OverridableMethodInConstructorCheck extends Check
     {
         List<DetailAST> definitionsList = new LinkedList<DetailAST>();
         
-        for (DetailAST curNode : getChildren(aParentAST)) {
+        for (DetailAST curNode : AstTraversal.children(aParentAST)) {
 
             if (curNode.getNumberOfChildren() > 0) {
                 if (curNode.getType() == TokenTypes.METHOD_DEF) {
                     final String curMethodName = curNode.findFirstToken(
                             TokenTypes.IDENT).getText();
                     if (aMethodName.equals(curMethodName)) {
-                        mCurMethodDef = curNode;
                         definitionsList.add(0,curNode);
-                        mCurMethodDefCount++;
                     }
                 }
 
@@ -670,6 +826,72 @@ public class OverridableMethodInConstructorCheck extends Check
         return definitionsList;
     }
 
+    /**
+     * Gets definitions of methods with the given name in the class. The
+     * methods of the class are indexed by the name when the class is
+     * searched for the first time.
+     *
+     * @param aClassDefAST
+     *            A CLASS_DEF DetailAST node.
+     * @param aMethodName
+     *            The name of methods to search.
+     * @return METHOD_DEF nodes in order of their appearance.
+     */
+    private List<DetailAST> getMethodDefs(final DetailAST aClassDefAST,
+            final String aMethodName)
+    {
+        Map<String, List<DetailAST>> methods = mClassMethods.get(aClassDefAST);
+        if (methods == null) {
+            methods = new HashMap<String, List<DetailAST>>();
+            collectMethodDefs(aClassDefAST, methods);
+            mClassMethods.put(aClassDefAST, methods);
+        }
+        List<DetailAST> result = methods.get(aMethodName);
+        if (result == null) {
+            result = Collections.emptyList();
+        }
+        return result;
+    }
+
+    /**
+     * Collects method definitions of the class by their names. Visits the
+     * same nodes as {@link #getMethodDef(DetailAST, String)}.
+     *
+     * @param aParentAST
+     *            A parent CLASS_DEF DetailAST node which uses as a start point
+     *            when searching.
+     * @param aMethods
+     *            Map to add found METHOD_DEF nodes to.
+     */
+    private static void collectMethodDefs(final DetailAST aParentAST,
+            final Map<String, List<DetailAST>> aMethods)
+    {
+        for (DetailAST curNode : AstTraversal.children(aParentAST)) {
+
+            if (curNode.getNumberOfChildren() > 0) {
+                final int type = curNode.getType();
+
+                if (type == TokenTypes.METHOD_DEF) {
+                    final String curMethodName = curNode.findFirstToken(
+                            TokenTypes.IDENT).getText();
+                    List<DetailAST> definitions = aMethods.get(curMethodName);
+                    if (definitions == null) {
+                        definitions = new ArrayList<DetailAST>();
+                        aMethods.put(curMethodName, definitions);
+                    }
+                    definitions.add(curNode);
+                }
+                else if (type != TokenTypes.CLASS_DEF
+                        && type != TokenTypes.CTOR_DEF
+                        && type != TokenTypes.MODIFIERS
+                        && type != TokenTypes.IMPLEMENTS_CLAUSE)
+                {
+                    collectMethodDefs(curNode, aMethods);
+                }
+            }
+        }
+    }
+
     /**
      * Gets the count of parameters for current method definitioin or
      * method call.
@@ -693,7 +915,7 @@ public class OverridableMethodInConstructorCheck extends Check
         }
 
         if (paramsParentAST != null && paramsParentAST.getChildCount() != 0) {
-            for (DetailAST curNode : getChildren(paramsParentAST)) {
+            for (DetailAST curNode : AstTraversal.children(paramsParentAST)) {
                 if (curNode.getType() == TokenTypes.COMMA) {
                     result++;
                 }
@@ -724,7 +946,7 @@ public class OverridableMethodInConstructorCheck extends Check
                 .findFirstToken(TokenTypes.MODIFIERS);
 
         if (modifiers != null && modifiers.getChildCount() != 0) {
-            for (DetailAST curNode : getChildren(modifiers)) {
+            for (DetailAST curNode : AstTraversal.children(modifiers)) {
                 if (curNode.getType() == aModifierType) {
                     result = true;
                     break;
@@ -759,31 +981,36 @@ public class OverridableMethodInConstructorCheck extends Check
     /**
      * Checks that class realizes "anInterfaceName" interface (checks that class
      * implements this interface or has at least one parent class which
-     * implements this interface).
+     * implements this interface). Base classes declared in other files are
+     * taken into account when the type hierarchy of the project is set.
      *
      * @param aClassDefNode
      *            A CLASS_DEF DetailAST for class is currently being checked.
      * @param aInterfaceName
-     *            The name of the interface to check.
+     *            The qualified name of the interface to check.
      * @return true if class realizes "anInterfaceName" interface and false
      *         otherwise.
      */
     private boolean realizesAnInterface(final DetailAST aClassDefNode,
             final String aInterfaceName)
     {
+        final String simpleName = aInterfaceName.substring(
+                aInterfaceName.lastIndexOf('.') + 1);
+        boolean result = implementsAnInterface(aClassDefNode, simpleName);
 
-        boolean result = false;
-        final List<DetailAST> classWithBaseClasses =
-                getBaseClasses(aClassDefNode);
-
-        classWithBaseClasses.add(aClassDefNode);
-
-        for (DetailAST classAST : classWithBaseClasses) {
-            if (implementsAnInterface(classAST, aInterfaceName)) {
-                result = true;
-                break;
+        if (!result) {
+            for (DetailAST classAST : getBaseClasses(aClassDefNode)) {
+                if (implementsAnInterface(classAST, simpleName)) {
+                    result = true;
+                    break;
+                }
             }
         }
+        if (!result && mTypeHierarchy != null) {
+            result = mTypeHierarchy.isSubtype(
+                    mTypeHierarchy.getQualifiedName(aClassDefNode),
+                    aInterfaceName);
+        }
         return result;
     }
 
@@ -807,7 +1034,7 @@ public class OverridableMethodInConstructorCheck extends Check
                 .findFirstToken(TokenTypes.IMPLEMENTS_CLAUSE);
 
         if (implClause != null) {
-            for (DetailAST ident : getChildren(implClause)) {
+            for (DetailAST ident : AstTraversal.children(implClause)) {
                 if (ident.getText().equals(aInterfaceName)) {
                     result = true;
                     break;
@@ -824,69 +1051,57 @@ public class OverridableMethodInConstructorCheck extends Check
      * @param aClassDefNode
      *            A CLASS_DEF DetailAST is related to the class is currently
      *            being processed.
-     * @return a list of CLASS_DEF DetailAST nodes for class is currently being
-     *         processed and all it`s base classes.
+     * @return a list of CLASS_DEF DetailAST nodes for all base classes of
+     *         the class is currently being processed, the list is shared and
+     *         must not be modified.
      */
     private List<DetailAST> getBaseClasses(final DetailAST aClassDefNode)
     {
 
-        final List<DetailAST> result = new LinkedList<DetailAST>();
-        String baseClassName = getBaseClassName(aClassDefNode);
-
-        if (baseClassName != null) {
-            DetailAST curClass = getClassDef(mTreeRootAST, baseClassName);
-            while (curClass != null) {
-                result.add(curClass);
-                baseClassName = getBaseClassName(curClass);
-                if (baseClassName != null) {
-                    curClass = getClassDef(mTreeRootAST, baseClassName);
-                }
-                else {
-                    break;
+        List<DetailAST> result = mBaseClasses.get(aClassDefNode);
+        if (result == null) {
+            result = new ArrayList<DetailAST>();
+            String baseClassName = getBaseClassName(aClassDefNode);
+
+            if (baseClassName != null) {
+                DetailAST curClass = mClassDefs.get(baseClassName);
+                // cyclic inheritance does not compile, but must not hang
+                while (curClass != null && !result.contains(curClass)) {
+                    result.add(curClass);
+                    baseClassName = getBaseClassName(curClass);
+                    if (baseClassName != null) {
+                        curClass = mClassDefs.get(baseClassName);
+                    }
+                    else {
+                        break;
+                    }
                 }
             }
+            mBaseClasses.put(aClassDefNode, result);
         }
         return result;
     }
 
     /**
-     * Gets the CLASS_DEF DetailAST node for the class is named "aClassName".
+     * Collects CLASS_DEF DetailAST nodes of the synthax tree by the class
+     * name. The root node itself is not collected.
      *
      * @param aRootNode
      *            A root node of synthax tree is being processed.
-     * @param aClassName
-     *            The name of class to search.
-     * @return The CLASS_DEF DetailAST node which is related to the class is
-     *         named "aClassName".
      */
-    private static DetailAST getClassDef(DetailAST aRootNode, String aClassName)
+    private void collectClassDefs(DetailAST aRootNode)
     {
-
-        DetailAST curNode = aRootNode;
-
-        while (curNode != null) {
-            DetailAST toVisit = curNode.getFirstChild();
-            while ((curNode != null) && (toVisit == null)) {
-                toVisit = curNode.getNextSibling();
-                if (toVisit == null) {
-                    curNode = curNode.getParent();
+        for (DetailAST curNode
+                : AstIndex.of(aRootNode).getNodes(TokenTypes.CLASS_DEF))
+        {
+            if (curNode != aRootNode) {
+                final String className =
+                    curNode.findFirstToken(TokenTypes.IDENT).getText();
+                if (!mClassDefs.containsKey(className)) {
+                    mClassDefs.put(className, curNode);
                 }
             }
-
-            curNode = toVisit;
-
-            if (curNode == null) {
-                break;
-            }
-
-            if (curNode.getType() == TokenTypes.CLASS_DEF
-                    && curNode.findFirstToken(TokenTypes.IDENT).getText()
-                            .equals(aClassName))
-            {
-                break;
-            }
         }
-        return curNode;
     }
 
     /**
@@ -916,26 +1131,6 @@ public class OverridableMethodInConstructorCheck extends Check
         return result;
     }
 
-    /**
-     * Gets all the children one level below on the current DetailAST parent
-     * node.
-     *
-     * @param aNode
-     *            Current parent node.
-     * @return An array of children one level below on the current parent node
-     *         aNode.
-     */
-    private static List<DetailAST> getChildren(final DetailAST aNode)
-    {
-        final List<DetailAST> result = new LinkedList<DetailAST>();
-        DetailAST curNode = aNode.getFirstChild();
-        while (curNode != null) {
-            result.add(curNode);
-            curNode = curNode.getNextSibling();
-        }
-        return result;
-    }
-
     /**
      * Class that incapsulates the DetailAST node related to the method call
      * that leads to call of the overridable method and the name of
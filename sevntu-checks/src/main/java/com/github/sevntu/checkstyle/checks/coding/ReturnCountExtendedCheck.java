@@ -18,12 +18,14 @@
 ////////////////////////////////////////////////////////////////////////////////
 package com.github.sevntu.checkstyle.checks.coding;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 
+import com.github.sevntu.checkstyle.ast.AstTraversal;
+import com.github.sevntu.checkstyle.ast.AstVisitor;
 import com.puppycrawl.tools.checkstyle.api.Check;
 import com.puppycrawl.tools.checkstyle.api.DetailAST;
 import com.puppycrawl.tools.checkstyle.api.TokenTypes;
@@ -261,9 +263,8 @@ public class ReturnCountExtendedCheck extends Check
     }
 
     /**
-     * Gets the "return" statements count for given method/ctor and saves the
-     * last "return" statement DetailAST node for given method/ctor body. Uses
-     * an iterative algorithm.
+     * Gets the "return" statements count for given method/ctor body. Nested
+     * methods and classes are not searched.
      * @param aMethodOpeningBrace
      *        a DetailAST node that points to the current method`s opening
      *        brace.
@@ -275,49 +276,32 @@ public class ReturnCountExtendedCheck extends Check
     private int getReturnCount(final DetailAST aMethodDefNode,
             final DetailAST aMethodOpeningBrace)
     {
-        int result = 0;
-
-        DetailAST curNode = aMethodOpeningBrace;
-
-        while (curNode != null) {
-
-            // before node visiting
-            if (curNode.getType() == TokenTypes.RCURLY
-                    && curNode.getParent() == aMethodOpeningBrace)
+        final List<DetailAST> returns = new ArrayList<DetailAST>();
+        AstTraversal.walk(aMethodOpeningBrace, new AstVisitor() {
+            @Override
+            public Action visit(DetailAST aNode)
             {
-                break; // stop at closing brace
-            }
-            else {
-                if (curNode.getType() == TokenTypes.LITERAL_RETURN
-                        && getDepth(aMethodDefNode
-                                , curNode) < mMinIgnoreReturnDepth
-                        && shouldEmptyReturnStatementBeCounted(curNode)
-                        && getLinesCount(aMethodOpeningBrace,
-                                curNode) > mTopLinesToIgnoreCount)
-                {
-                    result++;
+                final int type = aNode.getType();
+                if (type == TokenTypes.LITERAL_RETURN) {
+                    returns.add(aNode);
                 }
+                // skip nested methods (UI listeners, Runnable.run(), etc.)
+                // and anonymous classes
+                return type == TokenTypes.METHOD_DEF
+                        || type == TokenTypes.CLASS_DEF
+                    ? Action.SKIP_CHILDREN : Action.CONTINUE;
             }
+        });
 
-            // before node leaving
-            DetailAST nextNode = curNode.getFirstChild();
-
-            final int type = curNode.getType();
-            // skip nested methods (UI listeners, Runnable.run(), etc.)
-            if (type == TokenTypes.METHOD_DEF
-                  || type == TokenTypes.CLASS_DEF) // skip anonimous classes
+        int result = 0;
+        for (DetailAST returnNode : returns) {
+            if (getDepth(aMethodDefNode, returnNode) < mMinIgnoreReturnDepth
+                    && shouldEmptyReturnStatementBeCounted(returnNode)
+                    && getLinesCount(aMethodOpeningBrace,
+                            returnNode) > mTopLinesToIgnoreCount)
             {
-                nextNode = curNode.getNextSibling();
-            }
-
-            while ((curNode != null) && (nextNode == null)) {
-                // leave the visited Node
-                nextNode = curNode.getNextSibling();
-                if (nextNode == null) {
-                    curNode = curNode.getParent();
-                }
+                result++;
             }
-            curNode = nextNode;
         }
         return result;
     }
@@ -381,7 +365,7 @@ public class ReturnCountExtendedCheck extends Check
     private static String getMethodName(DetailAST aMethodDefNode)
     {
         String result = null;
-        for (DetailAST curNode : getChildren(aMethodDefNode)) {
+        for (DetailAST curNode : AstTraversal.children(aMethodDefNode)) {
             if (curNode.getType() == TokenTypes.IDENT) {
                 result = curNode.getText();
                 break;
@@ -403,24 +387,6 @@ public class ReturnCountExtendedCheck extends Check
     {
         return aEndAST.getLineNo() - aBeginAst.getLineNo();
     }
-
-    /**
-     * Gets all the children which are one level below on the current DetailAST
-     * parent node.
-     * @param aNode
-     *        Current parent node.
-     * @return The list of children one level below on the current parent node.
-     */
-    private static List<DetailAST> getChildren(final DetailAST aNode)
-    {
-        final List<DetailAST> result = new LinkedList<DetailAST>();
-        DetailAST curNode = aNode.getFirstChild();
-        while (curNode != null) {
-            result.add(curNode);
-            curNode = curNode.getNextSibling();
-        }
-        return result;
-    }
     
     /**
 	 * Matches string to given list of RegExp patterns.
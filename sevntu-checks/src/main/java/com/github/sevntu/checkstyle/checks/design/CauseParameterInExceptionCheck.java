@@ -18,15 +18,30 @@
 ////////////////////////////////////////////////////////////////////////////////
 package com.github.sevntu.checkstyle.checks.design;
 
+import java.io.File;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.regex.Pattern;
 
+import com.github.sevntu.checkstyle.ast.AstTraversal;
+import com.github.sevntu.checkstyle.index.TypeHierarchy;
+import com.github.sevntu.checkstyle.index.TypeIndex;
+import com.github.sevntu.checkstyle.walker.AuditAware;
+import com.github.sevntu.checkstyle.walker.FusedTreeWalker;
+import com.github.sevntu.checkstyle.walker.TypeHierarchyAware;
 import com.puppycrawl.tools.checkstyle.api.Check;
 import com.puppycrawl.tools.checkstyle.api.DetailAST;
+import com.puppycrawl.tools.checkstyle.api.LocalizedMessage;
 import com.puppycrawl.tools.checkstyle.api.TokenTypes;
+import com.puppycrawl.tools.checkstyle.api.Utils;
 
 /**
  * Checks that any Exception class which matches the defined className regexp
@@ -43,10 +58,22 @@ import com.puppycrawl.tools.checkstyle.api.TokenTypes;
  * <li>regexp to ignore classes by names ("ignoredClassNamesRegexp" option).
  * </li><li>The names of classes which would be considered as Exception cause
  * ("allowedCauseTypes" option).</li></ol><br>
+ * <p>
+ * When the check runs in {@link FusedTreeWalker}, it builds an index of
+ * classes of all audited files and reports violations at the end of the
+ * audit. A class is checked then if its superclasses, resolved across
+ * files and through the class loader, lead to <code>Throwable</code>.
+ * "classNamesRegexp" option is used only for classes whose superclasses
+ * can not be resolved, classes which are surely not exceptions are never
+ * reported. When "sourcePath" property of the walker is set, a class is
+ * checked also if it extends <code>Throwable</code> through classes of
+ * the source path which are not audited.
+ * </p>
  * @author <a href="mailto:Daniil.Yaroslavtsev@gmail.com"> Daniil
  *         Yaroslavtsev</a>
  */
 public class CauseParameterInExceptionCheck extends Check
+    implements AuditAware, TypeHierarchyAware
 {
     /**
      * A key is pointing to the warning message text in "messages.properties"
@@ -54,6 +81,9 @@ public class CauseParameterInExceptionCheck extends Check
      */
     public static final String MSG_KEY = "cause.parameter.in.exception";
 
+    /** Qualified name of Throwable. */
+    private static final String THROWABLE = "java.lang.Throwable";
+
     /**
      * Pattern object is used to store the regexp for the names of classes, that
      * should be checked. Default value = ".+Exception".
@@ -73,11 +103,35 @@ public class CauseParameterInExceptionCheck extends Check
     private Set<String> mAllowedCauseTypes = new HashSet<String>();
 
     /**
-     * List of DetailAST objects which are related to Exception classes that
-     * need to be warned.
+     * Identity set of CLASS_DEF nodes which are related to Exception classes
+     * that need to be warned, values of the map are not used.
      */
-    private List<DetailAST> mExceptionClassesToWarn =
-            new LinkedList<DetailAST>();
+    private final Map<DetailAST, Boolean> mExceptionClassesToWarn =
+            new IdentityHashMap<DetailAST, Boolean>();
+
+    /** Whether violations are reported at the end of the audit. */
+    private boolean mAuditMode;
+
+    /** Classes of all files of the audit. */
+    private final TypeIndex mTypeIndex = new TypeIndex();
+
+    /** The current file in the index. */
+    private TypeIndex.Source mSource;
+
+    /** Classes of the current file by their CLASS_DEF nodes. */
+    private final Map<DetailAST, TypeIndex.Type> mFileTypes =
+            new IdentityHashMap<DetailAST, TypeIndex.Type>();
+
+    /**
+     * Messages about classes of the audit which are not ignored, reported
+     * at the end of the audit if the classes are exceptions without cause
+     * parameter.
+     */
+    private final Map<TypeIndex.Type, LocalizedMessage> mAuditMessages =
+            new HashMap<TypeIndex.Type, LocalizedMessage>();
+
+    /** Hierarchy of types of the source path, may be null. */
+    private TypeHierarchy mTypeHierarchy;
 
     /**
      * Creates the new check instance.
@@ -132,31 +186,69 @@ public class CauseParameterInExceptionCheck extends Check
         }
     }
 
+    @Override
+    public void setTypeHierarchy(TypeHierarchy aHierarchy)
+    {
+        mTypeHierarchy = aHierarchy;
+    }
+
     @Override
     public int[] getDefaultTokens()
     {
         return new int []{TokenTypes.CLASS_DEF, TokenTypes.CTOR_DEF, };
     }
 
+    @Override
+    public void beginAudit()
+    {
+        mAuditMode = true;
+        mTypeIndex.clear();
+        mAuditMessages.clear();
+    }
+
+    @Override
+    public void beginTree(DetailAST aRootAST)
+    {
+        if (mAuditMode) {
+            mSource = mTypeIndex.addSource(
+                    new File(getFileContents().getFilename())
+                            .getAbsolutePath(), aRootAST);
+        }
+    }
+
     @Override
     public void visitToken(DetailAST aAst)
     {
         switch (aAst.getType()) {
         case TokenTypes.CLASS_DEF:
-            final String exceptionClassName = getName(aAst);
-            if (mClassNamesRegexp.matcher(exceptionClassName).matches()
-                    && !mIgnoredClassNamesRegexp.matcher(exceptionClassName)
-                            .matches())
-            {
-                mExceptionClassesToWarn.add(aAst);
+            if (mAuditMode) {
+                indexClass(aAst);
+            }
+            else {
+                final String exceptionClassName = getName(aAst);
+                if (mClassNamesRegexp.matcher(exceptionClassName).matches()
+                        && !mIgnoredClassNamesRegexp
+                                .matcher(exceptionClassName).matches())
+                {
+                    mExceptionClassesToWarn.put(aAst, Boolean.TRUE);
+                }
             }
             break;
         case TokenTypes.CTOR_DEF:
-            final DetailAST exceptionClass = getClassDef(aAst);
-            if (mExceptionClassesToWarn.contains(exceptionClass)
-                    && hasCauseAsParameter(aAst))
-            { // if current class is not ignored
-                mExceptionClassesToWarn.remove(exceptionClass);
+            if (mAuditMode) {
+                final TypeIndex.Type type =
+                        mFileTypes.get(aAst.getParent().getParent());
+                if (type != null) {
+                    type.addConstructor(aAst);
+                }
+            }
+            else {
+                final DetailAST exceptionClass = getClassDef(aAst);
+                if (mExceptionClassesToWarn.containsKey(exceptionClass)
+                        && hasCauseAsParameter(aAst))
+                { // if current class is not ignored
+                    mExceptionClassesToWarn.remove(exceptionClass);
+                }
             }
             break;
         default:
@@ -173,10 +265,119 @@ public class CauseParameterInExceptionCheck extends Check
     @Override
     public void finishTree(DetailAST aTreeRootAST)
     {
-        for (DetailAST classDefNode : mExceptionClassesToWarn) {
+        for (DetailAST classDefNode : mExceptionClassesToWarn.keySet()) {
             log(classDefNode, MSG_KEY, getName(classDefNode));
         }
         mExceptionClassesToWarn.clear();
+        mFileTypes.clear();
+        mSource = null;
+    }
+
+    @Override
+    public Map<String, SortedSet<LocalizedMessage>> finishAudit()
+    {
+        final Map<String, SortedSet<LocalizedMessage>> result =
+                new TreeMap<String, SortedSet<LocalizedMessage>>();
+        final ClassLoader classLoader = getClassLoader() != null
+                ? getClassLoader()
+                : CauseParameterInExceptionCheck.class.getClassLoader();
+        for (TypeIndex.Type type : mTypeIndex.getTypes()) {
+            final LocalizedMessage message = mAuditMessages.get(type);
+            if (message != null && !hasCauseAsParameter(type)
+                    && isException(type, classLoader))
+            {
+                final String fileName = type.getSource().getFileName();
+                SortedSet<LocalizedMessage> messages = result.get(fileName);
+                if (messages == null) {
+                    messages = new TreeSet<LocalizedMessage>();
+                    result.put(fileName, messages);
+                }
+                messages.add(message);
+            }
+        }
+        mTypeIndex.clear();
+        mAuditMessages.clear();
+        return result;
+    }
+
+    /**
+     * Adds the given class to the index of the audit and prepares
+     * the message about it unless the class is ignored.
+     * @param aClassDefNode
+     *        The CLASS_DEF DetailAST node of the class.
+     */
+    private void indexClass(DetailAST aClassDefNode)
+    {
+        final TypeIndex.Type type = mTypeIndex.addType(mSource, aClassDefNode);
+        mFileTypes.put(aClassDefNode, type);
+        final String className = type.getSimpleName();
+        if (!mIgnoredClassNamesRegexp.matcher(className).matches()) {
+            // messages are created now as lines of the file are not kept
+            final int lineNo = aClassDefNode.getLineNo();
+            final int columnNo = 1 + Utils.lengthExpandedTabs(
+                    getFileContents().getText().get(lineNo - 1),
+                    aClassDefNode.getColumnNo(), getTabWidth());
+            mAuditMessages.put(type, new LocalizedMessage(lineNo, columnNo,
+                    getMessageBundle(), MSG_KEY, new Object[] {className},
+                    getSeverityLevel(), getId(), getClass(),
+                    getCustomMessages().get(MSG_KEY)));
+        }
+    }
+
+    /**
+     * Checks whether the given class of the index is an exception.
+     * @param aType
+     *        The class of the index.
+     * @param aClassLoader
+     *        Loader of classes which are not declared in audited files.
+     * @return true if superclasses of the class lead to Throwable in
+     *         the audit or in the source path, or can not be resolved and
+     *         the name of the class matches "classNamesRegexp".
+     */
+    private boolean isException(TypeIndex.Type aType,
+            ClassLoader aClassLoader)
+    {
+        final boolean result;
+        if (mTypeHierarchy != null
+                && mTypeHierarchy.isSubtype(aType.getName(), THROWABLE))
+        {
+            result = true;
+        }
+        else {
+            // the hierarchy does not tell superclasses which can not be
+            // resolved from classes without superclasses, so the audit
+            // decides the other classes
+            final String superclass =
+                    mTypeIndex.getExternalSuperclass(aType, aClassLoader);
+            final Class<?> superclassClass = superclass == null ? null
+                    : mTypeIndex.loadClass(superclass, aClassLoader);
+            result = superclassClass == null
+                    ? mClassNamesRegexp.matcher(aType.getSimpleName())
+                            .matches()
+                    : Throwable.class.isAssignableFrom(superclassClass);
+        }
+        return result;
+    }
+
+    /**
+     * Checks that the given class of the index has a constructor which
+     * contains exception cause as a parameter.
+     * @param aType
+     *        The class of the index.
+     * @return true if a constructor of the class contains exception cause as
+     *         a parameter and false otherwise.
+     */
+    private boolean hasCauseAsParameter(TypeIndex.Type aType)
+    {
+        boolean result = false;
+        for (String[] parameterTypes : aType.getConstructors()) {
+            for (int i = 0; !result && i < parameterTypes.length; i++) {
+                final String simpleName = parameterTypes[i]
+                        .substring(parameterTypes[i].lastIndexOf('.') + 1);
+                result = mAllowedCauseTypes.contains(simpleName);
+            }
+        }
+        return result;
     }
 
     /**
@@ -210,7 +411,7 @@ public class CauseParameterInExceptionCheck extends Check
     private static List<String> getParameterTypes(DetailAST aParametersAST)
     {
         final List<String> result = new LinkedList<String>();
-        for (DetailAST parametersChild : getChildren(aParametersAST)) {
+        for (DetailAST parametersChild : AstTraversal.children(aParametersAST)) {
             if (parametersChild.getType() == TokenTypes.PARAMETER_DEF) {
                 final DetailAST parameterType = parametersChild
                         .findFirstToken(TokenTypes.TYPE);
@@ -253,22 +454,4 @@ public class CauseParameterInExceptionCheck extends Check
         return curNode;
     }
 
-    /**
-     * Gets all the children which are one level below on the current DetailAST
-     * parent node.
-     * @param aNode
-     *        Current parent node.
-     * @return The list of children one level below on the current parent node.
-     */
-    private static List<DetailAST> getChildren(final DetailAST aNode)
-    {
-        final List<DetailAST> result = new LinkedList<DetailAST>();
-        DetailAST curNode = aNode.getFirstChild();
-        while (curNode != null) {
-            result.add(curNode);
-            curNode = curNode.getNextSibling();
-        }
-        return result;
-    }
-
 }
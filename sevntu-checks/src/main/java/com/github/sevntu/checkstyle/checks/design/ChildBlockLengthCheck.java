@@ -18,10 +18,8 @@
 ////////////////////////////////////////////////////////////////////////////////
 package com.github.sevntu.checkstyle.checks.design;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Arrays;
 
-import com.google.common.collect.Lists;
 import com.puppycrawl.tools.checkstyle.api.Check;
 import com.puppycrawl.tools.checkstyle.api.DetailAST;
 import com.puppycrawl.tools.checkstyle.api.TokenTypes;
@@ -41,6 +39,10 @@ import com.puppycrawl.tools.checkstyle.api.TokenTypes;
  * to read in case child block is long(few display screens). Such child blocks
  * should be refactored or moved to separate method.
  * </p>
+ * <p>
+ * Blocks of nested methods and classes are not compared with blocks
+ * enclosing these methods and classes.
+ * </p>
  * @author <a href="mailto:Daniil.Yaroslavtsev@gmail.com"> Daniil
  *         Yaroslavtsev</a>
  */
@@ -71,6 +73,12 @@ public class ChildBlockLengthCheck extends Check
      */
     private static final int DEFAULT_IGNORE_BLOCK_LINESCOUNT = 50;
 
+    /** Size of an open node which is not a block with braces. */
+    private static final int NO_BRACES = -1;
+
+    /** Initial capacity of the stack of open nodes. */
+    private static final int INITIAL_STACK_CAPACITY = 16;
+
     /**
      * Array contains all allowed block types to be checked. Supported block
      * types: LITERAL_IF, LITERAL_SWITCH, LITERAL_FOR, LITERAL_DO,
@@ -90,6 +98,21 @@ public class ChildBlockLengthCheck extends Check
      */
     private int mIgnoreBlockLinesCount = DEFAULT_IGNORE_BLOCK_LINESCOUNT;
 
+    /**
+     * Nodes of blocks, methods and classes which are being visited, from the
+     * outermost one.
+     */
+    private DetailAST[] mOpenNodes = new DetailAST[INITIAL_STACK_CAPACITY];
+
+    /**
+     * Sizes of blocks in {@link #mOpenNodes}, NO_BRACES for nodes without
+     * braces.
+     */
+    private int[] mOpenSizes = new int[INITIAL_STACK_CAPACITY];
+
+    /** Count of nodes in {@link #mOpenNodes}. */
+    private int mOpenCount;
+
     /**
      * Sets allowed types of blocks to be checked. Supported block types:
      * LITERAL_IF, LITERAL_SWITCH, LITERAL_FOR, LITERAL_DO, LITERAL_WHILE,
@@ -130,155 +153,128 @@ public class ChildBlockLengthCheck extends Check
     @Override
     public int[] getDefaultTokens()
     {
-        return mBlockTypes;
+        // methods and classes separate their blocks from enclosing ones
+        final int[] result = Arrays.copyOf(mBlockTypes, mBlockTypes.length + 2);
+        result[mBlockTypes.length] = TokenTypes.METHOD_DEF;
+        result[mBlockTypes.length + 1] = TokenTypes.CLASS_DEF;
+        return result;
     }
 
     @Override
-    public void visitToken(DetailAST aAst)
+    public void beginTree(DetailAST aRootAST)
     {
-        final DetailAST aOpeningBrace = openingBrace(aAst);
-
-        if (aOpeningBrace != null) { // if the block has braces at all
-
-            final DetailAST aClosingBrace = closingBrace(aAst);
-            final int parentBlockSize =
-                    linesCount(aOpeningBrace, aClosingBrace);
-
-            if (parentBlockSize > mIgnoreBlockLinesCount) {
-
-                final List<DetailAST> childBlocks = getChildBlocks(
-                        aOpeningBrace, aClosingBrace);
-
-                final List<DetailAST> badChildBlocks = getBadChildBlocks(
-                        childBlocks, parentBlockSize);
-
-                if (badChildBlocks.size() == 0) {
-                    for (DetailAST childBlock : childBlocks) {
-                        visitToken(childBlock);
-                    }
-                }
-                else {
-                    for (DetailAST badBlock : badChildBlocks) {
-
-                        final int blockSize = linesCount(badBlock);
-
-                        final double allowedBlockSize = (int) (parentBlockSize
-                                * mMaxChildBlockPercentage / PERCENTS_FACTOR);
+        Arrays.fill(mOpenNodes, 0, mOpenCount, null);
+        mOpenCount = 0;
+    }
 
-                        log(badBlock, MSG_KEY, blockSize, allowedBlockSize);
-                    }
-                }
+    @Override
+    public void visitToken(DetailAST aAst)
+    {
+        int size = NO_BRACES;
+        if (isAllowedBlockType(aAst.getType())) {
+            final DetailAST openingBrace = openingBrace(aAst);
+            if (openingBrace != null) {
+                size = linesCount(openingBrace, closingBrace(aAst));
+                checkParentBlocks(aAst, size);
             }
         }
+        if (mOpenCount == mOpenNodes.length) {
+            mOpenNodes = Arrays.copyOf(mOpenNodes, mOpenCount * 2);
+            mOpenSizes = Arrays.copyOf(mOpenSizes, mOpenCount * 2);
+        }
+        mOpenNodes[mOpenCount] = aAst;
+        mOpenSizes[mOpenCount] = size;
+        mOpenCount++;
+    }
+
+    @Override
+    public void leaveToken(DetailAST aAst)
+    {
+        mOpenCount--;
+        mOpenNodes[mOpenCount] = null;
     }
 
     /**
-     * Gets all the child blocks for given parent block. Uses an iterative
-     * algorithm.
-     * @param aBlockOpeningBrace
-     *        a DetailAST node that points to the current method`s opening
-     *        brace.
-     * @param aBlockClosingBrace
-     *        the a block closing brace
-     * @return all child blocks that have braces.
+     * Logs a block for every enclosing block it occupies too much of. Blocks
+     * are compared from the innermost one, an enclosing block is not smaller
+     * than blocks inside its braces, so comparison stops at the first block
+     * which is not occupied too much.
+     * @param aChildBlock
+     *        the block with braces.
+     * @param aChildBlockSize
+     *        lines count of the block.
      */
-    private List<DetailAST> getChildBlocks(DetailAST aBlockOpeningBrace,
-            DetailAST aBlockClosingBrace)
+    private void checkParentBlocks(DetailAST aChildBlock, int aChildBlockSize)
     {
-        final List<DetailAST> childBlocks = Lists.newLinkedList();
-
-        DetailAST curNode = aBlockOpeningBrace;
-
-        while (curNode != null) {
-            // before node visiting
-            if (curNode == aBlockClosingBrace) {
-                break; // stop at closing brace
-            }
-            else {
-                if (isAllowedBlockType(curNode.getType())) {
-                    childBlocks.add(curNode);
+        for (int i = mOpenCount - 1; i >= 0; i--) {
+            final DetailAST parentBlock = mOpenNodes[i];
+            final int parentBlockSize = mOpenSizes[i];
+            if (parentBlockSize != NO_BRACES
+                    && isInsideBraces(aChildBlock, parentBlock))
+            {
+                if (!getPercentage(parentBlockSize, aChildBlockSize)) {
+                    break;
+                }
+                if (parentBlockSize > mIgnoreBlockLinesCount) {
+                    final double allowedBlockSize = (int) (parentBlockSize
+                            * mMaxChildBlockPercentage / PERCENTS_FACTOR);
+                    log(aChildBlock, MSG_KEY, aChildBlockSize,
+                            allowedBlockSize);
                 }
             }
-            // before node leaving
-            DetailAST nextNode = curNode.getFirstChild();
-
-            final int type = curNode.getType();
-            // skip anonimous classes and nested methods
+            final int type = parentBlock.getType();
             if (type == TokenTypes.METHOD_DEF
                     || type == TokenTypes.CLASS_DEF)
             {
-                nextNode = curNode.getNextSibling();
-            }
-
-            while ((curNode != null) && (nextNode == null)) {
-                // leave the visited node
-                nextNode = curNode.getNextSibling();
-                if (nextNode == null) {
-                    curNode = curNode.getParent();
-                }
+                break;
             }
-            curNode = nextNode;
         }
-        return childBlocks;
     }
 
     /**
-     * Checks that given child block type is allowed.
-     * @param aBlockType
-     *        the token type ID for the given block.
-     * @return true, if the given child block type is allowed.
+     * Checks whether a node is between the braces of a block, but not in the
+     * condition or in else, catch or finally blocks of the block.
+     * @param aNode
+     *        the node inside the block.
+     * @param aBlock
+     *        the block with braces.
+     * @return true if the node is between the braces.
      */
-    private boolean isAllowedBlockType(int aBlockType)
+    private static boolean isInsideBraces(DetailAST aNode, DetailAST aBlock)
     {
-        boolean result = false;
-        for (int type : mBlockTypes) {
-            if (type == aBlockType) {
-                result = true;
-                break;
-            }
-        }
-        return result;
+        return isBefore(openingBrace(aBlock), aNode)
+                && isBefore(aNode, closingBrace(aBlock));
     }
 
     /**
-     * Gets the child blocks which occupies too much size (in percentage) of
-     * given parent block size.
-     * @param aBlocksList
-     *        the blocks
-     * @param aParentBlockSize
-     *        the a parent block size
-     * @return the wrong child blocks
+     * Checks whether a node starts before another one in the text.
+     * @param aFirst
+     *        the first node.
+     * @param aSecond
+     *        the second node.
+     * @return true if the first node starts before the second one.
      */
-    private List<DetailAST> getBadChildBlocks(List<DetailAST> aBlocksList,
-            int aParentBlockSize)
+    private static boolean isBefore(DetailAST aFirst, DetailAST aSecond)
     {
-        final List<DetailAST> result = new LinkedList<DetailAST>();
-        for (DetailAST block : aBlocksList) {
-            if (isChildBlockBad(block, aParentBlockSize)) {
-                result.add(block);
-            }
-        }
-        return result;
+        return aFirst.getLineNo() < aSecond.getLineNo()
+                || aFirst.getLineNo() == aSecond.getLineNo()
+                && aFirst.getColumnNo() < aSecond.getColumnNo();
     }
 
     /**
-     * Checks if the child block size percentage from parent block is greater
-     * than.
-     * @param aChildBlock
-     *        the a child block node
-     * @param aParentBlockSize
-     *        the a parent block size
-     * @return true, if is child block wrong
+     * Checks that given child block type is allowed.
+     * @param aBlockType
+     *        the token type ID for the given block.
+     * @return true, if the given child block type is allowed.
      */
-    private boolean isChildBlockBad(DetailAST aChildBlock,
-            int aParentBlockSize)
+    private boolean isAllowedBlockType(int aBlockType)
     {
         boolean result = false;
-        final DetailAST openingBrace = openingBrace(aChildBlock);
-        if (openingBrace != null) {
-            final DetailAST closingBrace = closingBrace(aChildBlock);
-            final int childBlockSize = linesCount(openingBrace, closingBrace);
-            result = getPercentage(aParentBlockSize, childBlockSize);
+        for (int type : mBlockTypes) {
+            if (type == aBlockType) {
+                result = true;
+                break;
+            }
         }
         return result;
     }
@@ -327,18 +323,6 @@ public class ChildBlockLengthCheck extends Check
                 : openingBrace(aParentBlockNode).getLastChild();
     }
 
-    /**
-     * Gets the lines count between braces of the given block.
-     * @param aBlockAst
-     *        - the DetailAST node is related to the given block (the block
-     *        should have braces!).
-     * @return the lines count between the given block braces.
-     */
-    private static int linesCount(DetailAST aBlockAst)
-    {
-        return linesCount(openingBrace(aBlockAst), closingBrace(aBlockAst));
-    }
-
     /**
      * Gets the lines count between the given block opening and closing braces.
      * @param aOpeningBrace
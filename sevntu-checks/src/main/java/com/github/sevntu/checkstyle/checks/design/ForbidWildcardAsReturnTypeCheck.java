@@ -1,13 +1,14 @@
 package com.github.sevntu.checkstyle.checks.design;
 
+import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 import java.util.regex.Pattern;
 
 import antlr.collections.AST;
 
+import com.github.sevntu.checkstyle.ast.AstTraversal;
 import com.puppycrawl.tools.checkstyle.api.Check;
 import com.puppycrawl.tools.checkstyle.api.DetailAST;
 import com.puppycrawl.tools.checkstyle.api.TokenTypes;
@@ -44,10 +45,6 @@ public class ForbidWildcardAsReturnTypeCheck extends Check
      */
     private static final int WILDCARD_SUPER_IDENT =
             TokenTypes.TYPE_LOWER_BOUNDS;
-    /**
-     * Empty array of DetailAST.
-     */
-    private static final DetailAST[] EMPTY_DETAILAST_ARRAY = new DetailAST[0];
     /**
      * Check methods with 'public' modifier.
      */
@@ -272,43 +269,18 @@ public class ForbidWildcardAsReturnTypeCheck extends Check
     private static List<DetailAST>
     getWildcardArgumentsAsMethodReturnType(DetailAST aMethodDefAst)
     {
-        final List<DetailAST> result = new LinkedList<DetailAST>();
+        final List<DetailAST> result = new ArrayList<DetailAST>();
         final DetailAST methodTypeAst =
                 aMethodDefAst.findFirstToken(TokenTypes.TYPE);
-        final DetailAST[] methodTypeArgumentTokens =
-                getGenericTypeArguments(methodTypeAst);
-        for (DetailAST typeArgumentAst: methodTypeArgumentTokens) {
-            if (hasChildToken(typeArgumentAst, TokenTypes.WILDCARD_TYPE)) {
-                result.add(typeArgumentAst);
-            }
-        }
-        return result;
-    }
-
-    /**
-     * Get all type arguments of TypeAST.
-     * @param aTypeAst
-     *        DetailAST of type definition.
-     * @return array of type arguments.
-     */
-    private static DetailAST[] getGenericTypeArguments(DetailAST aTypeAst)
-    {
-        DetailAST[] result = EMPTY_DETAILAST_ARRAY;
-        if (hasChildToken(aTypeAst, TokenTypes.TYPE_ARGUMENTS)) {
-            final DetailAST typeArguments = aTypeAst
-                    .findFirstToken(TokenTypes.TYPE_ARGUMENTS);
-            final int argumentsCount = typeArguments
-                    .getChildCount(TokenTypes.TYPE_ARGUMENT);
-            result = new DetailAST[argumentsCount];
-            DetailAST firstTypeArgument = typeArguments
-                    .findFirstToken(TokenTypes.TYPE_ARGUMENT);
-            int counter = 0;
-            while (firstTypeArgument != null) {
-                if (firstTypeArgument.getType() == TokenTypes.TYPE_ARGUMENT) {
-                    result[counter] = firstTypeArgument;
-                    counter++;
+        final DetailAST typeArgumentsAst =
+                methodTypeAst.findFirstToken(TokenTypes.TYPE_ARGUMENTS);
+        if (typeArgumentsAst != null) {
+            for (DetailAST typeArgumentAst : AstTraversal.children(
+                    typeArgumentsAst, TokenTypes.TYPE_ARGUMENT))
+            {
+                if (hasChildToken(typeArgumentAst, TokenTypes.WILDCARD_TYPE)) {
+                    result.add(typeArgumentAst);
                 }
-                firstTypeArgument = firstTypeArgument.getNextSibling();
             }
         }
         return result;
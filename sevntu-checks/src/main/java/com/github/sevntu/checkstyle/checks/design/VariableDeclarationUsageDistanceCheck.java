@@ -20,13 +20,13 @@ package com.github.sevntu.checkstyle.checks.design;
 
 import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import antlr.collections.ASTEnumeration;
-
 import com.puppycrawl.tools.checkstyle.api.Check;
 import com.puppycrawl.tools.checkstyle.api.DetailAST;
 import com.puppycrawl.tools.checkstyle.api.FullIdent;
@@ -173,6 +173,9 @@ public class VariableDeclarationUsageDistanceCheck extends Check
     /** Allows to ignore variables with 'final' modifier. */
     private boolean mIgnoreFinal = true;
 
+    /** Usages of identifiers in the method which is being checked. */
+    private UsageIndex mUsageIndex;
+
     /**
      * Sets an allowed distance between declaration of variable and its first
      * usage.
@@ -224,6 +227,12 @@ public class VariableDeclarationUsageDistanceCheck extends Check
         return new int[] {TokenTypes.VARIABLE_DEF};
     }
 
+    @Override
+    public void beginTree(DetailAST aRootAST)
+    {
+        mUsageIndex = null;
+    }
+
     @Override
     public void visitToken(DetailAST aAST)
     {
@@ -239,6 +248,10 @@ public class VariableDeclarationUsageDistanceCheck extends Check
             final DetailAST variable = aAST.findFirstToken(TokenTypes.IDENT);
 
             if (!isVariableMatchesIgnorePattern(variable.getText())) {
+                final DetailAST methodAst = getMethodLevelAst(aAST);
+                if (mUsageIndex == null || mUsageIndex.getRoot() != methodAst) {
+                    mUsageIndex = new UsageIndex(methodAst);
+                }
                 final DetailAST semicolonAst = aAST.getNextSibling();
                 Entry<DetailAST, Integer> entry = null;
                 if (mValidateBetweenScopes) {
@@ -685,7 +698,7 @@ public class VariableDeclarationUsageDistanceCheck extends Check
      *         (not in its declaration!) than return the first Ast node
      *         of this block, otherwise - null.
      */
-    private static DetailAST getFirstNodeInsideTryCatchFinallyBlocks(
+    private DetailAST getFirstNodeInsideTryCatchFinallyBlocks(
             DetailAST aBlock, DetailAST aVariable)
     {
         DetailAST currentNode = aBlock.getFirstChild();
@@ -824,21 +837,22 @@ public class VariableDeclarationUsageDistanceCheck extends Check
     }
 
     /**
-     * Checks if Ast node contains given element.
+     * Checks if Ast node contains given identifier. The node is also
+     * considered to contain identifiers of its next siblings when one of
+     * their ancestors has the same type, text and line as the node.
      * @param aParent
      *        Node of AST.
      * @param aAST
-     *        Ast element which is checked for content in Ast node.
+     *        Identifier which is checked for content in Ast node.
      * @return true if Ast element was found in Ast node, otherwise - false.
      */
-    private static boolean isChild(DetailAST aParent, DetailAST aAST)
+    private boolean isChild(DetailAST aParent, DetailAST aAST)
     {
         boolean isChild = false;
-        final ASTEnumeration astList = aParent.findAllPartial(aAST);
+        final List<DetailAST> usages = mUsageIndex.getUsages(aParent, aAST);
 
-        while (astList.hasMoreNodes()) {
-            final DetailAST ast = (DetailAST) astList.nextNode();
-            DetailAST astParent = ast.getParent();
+        for (int i = 0; !isChild && i < usages.size(); i++) {
+            DetailAST astParent = usages.get(i).getParent();
 
             while (astParent != null) {
 
@@ -855,6 +869,24 @@ public class VariableDeclarationUsageDistanceCheck extends Check
         return isChild;
     }
 
+    /**
+     * Gets the member of class (method, constructor or initializer) which
+     * contains the local variable.
+     * @param aVariableDef
+     *        VARIABLE_DEF of local variable.
+     * @return child of OBJBLOCK which contains the variable.
+     */
+    private static DetailAST getMethodLevelAst(DetailAST aVariableDef)
+    {
+        DetailAST result = aVariableDef;
+        while (result.getParent() != null
+                && result.getParent().getType() != TokenTypes.OBJBLOCK)
+        {
+            result = result.getParent();
+        }
+        return result;
+    }
+
     /**
      * Checks if entrance variable is contained in ignored pattern.
      * @param aVariable
@@ -866,4 +898,119 @@ public class VariableDeclarationUsageDistanceCheck extends Check
         final Matcher matcher = mIgnoreVariablePattern.matcher(aVariable);
         return matcher.matches();
     }
+
+    /**
+     * Identifiers used in a method, built in one traversal of the method.
+     * Every node gets an ordinal in pre-order and remembers the ordinal of
+     * the last node of its subtree, so identifiers which are met in a node
+     * or in its next siblings are found by a range of ordinals instead of
+     * searching subtrees of all siblings again for every variable.
+     */
+    private static final class UsageIndex
+    {
+        /** The method which is indexed. */
+        private final DetailAST mRoot;
+
+        /** Ordinal of every node and ordinal of the last node of its subtree. */
+        private final Map<DetailAST, int[]> mRanges =
+            new HashMap<DetailAST, int[]>();
+
+        /** Identifiers by their names, in the pre-order. */
+        private final Map<String, List<DetailAST>> mIdents =
+            new HashMap<String, List<DetailAST>>();
+
+        /**
+         * Indexes a method.
+         * @param aRoot
+         *        the method to index.
+         */
+        UsageIndex(DetailAST aRoot)
+        {
+            mRoot = aRoot;
+            int ordinal = 0;
+            DetailAST node = aRoot;
+            while (node != null) {
+                mRanges.put(node, new int[] {ordinal, ordinal});
+                ordinal++;
+                if (node.getType() == TokenTypes.IDENT) {
+                    List<DetailAST> idents = mIdents.get(node.getText());
+                    if (idents == null) {
+                        idents = new ArrayList<DetailAST>();
+                        mIdents.put(node.getText(), idents);
+                    }
+                    idents.add(node);
+                }
+
+                if (node.getFirstChild() != null) {
+                    node = node.getFirstChild();
+                }
+                else {
+                    // leave finished subtrees and go to the next sibling
+                    while (node != null) {
+                        mRanges.get(node)[1] = ordinal - 1;
+                        if (node == aRoot) {
+                            node = null;
+                        }
+                        else if (node.getNextSibling() != null) {
+                            node = node.getNextSibling();
+                            break;
+                        }
+                        else {
+                            node = node.getParent();
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return the method which is indexed.
+         */
+        DetailAST getRoot()
+        {
+            return mRoot;
+        }
+
+        /**
+         * Gets identifiers which have the same name as the given one and are
+         * met in the node, in its subtree or in subtrees of its next
+         * siblings.
+         * @param aNode
+         *        node of the indexed method.
+         * @param aIdent
+         *        identifier to look for.
+         * @return identifiers in the pre-order.
+         */
+        List<DetailAST> getUsages(DetailAST aNode, DetailAST aIdent)
+        {
+            final List<DetailAST> idents = mIdents.get(aIdent.getText());
+            final List<DetailAST> result = new ArrayList<DetailAST>();
+            if (idents != null) {
+                final int first = mRanges.get(aNode)[0];
+                DetailAST parent = aNode.getParent();
+                if (aNode == mRoot || parent == null) {
+                    parent = aNode;
+                }
+                final int last = mRanges.get(parent)[1];
+
+                int low = 0;
+                int high = idents.size();
+                while (low < high) {
+                    final int middle = (low + high) >>> 1;
+                    if (mRanges.get(idents.get(middle))[0] < first) {
+                        low = middle + 1;
+                    }
+                    else {
+                        high = middle;
+                    }
+                }
+                for (int i = low; i < idents.size()
+                        && mRanges.get(idents.get(i))[0] <= last; i++)
+                {
+                    result.add(idents.get(i));
+                }
+            }
+            return result;
+        }
+    }
 }
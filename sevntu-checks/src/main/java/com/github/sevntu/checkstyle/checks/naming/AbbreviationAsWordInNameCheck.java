@@ -20,11 +20,10 @@
 package com.github.sevntu.checkstyle.checks.naming;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Set;
 
+import com.github.sevntu.checkstyle.ast.AstTraversal;
 import com.puppycrawl.tools.checkstyle.api.Check;
 import com.puppycrawl.tools.checkstyle.api.DetailAST;
 import com.puppycrawl.tools.checkstyle.api.TokenTypes;
@@ -62,9 +61,12 @@ public class AbbreviationAsWordInNameCheck extends Check {
             DEFAULT_ALLOWED_ABBREVIATIONS_LENGTH;
 
     /**
-     * Set of allowed abbreviation to ignore in check.
+     * Open addressing hash table of allowed abbreviations to ignore in check,
+     * indexed by hash code of String, so abbreviations found in names are
+     * looked up without creating substrings.
      */
-    private Set<String> mAllowedAbbreviations = new HashSet<String>();
+    private String[] mAllowedAbbreviations =
+            createTable(new HashSet<String>());
 
     /** Allows to ignore variables with 'final' modifier. */
     private boolean mIgnoreFinal = true;
@@ -139,8 +141,8 @@ public class AbbreviationAsWordInNameCheck extends Check {
     public void setAllowedAbbreviations(String aAllowedAbbreviations)
     {
         if (aAllowedAbbreviations != null) {
-            mAllowedAbbreviations = new HashSet<String>(
-                    Arrays.asList(aAllowedAbbreviations.split(",")));
+            mAllowedAbbreviations = createTable(new HashSet<String>(
+                    Arrays.asList(aAllowedAbbreviations.split(","))));
         }
     }
 
@@ -159,8 +161,7 @@ public class AbbreviationAsWordInNameCheck extends Check {
             final DetailAST nameAst = aAst.findFirstToken(TokenTypes.IDENT);
             final String typeName = nameAst.getText();
 
-            final String abbr = getDisallowedAbbreviation(typeName);
-            if (abbr != null) {
+            if (hasDisallowedAbbreviation(typeName)) {
                 log(nameAst.getLineNo(), MSG_KEY, mAllowedAbbreviationLength);
             }
         }
@@ -227,7 +228,7 @@ public class AbbreviationAsWordInNameCheck extends Check {
     private static boolean hasOverrideAnnotation(DetailAST aMethodModifiersAST)
     {
         boolean result = false;
-        for (DetailAST child : getChildren(aMethodModifiersAST)) {
+        for (DetailAST child : AstTraversal.children(aMethodModifiersAST)) {
             if (child.getType() == TokenTypes.ANNOTATION) {
                 final String annotationText =
                         child.findFirstToken(TokenTypes.IDENT).getText();
@@ -241,17 +242,16 @@ public class AbbreviationAsWordInNameCheck extends Check {
     }
 
     /**
-     * Gets the disallowed abbreviation contained in given String.
+     * Checks whether given String contains a disallowed abbreviation.
      * @param aString
      *        the given String.
-     * @return the disallowed abbreviation contained in given String as a
-     *         separate String.
+     * @return true if the given String contains an abbreviation which is
+     *         too long and not allowed.
      */
-    private String getDisallowedAbbreviation(String aString)
+    private boolean hasDisallowedAbbreviation(String aString)
     {
         int beginIndex = 0;
         boolean abbrStarted = false;
-        String result = null;
 
         for (int index = 0; index < aString.length(); index++) {
             final char symbol = aString.charAt(index);
@@ -262,53 +262,84 @@ public class AbbreviationAsWordInNameCheck extends Check {
                     beginIndex = index;
                 }
             }
-            else {
-                if (abbrStarted) {
-                    abbrStarted = false;
-
-                    // -1 as a first capital is usually beginning of next word
-                    final int endIndex = index - 1;
-                    final int abbrLength = endIndex - beginIndex;
-                    if (abbrLength > mAllowedAbbreviationLength) {
-                        result = aString.substring(beginIndex, endIndex);
-                        if (!mAllowedAbbreviations.contains(result)) {
-                            break;
-                        }
-                        else {
-                            result = null;
-                        }
-                    }
-                    beginIndex = -1;
+            else if (abbrStarted) {
+                abbrStarted = false;
+
+                // -1 as a first capital is usually beginning of next word
+                final int endIndex = index - 1;
+                final int abbrLength = endIndex - beginIndex;
+                if (abbrLength > mAllowedAbbreviationLength
+                        && !isAllowedAbbreviation(aString, beginIndex,
+                                endIndex))
+                {
+                    return true;
                 }
             }
         }
         if (abbrStarted) {
             final int endIndex = aString.length();
             final int abbrLength = endIndex - beginIndex;
-            if (abbrLength > 1 && abbrLength > mAllowedAbbreviationLength) {
-                result = aString.substring(beginIndex, endIndex);
-                if (mAllowedAbbreviations.contains(result)) {
-                    result = null;
-                }
+            return abbrLength > 1 && abbrLength > mAllowedAbbreviationLength
+                    && !isAllowedAbbreviation(aString, beginIndex, endIndex);
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a part of given String is an allowed abbreviation.
+     * @param aString
+     *        the given String.
+     * @param aBeginIndex
+     *        index of the first character of the part.
+     * @param aEndIndex
+     *        index after the last character of the part.
+     * @return true if the part is an allowed abbreviation.
+     */
+    private boolean isAllowedAbbreviation(String aString, int aBeginIndex,
+            int aEndIndex)
+    {
+        // the same as hashCode() of the substring
+        int hash = 0;
+        for (int index = aBeginIndex; index < aEndIndex; index++) {
+            hash = 31 * hash + aString.charAt(index);
+        }
+        final int length = aEndIndex - aBeginIndex;
+        final int mask = mAllowedAbbreviations.length - 1;
+        int slot = hash & mask;
+        String candidate = mAllowedAbbreviations[slot];
+        while (candidate != null) {
+            if (candidate.length() == length
+                    && candidate.regionMatches(0, aString, aBeginIndex, length))
+            {
+                return true;
             }
+            slot = (slot + 1) & mask;
+            candidate = mAllowedAbbreviations[slot];
         }
-        return result;
+        return false;
     }
 
     /**
-     * Gets all the children which are one level below on the current DetailAST
-     * parent node.
-     * @param aNode
-     *        Current parent node.
-     * @return The list of children one level below on the current parent node.
+     * Creates open addressing hash table of abbreviations, the table is at
+     * most half full, so a search always ends at an empty slot.
+     * @param aAbbreviations
+     *        allowed abbreviations.
+     * @return table of abbreviations indexed by their hash codes.
      */
-    private static List<DetailAST> getChildren(final DetailAST aNode)
+    private static String[] createTable(Collection<String> aAbbreviations)
     {
-        final List<DetailAST> result = new LinkedList<DetailAST>();
-        DetailAST curNode = aNode.getFirstChild();
-        while (curNode != null) {
-            result.add(curNode);
-            curNode = curNode.getNextSibling();
+        int capacity = 2;
+        while (capacity < aAbbreviations.size() * 2) {
+            capacity *= 2;
+        }
+        final String[] result = new String[capacity];
+        final int mask = capacity - 1;
+        for (String abbreviation : aAbbreviations) {
+            int slot = abbreviation.hashCode() & mask;
+            while (result[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            result[slot] = abbreviation;
         }
         return result;
     }
@@ -20,6 +20,7 @@
 package com.github.sevntu.checkstyle.checks.sizes;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -27,6 +28,7 @@ import org.apache.commons.beanutils.ConversionException;
 
 import com.puppycrawl.tools.checkstyle.api.Check;
 import com.puppycrawl.tools.checkstyle.api.DetailAST;
+import com.puppycrawl.tools.checkstyle.api.FileText;
 import com.puppycrawl.tools.checkstyle.api.TokenTypes;
 import com.puppycrawl.tools.checkstyle.api.Utils;
 
@@ -80,6 +82,12 @@ import com.puppycrawl.tools.checkstyle.api.Utils;
  * declarations. To ignore to check such lines there are enable|disable options.
  * By default they have "false" values.
  * </pre>
+ * <p>
+ * Lines are measured once, before the tree is walked, and tabs are expanded
+ * only for lines which are not longer than the maximum without it. Only
+ * declarations containing long lines are inspected then, so files with short
+ * lines cost a single pass over their text.
+ * </p>
  * 
  * @author Lars Kühne
  * @author <a href="mailto:ryly@mail.ru">Ruslan Dyachenko</a>
@@ -98,8 +106,11 @@ public class LineLengthExtendedCheck extends Check
 	/** the regexp when long lines are ignored */
 	private Pattern mIgnorePattern;
 
-	/** array of strings in source file */
-	private String[] mLines;
+	/** text of source file */
+	private FileText mText;
+
+	/** indexes of long lines which are not ignored yet */
+	private final BitSet mLongLines = new BitSet();
 
 	/** check field declaration length */
 	private boolean mIgnoreField;
@@ -200,6 +211,9 @@ public class LineLengthExtendedCheck extends Check
 	@Override
 	public void visitToken(DetailAST aAST)
 	{
+		if (mLongLines.isEmpty()) {
+			return;
+		}
 		final DetailAST endOfIgnoreLine = aAST.findFirstToken(TokenTypes.SLIST);
 		if (null != aAST.getParent()
 				&& aAST.getParent().getType() == TokenTypes.OBJBLOCK
@@ -207,13 +221,12 @@ public class LineLengthExtendedCheck extends Check
 		{
 			final int mNumberOfLine = aAST.getLineNo();
 			if (null == endOfIgnoreLine) {
-				mLines[mNumberOfLine - 1] = null;
+				mLongLines.clear(mNumberOfLine - 1);
 			}
 			else {
-				int mEndNumberOfLine = endOfIgnoreLine.getLineNo();
-				while (mEndNumberOfLine >= mNumberOfLine) {
-					mLines[mEndNumberOfLine - 1] = null;
-					mEndNumberOfLine--;
+				final int mEndNumberOfLine = endOfIgnoreLine.getLineNo();
+				if (mEndNumberOfLine >= mNumberOfLine) {
+					mLongLines.clear(mNumberOfLine - 1, mEndNumberOfLine);
 				}
 			}
 		}
@@ -222,26 +235,50 @@ public class LineLengthExtendedCheck extends Check
 	@Override
 	public void beginTree(DetailAST aRootAST)
 	{
-		mLines = getLines();
+		mText = getFileContents().getText();
+		mLongLines.clear();
+		final int tabWidth = getTabWidth();
+		for (int i = 0; i < mText.size(); i++) {
+			if (isLong(mText.get(i), tabWidth)) {
+				mLongLines.set(i);
+			}
+		}
 	}
 
 	@Override
 	public void finishTree(DetailAST aRootAST)
 	{
-		for (int i = 0; i < mLines.length; i++) {
-
-			if (null == mLines[i]) {
-				continue;
-			}
-
-			final String line = mLines[i];
-			final int realLength = Utils.lengthExpandedTabs(line,
-					line.length(), getTabWidth());
-
-			if ((realLength > mMax) && !mIgnorePattern.matcher(line).find()) {
+		for (int i = mLongLines.nextSetBit(0); i >= 0;
+				i = mLongLines.nextSetBit(i + 1))
+		{
+			if (!mIgnorePattern.matcher(mText.get(i)).find()) {
 				log(i + 1, MSG_KEY, mMax);
 			}
 		}
+		mText = null;
+	}
+
+	/**
+	 * Checks whether a line is longer than the maximum. Expanded tabs only
+	 * make a line longer, so they are expanded only for lines which are not
+	 * long without it.
+	 * 
+	 * @param aLine
+	 *            the line
+	 * @param aTabWidth
+	 *            distance between tab stops
+	 * @return true if the line is longer than the maximum
+	 */
+	private boolean isLong(String aLine, int aTabWidth)
+	{
+		final int length = aLine.length();
+		if (length > mMax) {
+			return true;
+		}
+		if (aLine.indexOf('\t') < 0) {
+			return false;
+		}
+		return Utils.lengthExpandedTabs(aLine, length, aTabWidth) > mMax;
 	}
 
 	/**
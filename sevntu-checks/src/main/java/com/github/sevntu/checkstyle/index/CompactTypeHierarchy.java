@@ -0,0 +1,681 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.index;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.puppycrawl.tools.checkstyle.api.DetailAST;
+import com.puppycrawl.tools.checkstyle.api.FullIdent;
+import com.puppycrawl.tools.checkstyle.api.TokenTypes;
+
+/**
+ * <p>
+ * Type hierarchy stored in arrays indexed by ids of types: names, ids of
+ * superclasses, and ids of interfaces of all types in one array with
+ * offsets of every type. Ids are found by an open addressing hash table of
+ * names. Relations of types only are kept, so the hierarchy of a project
+ * with 100 000 types takes a few megabytes.
+ * </p>
+ * <p>
+ * The arrays are int buffers, so a hierarchy written by
+ * {@link #write(DataOutputStream)} is used straight from a memory-mapped
+ * file: names are decoded when they are needed, everything else is read
+ * in place.
+ * </p>
+ * <p>
+ * Answers of {@link #isSubtype(String, String)} are cached in an array of
+ * every queried ancestor, so repeated questions about the same ancestor,
+ * like "is it Serializable", cost an array lookup. Instances are not
+ * thread-safe.
+ * </p>
+ */
+public final class CompactTypeHierarchy implements TypeHierarchy
+{
+    /** State of a type which is not checked yet. */
+    private static final byte UNKNOWN = 0;
+
+    /** State of a subtype. */
+    private static final byte SUBTYPE = 1;
+
+    /** State of a type which is not a subtype. */
+    private static final byte NOT_SUBTYPE = 2;
+
+    /** State of a type which is being checked. */
+    private static final byte VISITING = 3;
+
+    /** Minimal capacity of the hash table. */
+    private static final int MIN_TABLE_SIZE = 16;
+
+    /** Number of ints which precede the arrays in a written hierarchy. */
+    private static final int HEADER_SIZE = 5;
+
+    /** Charset of written names. */
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /** Names of types by ids, null if a name is not decoded yet. */
+    private final String[] mNames;
+
+    /** Names of types in UTF-8, null if all names are decoded. */
+    private final ByteBuffer mNameBytes;
+
+    /**
+     * Offsets of names in {@link #mNameBytes} by ids, the name of type i
+     * ends at the offset of type i + 1.
+     */
+    private final IntBuffer mNameOffsets;
+
+    /** Number of types declared in the sources, they have lowest ids. */
+    private final int mDeclaredCount;
+
+    /**
+     * Hash table of ids of types by names, stores id + 1, 0 if empty. Its
+     * capacity is a power of two.
+     */
+    private final IntBuffer mTable;
+
+    /** Ids of superclasses by ids of declared types. */
+    private final IntBuffer mSuperclasses;
+
+    /**
+     * Offsets of interfaces of declared types in {@link #mInterfaces},
+     * interfaces of type i end at offset of type i + 1.
+     */
+    private final IntBuffer mInterfaceOffsets;
+
+    /** Ids of interfaces of all declared types. */
+    private final IntBuffer mInterfaces;
+
+    /** Loader of types which are not declared in the sources. */
+    private final ClassLoader mClassLoader;
+
+    /** Classes loaded by qualified names, null if a class is not found. */
+    private final Map<String, Class<?>> mLoadedClasses =
+        new HashMap<String, Class<?>>();
+
+    /**
+     * Qualified names of member types inherited by types, by names of types
+     * and simple names of member types separated by a space.
+     */
+    private final Map<String, String> mInheritedMemberTypes =
+        new HashMap<String, String>();
+
+    /** States of all types by names of queried ancestors. */
+    private final Map<String, byte[]> mSubtypeStates =
+        new HashMap<String, byte[]>();
+
+    /** Top level node of the file of the last resolved name. */
+    private DetailAST mScopeNode;
+
+    /** Package of the file of the last resolved name. */
+    private String mScopePackage;
+
+    /** Single-type imports of the file of the last resolved name. */
+    private final List<String> mScopeImports = new ArrayList<String>();
+
+    /** On-demand imports of the file of the last resolved name. */
+    private final List<String> mScopeOnDemandImports =
+        new ArrayList<String>();
+
+    /** Existing types for name resolution. */
+    private final TypeNames.Lookup mLookup = new TypeNames.Lookup() {
+        @Override
+        public boolean isDeclared(String aName)
+        {
+            final int id = getTypeId(aName);
+            return id != NO_TYPE && id < mDeclaredCount;
+        }
+
+        @Override
+        public boolean isLoadable(String aName)
+        {
+            return loadClass(aName) != null;
+        }
+
+        @Override
+        public String findMemberType(String aTypeName, String aSimpleName)
+        {
+            return CompactTypeHierarchy.this.findMemberType(aTypeName,
+                aSimpleName);
+        }
+    };
+
+    /**
+     * Creates a hierarchy.
+     * @param aClassLoader loader of types which are not declared in the
+     *        sources.
+     * @param aNames names of types by ids, their number is the number of
+     *        types.
+     * @param aNameBytes names of types in UTF-8 if some names are null.
+     * @param aNameOffsets offsets of names in the bytes.
+     * @param aDeclaredCount number of types declared in the sources.
+     * @param aTable the hash table of ids by names.
+     * @param aSuperclasses ids of superclasses of declared types.
+     * @param aInterfaceOffsets offsets of interfaces of declared types.
+     * @param aInterfaces ids of interfaces of declared types.
+     */
+    private CompactTypeHierarchy(ClassLoader aClassLoader, String[] aNames,
+            ByteBuffer aNameBytes, IntBuffer aNameOffsets, int aDeclaredCount,
+            IntBuffer aTable, IntBuffer aSuperclasses,
+            IntBuffer aInterfaceOffsets, IntBuffer aInterfaces)
+    {
+        mClassLoader = aClassLoader;
+        mNames = aNames;
+        mNameBytes = aNameBytes;
+        mNameOffsets = aNameOffsets;
+        mDeclaredCount = aDeclaredCount;
+        mTable = aTable;
+        mSuperclasses = aSuperclasses;
+        mInterfaceOffsets = aInterfaceOffsets;
+        mInterfaces = aInterfaces;
+    }
+
+    /**
+     * Builds the hierarchy of types of an index, resolving names of their
+     * superclasses and interfaces.
+     * @param aIndex the index of types declared in the sources.
+     * @param aClassLoader loader of types which are not declared in the
+     *        sources.
+     * @return the hierarchy.
+     */
+    static CompactTypeHierarchy build(TypeIndex aIndex,
+            ClassLoader aClassLoader)
+    {
+        final List<TypeIndex.Type> types = new ArrayList<TypeIndex.Type>();
+        for (TypeIndex.Type type : aIndex.getTypes()) {
+            // a type declared twice is taken from its first declaration
+            if (aIndex.getType(type.getName()) == type) {
+                types.add(type);
+            }
+        }
+        final Map<String, Integer> ids = new HashMap<String, Integer>();
+        final List<String> names = new ArrayList<String>();
+        for (TypeIndex.Type type : types) {
+            intern(type.getName(), ids, names);
+        }
+        final int declaredCount = types.size();
+        final int[] superclasses = new int[declaredCount];
+        final int[] interfaceOffsets = new int[declaredCount + 1];
+        int[] interfaces = new int[declaredCount];
+        int interfaceCount = 0;
+        for (int i = 0; i < declaredCount; i++) {
+            final TypeIndex.Type type = types.get(i);
+            superclasses[i] = type.getSuperclassName() == null
+                ? NO_TYPE
+                : intern(aIndex.resolve(type, type.getSuperclassName(),
+                    aClassLoader), ids, names);
+            interfaceOffsets[i] = interfaceCount;
+            for (String name : type.getInterfaceNames()) {
+                final int id = intern(aIndex.resolve(type, name, aClassLoader),
+                    ids, names);
+                if (id != NO_TYPE) {
+                    if (interfaceCount == interfaces.length) {
+                        interfaces = resize(interfaces,
+                            interfaces.length * 2 + 1);
+                    }
+                    interfaces[interfaceCount++] = id;
+                }
+            }
+        }
+        interfaceOffsets[declaredCount] = interfaceCount;
+        final String[] nameArray = names.toArray(new String[names.size()]);
+        return new CompactTypeHierarchy(aClassLoader, nameArray, null, null,
+            declaredCount, IntBuffer.wrap(createTable(nameArray)),
+            IntBuffer.wrap(superclasses), IntBuffer.wrap(interfaceOffsets),
+            IntBuffer.wrap(resize(interfaces, interfaceCount)));
+    }
+
+    /**
+     * Creates a hierarchy from a buffer which contains a hierarchy written
+     * by {@link #write(DataOutputStream)}. The hierarchy reads the buffer
+     * until it is garbage collected.
+     * @param aBuffer the buffer, positioned at the start of the hierarchy.
+     * @param aClassLoader loader of types which are not declared in the
+     *        sources.
+     * @return the hierarchy.
+     * @throws IOException if sizes of sections do not fit the buffer.
+     */
+    static CompactTypeHierarchy map(ByteBuffer aBuffer,
+            ClassLoader aClassLoader)
+        throws IOException
+    {
+        final ByteBuffer buffer = aBuffer.slice();
+        final IntBuffer ints = buffer.asIntBuffer();
+        if (ints.limit() < HEADER_SIZE) {
+            throw new IOException("Damaged type hierarchy");
+        }
+        final int typeCount = ints.get(0);
+        final int declaredCount = ints.get(1);
+        final int interfaceCount = ints.get(2);
+        final int tableSize = ints.get(3);
+        final int nameBytesLength = ints.get(4);
+        final long intCount = HEADER_SIZE + typeCount + 1L + tableSize
+            + 2L * declaredCount + 1 + interfaceCount;
+        if (typeCount < 0 || declaredCount < 0 || declaredCount > typeCount
+            || interfaceCount < 0 || tableSize < 0 || nameBytesLength < 0
+            || intCount * 4 + nameBytesLength > buffer.limit())
+        {
+            throw new IOException("Damaged type hierarchy");
+        }
+        int offset = HEADER_SIZE;
+        final IntBuffer nameOffsets = slice(ints, offset, typeCount + 1);
+        offset += typeCount + 1;
+        final IntBuffer table = slice(ints, offset, tableSize);
+        offset += tableSize;
+        final IntBuffer superclasses = slice(ints, offset, declaredCount);
+        offset += declaredCount;
+        final IntBuffer interfaceOffsets =
+            slice(ints, offset, declaredCount + 1);
+        offset += declaredCount + 1;
+        final IntBuffer interfaces = slice(ints, offset, interfaceCount);
+        offset += interfaceCount;
+        buffer.position(offset * 4);
+        buffer.limit(offset * 4 + nameBytesLength);
+        return new CompactTypeHierarchy(aClassLoader, new String[typeCount],
+            buffer.slice(), nameOffsets, declaredCount, table, superclasses,
+            interfaceOffsets, interfaces);
+    }
+
+    /**
+     * Writes the hierarchy in the format read by
+     * {@link #map(ByteBuffer, ClassLoader)}.
+     * @param aOutput the output.
+     * @throws IOException if the output fails.
+     */
+    void write(DataOutputStream aOutput)
+        throws IOException
+    {
+        final int typeCount = mNames.length;
+        final byte[][] names = new byte[typeCount][];
+        int nameBytesLength = 0;
+        for (int id = 0; id < typeCount; id++) {
+            names[id] = getTypeName(id).getBytes(UTF_8.name());
+            nameBytesLength += names[id].length;
+        }
+        aOutput.writeInt(typeCount);
+        aOutput.writeInt(mDeclaredCount);
+        aOutput.writeInt(mInterfaces.limit());
+        aOutput.writeInt(mTable.limit());
+        aOutput.writeInt(nameBytesLength);
+        int nameOffset = 0;
+        for (byte[] name : names) {
+            aOutput.writeInt(nameOffset);
+            nameOffset += name.length;
+        }
+        aOutput.writeInt(nameOffset);
+        for (IntBuffer ints : new IntBuffer[] {mTable, mSuperclasses,
+            mInterfaceOffsets, mInterfaces, })
+        {
+            for (int i = 0; i < ints.limit(); i++) {
+                aOutput.writeInt(ints.get(i));
+            }
+        }
+        for (byte[] name : names) {
+            aOutput.write(name);
+        }
+    }
+
+    @Override
+    public int getTypeCount()
+    {
+        return mNames.length;
+    }
+
+    @Override
+    public int getTypeId(String aName)
+    {
+        final int mask = mTable.limit() - 1;
+        int slot = aName.hashCode() & mask;
+        int result = NO_TYPE;
+        while (mTable.get(slot) != 0) {
+            final int id = mTable.get(slot) - 1;
+            if (getTypeName(id).equals(aName)) {
+                result = id;
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return result;
+    }
+
+    @Override
+    public String getTypeName(int aTypeId)
+    {
+        String result = mNames[aTypeId];
+        if (result == null) {
+            final ByteBuffer bytes = mNameBytes.duplicate();
+            bytes.limit(mNameOffsets.get(aTypeId + 1));
+            bytes.position(mNameOffsets.get(aTypeId));
+            result = UTF_8.decode(bytes).toString();
+            mNames[aTypeId] = result;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isDeclared(int aTypeId)
+    {
+        return aTypeId < mDeclaredCount;
+    }
+
+    @Override
+    public int getSuperclass(int aTypeId)
+    {
+        return mSuperclasses.get(aTypeId);
+    }
+
+    @Override
+    public int getInterfaceCount(int aTypeId)
+    {
+        return mInterfaceOffsets.get(aTypeId + 1)
+            - mInterfaceOffsets.get(aTypeId);
+    }
+
+    @Override
+    public int getInterface(int aTypeId, int aIndex)
+    {
+        return mInterfaces.get(mInterfaceOffsets.get(aTypeId) + aIndex);
+    }
+
+    @Override
+    public boolean isSubtype(String aTypeName, String aAncestorName)
+    {
+        final int id = getTypeId(aTypeName);
+        final boolean result;
+        if (aTypeName.equals(aAncestorName)) {
+            result = true;
+        }
+        else if (id == NO_TYPE) {
+            result = isLoadedSubtype(aTypeName, aAncestorName);
+        }
+        else {
+            byte[] states = mSubtypeStates.get(aAncestorName);
+            if (states == null) {
+                states = new byte[mNames.length];
+                mSubtypeStates.put(aAncestorName, states);
+            }
+            result = isSubtype(id, aAncestorName, states);
+        }
+        return result;
+    }
+
+    @Override
+    public String resolve(String aName, DetailAST aContextAST)
+    {
+        readScope(aContextAST);
+        return TypeNames.resolve(aName,
+            TypeNames.getOuterName(aContextAST, mScopePackage),
+            mScopePackage, mScopeImports, mScopeOnDemandImports, mLookup);
+    }
+
+    @Override
+    public String getQualifiedName(DetailAST aTypeDefAST)
+    {
+        readScope(aTypeDefAST);
+        final String outerName =
+            TypeNames.getOuterName(aTypeDefAST, mScopePackage);
+        final String name =
+            aTypeDefAST.findFirstToken(TokenTypes.IDENT).getText();
+        return outerName == null ? TypeNames.qualify(mScopePackage, name)
+            : outerName + "." + name;
+    }
+
+    /**
+     * Checks whether a type of the hierarchy is a subtype of another type,
+     * caching the answer.
+     * @param aTypeId id of the type.
+     * @param aAncestorName qualified name of the other type.
+     * @param aStates states of types for the other type.
+     * @return true if the type is a subtype.
+     */
+    private boolean isSubtype(int aTypeId, String aAncestorName,
+            byte[] aStates)
+    {
+        final byte state = aStates[aTypeId];
+        boolean result = state == SUBTYPE;
+        if (state == UNKNOWN) {
+            aStates[aTypeId] = VISITING;
+            if (aTypeId >= mDeclaredCount) {
+                result = isLoadedSubtype(getTypeName(aTypeId), aAncestorName);
+            }
+            else {
+                result = getTypeName(aTypeId).equals(aAncestorName)
+                    || TypeNames.OBJECT.equals(aAncestorName);
+                final int superclass = mSuperclasses.get(aTypeId);
+                if (!result && superclass != NO_TYPE) {
+                    result = isSubtype(superclass, aAncestorName, aStates);
+                }
+                final int end = mInterfaceOffsets.get(aTypeId + 1);
+                for (int i = mInterfaceOffsets.get(aTypeId); !result && i < end;
+                    i++)
+                {
+                    result = isSubtype(mInterfaces.get(i), aAncestorName,
+                        aStates);
+                }
+            }
+            // a cycle of types, which does not compile, leaves VISITING
+            // states on the cycle and is not a subtype
+            aStates[aTypeId] = result ? SUBTYPE : NOT_SUBTYPE;
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether a type which is not declared in the sources is
+     * a subtype of another type by loading both types.
+     * @param aTypeName qualified name of the type.
+     * @param aAncestorName qualified name of the other type.
+     * @return true if both types are loaded and the type is a subtype.
+     */
+    private boolean isLoadedSubtype(String aTypeName, String aAncestorName)
+    {
+        final Class<?> type = loadClass(aTypeName);
+        final Class<?> ancestor = type == null ? null
+            : loadClass(aAncestorName);
+        return ancestor != null && ancestor.isAssignableFrom(type);
+    }
+
+    /**
+     * Finds a member type which a type declares or inherits from its
+     * supertypes.
+     * @param aTypeName qualified name of the type.
+     * @param aSimpleName simple name of the member type.
+     * @return qualified name of the member type or null if it is not found.
+     */
+    private String findMemberType(String aTypeName, String aSimpleName)
+    {
+        String result = aTypeName + "." + aSimpleName;
+        if (!mLookup.isDeclared(result)) {
+            final String key = aTypeName + " " + aSimpleName;
+            result = mInheritedMemberTypes.get(key);
+            if (result == null && !mInheritedMemberTypes.containsKey(key)) {
+                // a type which inherits itself finds nothing
+                mInheritedMemberTypes.put(key, null);
+                final int id = getTypeId(aTypeName);
+                if (id == NO_TYPE || id >= mDeclaredCount) {
+                    final Class<?> loaded = loadClass(aTypeName);
+                    if (loaded != null) {
+                        result = TypeNames.findMemberType(loaded, aSimpleName);
+                    }
+                }
+                else {
+                    if (mSuperclasses.get(id) != NO_TYPE) {
+                        result = findMemberType(
+                            getTypeName(mSuperclasses.get(id)), aSimpleName);
+                    }
+                    final int end = mInterfaceOffsets.get(id + 1);
+                    for (int i = mInterfaceOffsets.get(id);
+                        result == null && i < end; i++)
+                    {
+                        result = findMemberType(
+                            getTypeName(mInterfaces.get(i)), aSimpleName);
+                    }
+                }
+                mInheritedMemberTypes.put(key, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the package and imports of a file, unless they are read for
+     * the last node.
+     * @param aNode a node of the file.
+     */
+    private void readScope(DetailAST aNode)
+    {
+        DetailAST topLevelNode = aNode;
+        while (topLevelNode.getParent() != null) {
+            topLevelNode = topLevelNode.getParent();
+        }
+        if (topLevelNode != mScopeNode) {
+            mScopeNode = topLevelNode;
+            readScope();
+        }
+    }
+
+    /**
+     * Reads the package and imports which precede {@link #mScopeNode}.
+     */
+    private void readScope()
+    {
+        mScopePackage = "";
+        mScopeImports.clear();
+        mScopeOnDemandImports.clear();
+        for (DetailAST node = mScopeNode; node != null;
+            node = node.getPreviousSibling())
+        {
+            if (node.getType() == TokenTypes.PACKAGE_DEF) {
+                mScopePackage = FullIdent.createFullIdent(
+                    node.getLastChild().getPreviousSibling()).getText();
+            }
+            else if (node.getType() == TokenTypes.IMPORT) {
+                final String name =
+                    FullIdent.createFullIdentBelow(node).getText();
+                if (name.endsWith(".*")) {
+                    mScopeOnDemandImports.add(0,
+                        name.substring(0, name.length() - 2));
+                }
+                else {
+                    mScopeImports.add(0, name);
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads a class which is not declared in the sources.
+     * @param aName qualified name of the class.
+     * @return the class or null if it is not found.
+     */
+    private Class<?> loadClass(String aName)
+    {
+        Class<?> result = mLoadedClasses.get(aName);
+        if (result == null && !mLoadedClasses.containsKey(aName)) {
+            result = TypeNames.loadClass(aName, mClassLoader);
+            mLoadedClasses.put(aName, result);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the id of a type, adds the type if it is missing.
+     * @param aName qualified name of the type, may be null.
+     * @param aIds ids of added types by names.
+     * @param aNames names of added types by ids.
+     * @return id of the type or {@link #NO_TYPE} for null name.
+     */
+    private static int intern(String aName, Map<String, Integer> aIds,
+            List<String> aNames)
+    {
+        int result = NO_TYPE;
+        if (aName != null) {
+            final Integer id = aIds.get(aName);
+            if (id == null) {
+                result = aNames.size();
+                aNames.add(aName);
+                aIds.put(aName, result);
+            }
+            else {
+                result = id;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates the hash table of types, so the table is at most half full.
+     * @param aNames names of types by ids.
+     * @return the table.
+     */
+    private static int[] createTable(String[] aNames)
+    {
+        int size = MIN_TABLE_SIZE;
+        while (size < aNames.length * 2) {
+            size *= 2;
+        }
+        final int[] result = new int[size];
+        final int mask = size - 1;
+        for (int id = 0; id < aNames.length; id++) {
+            int slot = aNames[id].hashCode() & mask;
+            while (result[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            result[slot] = id + 1;
+        }
+        return result;
+    }
+
+    /**
+     * Gets a part of an int buffer.
+     * @param aBuffer the buffer.
+     * @param aOffset offset of the part.
+     * @param aLength length of the part.
+     * @return the part, indexed from zero.
+     */
+    private static IntBuffer slice(IntBuffer aBuffer, int aOffset,
+            int aLength)
+    {
+        final IntBuffer result = aBuffer.duplicate();
+        result.position(aOffset);
+        result.limit(aOffset + aLength);
+        return result.slice();
+    }
+
+    /**
+     * Copies an array of ids into an array of another length.
+     * @param aArray the array.
+     * @param aLength the length of the copy.
+     * @return the copy.
+     */
+    private static int[] resize(int[] aArray, int aLength)
+    {
+        final int[] result = new int[aLength];
+        System.arraycopy(aArray, 0, result, 0,
+            Math.min(aArray.length, aLength));
+        return result;
+    }
+}
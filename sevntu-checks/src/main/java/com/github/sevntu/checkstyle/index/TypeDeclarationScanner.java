@@ -0,0 +1,379 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Lexical scan of a Java file which finds its package, imports and
+ * declarations of types with their superclasses and interfaces, without
+ * building the AST. Bodies of types are skipped by counting braces.
+ * </p>
+ * <p>
+ * The scan understands comments, string and character literals,
+ * identifiers and punctuation. A declaration it does not recognize, for
+ * example one which contains a unicode escape, is skipped.
+ * </p>
+ */
+final class TypeDeclarationScanner
+{
+    /** Superclass of enums. */
+    private static final String ENUM = "java.lang.Enum";
+
+    /** Interface extended by annotation types. */
+    private static final String ANNOTATION = "java.lang.annotation.Annotation";
+
+    /** Text of the file. */
+    private final String mText;
+
+    /** Index to add types to. */
+    private final TypeIndex mIndex;
+
+    /** The file in the index, created at the first type declaration. */
+    private TypeIndex.Source mSource;
+
+    /** The package of the file. */
+    private String mPackageName = "";
+
+    /** Imports of the file. */
+    private final List<String> mImports = new ArrayList<String>();
+
+    /**
+     * Qualified names of types whose bodies are open, null for other open
+     * braces.
+     */
+    private final List<String> mOpenBraces = new ArrayList<String>();
+
+    /** Position of the next character. */
+    private int mPosition;
+
+    /** The current token, null at the end of the file. */
+    private String mToken;
+
+    /**
+     * Creates the scanner.
+     * @param aText text of the file.
+     * @param aIndex index to add types to.
+     */
+    private TypeDeclarationScanner(String aText, TypeIndex aIndex)
+    {
+        mText = aText;
+        mIndex = aIndex;
+    }
+
+    /**
+     * Adds types declared in a file to an index.
+     * @param aFileName name of the file.
+     * @param aText text of the file.
+     * @param aIndex the index.
+     * @return the file added to the index.
+     */
+    static TypeIndex.Source scan(String aFileName, String aText,
+            TypeIndex aIndex)
+    {
+        final TypeDeclarationScanner scanner =
+            new TypeDeclarationScanner(aText, aIndex);
+        scanner.next();
+        scanner.scanHeader();
+        scanner.mSource = aIndex.addSource(aFileName, scanner.mPackageName,
+            scanner.mImports);
+        scanner.scanTypes();
+        return scanner.mSource;
+    }
+
+    /** Scans package and import declarations. */
+    private void scanHeader()
+    {
+        while ("@".equals(mToken) && !"interface".equals(peek())) {
+            // annotations of the package or of the first type
+            next();
+            scanType();
+            if ("(".equals(mToken)) {
+                skipBalanced("(", ")");
+            }
+        }
+        if ("package".equals(mToken)) {
+            next();
+            final String name = scanType();
+            if (name != null) {
+                mPackageName = name;
+            }
+        }
+        while ("import".equals(mToken) || ";".equals(mToken)) {
+            if ("import".equals(mToken)) {
+                next();
+                final boolean isStatic = "static".equals(mToken);
+                if (isStatic) {
+                    next();
+                }
+                String name = scanType();
+                if (name != null && ".".equals(mToken)) {
+                    next();
+                    if ("*".equals(mToken)) {
+                        name += ".*";
+                        next();
+                    }
+                }
+                if (name != null && !isStatic) {
+                    mImports.add(name);
+                }
+            }
+            else {
+                next();
+            }
+        }
+    }
+
+    /** Scans declarations of types in the rest of the file. */
+    private void scanTypes()
+    {
+        String previous = null;
+        while (mToken != null) {
+            final String token = mToken;
+            if ("{".equals(token)) {
+                mOpenBraces.add(null);
+            }
+            else if ("}".equals(token)) {
+                if (!mOpenBraces.isEmpty()) {
+                    mOpenBraces.remove(mOpenBraces.size() - 1);
+                }
+            }
+            else if (!".".equals(previous)
+                && ("class".equals(token) || "interface".equals(token)
+                    || "enum".equals(token)))
+            {
+                next();
+                scanDeclaration(token, "@".equals(previous));
+                previous = null;
+                continue;
+            }
+            previous = token;
+            next();
+        }
+    }
+
+    /**
+     * Scans a declaration of a type after its keyword, adds the type to the
+     * index if the declaration is recognized.
+     * @param aKeyword "class", "interface" or "enum".
+     * @param aAnnotation whether "interface" is preceded by '@'.
+     */
+    private void scanDeclaration(String aKeyword, boolean aAnnotation)
+    {
+        final String simpleName = mToken;
+        if (!isIdentifier(simpleName)) {
+            return;
+        }
+        next();
+        if ("<".equals(mToken)) {
+            skipBalanced("<", ">");
+        }
+        final boolean isClass = "class".equals(aKeyword);
+        String superclassName = null;
+        final List<String> interfaceNames = new ArrayList<String>();
+        if ("enum".equals(aKeyword)) {
+            superclassName = ENUM;
+        }
+        else if (aAnnotation) {
+            interfaceNames.add(ANNOTATION);
+        }
+        if ("extends".equals(mToken)) {
+            next();
+            if (isClass) {
+                superclassName = scanType();
+            }
+            else if (!scanTypes(interfaceNames)) {
+                return;
+            }
+        }
+        if ("implements".equals(mToken)) {
+            next();
+            if (!scanTypes(interfaceNames)) {
+                return;
+            }
+        }
+        if (!"{".equals(mToken)) {
+            return;
+        }
+        String outerName = null;
+        for (int i = mOpenBraces.size() - 1; outerName == null && i >= 0;
+            i--)
+        {
+            outerName = mOpenBraces.get(i);
+        }
+        final TypeIndex.Type type = mIndex.addType(mSource, simpleName,
+            outerName, superclassName, interfaceNames);
+        mOpenBraces.add(type.getName());
+        next();
+    }
+
+    /**
+     * Scans a list of types separated by commas.
+     * @param aNames list to add names of types to.
+     * @return true if the list is recognized.
+     */
+    private boolean scanTypes(List<String> aNames)
+    {
+        String name = scanType();
+        while (name != null) {
+            aNames.add(name);
+            if (!",".equals(mToken)) {
+                break;
+            }
+            next();
+            name = scanType();
+        }
+        return name != null;
+    }
+
+    /**
+     * Scans a qualified name of a type, skipping its type arguments.
+     * @return the name without type arguments or null if the current token
+     *         is not an identifier.
+     */
+    private String scanType()
+    {
+        if (!isIdentifier(mToken)) {
+            return null;
+        }
+        final StringBuilder result = new StringBuilder(mToken);
+        next();
+        while (true) {
+            if ("<".equals(mToken)) {
+                skipBalanced("<", ">");
+            }
+            if (!".".equals(mToken) || !isIdentifier(peek())) {
+                break;
+            }
+            next();
+            result.append('.').append(mToken);
+            next();
+        }
+        return result.toString();
+    }
+
+    /**
+     * Skips tokens from an opening token to the matching closing one.
+     * @param aOpen the opening token, it is the current token.
+     * @param aClose the closing token.
+     */
+    private void skipBalanced(String aOpen, String aClose)
+    {
+        int depth = 0;
+        do {
+            if (aOpen.equals(mToken)) {
+                depth++;
+            }
+            else if (aClose.equals(mToken)) {
+                depth--;
+            }
+            next();
+        }
+        while (depth > 0 && mToken != null && !"{".equals(mToken)
+            && !";".equals(mToken));
+    }
+
+    /**
+     * Checks whether a token is an identifier.
+     * @param aToken the token, may be null.
+     * @return true if the token is an identifier.
+     */
+    private static boolean isIdentifier(String aToken)
+    {
+        return aToken != null
+            && Character.isJavaIdentifierStart(aToken.charAt(0));
+    }
+
+    /**
+     * Gets the token after the current one without moving to it.
+     * @return the next token.
+     */
+    private String peek()
+    {
+        final int position = mPosition;
+        final String token = mToken;
+        next();
+        final String result = mToken;
+        mPosition = position;
+        mToken = token;
+        return result;
+    }
+
+    /**
+     * Moves to the next token, skipping whitespace, comments and literals.
+     * The token is an identifier, a number, a single character of
+     * punctuation or null at the end of the file.
+     */
+    private void next()
+    {
+        mToken = null;
+        final int length = mText.length();
+        while (mToken == null && mPosition < length) {
+            final char ch = mText.charAt(mPosition);
+            if (Character.isWhitespace(ch)) {
+                mPosition++;
+            }
+            else if (mText.startsWith("//", mPosition)) {
+                final int end = mText.indexOf('\n', mPosition);
+                mPosition = end < 0 ? length : end + 1;
+            }
+            else if (mText.startsWith("/*", mPosition)) {
+                final int end = mText.indexOf("*/", mPosition + 2);
+                mPosition = end < 0 ? length : end + 2;
+            }
+            else if (ch == '"' || ch == '\'') {
+                skipLiteral(ch);
+            }
+            else if (Character.isJavaIdentifierPart(ch)) {
+                final int start = mPosition;
+                do {
+                    mPosition++;
+                }
+                while (mPosition < length
+                    && Character.isJavaIdentifierPart(mText.charAt(mPosition)));
+                mToken = mText.substring(start, mPosition);
+            }
+            else {
+                mPosition++;
+                mToken = String.valueOf(ch);
+            }
+        }
+    }
+
+    /**
+     * Skips a string or character literal which starts at the current
+     * position.
+     * @param aQuote the quote of the literal.
+     */
+    private void skipLiteral(char aQuote)
+    {
+        mPosition++;
+        while (mPosition < mText.length()) {
+            final char ch = mText.charAt(mPosition++);
+            if (ch == '\\') {
+                mPosition++;
+            }
+            else if (ch == aQuote || ch == '\n') {
+                break;
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.index;
+
+import com.puppycrawl.tools.checkstyle.api.DetailAST;
+
+/**
+ * <p>
+ * Hierarchy of types declared in all sources of a project, shared by checks
+ * which need to know relations of types declared in other files. Every type
+ * has an integer id; types declared in the sources come first, followed by
+ * types they extend or implement which are declared elsewhere, for example
+ * in the JDK. Relations of the latter are found with a class loader.
+ * </p>
+ * <p>
+ * Checks get the hierarchy by implementing
+ * {@link com.github.sevntu.checkstyle.walker.TypeHierarchyAware}.
+ * </p>
+ */
+public interface TypeHierarchy
+{
+    /** Id of a missing type. */
+    int NO_TYPE = -1;
+
+    /**
+     * @return number of types in the hierarchy.
+     */
+    int getTypeCount();
+
+    /**
+     * Gets the id of a type.
+     * @param aName qualified name of the type, names of member types are
+     *        separated by dots.
+     * @return the id or {@link #NO_TYPE} if the type is not in the
+     *         hierarchy.
+     */
+    int getTypeId(String aName);
+
+    /**
+     * @param aTypeId id of a type.
+     * @return qualified name of the type.
+     */
+    String getTypeName(int aTypeId);
+
+    /**
+     * @param aTypeId id of a type.
+     * @return true if the type is declared in the sources, false if it is
+     *         only extended or implemented by them.
+     */
+    boolean isDeclared(int aTypeId);
+
+    /**
+     * @param aTypeId id of a type declared in the sources.
+     * @return id of the declared superclass or {@link #NO_TYPE} if the
+     *         superclass is not written or is not resolved.
+     */
+    int getSuperclass(int aTypeId);
+
+    /**
+     * @param aTypeId id of a type declared in the sources.
+     * @return number of resolved interfaces the type implements, or
+     *         extends if it is an interface.
+     */
+    int getInterfaceCount(int aTypeId);
+
+    /**
+     * @param aTypeId id of a type declared in the sources.
+     * @param aIndex index of the interface.
+     * @return id of the interface.
+     */
+    int getInterface(int aTypeId, int aIndex);
+
+    /**
+     * Checks whether a type is the same as another type or extends or
+     * implements it, directly or not.
+     * @param aTypeName qualified name of the type.
+     * @param aAncestorName qualified name of the other type.
+     * @return true if the type is a subtype of the other one, false if it
+     *         is not or if it is unknown.
+     */
+    boolean isSubtype(String aTypeName, String aAncestorName);
+
+    /**
+     * Resolves a name of a type used in a file, taking into account the
+     * package and imports of the file and types enclosing the usage.
+     * @param aName simple or qualified name of the type.
+     * @param aContextAST a node of the file where the name is used, a type
+     *        declared by the node does not enclose the usage.
+     * @return qualified name of the type or null if the name can not be
+     *         resolved.
+     */
+    String resolve(String aName, DetailAST aContextAST);
+
+    /**
+     * Gets the qualified name of a type declared in a file.
+     * @param aTypeDefAST the declaration of the type.
+     * @return qualified name of the type, names of member types are
+     *         separated by dots.
+     */
+    String getQualifiedName(DetailAST aTypeDefAST);
+}
@@ -0,0 +1,339 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.index;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import com.puppycrawl.tools.checkstyle.api.Utils;
+
+/**
+ * <p>
+ * Builds the {@link TypeHierarchy} of all types declared in source files of
+ * a project. Files are not parsed: declarations of packages, imports and
+ * types are found by a lexical scan, so the hierarchy of a large project is
+ * built in a small fraction of the time of its audit.
+ * </p>
+ * <p>
+ * Names of superclasses and interfaces are resolved when the hierarchy is
+ * built, after all files are added, so a type may extend a type declared in
+ * a file added later.
+ * </p>
+ * <p>
+ * When a cache file is set, the built hierarchy is kept in that file. The
+ * next build maps the file and uses its hierarchy as it is when no file has
+ * changed, otherwise only changed files are scanned again.
+ * </p>
+ * <p>
+ * A file which can not be read is reported to the exception log and left
+ * out of the hierarchy, so types declared in it are unknown and checks
+ * fall back to their per-file behaviour for them.
+ * </p>
+ */
+public final class TypeHierarchyBuilder
+{
+    /** Size of the buffer to read files with. */
+    private static final int BUFFER_SIZE = 8192;
+
+    /** Added files. */
+    private final List<File> mFiles = new ArrayList<File>();
+
+    /** Charset of source files. */
+    private final String mCharset;
+
+    /** File to keep the hierarchy between builds, may be null. */
+    private File mCacheFile;
+
+    /**
+     * Creates a builder.
+     * @param aCharset name of the charset of source files.
+     */
+    public TypeHierarchyBuilder(String aCharset)
+    {
+        mCharset = aCharset;
+    }
+
+    /**
+     * Sets the file to keep the hierarchy between builds.
+     * @param aCacheFile the file, null to build the hierarchy from sources
+     *        every time.
+     */
+    public void setCacheFile(File aCacheFile)
+    {
+        mCacheFile = aCacheFile;
+    }
+
+    /**
+     * Adds all Java files of a directory and its subdirectories.
+     * @param aRoot the directory or a single file.
+     */
+    public void addSources(File aRoot)
+    {
+        if (aRoot.isDirectory()) {
+            final File[] files = aRoot.listFiles();
+            if (files != null) {
+                // the first declaration of a type wins, so files are added
+                // in the same order on every platform
+                Arrays.sort(files);
+                for (File file : files) {
+                    addSources(file);
+                }
+            }
+        }
+        else if (aRoot.getName().endsWith(".java")) {
+            addFile(aRoot);
+        }
+    }
+
+    /**
+     * Adds a Java file.
+     * @param aFile the file.
+     */
+    public void addFile(File aFile)
+    {
+        mFiles.add(aFile);
+    }
+
+    /**
+     * Builds the hierarchy of types of added files. Sources are scanned
+     * again if the cache file can not be read or is damaged.
+     * @param aClassLoader loader of types which are not declared in added
+     *        files, like types of the JDK and of libraries.
+     * @return the hierarchy.
+     */
+    public TypeHierarchy build(ClassLoader aClassLoader)
+    {
+        // files are stamped before they are read, so a file changed during
+        // the build is scanned again by the next build
+        final List<TypeHierarchyCache.Stamp> stamps =
+            new ArrayList<TypeHierarchyCache.Stamp>(mFiles.size());
+        for (File file : mFiles) {
+            stamps.add(new TypeHierarchyCache.Stamp(file));
+        }
+        TypeHierarchy result = null;
+        TypeIndex index = null;
+        final List<TypeIndex.Source> sources =
+            new ArrayList<TypeIndex.Source>(stamps.size());
+        if (mCacheFile != null) {
+            TypeHierarchyCache cache = null;
+            try {
+                cache = TypeHierarchyCache.open(mCacheFile, mCharset);
+                if (cache != null && cache.isUpToDate(stamps)) {
+                    result = cache.getHierarchy(aClassLoader);
+                }
+                else if (cache != null) {
+                    index = new TypeIndex();
+                    addSources(stamps, cache, index, sources);
+                }
+            }
+            catch (final IOException e) {
+                index = null;
+                ignoreCache(e);
+            }
+            catch (final RuntimeException e) {
+                index = null;
+                ignoreCache(e);
+            }
+            finally {
+                // the file is closed before it is replaced
+                close(cache);
+            }
+        }
+        if (result == null) {
+            if (index == null) {
+                index = new TypeIndex();
+                sources.clear();
+                scanSources(stamps, index, sources);
+            }
+            final CompactTypeHierarchy hierarchy =
+                CompactTypeHierarchy.build(index, aClassLoader);
+            if (mCacheFile != null) {
+                try {
+                    TypeHierarchyCache.write(mCacheFile, mCharset, stamps,
+                        sources, index, hierarchy);
+                }
+                catch (final IOException e) {
+                    // the hierarchy is built, so the audit goes on without
+                    // the cache, but every audit scans sources until
+                    // the cache is written
+                    Utils.getExceptionLogger().warn(
+                        "Unable to write cache of type hierarchy "
+                            + mCacheFile + ": " + e.getMessage(), e);
+                }
+            }
+            result = hierarchy;
+        }
+        return result;
+    }
+
+    /**
+     * Adds declarations of unchanged sources from the cache and scans
+     * changed sources.
+     * @param aStamps stamps of sources, stamps of sources which can not be
+     *        read are removed.
+     * @param aCache the cache.
+     * @param aIndex the index to add declarations to.
+     * @param aSources sources added to the index, in the order of stamps.
+     * @throws IOException if the cache can not be read or is damaged.
+     */
+    private void addSources(List<TypeHierarchyCache.Stamp> aStamps,
+            TypeHierarchyCache aCache, TypeIndex aIndex,
+            List<TypeIndex.Source> aSources)
+        throws IOException
+    {
+        final Iterator<TypeHierarchyCache.Stamp> iterator =
+            aStamps.iterator();
+        while (iterator.hasNext()) {
+            final TypeHierarchyCache.Stamp stamp = iterator.next();
+            final int cached = aCache.findSource(stamp);
+            final TypeIndex.Source source = cached >= 0
+                ? aCache.addDeclarations(cached, aIndex)
+                : scan(stamp, aIndex);
+            if (source == null) {
+                iterator.remove();
+            }
+            else {
+                aSources.add(source);
+            }
+        }
+    }
+
+    /**
+     * Scans all sources.
+     * @param aStamps stamps of sources, stamps of sources which can not be
+     *        read are removed.
+     * @param aIndex the index to add declarations to.
+     * @param aSources sources added to the index, in the order of stamps.
+     */
+    private void scanSources(List<TypeHierarchyCache.Stamp> aStamps,
+            TypeIndex aIndex, List<TypeIndex.Source> aSources)
+    {
+        final Iterator<TypeHierarchyCache.Stamp> iterator =
+            aStamps.iterator();
+        while (iterator.hasNext()) {
+            final TypeIndex.Source source = scan(iterator.next(), aIndex);
+            if (source == null) {
+                iterator.remove();
+            }
+            else {
+                aSources.add(source);
+            }
+        }
+    }
+
+    /**
+     * Scans a source file, a failure to read it is logged.
+     * @param aStamp stamp of the file.
+     * @param aIndex the index to add declarations to.
+     * @return the file added to the index or null if it can not be read,
+     *         the stamp of such a file is not cached, so the next build
+     *         tries to read it again.
+     */
+    private TypeIndex.Source scan(TypeHierarchyCache.Stamp aStamp,
+            TypeIndex aIndex)
+    {
+        TypeIndex.Source result = null;
+        final String text = readQuietly(aStamp.getFileName());
+        if (text != null) {
+            result = TypeDeclarationScanner.scan(aStamp.getFileName(), text,
+                aIndex);
+        }
+        return result;
+    }
+
+    /**
+     * Reports a cache file which can not be used, sources are scanned
+     * instead.
+     * @param aCause the failure.
+     */
+    private void ignoreCache(Exception aCause)
+    {
+        Utils.getExceptionLogger().warn(
+            "Ignoring damaged cache of type hierarchy " + mCacheFile + ": "
+                + aCause.getMessage(), aCause);
+    }
+
+    /**
+     * Closes a cache, a failure is logged.
+     * @param aCache the cache, may be null.
+     */
+    private static void close(TypeHierarchyCache aCache)
+    {
+        if (aCache != null) {
+            try {
+                aCache.close();
+            }
+            catch (final IOException e) {
+                Utils.getExceptionLogger().debug(
+                    "Unable to close cache of type hierarchy.", e);
+            }
+        }
+    }
+
+    /**
+     * Reads a Java file, a failure is logged.
+     * @param aFileName name of the file.
+     * @return the text of the file or null if it can not be read.
+     */
+    private String readQuietly(String aFileName)
+    {
+        String result = null;
+        try {
+            result = read(aFileName);
+        }
+        catch (final IOException e) {
+            Utils.getExceptionLogger().warn("Unable to read " + aFileName
+                + " to build type hierarchy: " + e.getMessage(), e);
+        }
+        return result;
+    }
+
+    /**
+     * Reads a Java file.
+     * @param aFileName name of the file.
+     * @return the text of the file.
+     * @throws IOException if the file can not be read.
+     */
+    private String read(String aFileName)
+        throws IOException
+    {
+        final Reader reader =
+            new InputStreamReader(new FileInputStream(aFileName), mCharset);
+        final StringBuilder text = new StringBuilder();
+        try {
+            final char[] buffer = new char[BUFFER_SIZE];
+            int count = reader.read(buffer);
+            while (count >= 0) {
+                text.append(buffer, 0, count);
+                count = reader.read(buffer);
+            }
+        }
+        finally {
+            reader.close();
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,576 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * File which keeps the {@link TypeHierarchy} of a project between audits.
+ * It holds stamps of source files, declarations found in every file and
+ * the hierarchy written by {@link CompactTypeHierarchy}. Only the stamps
+ * are read when the file is opened: when no source has changed, the
+ * hierarchy is memory-mapped and used straight from the file, otherwise
+ * declarations of unchanged sources are read from the file and only
+ * changed sources are scanned.
+ * </p>
+ * <p>
+ * The file is replaced as a whole, so a concurrent audit reads either the
+ * old or the new version. A stale file is never mapped, so it can be
+ * replaced on platforms which do not allow to replace mapped files.
+ * </p>
+ */
+final class TypeHierarchyCache
+{
+    /** Marks the start and the end of the file. */
+    private static final int MAGIC = 0x53544849;
+
+    /** Version of the format of the file. */
+    private static final int VERSION = 2;
+
+    /** Length of null strings. */
+    private static final int NULL_LENGTH = -1;
+
+    /** Charset of strings. */
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /** The open file. */
+    private final RandomAccessFile mFile;
+
+    /** Length of the file. */
+    private final long mLength;
+
+    /** Stamps of sources in the order they were added. */
+    private final List<Stamp> mStamps = new ArrayList<Stamp>();
+
+    /** Indexes of sources by names of files. */
+    private final Map<String, Integer> mEntries =
+        new HashMap<String, Integer>();
+
+    /** Offsets of declarations of sources in their section. */
+    private int[] mDeclarationOffsets;
+
+    /** Offset of the section of declarations in the file. */
+    private int mDeclarationsOffset;
+
+    /** Length of the section of declarations. */
+    private int mDeclarationsLength;
+
+    /** Offset of the hierarchy in the file. */
+    private int mHierarchyOffset;
+
+    /** The section of declarations, read when it is used first. */
+    private ByteBuffer mDeclarations;
+
+    /**
+     * Creates a cache.
+     * @param aFile the open file.
+     * @param aLength length of the file.
+     */
+    private TypeHierarchyCache(RandomAccessFile aFile, long aLength)
+    {
+        mFile = aFile;
+        mLength = aLength;
+    }
+
+    /**
+     * Opens a cache file. The file stays open until {@link #close()} is
+     * called.
+     * @param aFile the file.
+     * @param aCharset name of the charset of sources.
+     * @return the cache or null if the file does not exist, is damaged,
+     *         written by another version or for sources in another charset.
+     * @throws IOException if the file can not be read.
+     */
+    static TypeHierarchyCache open(File aFile, String aCharset)
+        throws IOException
+    {
+        TypeHierarchyCache result = null;
+        if (aFile.isFile()) {
+            final RandomAccessFile file = new RandomAccessFile(aFile, "r");
+            result = new TypeHierarchyCache(file, file.length());
+            boolean valid = false;
+            try {
+                valid = result.readHeader(aCharset);
+            }
+            catch (final EOFException e) {
+                // the file is truncated or damaged, it is not valid
+            }
+            finally {
+                if (!valid) {
+                    file.close();
+                }
+            }
+            if (!valid) {
+                result = null;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Closes the file. A hierarchy returned by
+     * {@link #getHierarchy(ClassLoader)} is still valid.
+     * @throws IOException if the file can not be closed.
+     */
+    void close()
+        throws IOException
+    {
+        mFile.close();
+    }
+
+    /**
+     * Checks whether sources are the same as sources of the cache.
+     * @param aStamps stamps of the sources in the order they are added.
+     * @return true if the hierarchy of the cache is up to date.
+     */
+    boolean isUpToDate(List<Stamp> aStamps)
+    {
+        return mStamps.equals(aStamps);
+    }
+
+    /**
+     * Finds an unchanged source.
+     * @param aStamp stamp of the source.
+     * @return index of the source in the cache or -1 if the source is not
+     *         in the cache or has changed.
+     */
+    int findSource(Stamp aStamp)
+    {
+        final Integer result = mEntries.get(aStamp.mFileName);
+        return result != null && mStamps.get(result).equals(aStamp)
+            ? result : -1;
+    }
+
+    /**
+     * Adds declarations of a source of the cache to an index.
+     * @param aSource index of the source in the cache.
+     * @param aIndex the index.
+     * @return the file added to the index.
+     * @throws IOException if the file can not be read or the declarations
+     *         are damaged.
+     */
+    TypeIndex.Source addDeclarations(int aSource, TypeIndex aIndex)
+        throws IOException
+    {
+        if (mDeclarations == null) {
+            final byte[] bytes = new byte[mDeclarationsLength];
+            mFile.seek(mDeclarationsOffset);
+            mFile.readFully(bytes);
+            mDeclarations = ByteBuffer.wrap(bytes);
+        }
+        final ByteBuffer buffer = mDeclarations.duplicate();
+        buffer.position(mDeclarationOffsets[aSource]);
+        final String packageName = readString(buffer);
+        final List<String> imports = readStrings(buffer);
+        final TypeIndex.Source result = aIndex.addSource(
+            mStamps.get(aSource).mFileName, packageName, imports);
+        final int typeCount = readCount(buffer);
+        for (int i = 0; i < typeCount; i++) {
+            final String simpleName = readString(buffer);
+            final String outerName = readString(buffer);
+            final String superclassName = readString(buffer);
+            aIndex.addType(result, simpleName, outerName, superclassName,
+                readStrings(buffer));
+        }
+        return result;
+    }
+
+    /**
+     * Maps the hierarchy of the cache. The hierarchy reads the mapped file
+     * until it is garbage collected, so the file can not be replaced on
+     * some platforms until then.
+     * @param aClassLoader loader of types which are not declared in the
+     *        sources.
+     * @return the hierarchy.
+     * @throws IOException if the file can not be mapped or the hierarchy
+     *         is damaged.
+     */
+    TypeHierarchy getHierarchy(ClassLoader aClassLoader)
+        throws IOException
+    {
+        // the mapping stays valid after the file is closed
+        final ByteBuffer buffer = mFile.getChannel().map(
+            FileChannel.MapMode.READ_ONLY, mHierarchyOffset,
+            mLength - 4 - mHierarchyOffset);
+        return CompactTypeHierarchy.map(buffer, aClassLoader);
+    }
+
+    /**
+     * Writes a cache file.
+     * @param aFile the file.
+     * @param aCharset name of the charset of sources.
+     * @param aStamps stamps of sources in the order they were added.
+     * @param aSources sources added to the index, in the same order.
+     * @param aIndex the index of declarations of the sources.
+     * @param aHierarchy the hierarchy built from the index.
+     * @throws IOException if the file can not be written.
+     */
+    static void write(File aFile, String aCharset, List<Stamp> aStamps,
+            List<TypeIndex.Source> aSources, TypeIndex aIndex,
+            CompactTypeHierarchy aHierarchy)
+        throws IOException
+    {
+        final Map<TypeIndex.Source, List<TypeIndex.Type>> types =
+            new IdentityHashMap<TypeIndex.Source, List<TypeIndex.Type>>();
+        for (TypeIndex.Type type : aIndex.getTypes()) {
+            List<TypeIndex.Type> sourceTypes = types.get(type.getSource());
+            if (sourceTypes == null) {
+                sourceTypes = new ArrayList<TypeIndex.Type>();
+                types.put(type.getSource(), sourceTypes);
+            }
+            sourceTypes.add(type);
+        }
+        final ByteArrayOutputStream declarationBytes =
+            new ByteArrayOutputStream();
+        final DataOutputStream declarations =
+            new DataOutputStream(declarationBytes);
+        final int[] offsets = new int[aSources.size()];
+        for (int i = 0; i < offsets.length; i++) {
+            final TypeIndex.Source source = aSources.get(i);
+            offsets[i] = declarations.size();
+            writeString(declarations, source.getPackageName());
+            writeStrings(declarations, source.getImports());
+            final List<TypeIndex.Type> sourceTypes = types.get(source);
+            declarations.writeInt(sourceTypes == null ? 0 : sourceTypes.size());
+            for (int j = 0; sourceTypes != null && j < sourceTypes.size(); j++)
+            {
+                final TypeIndex.Type type = sourceTypes.get(j);
+                writeString(declarations, type.getSimpleName());
+                writeString(declarations, type.getOuterName());
+                writeString(declarations, type.getSuperclassName());
+                writeStrings(declarations, type.getInterfaceNames());
+            }
+        }
+        declarations.flush();
+
+        final ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        final DataOutputStream header = new DataOutputStream(headerBytes);
+        writeString(header, aCharset);
+        header.writeInt(aStamps.size());
+        for (int i = 0; i < offsets.length; i++) {
+            final Stamp stamp = aStamps.get(i);
+            writeString(header, stamp.mFileName);
+            header.writeLong(stamp.mModified);
+            header.writeLong(stamp.mLength);
+            header.writeInt(offsets[i]);
+        }
+        header.flush();
+        // magic, version and offsets and lengths of sections precede
+        // the header
+        final int declarationsOffset = 5 * 4 + headerBytes.size();
+        final int hierarchyOffset =
+            (declarationsOffset + declarationBytes.size() + 3) / 4 * 4;
+
+        final File directory = aFile.getAbsoluteFile().getParentFile();
+        directory.mkdirs();
+        final File temporary =
+            File.createTempFile(aFile.getName(), ".tmp", directory);
+        final DataOutputStream output = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(temporary)));
+        try {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(declarationsOffset);
+            output.writeInt(declarationBytes.size());
+            output.writeInt(hierarchyOffset);
+            headerBytes.writeTo(output);
+            declarationBytes.writeTo(output);
+            // int arrays of the hierarchy are aligned
+            while (output.size() < hierarchyOffset) {
+                output.writeByte(0);
+            }
+            aHierarchy.write(output);
+            // a truncated file does not end with the mark
+            output.writeInt(MAGIC);
+        }
+        finally {
+            output.close();
+        }
+        if (!temporary.renameTo(aFile)
+            && !(aFile.delete() && temporary.renameTo(aFile)))
+        {
+            temporary.delete();
+            throw new IOException("Unable to replace " + aFile);
+        }
+    }
+
+    /**
+     * Reads the header of the file and stamps of sources.
+     * @param aCharset name of the charset of sources.
+     * @return false if the file is damaged, written by another version or
+     *         for sources in another charset.
+     * @throws IOException if the file can not be read.
+     */
+    private boolean readHeader(String aCharset)
+        throws IOException
+    {
+        boolean result = mLength >= 6 * 4;
+        if (result) {
+            mFile.seek(mLength - 4);
+            result = mFile.readInt() == MAGIC;
+            mFile.seek(0);
+        }
+        // the stream is not closed, it would close the file
+        final DataInputStream input = new DataInputStream(
+            new BufferedInputStream(Channels.newInputStream(
+                mFile.getChannel())));
+        if (result) {
+            result = input.readInt() == MAGIC && input.readInt() == VERSION;
+        }
+        if (result) {
+            mDeclarationsOffset = input.readInt();
+            mDeclarationsLength = input.readInt();
+            mHierarchyOffset = input.readInt();
+            result = mDeclarationsOffset >= 0 && mDeclarationsLength >= 0
+                && mDeclarationsOffset + (long) mDeclarationsLength
+                    <= mHierarchyOffset
+                && mHierarchyOffset <= mLength - 4
+                && aCharset.equals(readString(input));
+        }
+        final int count = result ? input.readInt() : 0;
+        // every stamp takes at least 24 bytes
+        result &= count >= 0 && count <= mLength / 24;
+        if (result) {
+            mDeclarationOffsets = new int[count];
+            for (int i = 0; i < count; i++) {
+                final Stamp stamp = new Stamp(readString(input),
+                    input.readLong(), input.readLong());
+                mDeclarationOffsets[i] = input.readInt();
+                result &= mDeclarationOffsets[i] >= 0
+                    && mDeclarationOffsets[i] < mDeclarationsLength;
+                mStamps.add(stamp);
+                mEntries.put(stamp.mFileName, i);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes a string which may be null.
+     * @param aOutput the output.
+     * @param aString the string.
+     * @throws IOException if the output fails.
+     */
+    private static void writeString(DataOutputStream aOutput, String aString)
+        throws IOException
+    {
+        if (aString == null) {
+            aOutput.writeInt(NULL_LENGTH);
+        }
+        else {
+            final ByteBuffer bytes = UTF_8.encode(aString);
+            aOutput.writeInt(bytes.limit());
+            aOutput.write(bytes.array(), bytes.arrayOffset(), bytes.limit());
+        }
+    }
+
+    /**
+     * Writes a list of strings.
+     * @param aOutput the output.
+     * @param aStrings the strings.
+     * @throws IOException if the output fails.
+     */
+    private static void writeStrings(DataOutputStream aOutput,
+            List<String> aStrings)
+        throws IOException
+    {
+        aOutput.writeInt(aStrings.size());
+        for (String string : aStrings) {
+            writeString(aOutput, string);
+        }
+    }
+
+    /**
+     * Reads a string of the header written by {@link #writeString}.
+     * @param aInput the input positioned at the string.
+     * @return the string, may be null.
+     * @throws IOException if the input fails or the string is damaged.
+     */
+    private String readString(DataInput aInput)
+        throws IOException
+    {
+        final int length = aInput.readInt();
+        String result = null;
+        if (length != NULL_LENGTH) {
+            if (length < 0 || length > mLength) {
+                throw new EOFException("Invalid length of string: " + length);
+            }
+            final byte[] bytes = new byte[length];
+            aInput.readFully(bytes);
+            result = UTF_8.decode(ByteBuffer.wrap(bytes)).toString();
+        }
+        return result;
+    }
+
+    /**
+     * Reads a string of declarations written by {@link #writeString}.
+     * @param aBuffer the buffer positioned at the string.
+     * @return the string, may be null.
+     * @throws IOException if the string is damaged.
+     */
+    private static String readString(ByteBuffer aBuffer)
+        throws IOException
+    {
+        final int length = readInt(aBuffer);
+        String result = null;
+        if (length != NULL_LENGTH) {
+            if (length < 0 || length > aBuffer.remaining()) {
+                throw new EOFException("Invalid length of string: " + length);
+            }
+            final ByteBuffer bytes = aBuffer.slice();
+            bytes.limit(length);
+            result = UTF_8.decode(bytes).toString();
+            aBuffer.position(aBuffer.position() + length);
+        }
+        return result;
+    }
+
+    /**
+     * Reads a list of strings written by {@link #writeStrings}.
+     * @param aBuffer the buffer positioned at the list.
+     * @return the strings.
+     * @throws IOException if the list is damaged.
+     */
+    private static List<String> readStrings(ByteBuffer aBuffer)
+        throws IOException
+    {
+        final int count = readCount(aBuffer);
+        final List<String> result = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(readString(aBuffer));
+        }
+        return result;
+    }
+
+    /**
+     * Reads a count of items of declarations, every item takes at least
+     * four bytes.
+     * @param aBuffer the buffer positioned at the count.
+     * @return the count.
+     * @throws IOException if the count is damaged.
+     */
+    private static int readCount(ByteBuffer aBuffer)
+        throws IOException
+    {
+        final int result = readInt(aBuffer);
+        if (result < 0 || result > aBuffer.remaining() / 4) {
+            throw new EOFException("Invalid count: " + result);
+        }
+        return result;
+    }
+
+    /**
+     * Reads an int of declarations.
+     * @param aBuffer the buffer positioned at the int.
+     * @return the int.
+     * @throws IOException if the buffer ends before the int.
+     */
+    private static int readInt(ByteBuffer aBuffer)
+        throws IOException
+    {
+        if (aBuffer.remaining() < 4) {
+            throw new EOFException("Unexpected end of declarations");
+        }
+        return aBuffer.getInt();
+    }
+
+    /**
+     * Name, time of last modification and length of a source file, which
+     * tell whether the file has changed since it was cached.
+     */
+    static final class Stamp
+    {
+        /** Absolute name of the file. */
+        private final String mFileName;
+
+        /** Time of last modification. */
+        private final long mModified;
+
+        /** Length of the file. */
+        private final long mLength;
+
+        /**
+         * Takes the stamp of a file.
+         * @param aFile the file.
+         */
+        Stamp(File aFile)
+        {
+            this(aFile.getAbsolutePath(), aFile.lastModified(),
+                aFile.length());
+        }
+
+        /**
+         * Creates a stamp.
+         * @param aFileName absolute name of the file.
+         * @param aModified time of last modification.
+         * @param aLength length of the file.
+         */
+        Stamp(String aFileName, long aModified, long aLength)
+        {
+            mFileName = aFileName;
+            mModified = aModified;
+            mLength = aLength;
+        }
+
+        /** @return absolute name of the file. */
+        String getFileName()
+        {
+            return mFileName;
+        }
+
+        @Override
+        public boolean equals(Object aObject)
+        {
+            boolean result = aObject == this;
+            if (!result && aObject instanceof Stamp) {
+                final Stamp other = (Stamp) aObject;
+                result = mFileName.equals(other.mFileName)
+                    && mModified == other.mModified
+                    && mLength == other.mLength;
+            }
+            return result;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return mFileName.hashCode();
+        }
+    }
+}
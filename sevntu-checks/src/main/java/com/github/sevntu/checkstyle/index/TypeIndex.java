@@ -0,0 +1,521 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.puppycrawl.tools.checkstyle.api.DetailAST;
+import com.puppycrawl.tools.checkstyle.api.FullIdent;
+import com.puppycrawl.tools.checkstyle.api.TokenTypes;
+
+/**
+ * <p>
+ * Index of classes declared in all files of an audit. The index is filled in
+ * a single streaming pass: a check adds every file and every class
+ * declaration while the file is walked. Only names are kept, so ASTs of
+ * processed files are not retained.
+ * </p>
+ * <p>
+ * Names used in a file are resolved after all files are added, the way
+ * javac looks them up: member types of enclosing types, single-type imports,
+ * types of the same package, on-demand imports and <code>java.lang</code>.
+ * Types which are not declared in audited files are looked up with a class
+ * loader.
+ * </p>
+ */
+public final class TypeIndex
+{
+    /** Classes by qualified names. */
+    private final Map<String, Type> mTypes = new HashMap<String, Type>();
+
+    /** All added classes in order of addition. */
+    private final List<Type> mTypeList = new ArrayList<Type>();
+
+    /** Classes loaded by qualified names, null if a class is not found. */
+    private final Map<String, Class<?>> mLoadedClasses =
+        new HashMap<String, Class<?>>();
+
+    /**
+     * Qualified names of member types inherited by types, by names of types
+     * and simple names of member types separated by a space.
+     */
+    private final Map<String, String> mInheritedMemberTypes =
+        new HashMap<String, String>();
+
+    /** Removes all classes from the index. */
+    public void clear()
+    {
+        mTypes.clear();
+        mTypeList.clear();
+        mLoadedClasses.clear();
+        mInheritedMemberTypes.clear();
+    }
+
+    /**
+     * Adds a file, reads its package and imports.
+     * @param aFileName name of the file.
+     * @param aRootAST the root of the AST of the file, null for an empty
+     *        file.
+     * @return the file to add its classes to.
+     */
+    public Source addSource(String aFileName, DetailAST aRootAST)
+    {
+        String packageName = "";
+        final List<String> imports = new ArrayList<String>();
+        for (DetailAST node = aRootAST; node != null;
+            node = node.getNextSibling())
+        {
+            if (node.getType() == TokenTypes.PACKAGE_DEF) {
+                packageName = FullIdent.createFullIdent(
+                    node.getLastChild().getPreviousSibling()).getText();
+            }
+            else if (node.getType() == TokenTypes.IMPORT) {
+                imports.add(FullIdent.createFullIdentBelow(node).getText());
+            }
+        }
+        return addSource(aFileName, packageName, imports);
+    }
+
+    /**
+     * Adds a file with the given package and imports.
+     * @param aFileName name of the file.
+     * @param aPackageName the package of the file, empty for the default
+     *        package.
+     * @param aImports names of imported types, names of types and packages
+     *        imported on demand end with ".*".
+     * @return the file to add its classes to.
+     */
+    public Source addSource(String aFileName, String aPackageName,
+            List<String> aImports)
+    {
+        final Source source = new Source(aFileName, aPackageName);
+        for (String name : aImports) {
+            if (name.endsWith(".*")) {
+                source.mOnDemandImports.add(
+                    name.substring(0, name.length() - 2));
+            }
+            else {
+                source.mImports.add(name);
+            }
+        }
+        return source;
+    }
+
+    /**
+     * Adds a class declared in a file.
+     * @param aSource the file.
+     * @param aClassDefAST the CLASS_DEF node of the class.
+     * @return the added class.
+     */
+    public Type addType(Source aSource, DetailAST aClassDefAST)
+    {
+        String superclassName = null;
+        final DetailAST extendsClause =
+            aClassDefAST.findFirstToken(TokenTypes.EXTENDS_CLAUSE);
+        if (extendsClause != null) {
+            superclassName = FullIdent.createFullIdent(
+                extendsClause.getFirstChild()).getText();
+        }
+        final List<String> interfaceNames = new ArrayList<String>();
+        final DetailAST implementsClause =
+            aClassDefAST.findFirstToken(TokenTypes.IMPLEMENTS_CLAUSE);
+        if (implementsClause != null) {
+            for (DetailAST node = implementsClause.getFirstChild();
+                node != null; node = node.getNextSibling())
+            {
+                if (node.getType() == TokenTypes.IDENT
+                    || node.getType() == TokenTypes.DOT)
+                {
+                    interfaceNames.add(
+                        FullIdent.createFullIdent(node).getText());
+                }
+            }
+        }
+        return addType(aSource,
+            aClassDefAST.findFirstToken(TokenTypes.IDENT).getText(),
+            TypeNames.getOuterName(aClassDefAST, aSource.mPackageName),
+            superclassName, interfaceNames);
+    }
+
+    /**
+     * Adds a type declared in a file.
+     * @param aSource the file.
+     * @param aSimpleName simple name of the type.
+     * @param aOuterName qualified name of the innermost type which encloses
+     *        the declaration, null for a top level type.
+     * @param aSuperclassName name of the superclass as written, null if
+     *        it is not written.
+     * @param aInterfaceNames names of implemented interfaces as written,
+     *        or of extended interfaces for an interface.
+     * @return the added type.
+     */
+    public Type addType(Source aSource, String aSimpleName, String aOuterName,
+            String aSuperclassName, List<String> aInterfaceNames)
+    {
+        final String name = aOuterName != null
+            ? aOuterName + "." + aSimpleName
+            : TypeNames.qualify(aSource.mPackageName, aSimpleName);
+        final Type type = new Type(aSource, name, aSimpleName, aOuterName,
+            aSuperclassName, aInterfaceNames.isEmpty() ? null
+                : aInterfaceNames.toArray(new String[aInterfaceNames.size()]));
+        if (!mTypes.containsKey(name)) {
+            mTypes.put(name, type);
+        }
+        mTypeList.add(type);
+        mInheritedMemberTypes.clear();
+        return type;
+    }
+
+    /**
+     * Gets a class declared in audited files.
+     * @param aName qualified name of the class.
+     * @return the class or null if there is no such class in the index.
+     */
+    public Type getType(String aName)
+    {
+        return mTypes.get(aName);
+    }
+
+    /**
+     * Gets all classes of the index.
+     * @return classes in order of addition, local classes and classes
+     *         declared twice included.
+     */
+    public List<Type> getTypes()
+    {
+        return Collections.unmodifiableList(mTypeList);
+    }
+
+    /**
+     * Resolves a name of a type used in a class.
+     * @param aContext the class which uses the name.
+     * @param aName simple or qualified name of a type.
+     * @param aClassLoader loader of classes which are not in the index.
+     * @return qualified name of the type or null if the name can not be
+     *         resolved.
+     */
+    public String resolve(Type aContext, final String aName,
+            final ClassLoader aClassLoader)
+    {
+        final Source source = aContext.mSource;
+        return TypeNames.resolve(aName, aContext.mOuterName,
+            source.mPackageName, source.mImports, source.mOnDemandImports,
+            new TypeNames.Lookup() {
+                @Override
+                public boolean isDeclared(String aTypeName)
+                {
+                    return mTypes.containsKey(aTypeName);
+                }
+
+                @Override
+                public boolean isLoadable(String aTypeName)
+                {
+                    return loadClass(aTypeName, aClassLoader) != null;
+                }
+
+                @Override
+                public String findMemberType(String aTypeName,
+                        String aSimpleName)
+                {
+                    return TypeIndex.this.findMemberType(aTypeName,
+                        aSimpleName, aClassLoader);
+                }
+            });
+    }
+
+    /**
+     * Finds a member type which a type declares or inherits from its
+     * supertypes.
+     * @param aTypeName qualified name of the type.
+     * @param aSimpleName simple name of the member type.
+     * @param aClassLoader loader of classes which are not in the index.
+     * @return qualified name of the member type or null if it is not found.
+     */
+    private String findMemberType(String aTypeName, String aSimpleName,
+            ClassLoader aClassLoader)
+    {
+        String result = aTypeName + "." + aSimpleName;
+        if (!mTypes.containsKey(result)) {
+            final String key = aTypeName + " " + aSimpleName;
+            result = mInheritedMemberTypes.get(key);
+            if (result == null && !mInheritedMemberTypes.containsKey(key)) {
+                // a type which inherits itself finds nothing
+                mInheritedMemberTypes.put(key, null);
+                final Type type = mTypes.get(aTypeName);
+                if (type == null) {
+                    final Class<?> loaded = loadClass(aTypeName, aClassLoader);
+                    if (loaded != null) {
+                        result = TypeNames.findMemberType(loaded, aSimpleName);
+                    }
+                }
+                else {
+                    final List<String> supertypes =
+                        new ArrayList<String>(type.getInterfaceNames());
+                    supertypes.add(0, type.mSuperclassName);
+                    for (int i = 0; result == null && i < supertypes.size();
+                        i++)
+                    {
+                        final String supertype = supertypes.get(i) == null
+                            ? null
+                            : resolve(type, supertypes.get(i), aClassLoader);
+                        if (supertype != null) {
+                            result = findMemberType(supertype, aSimpleName,
+                                aClassLoader);
+                        }
+                    }
+                }
+                mInheritedMemberTypes.put(key, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Follows superclasses of a class while they are declared in audited
+     * files.
+     * @param aType the class.
+     * @param aClassLoader loader of classes which are not in the index.
+     * @return qualified name of the first superclass which is not in the
+     *         index or null if a superclass can not be resolved or
+     *         superclasses are cyclic.
+     */
+    public String getExternalSuperclass(Type aType, ClassLoader aClassLoader)
+    {
+        Type type = aType;
+        String result = null;
+        for (int i = 0; type != null && i <= mTypes.size(); i++) {
+            if (type.mSuperclassName == null) {
+                result = TypeNames.OBJECT;
+                type = null;
+            }
+            else {
+                final String superclass =
+                    resolve(type, type.mSuperclassName, aClassLoader);
+                type = superclass == null ? null : mTypes.get(superclass);
+                if (type == null) {
+                    result = superclass;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Loads a class which is not declared in audited files.
+     * @param aName qualified name of the class.
+     * @param aClassLoader loader of the class.
+     * @return the class or null if it is not found.
+     */
+    public Class<?> loadClass(String aName, ClassLoader aClassLoader)
+    {
+        Class<?> result = mLoadedClasses.get(aName);
+        if (result == null && !mLoadedClasses.containsKey(aName)) {
+            result = TypeNames.loadClass(aName, aClassLoader);
+            mLoadedClasses.put(aName, result);
+        }
+        return result;
+    }
+
+    /**
+     * A file with classes of the index.
+     */
+    public static final class Source
+    {
+        /** Name of the file. */
+        private final String mFileName;
+
+        /** The package of the file, empty for the default package. */
+        private final String mPackageName;
+
+        /** Single-type imports. */
+        private final List<String> mImports = new ArrayList<String>();
+
+        /** Packages and types imported on demand. */
+        private final List<String> mOnDemandImports = new ArrayList<String>();
+
+        /**
+         * Creates a file.
+         * @param aFileName name of the file.
+         * @param aPackageName the package of the file.
+         */
+        Source(String aFileName, String aPackageName)
+        {
+            mFileName = aFileName;
+            mPackageName = aPackageName;
+        }
+
+        /** @return name of the file. */
+        public String getFileName()
+        {
+            return mFileName;
+        }
+
+        /** @return the package of the file, empty for the default package. */
+        public String getPackageName()
+        {
+            return mPackageName;
+        }
+
+        /**
+         * @return imports of the file as written, names of types and
+         *         packages imported on demand end with ".*".
+         */
+        List<String> getImports()
+        {
+            final List<String> result = new ArrayList<String>(mImports);
+            for (String name : mOnDemandImports) {
+                result.add(name + ".*");
+            }
+            return result;
+        }
+    }
+
+    /**
+     * A class of the index.
+     */
+    public static final class Type
+    {
+        /** The file which declares the class. */
+        private final Source mSource;
+
+        /** Qualified name. */
+        private final String mName;
+
+        /** Simple name. */
+        private final String mSimpleName;
+
+        /** Qualified name of the enclosing type, null for a top level one. */
+        private final String mOuterName;
+
+        /** Name of the superclass as written, null if it is not written. */
+        private final String mSuperclassName;
+
+        /** Names of interfaces as written, null if there are none. */
+        private final String[] mInterfaceNames;
+
+        /** Types of parameters of constructors as written, created lazily. */
+        private List<String[]> mConstructors;
+
+        /**
+         * Creates a class.
+         * @param aSource the file which declares the class.
+         * @param aName qualified name.
+         * @param aSimpleName simple name.
+         * @param aOuterName qualified name of the enclosing type.
+         * @param aSuperclassName name of the superclass as written.
+         * @param aInterfaceNames names of interfaces as written.
+         */
+        Type(Source aSource, String aName, String aSimpleName,
+                String aOuterName, String aSuperclassName,
+                String[] aInterfaceNames)
+        {
+            mSource = aSource;
+            mName = aName;
+            mSimpleName = aSimpleName;
+            mOuterName = aOuterName;
+            mSuperclassName = aSuperclassName;
+            mInterfaceNames = aInterfaceNames;
+        }
+
+        /**
+         * Adds a constructor of the class.
+         * @param aCtorDefAST the CTOR_DEF node of the constructor.
+         */
+        public void addConstructor(DetailAST aCtorDefAST)
+        {
+            final List<String> parameterTypes = new ArrayList<String>();
+            final DetailAST parameters =
+                aCtorDefAST.findFirstToken(TokenTypes.PARAMETERS);
+            for (DetailAST node = parameters.getFirstChild(); node != null;
+                node = node.getNextSibling())
+            {
+                if (node.getType() == TokenTypes.PARAMETER_DEF) {
+                    parameterTypes.add(FullIdent.createFullIdent(
+                        node.findFirstToken(TokenTypes.TYPE).getFirstChild())
+                        .getText());
+                }
+            }
+            if (mConstructors == null) {
+                mConstructors = new ArrayList<String[]>();
+            }
+            mConstructors.add(
+                parameterTypes.toArray(new String[parameterTypes.size()]));
+        }
+
+        /** @return the file which declares the class. */
+        public Source getSource()
+        {
+            return mSource;
+        }
+
+        /** @return qualified name. */
+        public String getName()
+        {
+            return mName;
+        }
+
+        /** @return simple name. */
+        public String getSimpleName()
+        {
+            return mSimpleName;
+        }
+
+        /**
+         * @return qualified name of the enclosing type, null for a top level
+         *         one.
+         */
+        String getOuterName()
+        {
+            return mOuterName;
+        }
+
+        /** @return name of the superclass as written or null. */
+        public String getSuperclassName()
+        {
+            return mSuperclassName;
+        }
+
+        /**
+         * @return names of implemented interfaces, or of extended interfaces
+         *         for an interface, as written.
+         */
+        public List<String> getInterfaceNames()
+        {
+            return mInterfaceNames == null ? Collections.<String>emptyList()
+                : Collections.unmodifiableList(
+                    Arrays.asList(mInterfaceNames));
+        }
+
+        /**
+         * Gets constructors of the class.
+         * @return types of parameters of every constructor as written.
+         */
+        public List<String[]> getConstructors()
+        {
+            return mConstructors == null
+                ? Collections.<String[]>emptyList()
+                : Collections.unmodifiableList(mConstructors);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.index;
+
+import java.lang.reflect.Modifier;
+import java.util.List;
+
+import com.puppycrawl.tools.checkstyle.api.DetailAST;
+import com.puppycrawl.tools.checkstyle.api.TokenTypes;
+
+/**
+ * Rules of naming and looking up types which are shared by indexes of this
+ * package.
+ */
+final class TypeNames
+{
+    /** Name of the superclass of classes without "extends" clause. */
+    static final String OBJECT = "java.lang.Object";
+
+    /** Prevents instantiation. */
+    private TypeNames()
+    {
+    }
+
+    /**
+     * Tells which types exist for {@link TypeNames#resolve}.
+     */
+    interface Lookup
+    {
+        /**
+         * Checks whether a type is declared in indexed files.
+         * @param aName qualified name of the type.
+         * @return true if the type is declared.
+         */
+        boolean isDeclared(String aName);
+
+        /**
+         * Finds a member type which a type declares or inherits from its
+         * supertypes.
+         * @param aTypeName qualified name of the type.
+         * @param aSimpleName simple name of the member type.
+         * @return qualified name of the member type or null if it is not
+         *         found.
+         */
+        String findMemberType(String aTypeName, String aSimpleName);
+
+        /**
+         * Checks whether a type which is not declared in indexed files can
+         * be loaded.
+         * @param aName qualified name of the type.
+         * @return true if the type can be loaded.
+         */
+        boolean isLoadable(String aName);
+    }
+
+    /**
+     * Resolves a name of a type used in a file the way javac looks it up:
+     * member types of enclosing types, including member types they inherit,
+     * single-type imports, types of the
+     * same package, on-demand imports and <code>java.lang</code>.
+     * @param aName simple or qualified name of a type.
+     * @param aOuterName qualified name of the innermost type which encloses
+     *        the usage, null outside of types.
+     * @param aPackageName the package of the file, empty for the default
+     *        package.
+     * @param aImports single-type imports of the file.
+     * @param aOnDemandImports packages and types imported on demand.
+     * @param aLookup existing types.
+     * @return qualified name of the type or null if the name can not be
+     *         resolved.
+     */
+    static String resolve(String aName, String aOuterName,
+            String aPackageName, List<String> aImports,
+            List<String> aOnDemandImports, Lookup aLookup)
+    {
+        final int dot = aName.indexOf('.');
+        final String first = dot < 0 ? aName : aName.substring(0, dot);
+        final String rest = dot < 0 ? "" : aName.substring(dot);
+
+        String result = null;
+        String scope = aOuterName;
+        while (result == null && scope != null) {
+            final String member = aLookup.findMemberType(scope, first);
+            if (member != null) {
+                result = member + rest;
+            }
+            scope = getOuterName(scope, aPackageName);
+        }
+        for (int i = 0; result == null && i < aImports.size(); i++) {
+            final String imported = aImports.get(i);
+            if (imported.equals(first) || imported.endsWith("." + first)) {
+                result = imported + rest;
+            }
+        }
+        if (result == null
+            && aLookup.isDeclared(qualify(aPackageName, first)))
+        {
+            result = qualify(aPackageName, aName);
+        }
+        for (int i = 0; result == null && i < aOnDemandImports.size(); i++)
+        {
+            final String candidate = aOnDemandImports.get(i) + "." + first;
+            if (aLookup.isDeclared(candidate)
+                || aLookup.isLoadable(candidate))
+            {
+                result = aOnDemandImports.get(i) + "." + aName;
+            }
+        }
+        if (result == null) {
+            final String candidate = "java.lang." + first;
+            if (aLookup.isDeclared(candidate)
+                || aLookup.isLoadable(candidate))
+            {
+                result = "java.lang." + aName;
+            }
+        }
+        if (result == null && dot >= 0) {
+            result = aName;
+        }
+        return result;
+    }
+
+    /**
+     * Loads a class by its qualified name.
+     * @param aName qualified name of the class.
+     * @param aClassLoader loader of the class.
+     * @return the class or null if it is not found.
+     */
+    static Class<?> loadClass(String aName, ClassLoader aClassLoader)
+    {
+        Class<?> result = null;
+        String binaryName = aName;
+        int dot = binaryName.length();
+        while (result == null && dot >= 0) {
+            try {
+                result = Class.forName(binaryName, false, aClassLoader);
+            }
+            catch (final ClassNotFoundException e) {
+                // member types have binary names with '$'
+                dot = binaryName.lastIndexOf('.');
+                if (dot >= 0) {
+                    binaryName = binaryName.substring(0, dot) + '$'
+                        + binaryName.substring(dot + 1);
+                }
+            }
+            catch (final LinkageError e) {
+                dot = -1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds a member type which a loaded class declares or inherits from its
+     * supertypes.
+     * @param aClass the class.
+     * @param aSimpleName simple name of the member type.
+     * @return qualified name of the member type or null if it is not found.
+     */
+    static String findMemberType(Class<?> aClass, String aSimpleName)
+    {
+        String result = null;
+        try {
+            for (Class<?> member : aClass.getDeclaredClasses()) {
+                if (member.getSimpleName().equals(aSimpleName)
+                    && !Modifier.isPrivate(member.getModifiers()))
+                {
+                    result = member.getCanonicalName();
+                    break;
+                }
+            }
+        }
+        catch (final SecurityException e) {
+            result = null;
+        }
+        catch (final LinkageError e) {
+            result = null;
+        }
+        if (result == null && aClass.getSuperclass() != null) {
+            result = findMemberType(aClass.getSuperclass(), aSimpleName);
+        }
+        final Class<?>[] interfaces = aClass.getInterfaces();
+        for (int i = 0; result == null && i < interfaces.length; i++) {
+            result = findMemberType(interfaces[i], aSimpleName);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the name of the type which encloses a member type.
+     * @param aName qualified name of the member type.
+     * @param aPackageName the package of the type.
+     * @return qualified name of the enclosing type or null for a top level
+     *         type.
+     */
+    static String getOuterName(String aName, String aPackageName)
+    {
+        final int dot = aName.lastIndexOf('.');
+        return dot <= aPackageName.length() ? null : aName.substring(0, dot);
+    }
+
+    /**
+     * Gets the qualified name of the innermost type which encloses a node.
+     * @param aNode the node, the type it declares is not counted.
+     * @param aPackageName the package of the file.
+     * @return qualified name of the enclosing type or null outside of types.
+     */
+    static String getOuterName(DetailAST aNode, String aPackageName)
+    {
+        String result = null;
+        for (DetailAST node = aNode.getParent(); node != null;
+            node = node.getParent())
+        {
+            if (isTypeDef(node)) {
+                final String name =
+                    node.findFirstToken(TokenTypes.IDENT).getText();
+                result = result == null ? name : name + "." + result;
+            }
+        }
+        return result == null ? null : qualify(aPackageName, result);
+    }
+
+    /**
+     * Qualifies a name of a type with a package.
+     * @param aPackageName the package, empty for the default package.
+     * @param aName name of the type relative to the package.
+     * @return qualified name.
+     */
+    static String qualify(String aPackageName, String aName)
+    {
+        return aPackageName.length() == 0 ? aName : aPackageName + "." + aName;
+    }
+
+    /**
+     * Checks whether a node declares a type.
+     * @param aNode the node.
+     * @return true for class, interface, enum and annotation definitions.
+     */
+    static boolean isTypeDef(DetailAST aNode)
+    {
+        final int type = aNode.getType();
+        return type == TokenTypes.CLASS_DEF
+            || type == TokenTypes.INTERFACE_DEF
+            || type == TokenTypes.ENUM_DEF
+            || type == TokenTypes.ANNOTATION_DEF;
+    }
+}
@@ -0,0 +1,53 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.walker;
+
+import java.util.Map;
+import java.util.SortedSet;
+
+import com.puppycrawl.tools.checkstyle.api.LocalizedMessage;
+
+/**
+ * <p>
+ * Implemented by checks which collect information about all files of an
+ * audit and report violations when the last file is processed.
+ * {@link FusedTreeWalker} notifies such checks about the start and the end
+ * of every audit, TreeWalker does not, so a check should keep reporting
+ * violations file by file until {@link #beginAudit()} is called.
+ * </p>
+ * <p>
+ * All files of the audit must be processed by the same walker. Files are
+ * not split between several walkers: ParallelChecker of the runner refuses
+ * to audit with such checks in several threads and reports a configuration
+ * error instead.
+ * </p>
+ */
+public interface AuditAware
+{
+    /**
+     * Called before the first file of an audit is processed.
+     */
+    void beginAudit();
+
+    /**
+     * Called after the last file of an audit is processed.
+     * @return violations found in the audit by names of files.
+     */
+    Map<String, SortedSet<LocalizedMessage>> finishAudit();
+}
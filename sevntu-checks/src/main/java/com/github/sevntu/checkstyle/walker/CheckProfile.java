@@ -0,0 +1,212 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.walker;
+
+import java.util.Comparator;
+
+/**
+ * Time and counters collected for one check (or for parsing) by
+ * {@link ProfilingTreeWalker}. Keeps values for the file which is currently
+ * processed and totals for the whole audit.
+ */
+final class CheckProfile
+{
+    /** Orders profiles by total time, the slowest first. */
+    static final Comparator<CheckProfile> SLOWEST_FIRST =
+        new Comparator<CheckProfile>()
+        {
+            @Override
+            public int compare(CheckProfile aProfile1, CheckProfile aProfile2)
+            {
+                final long time1 = aProfile1.getTotalNanos();
+                final long time2 = aProfile2.getTotalNanos();
+                int result = 0;
+                if (time1 > time2) {
+                    result = -1;
+                }
+                else if (time1 < time2) {
+                    result = 1;
+                }
+                else {
+                    result = aProfile1.getName().compareTo(aProfile2.getName());
+                }
+                return result;
+            }
+        };
+
+    /** Name of the check in reports. */
+    private final String mName;
+
+    /** Time spent in the current file, in nanoseconds. */
+    private long mFileNanos;
+
+    /** Count of callbacks invoked in the current file. */
+    private long mFileCalls;
+
+    /** Count of AST nodes visited in the current file. */
+    private long mFileNodes;
+
+    /** Time spent in all files, in nanoseconds. */
+    private long mTotalNanos;
+
+    /** Count of callbacks invoked in all files. */
+    private long mTotalCalls;
+
+    /** Count of AST nodes visited in all files. */
+    private long mTotalNodes;
+
+    /** Count of processed files. */
+    private int mFiles;
+
+    /** The longest time spent in one file, in nanoseconds. */
+    private long mMaxFileNanos;
+
+    /** Name of the file the longest time was spent in. */
+    private String mSlowestFile;
+
+    /**
+     * Creates a profile.
+     * @param aName name of the check in reports.
+     */
+    CheckProfile(String aName)
+    {
+        mName = aName;
+    }
+
+    /**
+     * @return name of the check in reports.
+     */
+    String getName()
+    {
+        return mName;
+    }
+
+    /**
+     * Records a callback which does not visit a node, e.g.
+     * beginTree() or finishTree().
+     * @param aNanos time spent in the callback.
+     */
+    void addCall(long aNanos)
+    {
+        mFileNanos += aNanos;
+        mFileCalls++;
+    }
+
+    /**
+     * Records a visitToken() callback.
+     * @param aNanos time spent in the callback.
+     */
+    void addVisit(long aNanos)
+    {
+        mFileNanos += aNanos;
+        mFileCalls++;
+        mFileNodes++;
+    }
+
+    /**
+     * Adds values of the current file to totals and resets them.
+     * @param aFileName name of the finished file.
+     */
+    void finishFile(String aFileName)
+    {
+        mTotalNanos += mFileNanos;
+        mTotalCalls += mFileCalls;
+        mTotalNodes += mFileNodes;
+        mFiles++;
+        if (mSlowestFile == null || mFileNanos > mMaxFileNanos) {
+            mMaxFileNanos = mFileNanos;
+            mSlowestFile = aFileName;
+        }
+        mFileNanos = 0;
+        mFileCalls = 0;
+        mFileNodes = 0;
+    }
+
+    /**
+     * @return time spent in the current file, in nanoseconds.
+     */
+    long getFileNanos()
+    {
+        return mFileNanos;
+    }
+
+    /**
+     * @return count of callbacks invoked in the current file.
+     */
+    long getFileCalls()
+    {
+        return mFileCalls;
+    }
+
+    /**
+     * @return count of AST nodes visited in the current file.
+     */
+    long getFileNodes()
+    {
+        return mFileNodes;
+    }
+
+    /**
+     * @return time spent in all files, in nanoseconds.
+     */
+    long getTotalNanos()
+    {
+        return mTotalNanos;
+    }
+
+    /**
+     * @return count of callbacks invoked in all files.
+     */
+    long getTotalCalls()
+    {
+        return mTotalCalls;
+    }
+
+    /**
+     * @return count of AST nodes visited in all files.
+     */
+    long getTotalNodes()
+    {
+        return mTotalNodes;
+    }
+
+    /**
+     * @return count of processed files.
+     */
+    int getFiles()
+    {
+        return mFiles;
+    }
+
+    /**
+     * @return the longest time spent in one file, in nanoseconds.
+     */
+    long getMaxFileNanos()
+    {
+        return mMaxFileNanos;
+    }
+
+    /**
+     * @return name of the file the longest time was spent in.
+     */
+    String getSlowestFile()
+    {
+        return mSlowestFile;
+    }
+}
@@ -0,0 +1,502 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.walker;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import antlr.RecognitionException;
+import antlr.TokenStreamException;
+import antlr.TokenStreamRecognitionException;
+
+import com.github.sevntu.checkstyle.index.TypeHierarchy;
+import com.github.sevntu.checkstyle.index.TypeHierarchyBuilder;
+
+import com.puppycrawl.tools.checkstyle.DefaultContext;
+import com.puppycrawl.tools.checkstyle.ModuleFactory;
+import com.puppycrawl.tools.checkstyle.TreeWalker;
+import com.puppycrawl.tools.checkstyle.api.AbstractFileSetCheck;
+import com.puppycrawl.tools.checkstyle.api.Check;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.Configuration;
+import com.puppycrawl.tools.checkstyle.api.Context;
+import com.puppycrawl.tools.checkstyle.api.DetailAST;
+import com.puppycrawl.tools.checkstyle.api.FileContents;
+import com.puppycrawl.tools.checkstyle.api.FileText;
+import com.puppycrawl.tools.checkstyle.api.LocalizedMessage;
+import com.puppycrawl.tools.checkstyle.api.MessageDispatcher;
+
+/**
+ * <p>
+ * Drop-in replacement of TreeWalker which runs all its checks in a single
+ * dispatch loop. TreeWalker looks up checks of every visited node by the
+ * name of its token type in a multimap and iterates a hash set of them.
+ * This walker builds tables of checks indexed by token type once, when it is
+ * configured, so dispatching a node is an array lookup and a loop over an
+ * array. Checks which do not override leaveToken(), beginTree() or
+ * finishTree() are not put in the tables of these callbacks at all.
+ * </p>
+ * <p>
+ * A large configuration of checks can be switched to the walker by
+ * replacing <code>&lt;module name="TreeWalker"&gt;</code> with:
+ * </p>
+ * <pre>
+ * &lt;module name="com.github.sevntu.checkstyle.walker.FusedTreeWalker"&gt;
+ *     ...
+ * &lt;/module&gt;
+ * </pre>
+ * <p>
+ * Violations are the same as violations found by TreeWalker. "cacheFile"
+ * property of TreeWalker is not supported, every file is always processed.
+ * </p>
+ * <p>
+ * When "lexicalFiltering" property is set and all checks implement
+ * {@link LexicalFilter}, a file is parsed only if the lexical scan of its
+ * header shows that some check may report violations in it. Configurations
+ * of import policy checks audit most files without parsing them then, but
+ * syntax errors of skipped files are not reported.
+ * </p>
+ * <p>
+ * Checks which implement {@link AuditAware} are notified about the start
+ * and the end of every audit. Violations they return at the end of an audit
+ * are reported after all files are processed.
+ * </p>
+ * <p>
+ * When "sourcePath" property is set, types declared in all Java files under
+ * the given directories are indexed before the first file of an audit and
+ * checks which implement {@link TypeHierarchyAware} get their hierarchy, so
+ * they can tell, for example, that a class is Serializable through
+ * a superclass declared in another file. When "typeHierarchyCacheFile"
+ * property is set as well, for example to
+ * <code>target/sevntu-type-hierarchy.bin</code>, the hierarchy is kept in
+ * that file between audits: an audit of unchanged sources maps the file and
+ * does not scan any source, otherwise only changed files are scanned.
+ * </p>
+ */
+public final class FusedTreeWalker extends AbstractFileSetCheck
+{
+    /** Default distance between tab stops. */
+    private static final int DEFAULT_TAB_WIDTH = 8;
+
+    /** Checks to notify about visiting of nodes, indexed by token type. */
+    private Check[][] mVisitTable = new Check[0][];
+
+    /** Checks to notify about leaving of nodes, indexed by token type. */
+    private Check[][] mLeaveTable = new Check[0][];
+
+    /** All registered checks in order of configuration. */
+    private final List<Check> mAllChecks = new ArrayList<Check>();
+
+    /** Checks which override beginTree(). */
+    private final List<Check> mBeginTreeChecks = new ArrayList<Check>();
+
+    /** Checks which override finishTree(). */
+    private final List<Check> mFinishTreeChecks = new ArrayList<Check>();
+
+    /** Checks which implement {@link LexicalFilter}. */
+    private final List<LexicalFilter> mLexicalFilters =
+        new ArrayList<LexicalFilter>();
+
+    /** Checks which implement {@link AuditAware}. */
+    private final List<AuditAware> mAuditAwareChecks =
+        new ArrayList<AuditAware>();
+
+    /** Checks which implement {@link TypeHierarchyAware}. */
+    private final List<TypeHierarchyAware> mHierarchyAwareChecks =
+        new ArrayList<TypeHierarchyAware>();
+
+    /** Directories and files of sources to build the type hierarchy of. */
+    private String[] mSourcePath = new String[0];
+
+    /** File to keep the type hierarchy between audits, may be null. */
+    private File mTypeHierarchyCacheFile;
+
+    /** Whether files rejected by all checks are skipped without parsing. */
+    private boolean mLexicalFiltering;
+
+    /** Distance between tab stops. */
+    private int mTabWidth = DEFAULT_TAB_WIDTH;
+
+    /** Class loader to pass to checks. */
+    private ClassLoader mClassLoader;
+
+    /** Factory to create checks. */
+    private ModuleFactory mModuleFactory;
+
+    /** Context of child checks. */
+    private Context mChildContext;
+
+    /** Creates the walker. */
+    public FusedTreeWalker()
+    {
+        setFileExtensions(new String[] {"java"});
+    }
+
+    /**
+     * Sets distance between tab stops.
+     * @param aTabWidth the distance between tab stops
+     */
+    public void setTabWidth(int aTabWidth)
+    {
+        mTabWidth = aTabWidth;
+    }
+
+    /**
+     * Sets whether files rejected by lexical filters of all checks are
+     * skipped without parsing.
+     * @param aLexicalFiltering true to skip rejected files.
+     */
+    public void setLexicalFiltering(boolean aLexicalFiltering)
+    {
+        mLexicalFiltering = aLexicalFiltering;
+    }
+
+    /**
+     * Sets directories and files of sources to build the type hierarchy of
+     * for checks which implement {@link TypeHierarchyAware}.
+     * @param aSourcePath the directories and files.
+     */
+    public void setSourcePath(String[] aSourcePath)
+    {
+        mSourcePath = aSourcePath.clone();
+    }
+
+    /**
+     * Sets the file to keep the type hierarchy of the source path between
+     * audits.
+     * @param aFileName name of the file.
+     */
+    public void setTypeHierarchyCacheFile(String aFileName)
+    {
+        mTypeHierarchyCacheFile = new File(aFileName);
+    }
+
+    /**
+     * Sets the class loader to pass to checks.
+     * @param aClassLoader class loader to resolve classes with.
+     */
+    public void setClassLoader(ClassLoader aClassLoader)
+    {
+        mClassLoader = aClassLoader;
+    }
+
+    /**
+     * Sets the module factory for creating child modules (Checks).
+     * @param aModuleFactory the factory
+     */
+    public void setModuleFactory(ModuleFactory aModuleFactory)
+    {
+        mModuleFactory = aModuleFactory;
+    }
+
+    @Override
+    public void finishLocalSetup()
+    {
+        final DefaultContext checkContext = new DefaultContext();
+        checkContext.add("classLoader", mClassLoader);
+        checkContext.add("messages", getMessageCollector());
+        checkContext.add("severity", getSeverity());
+        checkContext.add("tabWidth", String.valueOf(mTabWidth));
+        mChildContext = checkContext;
+    }
+
+    @Override
+    public void setupChild(Configuration aChildConf)
+        throws CheckstyleException
+    {
+        final String name = aChildConf.getName();
+        final Object module = mModuleFactory.createModule(name);
+        if (!(module instanceof Check)) {
+            throw new CheckstyleException(
+                "FusedTreeWalker is not allowed as a parent of " + name);
+        }
+        final Check check = (Check) module;
+        check.contextualize(mChildContext);
+        check.configure(aChildConf);
+        check.init();
+        registerCheck(check);
+    }
+
+    @Override
+    protected void processFiltered(File aFile, List<String> aLines)
+    {
+        if (mLexicalFiltering && isRejected(aLines)) {
+            return;
+        }
+        try {
+            final FileText text = FileText.fromLines(aFile, aLines);
+            final FileContents contents = new FileContents(text);
+            walk(TreeWalker.parse(contents), contents);
+        }
+        catch (final RecognitionException re) {
+            logParseError(re.getLine(), re.getColumn(), re.getMessage());
+        }
+        catch (final TokenStreamRecognitionException tre) {
+            final RecognitionException re = tre.recog;
+            if (re != null) {
+                logParseError(re.getLine(), re.getColumn(), re.getMessage());
+            }
+            else {
+                logParseError(0, 0,
+                        "TokenStreamRecognitionException occured.");
+            }
+        }
+        catch (final TokenStreamException te) {
+            logParseError(0, 0, te.getMessage());
+        }
+        catch (final Throwable err) {
+            logParseError(0, 0, "" + err);
+        }
+    }
+
+    @Override
+    public void beginProcessing(String aCharset)
+    {
+        super.beginProcessing(aCharset);
+        if (mSourcePath.length > 0 && !mHierarchyAwareChecks.isEmpty()) {
+            final TypeHierarchy hierarchy = buildTypeHierarchy(aCharset);
+            for (TypeHierarchyAware check : mHierarchyAwareChecks) {
+                check.setTypeHierarchy(hierarchy);
+            }
+        }
+        for (AuditAware check : mAuditAwareChecks) {
+            check.beginAudit();
+        }
+    }
+
+    @Override
+    public void finishProcessing()
+    {
+        final Map<String, SortedSet<LocalizedMessage>> messages =
+            new TreeMap<String, SortedSet<LocalizedMessage>>();
+        for (AuditAware check : mAuditAwareChecks) {
+            for (Map.Entry<String, SortedSet<LocalizedMessage>> entry
+                : check.finishAudit().entrySet())
+            {
+                SortedSet<LocalizedMessage> fileMessages =
+                    messages.get(entry.getKey());
+                if (fileMessages == null) {
+                    fileMessages = new TreeSet<LocalizedMessage>();
+                    messages.put(entry.getKey(), fileMessages);
+                }
+                fileMessages.addAll(entry.getValue());
+            }
+        }
+        final MessageDispatcher dispatcher = getMessageDispatcher();
+        for (Map.Entry<String, SortedSet<LocalizedMessage>> entry
+            : messages.entrySet())
+        {
+            dispatcher.fireFileStarted(entry.getKey());
+            dispatcher.fireErrors(entry.getKey(), entry.getValue());
+            dispatcher.fireFileFinished(entry.getKey());
+        }
+        super.finishProcessing();
+    }
+
+    @Override
+    public void destroy()
+    {
+        for (Check check : mAllChecks) {
+            check.destroy();
+        }
+        super.destroy();
+    }
+
+    /**
+     * Registers a check in tables of callbacks it overrides.
+     * @param aCheck the check to register.
+     * @throws CheckstyleException if the check is subscribed to
+     *         an illegal token.
+     */
+    private void registerCheck(Check aCheck)
+        throws CheckstyleException
+    {
+        final boolean visits = overrides(aCheck, "visitToken");
+        final boolean leaves = overrides(aCheck, "leaveToken");
+        for (int token : WalkerSupport.getTokens(aCheck)) {
+            if (visits) {
+                mVisitTable = register(mVisitTable, token, aCheck);
+            }
+            if (leaves) {
+                mLeaveTable = register(mLeaveTable, token, aCheck);
+            }
+        }
+        if (overrides(aCheck, "beginTree")) {
+            mBeginTreeChecks.add(aCheck);
+        }
+        if (overrides(aCheck, "finishTree")) {
+            mFinishTreeChecks.add(aCheck);
+        }
+        if (aCheck instanceof LexicalFilter) {
+            mLexicalFilters.add((LexicalFilter) aCheck);
+        }
+        if (aCheck instanceof AuditAware) {
+            mAuditAwareChecks.add((AuditAware) aCheck);
+        }
+        if (aCheck instanceof TypeHierarchyAware) {
+            mHierarchyAwareChecks.add((TypeHierarchyAware) aCheck);
+        }
+        mAllChecks.add(aCheck);
+    }
+
+    /**
+     * Builds the type hierarchy of sources of the source path.
+     * @param aCharset name of the charset of the sources.
+     * @return the hierarchy.
+     */
+    private TypeHierarchy buildTypeHierarchy(String aCharset)
+    {
+        final TypeHierarchyBuilder builder = new TypeHierarchyBuilder(
+            aCharset == null ? System.getProperty("file.encoding") : aCharset);
+        builder.setCacheFile(mTypeHierarchyCacheFile);
+        for (String path : mSourcePath) {
+            builder.addSources(new File(path.trim()));
+        }
+        return builder.build(mClassLoader == null
+            ? FusedTreeWalker.class.getClassLoader() : mClassLoader);
+    }
+
+    /**
+     * Checks whether all checks reject a file by its text.
+     * @param aLines lines of the file.
+     * @return true if no check may report violations in the file.
+     */
+    private boolean isRejected(List<String> aLines)
+    {
+        if (mLexicalFilters.size() != mAllChecks.size()) {
+            return false;
+        }
+        final SourceHeader header = SourceHeader.scan(aLines);
+        if (!header.isComplete()) {
+            return false;
+        }
+        for (LexicalFilter filter : mLexicalFilters) {
+            if (filter.isRelevant(header)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the class of a check overrides a callback of Check.
+     * @param aCheck the check.
+     * @param aCallback name of the callback which takes a DetailAST.
+     * @return true if the callback is overridden.
+     */
+    private static boolean overrides(Check aCheck, String aCallback)
+    {
+        try {
+            return aCheck.getClass().getMethod(aCallback, DetailAST.class)
+                .getDeclaringClass() != Check.class;
+        }
+        catch (final NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Adds a check to the table of a token, does nothing if the check is
+     * already in the table.
+     * @param aTable checks indexed by token type.
+     * @param aTokenId the token type.
+     * @param aCheck the check to add.
+     * @return the table, a new one if it was extended.
+     */
+    private static Check[][] register(Check[][] aTable, int aTokenId,
+            Check aCheck)
+    {
+        Check[][] result = aTable;
+        if (aTokenId >= result.length) {
+            result = Arrays.copyOf(result, aTokenId + 1);
+        }
+        final Check[] registered = result[aTokenId];
+        if (registered == null) {
+            result[aTokenId] = new Check[] {aCheck};
+        }
+        else if (!Arrays.asList(registered).contains(aCheck)) {
+            final Check[] extended =
+                Arrays.copyOf(registered, registered.length + 1);
+            extended[registered.length] = aCheck;
+            result[aTokenId] = extended;
+        }
+        return result;
+    }
+
+    /**
+     * Walks the AST notifying checks.
+     * @param aRootAST the root of the AST, null for an empty file.
+     * @param aContents contents of the file.
+     */
+    private void walk(DetailAST aRootAST, FileContents aContents)
+    {
+        for (Check check : mAllChecks) {
+            check.setFileContents(aContents);
+        }
+        for (Check check : mBeginTreeChecks) {
+            check.beginTree(aRootAST);
+        }
+        final Check[][] visitTable = mVisitTable;
+        final Check[][] leaveTable = mLeaveTable;
+        DetailAST curNode = aRootAST;
+        while (curNode != null) {
+            int type = curNode.getType();
+            if (type < visitTable.length && visitTable[type] != null) {
+                for (Check check : visitTable[type]) {
+                    check.visitToken(curNode);
+                }
+            }
+            DetailAST toVisit = curNode.getFirstChild();
+            while (curNode != null && toVisit == null) {
+                type = curNode.getType();
+                if (type < leaveTable.length && leaveTable[type] != null) {
+                    for (Check check : leaveTable[type]) {
+                        check.leaveToken(curNode);
+                    }
+                }
+                toVisit = curNode.getNextSibling();
+                if (toVisit == null) {
+                    curNode = curNode.getParent();
+                }
+            }
+            curNode = toVisit;
+        }
+        for (Check check : mFinishTreeChecks) {
+            check.finishTree(aRootAST);
+        }
+    }
+
+    /**
+     * Logs an error of parsing the same way TreeWalker does it.
+     * @param aLine line of the error.
+     * @param aColumn column of the error.
+     * @param aMessage text of the error.
+     */
+    private void logParseError(int aLine, int aColumn, String aMessage)
+    {
+        getMessageCollector().add(WalkerSupport.createParseError(
+                aLine, aColumn, aMessage, getId()));
+    }
+}
@@ -0,0 +1,42 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.walker;
+
+/**
+ * <p>
+ * Implemented by checks which can tell from the text of a file, without its
+ * AST, that they will not report anything in the file. When every check of
+ * {@link FusedTreeWalker} rejects a file, the walker does not parse it.
+ * </p>
+ * <p>
+ * A filter should be conservative: it may accept a file in which the check
+ * finds nothing, but must never reject a file in which the check would
+ * report a violation.
+ * </p>
+ */
+public interface LexicalFilter
+{
+    /**
+     * Checks whether the check may report violations in a file.
+     * @param aHeader complete header of the file, which also gives access
+     *        to all lines of the file.
+     * @return false if the check surely reports nothing in the file.
+     */
+    boolean isRelevant(SourceHeader aHeader);
+}
@@ -0,0 +1,559 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.walker;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import antlr.RecognitionException;
+import antlr.TokenStreamException;
+import antlr.TokenStreamRecognitionException;
+
+import com.puppycrawl.tools.checkstyle.DefaultContext;
+import com.puppycrawl.tools.checkstyle.ModuleFactory;
+import com.puppycrawl.tools.checkstyle.TreeWalker;
+import com.puppycrawl.tools.checkstyle.api.AbstractFileSetCheck;
+import com.puppycrawl.tools.checkstyle.api.Check;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.Configuration;
+import com.puppycrawl.tools.checkstyle.api.Context;
+import com.puppycrawl.tools.checkstyle.api.DetailAST;
+import com.puppycrawl.tools.checkstyle.api.FileContents;
+import com.puppycrawl.tools.checkstyle.api.FileText;
+
+/**
+ * <p>
+ * Drop-in replacement of TreeWalker which measures how much time every check
+ * takes. It wraps beginTree(), visitToken(), leaveToken() and finishTree()
+ * callbacks of every child check and records wall time, count of callbacks
+ * and count of AST nodes visited by the check, for each check and each file.
+ * Time of parsing is recorded as the "&lt;parse&gt;" pseudo-check.
+ * </p>
+ * <p>
+ * At the end of the audit a summary sorted by total time is printed to the
+ * standard output, or written to the file set by "summaryFile" property.
+ * If "reportFile" property is set, values for every file
+ * and every check are written to that file in CSV format with columns:
+ * file, check, nanos, calls, nodes.
+ * </p>
+ * <p>
+ * To profile an existing configuration replace
+ * <code>&lt;module name="TreeWalker"&gt;</code> with:
+ * </p>
+ * <pre>
+ * &lt;module name="com.github.sevntu.checkstyle.walker.ProfilingTreeWalker"&gt;
+ *     &lt;property name="reportFile" value="target/checkstyle-profile.csv"/&gt;
+ *     &lt;property name="summaryFile" value="target/checkstyle-profile.txt"/&gt;
+ *     ...
+ * &lt;/module&gt;
+ * </pre>
+ * <p>
+ * Profiling adds a call of System.nanoTime() to every callback, so it is
+ * not intended for regular audits. "cacheFile" property of TreeWalker is
+ * not supported, every file is always processed.
+ * </p>
+ */
+public final class ProfilingTreeWalker extends AbstractFileSetCheck
+{
+    /** Name of the pseudo-check which measures parsing. */
+    static final String PARSE_PROFILE_NAME = "<parse>";
+
+    /** Header of the report file. */
+    private static final String REPORT_HEADER = "file,check,nanos,calls,nodes";
+
+    /** Count of nanoseconds in a millisecond. */
+    private static final double NANOS_IN_MILLI = 1000000.0;
+
+    /** Default distance between tab stops. */
+    private static final int DEFAULT_TAB_WIDTH = 8;
+
+    /** Checks registered for every token type, indexed by the type. */
+    private ProfiledCheck[][] mTokenToChecks = new ProfiledCheck[0][];
+
+    /** All registered checks in order of configuration. */
+    private final List<ProfiledCheck> mAllChecks =
+        new ArrayList<ProfiledCheck>();
+
+    /** Profile of parsing. */
+    private final CheckProfile mParseProfile =
+        new CheckProfile(PARSE_PROFILE_NAME);
+
+    /** Names of profiles used so far. */
+    private final Set<String> mProfileNames = new HashSet<String>();
+
+    /** Distance between tab stops. */
+    private int mTabWidth = DEFAULT_TAB_WIDTH;
+
+    /** Class loader to pass to checks. */
+    private ClassLoader mClassLoader;
+
+    /** Factory to create checks. */
+    private ModuleFactory mModuleFactory;
+
+    /** Context of child checks. */
+    private Context mChildContext;
+
+    /** Name of the file to write values of every file to. */
+    private String mReportFile;
+
+    /** Writer of the report file, opened at the beginning of processing. */
+    private PrintWriter mReportWriter;
+
+    /** Name of the file to write summary to, standard output if null. */
+    private String mSummaryFile;
+
+    /** Creates the walker. */
+    public ProfilingTreeWalker()
+    {
+        setFileExtensions(new String[] {"java"});
+    }
+
+    /**
+     * Sets distance between tab stops.
+     * @param aTabWidth the distance between tab stops
+     */
+    public void setTabWidth(int aTabWidth)
+    {
+        mTabWidth = aTabWidth;
+    }
+
+    /**
+     * Sets the class loader to pass to checks.
+     * @param aClassLoader class loader to resolve classes with.
+     */
+    public void setClassLoader(ClassLoader aClassLoader)
+    {
+        mClassLoader = aClassLoader;
+    }
+
+    /**
+     * Sets the module factory for creating child modules (Checks).
+     * @param aModuleFactory the factory
+     */
+    public void setModuleFactory(ModuleFactory aModuleFactory)
+    {
+        mModuleFactory = aModuleFactory;
+    }
+
+    /**
+     * Sets the name of the file to write values of every file and every
+     * check to.
+     * @param aReportFile name of the report file.
+     */
+    public void setReportFile(String aReportFile)
+    {
+        mReportFile = aReportFile;
+    }
+
+    /**
+     * Sets the name of the file to write summary to, instead of the standard
+     * output.
+     * @param aSummaryFile name of the summary file.
+     */
+    public void setSummaryFile(String aSummaryFile)
+    {
+        mSummaryFile = aSummaryFile;
+    }
+
+    @Override
+    public void finishLocalSetup()
+    {
+        final DefaultContext checkContext = new DefaultContext();
+        checkContext.add("classLoader", mClassLoader);
+        checkContext.add("messages", getMessageCollector());
+        checkContext.add("severity", getSeverity());
+        checkContext.add("tabWidth", String.valueOf(mTabWidth));
+        mChildContext = checkContext;
+    }
+
+    @Override
+    public void setupChild(Configuration aChildConf)
+        throws CheckstyleException
+    {
+        final String name = aChildConf.getName();
+        final Object module = mModuleFactory.createModule(name);
+        if (!(module instanceof Check)) {
+            throw new CheckstyleException(
+                "ProfilingTreeWalker is not allowed as a parent of " + name);
+        }
+        final Check check = (Check) module;
+        check.contextualize(mChildContext);
+        check.configure(aChildConf);
+        check.init();
+        registerCheck(check);
+    }
+
+    @Override
+    public void beginProcessing(String aCharset)
+    {
+        if (mReportFile != null) {
+            try {
+                mReportWriter = new PrintWriter(new OutputStreamWriter(
+                        new FileOutputStream(mReportFile), "UTF-8"));
+            }
+            catch (IOException e) {
+                throw new IllegalStateException(
+                        "Cannot create report file " + mReportFile, e);
+            }
+            mReportWriter.println(REPORT_HEADER);
+        }
+    }
+
+    @Override
+    protected void processFiltered(File aFile, List<String> aLines)
+    {
+        final String fileName = aFile.getPath();
+        try {
+            final FileText text = FileText.fromLines(aFile, aLines);
+            final FileContents contents = new FileContents(text);
+            final long start = System.nanoTime();
+            final DetailAST rootAST = TreeWalker.parse(contents);
+            mParseProfile.addCall(System.nanoTime() - start);
+            walk(rootAST, contents);
+        }
+        catch (final RecognitionException re) {
+            logParseError(re.getLine(), re.getColumn(), re.getMessage());
+        }
+        catch (final TokenStreamRecognitionException tre) {
+            final RecognitionException re = tre.recog;
+            if (re != null) {
+                logParseError(re.getLine(), re.getColumn(), re.getMessage());
+            }
+            else {
+                logParseError(0, 0,
+                        "TokenStreamRecognitionException occured.");
+            }
+        }
+        catch (final TokenStreamException te) {
+            logParseError(0, 0, te.getMessage());
+        }
+        catch (final Throwable err) {
+            logParseError(0, 0, "" + err);
+        }
+        finishFile(fileName);
+    }
+
+    @Override
+    public void finishProcessing()
+    {
+        if (mReportWriter != null) {
+            mReportWriter.close();
+            mReportWriter = null;
+        }
+        if (mSummaryFile == null) {
+            printSummary(System.out);
+        }
+        else {
+            final PrintStream summaryStream;
+            try {
+                summaryStream = new PrintStream(
+                        new FileOutputStream(mSummaryFile), false, "UTF-8");
+            }
+            catch (IOException e) {
+                throw new IllegalStateException(
+                        "Cannot create summary file " + mSummaryFile, e);
+            }
+            try {
+                printSummary(summaryStream);
+            }
+            finally {
+                summaryStream.close();
+            }
+        }
+    }
+
+    @Override
+    public void destroy()
+    {
+        for (ProfiledCheck check : mAllChecks) {
+            check.mCheck.destroy();
+        }
+        if (mReportWriter != null) {
+            mReportWriter.close();
+            mReportWriter = null;
+        }
+        super.destroy();
+    }
+
+    /**
+     * Registers a check for tokens it is subscribed to, the same way
+     * TreeWalker does it.
+     * @param aCheck the check to register.
+     * @throws CheckstyleException if the check is subscribed to
+     *         an illegal token.
+     */
+    private void registerCheck(Check aCheck)
+        throws CheckstyleException
+    {
+        final ProfiledCheck profiled =
+            new ProfiledCheck(aCheck, new CheckProfile(createName(aCheck)));
+        for (int token : WalkerSupport.getTokens(aCheck)) {
+            registerCheck(token, profiled);
+        }
+        mAllChecks.add(profiled);
+    }
+
+    /**
+     * Registers a check for a token, does nothing if the check is already
+     * registered for the token.
+     * @param aTokenId the token type.
+     * @param aCheck the check to register.
+     */
+    private void registerCheck(int aTokenId, ProfiledCheck aCheck)
+    {
+        if (aTokenId >= mTokenToChecks.length) {
+            final ProfiledCheck[][] extended = new ProfiledCheck[aTokenId + 1][];
+            System.arraycopy(mTokenToChecks, 0, extended, 0,
+                    mTokenToChecks.length);
+            mTokenToChecks = extended;
+        }
+        final ProfiledCheck[] registered = mTokenToChecks[aTokenId];
+        if (registered == null) {
+            mTokenToChecks[aTokenId] = new ProfiledCheck[] {aCheck};
+        }
+        else if (!Arrays.asList(registered).contains(aCheck)) {
+            final ProfiledCheck[] extended =
+                new ProfiledCheck[registered.length + 1];
+            System.arraycopy(registered, 0, extended, 0, registered.length);
+            extended[registered.length] = aCheck;
+            mTokenToChecks[aTokenId] = extended;
+        }
+    }
+
+    /**
+     * Creates a unique name of the check for reports.
+     * @param aCheck the check.
+     * @return id of the check if it is set, simple name of its class
+     *         otherwise; a number is appended to repeated names.
+     */
+    private String createName(Check aCheck)
+    {
+        final String baseName = aCheck.getId() != null
+            ? aCheck.getId() : aCheck.getClass().getSimpleName();
+        String name = baseName;
+        int number = 1;
+        while (!mProfileNames.add(name)) {
+            number++;
+            name = baseName + "#" + number;
+        }
+        return name;
+    }
+
+    /**
+     * Walks the AST notifying checks.
+     * @param aRootAST the root of the AST, null for an empty file.
+     * @param aContents contents of the file.
+     */
+    private void walk(DetailAST aRootAST, FileContents aContents)
+    {
+        for (ProfiledCheck check : mAllChecks) {
+            check.mCheck.setFileContents(aContents);
+            final long start = System.nanoTime();
+            check.mCheck.beginTree(aRootAST);
+            check.mProfile.addCall(System.nanoTime() - start);
+        }
+        DetailAST curNode = aRootAST;
+        while (curNode != null) {
+            notifyVisit(curNode);
+            DetailAST toVisit = curNode.getFirstChild();
+            while (curNode != null && toVisit == null) {
+                notifyLeave(curNode);
+                toVisit = curNode.getNextSibling();
+                if (toVisit == null) {
+                    curNode = curNode.getParent();
+                }
+            }
+            curNode = toVisit;
+        }
+        for (ProfiledCheck check : mAllChecks) {
+            final long start = System.nanoTime();
+            check.mCheck.finishTree(aRootAST);
+            check.mProfile.addCall(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Notifies checks which are subscribed to the type of the node
+     * about visiting of the node.
+     * @param aAST the node.
+     */
+    private void notifyVisit(DetailAST aAST)
+    {
+        final int type = aAST.getType();
+        if (type < mTokenToChecks.length && mTokenToChecks[type] != null) {
+            for (ProfiledCheck check : mTokenToChecks[type]) {
+                final long start = System.nanoTime();
+                check.mCheck.visitToken(aAST);
+                check.mProfile.addVisit(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Notifies checks which are subscribed to the type of the node
+     * about leaving of the node.
+     * @param aAST the node.
+     */
+    private void notifyLeave(DetailAST aAST)
+    {
+        final int type = aAST.getType();
+        if (type < mTokenToChecks.length && mTokenToChecks[type] != null) {
+            for (ProfiledCheck check : mTokenToChecks[type]) {
+                final long start = System.nanoTime();
+                check.mCheck.leaveToken(aAST);
+                check.mProfile.addCall(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Logs an error of parsing the same way TreeWalker does it.
+     * @param aLine line of the error.
+     * @param aColumn column of the error.
+     * @param aMessage text of the error.
+     */
+    private void logParseError(int aLine, int aColumn, String aMessage)
+    {
+        getMessageCollector().add(WalkerSupport.createParseError(
+                aLine, aColumn, aMessage, getId()));
+    }
+
+    /**
+     * Writes values of the processed file to the report and adds them to
+     * totals.
+     * @param aFileName name of the processed file.
+     */
+    private void finishFile(String aFileName)
+    {
+        if (mReportWriter != null) {
+            writeReportLine(aFileName, mParseProfile);
+            for (ProfiledCheck check : mAllChecks) {
+                writeReportLine(aFileName, check.mProfile);
+            }
+        }
+        mParseProfile.finishFile(aFileName);
+        for (ProfiledCheck check : mAllChecks) {
+            check.mProfile.finishFile(aFileName);
+        }
+    }
+
+    /**
+     * Writes values of the current file to the report.
+     * @param aFileName name of the processed file.
+     * @param aProfile profile to write values of.
+     */
+    private void writeReportLine(String aFileName, CheckProfile aProfile)
+    {
+        mReportWriter.print(quote(aFileName));
+        mReportWriter.print(',');
+        mReportWriter.print(quote(aProfile.getName()));
+        mReportWriter.print(',');
+        mReportWriter.print(aProfile.getFileNanos());
+        mReportWriter.print(',');
+        mReportWriter.print(aProfile.getFileCalls());
+        mReportWriter.print(',');
+        mReportWriter.println(aProfile.getFileNodes());
+    }
+
+    /**
+     * Prints totals of all checks, the slowest first.
+     * @param aSummaryStream stream to print summary to.
+     */
+    private void printSummary(PrintStream aSummaryStream)
+    {
+        final List<CheckProfile> profiles = new ArrayList<CheckProfile>();
+        profiles.add(mParseProfile);
+        long totalNanos = mParseProfile.getTotalNanos();
+        for (ProfiledCheck check : mAllChecks) {
+            profiles.add(check.mProfile);
+            totalNanos += check.mProfile.getTotalNanos();
+        }
+        Collections.sort(profiles, CheckProfile.SLOWEST_FIRST);
+
+        aSummaryStream.println(String.format(Locale.ENGLISH,
+                "Profile of %d file(s), %.1f ms total:",
+                mParseProfile.getFiles(), totalNanos / NANOS_IN_MILLI));
+        aSummaryStream.println(String.format(Locale.ENGLISH,
+                "%-50s %12s %6s %12s %12s %12s  %s", "check", "time, ms", "%",
+                "calls", "nodes", "max, ms", "slowest file"));
+        for (CheckProfile profile : profiles) {
+            final double percent = totalNanos == 0
+                ? 0 : 100.0 * profile.getTotalNanos() / totalNanos;
+            aSummaryStream.println(String.format(Locale.ENGLISH,
+                    "%-50s %12.1f %6.1f %12d %12d %12.1f  %s",
+                    profile.getName(),
+                    profile.getTotalNanos() / NANOS_IN_MILLI,
+                    percent,
+                    profile.getTotalCalls(),
+                    profile.getTotalNodes(),
+                    profile.getMaxFileNanos() / NANOS_IN_MILLI,
+                    profile.getSlowestFile() == null
+                        ? "" : profile.getSlowestFile()));
+        }
+        aSummaryStream.flush();
+    }
+
+    /**
+     * Quotes a value for the CSV report if it is required.
+     * @param aValue the value.
+     * @return the value safe to be written to CSV.
+     */
+    private static String quote(String aValue)
+    {
+        String result = aValue;
+        if (aValue.indexOf(',') >= 0 || aValue.indexOf('"') >= 0) {
+            result = '"' + aValue.replace("\"", "\"\"") + '"';
+        }
+        return result;
+    }
+
+    /**
+     * A check together with its profile.
+     */
+    private static final class ProfiledCheck
+    {
+        /** The check. */
+        private final Check mCheck;
+
+        /** Profile of the check. */
+        private final CheckProfile mProfile;
+
+        /**
+         * Creates a profiled check.
+         * @param aCheck the check.
+         * @param aProfile profile of the check.
+         */
+        ProfiledCheck(Check aCheck, CheckProfile aProfile)
+        {
+            mCheck = aCheck;
+            mProfile = aProfile;
+        }
+    }
+}
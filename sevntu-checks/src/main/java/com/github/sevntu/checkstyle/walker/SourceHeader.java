@@ -0,0 +1,344 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.walker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ * Package and import declarations of a Java file, found by a lexical scan of
+ * the beginning of the file without building the AST. The scan stops at the
+ * first token which cannot belong to the header, so its cost does not
+ * depend on the size of the file.
+ * </p>
+ * <p>
+ * The scan understands comments, whitespace, identifiers and the
+ * punctuation of declarations. When the header contains anything else, for
+ * example an annotation of the package or a unicode escape, the header is
+ * reported as incomplete and should not be trusted.
+ * </p>
+ */
+public final class SourceHeader
+{
+    /** Lines of the file. */
+    private final List<String> mLines;
+
+    /** Name of the package, null for the default package. */
+    private String mPackageName;
+
+    /** Declared imports in order of declaration. */
+    private final List<Import> mImports = new ArrayList<Import>();
+
+    /** Whether the whole header is recognized. */
+    private boolean mComplete;
+
+    /** Index of the current line. */
+    private int mLine;
+
+    /** Index of the current character in the current line. */
+    private int mColumn;
+
+    /**
+     * Creates the header of lines, the header is not scanned yet.
+     * @param aLines lines of the file.
+     */
+    private SourceHeader(List<String> aLines)
+    {
+        mLines = aLines;
+    }
+
+    /**
+     * Scans the header of a file.
+     * @param aLines lines of the file.
+     * @return the header.
+     */
+    public static SourceHeader scan(List<String> aLines)
+    {
+        final SourceHeader result = new SourceHeader(aLines);
+        result.mComplete = result.scanDeclarations();
+        return result;
+    }
+
+    /**
+     * @return lines of the file.
+     */
+    public List<String> getLines()
+    {
+        return Collections.unmodifiableList(mLines);
+    }
+
+    /**
+     * @return name of the package, null for the default package.
+     */
+    public String getPackageName()
+    {
+        return mPackageName;
+    }
+
+    /**
+     * @return declared imports in order of declaration.
+     */
+    public List<Import> getImports()
+    {
+        return Collections.unmodifiableList(mImports);
+    }
+
+    /**
+     * @return true if the whole header is recognized, false if the scan
+     *         stopped at something it does not understand.
+     */
+    public boolean isComplete()
+    {
+        return mComplete;
+    }
+
+    /**
+     * Checks whether a word occurs in the file, outside of the header too.
+     * Occurrences in comments and string literals are counted as well, a
+     * line with a unicode escape is considered to contain any word.
+     * @param aWord the word, a Java identifier.
+     * @return true if the word occurs surrounded by characters which
+     *         cannot be part of an identifier.
+     */
+    public boolean containsWord(String aWord)
+    {
+        for (String line : mLines) {
+            if (line.indexOf("\\u") >= 0) {
+                return true;
+            }
+            int index = line.indexOf(aWord);
+            while (index >= 0) {
+                final int end = index + aWord.length();
+                if ((index == 0
+                        || !Character.isJavaIdentifierPart(
+                            line.charAt(index - 1)))
+                    && (end == line.length()
+                        || !Character.isJavaIdentifierPart(line.charAt(end))))
+                {
+                    return true;
+                }
+                index = line.indexOf(aWord, index + 1);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Scans package and import declarations.
+     * @return true if the header is recognized.
+     */
+    private boolean scanDeclarations()
+    {
+        String token = nextToken();
+        if ("package".equals(token)) {
+            mPackageName = scanName(false);
+            if (mPackageName == null) {
+                return false;
+            }
+            token = nextToken();
+        }
+        while ("import".equals(token) || ";".equals(token)) {
+            if ("import".equals(token)) {
+                final int lineNo = mLine + 1;
+                token = nextToken();
+                final boolean isStatic = "static".equals(token);
+                if (isStatic) {
+                    token = nextToken();
+                }
+                final String name = scanName(token, true);
+                if (name == null) {
+                    return false;
+                }
+                mImports.add(new Import(name, lineNo, isStatic));
+            }
+            token = nextToken();
+        }
+        // an annotation or an unknown character before the first
+        // declaration may precede an unrecognized package declaration
+        return mPackageName != null || !mImports.isEmpty() || token == null
+            || isIdentifier(token);
+    }
+
+    /**
+     * Scans a qualified name terminated by a semicolon.
+     * @param aWildcard whether the name may end with ".*".
+     * @return the name, null if it is malformed.
+     */
+    private String scanName(boolean aWildcard)
+    {
+        return scanName(nextToken(), aWildcard);
+    }
+
+    /**
+     * Scans a qualified name terminated by a semicolon.
+     * @param aFirstToken first token of the name.
+     * @param aWildcard whether the name may end with ".*".
+     * @return the name, null if it is malformed.
+     */
+    private String scanName(String aFirstToken, boolean aWildcard)
+    {
+        if (!isIdentifier(aFirstToken)) {
+            return null;
+        }
+        final StringBuilder result = new StringBuilder(aFirstToken);
+        String token = nextToken();
+        while (".".equals(token)) {
+            token = nextToken();
+            if (isIdentifier(token) || aWildcard && "*".equals(token)) {
+                result.append('.').append(token);
+                if ("*".equals(token)) {
+                    token = nextToken();
+                    break;
+                }
+            }
+            else {
+                return null;
+            }
+            token = nextToken();
+        }
+        return ";".equals(token) ? result.toString() : null;
+    }
+
+    /**
+     * Checks whether a token is an identifier.
+     * @param aToken the token, may be null.
+     * @return true if the token is an identifier.
+     */
+    private static boolean isIdentifier(String aToken)
+    {
+        return aToken != null
+            && Character.isJavaIdentifierStart(aToken.charAt(0));
+    }
+
+    /**
+     * Reads the next token, skipping whitespace and comments.
+     * @return an identifier, a single character of punctuation or null at
+     *         the end of the file or of an unterminated comment.
+     */
+    private String nextToken()
+    {
+        while (mLine < mLines.size()) {
+            final String line = mLines.get(mLine);
+            if (mColumn >= line.length()) {
+                mLine++;
+                mColumn = 0;
+                continue;
+            }
+            final char ch = line.charAt(mColumn);
+            if (Character.isWhitespace(ch)) {
+                mColumn++;
+            }
+            else if (line.startsWith("//", mColumn)) {
+                mColumn = line.length();
+            }
+            else if (line.startsWith("/*", mColumn)) {
+                skipBlockComment();
+            }
+            else if (Character.isJavaIdentifierStart(ch)) {
+                final int start = mColumn;
+                do {
+                    mColumn++;
+                }
+                while (mColumn < line.length()
+                    && Character.isJavaIdentifierPart(line.charAt(mColumn)));
+                return line.substring(start, mColumn);
+            }
+            else {
+                mColumn++;
+                return String.valueOf(ch);
+            }
+        }
+        return null;
+    }
+
+    /** Skips a block comment which starts at the current position. */
+    private void skipBlockComment()
+    {
+        mColumn += 2;
+        while (mLine < mLines.size()) {
+            final int end = mLines.get(mLine).indexOf("*/", mColumn);
+            if (end >= 0) {
+                mColumn = end + 2;
+                return;
+            }
+            mLine++;
+            mColumn = 0;
+        }
+    }
+
+    /**
+     * Import declaration of a file.
+     */
+    public static final class Import
+    {
+        /** Imported name, ends with ".*" for on-demand imports. */
+        private final String mName;
+
+        /** Number of the line of the declaration, starting from 1. */
+        private final int mLineNo;
+
+        /** Whether the import is static. */
+        private final boolean mStatic;
+
+        /**
+         * Creates the import.
+         * @param aName imported name.
+         * @param aLineNo number of the line of the declaration.
+         * @param aStatic whether the import is static.
+         */
+        Import(String aName, int aLineNo, boolean aStatic)
+        {
+            mName = aName;
+            mLineNo = aLineNo;
+            mStatic = aStatic;
+        }
+
+        /**
+         * @return imported name, ends with ".*" for on-demand imports.
+         */
+        public String getName()
+        {
+            return mName;
+        }
+
+        /**
+         * @return number of the line of the declaration, starting from 1.
+         */
+        public int getLineNo()
+        {
+            return mLineNo;
+        }
+
+        /**
+         * @return whether the import is static.
+         */
+        public boolean isStatic()
+        {
+            return mStatic;
+        }
+
+        @Override
+        public String toString()
+        {
+            return (mStatic ? "static " : "") + mName;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.walker;
+
+import com.github.sevntu.checkstyle.index.TypeHierarchy;
+
+/**
+ * <p>
+ * Implemented by checks which need relations of types declared in other
+ * files of a project. When "sourcePath" property of {@link FusedTreeWalker}
+ * is set, the walker builds the hierarchy of all types declared under the
+ * source path before the first file of an audit and passes it to such
+ * checks.
+ * </p>
+ * <p>
+ * A check should keep working without the hierarchy: TreeWalker never sets
+ * it, and neither does FusedTreeWalker without the source path.
+ * </p>
+ */
+public interface TypeHierarchyAware
+{
+    /**
+     * Sets the hierarchy of types of the audited project.
+     * @param aHierarchy the hierarchy, null when it is not available.
+     */
+    void setTypeHierarchy(TypeHierarchy aHierarchy);
+}
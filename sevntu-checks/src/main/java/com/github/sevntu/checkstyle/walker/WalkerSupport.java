@@ -0,0 +1,102 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.walker;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import com.puppycrawl.tools.checkstyle.TreeWalker;
+import com.puppycrawl.tools.checkstyle.api.Check;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.LocalizedMessage;
+import com.puppycrawl.tools.checkstyle.api.TokenTypes;
+
+/**
+ * Rules of TreeWalker which are shared by walkers of this package.
+ */
+final class WalkerSupport
+{
+    /** Bundle of checkstyle messages for parse errors. */
+    private static final String CHECKSTYLE_BUNDLE =
+        "com.puppycrawl.tools.checkstyle.messages";
+
+    /** Prevents instantiation. */
+    private WalkerSupport()
+    {
+    }
+
+    /**
+     * Gets tokens a check is subscribed to, the same way TreeWalker gets
+     * them: tokens set in the configuration which are acceptable by the
+     * check together with required tokens, or default tokens if tokens are
+     * not set.
+     * @param aCheck the check.
+     * @return token types, may contain repeated types.
+     * @throws CheckstyleException if the check is subscribed to
+     *         an illegal token.
+     */
+    static int[] getTokens(Check aCheck)
+        throws CheckstyleException
+    {
+        final Set<String> checkTokens = aCheck.getTokenNames();
+        int[] result;
+        if (!checkTokens.isEmpty()) {
+            final int[] requiredTokens = aCheck.getRequiredTokens();
+            final int[] acceptableTokens = aCheck.getAcceptableTokens();
+            Arrays.sort(acceptableTokens);
+            result = Arrays.copyOf(requiredTokens,
+                    requiredTokens.length + checkTokens.size());
+            int count = requiredTokens.length;
+            for (String token : checkTokens) {
+                try {
+                    final int tokenId = TokenTypes.getTokenId(token);
+                    if (Arrays.binarySearch(acceptableTokens, tokenId) >= 0) {
+                        result[count++] = tokenId;
+                    }
+                }
+                catch (final IllegalArgumentException ex) {
+                    throw new CheckstyleException("illegal token \""
+                        + token + "\" in check " + aCheck, ex);
+                }
+            }
+            result = Arrays.copyOf(result, count);
+        }
+        else {
+            result = aCheck.getDefaultTokens();
+        }
+        return result;
+    }
+
+    /**
+     * Creates the message about an error of parsing the same way
+     * TreeWalker does it.
+     * @param aLine line of the error.
+     * @param aColumn column of the error.
+     * @param aMessage text of the error.
+     * @param aModuleId id of the walker.
+     * @return the message.
+     */
+    static LocalizedMessage createParseError(int aLine, int aColumn,
+            String aMessage, String aModuleId)
+    {
+        return new LocalizedMessage(aLine, aColumn, CHECKSTYLE_BUNDLE,
+                "general.exception", new String[] {aMessage}, aModuleId,
+                TreeWalker.class, null);
+    }
+}
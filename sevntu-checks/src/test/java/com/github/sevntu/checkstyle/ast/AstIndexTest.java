@@ -0,0 +1,178 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.ast;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.puppycrawl.tools.checkstyle.TreeWalker;
+import com.puppycrawl.tools.checkstyle.api.DetailAST;
+import com.puppycrawl.tools.checkstyle.api.FileContents;
+import com.puppycrawl.tools.checkstyle.api.FileText;
+import com.puppycrawl.tools.checkstyle.api.TokenTypes;
+
+public class AstIndexTest extends Assert
+{
+    private static final int[] TYPES = {
+        TokenTypes.CLASS_DEF, TokenTypes.METHOD_DEF, TokenTypes.IDENT,
+        TokenTypes.METHOD_CALL, TokenTypes.LITERAL_FOR, TokenTypes.IMPORT,
+        TokenTypes.RCURLY, TokenTypes.LITERAL_THIS,
+    };
+
+    private DetailAST mRoot;
+
+    private List<DetailAST> mAllNodes;
+
+    @Before
+    public void setUp()
+        throws Exception
+    {
+        mRoot = parse("InputAstIndex.java");
+        mAllNodes = new ArrayList<DetailAST>();
+        for (DetailAST node = mRoot; node != null;
+            node = node.getNextSibling())
+        {
+            AstTraversal.walk(node, new AstVisitor() {
+                @Override
+                public Action visit(DetailAST aNode)
+                {
+                    mAllNodes.add(aNode);
+                    return Action.CONTINUE;
+                }
+            });
+        }
+    }
+
+    @Test
+    public void testNodesOfFile()
+    {
+        final AstIndex index = AstIndex.of(mRoot);
+        for (int type : TYPES) {
+            assertEquals(TokenTypes.getTokenName(type),
+                    filter(mAllNodes, type), index.getNodes(type));
+        }
+        assertEquals(2, index.getNodes(TokenTypes.IMPORT).size());
+        assertTrue(index.getNodes(TokenTypes.LITERAL_WHILE).isEmpty());
+        assertTrue(index.getNodes(Integer.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    public void testNodesOfSubtree()
+    {
+        final AstIndex index = AstIndex.of(mRoot);
+        for (DetailAST node : mAllNodes) {
+            for (int type : TYPES) {
+                final List<DetailAST> expected =
+                    AstTraversal.findAll(node, type,
+                            new ArrayList<DetailAST>());
+                assertEquals(expected, index.getNodes(node, type));
+                assertEquals(!expected.isEmpty(), index.contains(node, type));
+            }
+        }
+    }
+
+    @Test
+    public void testNodesOfSeveralTypes()
+    {
+        final AstIndex index = AstIndex.of(mRoot);
+        for (DetailAST node : mAllNodes) {
+            final List<DetailAST> expected = new ArrayList<DetailAST>();
+            AstTraversal.walk(node, new AstVisitor() {
+                @Override
+                public Action visit(DetailAST aNode)
+                {
+                    if (aNode.getType() == TokenTypes.IDENT
+                        || aNode.getType() == TokenTypes.LITERAL_IF)
+                    {
+                        expected.add(aNode);
+                    }
+                    return Action.CONTINUE;
+                }
+            });
+            assertEquals(expected, index.getNodes(node,
+                    TokenTypes.IDENT, TokenTypes.LITERAL_IF));
+        }
+    }
+
+    @Test
+    public void testSharedByRoot()
+        throws Exception
+    {
+        final AstIndex index = AstIndex.of(mRoot);
+        assertSame(index, AstIndex.of(mRoot));
+
+        final DetailAST otherRoot = parse("InputAstIndex.java");
+        final AstIndex otherIndex = AstIndex.of(otherRoot);
+        assertNotSame(index, otherIndex);
+        assertSame(otherRoot,
+                otherIndex.getNodes(TokenTypes.PACKAGE_DEF).get(0));
+    }
+
+    @Test
+    public void testRelease()
+        throws Exception
+    {
+        final AstIndex index = AstIndex.of(mRoot);
+        final DetailAST otherRoot = parse("InputAstIndex.java");
+        AstIndex.release(otherRoot);
+        assertSame(index, AstIndex.of(mRoot));
+
+        AstIndex.release(mRoot);
+        assertNotSame(index, AstIndex.of(mRoot));
+        AstIndex.release(mRoot);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNodeOfOtherFile()
+        throws Exception
+    {
+        final DetailAST otherRoot = parse("InputAstIndex.java");
+        AstIndex.of(mRoot).getNodes(otherRoot, TokenTypes.IDENT);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testUnmodifiable()
+    {
+        AstIndex.of(mRoot).getNodes(TokenTypes.IDENT).clear();
+    }
+
+    private static List<DetailAST> filter(List<DetailAST> aNodes, int aType)
+    {
+        final List<DetailAST> result = new ArrayList<DetailAST>();
+        for (DetailAST node : aNodes) {
+            if (node.getType() == aType) {
+                result.add(node);
+            }
+        }
+        return result;
+    }
+
+    private DetailAST parse(String aName)
+        throws Exception
+    {
+        final File file = new File(getClass().getResource(aName).getPath());
+        return TreeWalker.parse(
+                new FileContents(new FileText(file, "UTF-8")));
+    }
+}
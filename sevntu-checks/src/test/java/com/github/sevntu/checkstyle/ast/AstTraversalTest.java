@@ -0,0 +1,202 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.ast;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.puppycrawl.tools.checkstyle.api.DetailAST;
+import com.puppycrawl.tools.checkstyle.api.TokenTypes;
+
+public class AstTraversalTest extends Assert
+{
+    private DetailAST mRoot;
+
+    private DetailAST mObjBlock;
+
+    @Before
+    public void setUp()
+    {
+        // the root has a sibling, which traversals of the root never visit
+        final DetailAST parent = createNode(TokenTypes.OBJBLOCK, "parent");
+        mRoot = createNode(TokenTypes.CLASS_DEF, "A");
+        parent.addChild(mRoot);
+        parent.addChild(createNode(TokenTypes.METHOD_DEF, "sibling"));
+
+        final DetailAST modifiers = createNode(TokenTypes.MODIFIERS, "modifiers");
+        modifiers.addChild(createNode(TokenTypes.LITERAL_PUBLIC, "public"));
+        mRoot.addChild(modifiers);
+        mRoot.addChild(createNode(TokenTypes.IDENT, "name"));
+        mObjBlock = createNode(TokenTypes.OBJBLOCK, "body");
+        mRoot.addChild(mObjBlock);
+        final DetailAST first = createNode(TokenTypes.METHOD_DEF, "m");
+        first.addChild(createNode(TokenTypes.IDENT, "mName"));
+        mObjBlock.addChild(first);
+        final DetailAST field = createNode(TokenTypes.VARIABLE_DEF, "x");
+        field.addChild(createNode(TokenTypes.IDENT, "xName"));
+        mObjBlock.addChild(field);
+        final DetailAST second = createNode(TokenTypes.METHOD_DEF, "n");
+        second.addChild(createNode(TokenTypes.IDENT, "nName"));
+        mObjBlock.addChild(second);
+    }
+
+    @Test
+    public void testWalk()
+    {
+        final List<String> visited = new ArrayList<String>();
+        assertTrue(AstTraversal.walk(mRoot, new Recorder(visited, null,
+                AstVisitor.Action.CONTINUE)));
+        assertEquals(Arrays.asList("A", "modifiers", "public", "name", "body",
+                "m", "mName", "x", "xName", "n", "nName"), visited);
+    }
+
+    @Test
+    public void testWalkSkipChildren()
+    {
+        final List<String> visited = new ArrayList<String>();
+        assertTrue(AstTraversal.walk(mRoot, new Recorder(visited, "m",
+                AstVisitor.Action.SKIP_CHILDREN)));
+        assertEquals(Arrays.asList("A", "modifiers", "public", "name", "body",
+                "m", "x", "xName", "n", "nName"), visited);
+
+        visited.clear();
+        assertTrue(AstTraversal.walk(mRoot, new Recorder(visited, "A",
+                AstVisitor.Action.SKIP_CHILDREN)));
+        assertEquals(Arrays.asList("A"), visited);
+    }
+
+    @Test
+    public void testWalkStop()
+    {
+        final List<String> visited = new ArrayList<String>();
+        assertFalse(AstTraversal.walk(mRoot, new Recorder(visited, "x",
+                AstVisitor.Action.STOP)));
+        assertEquals(Arrays.asList("A", "modifiers", "public", "name", "body",
+                "m", "mName", "x"), visited);
+
+        visited.clear();
+        assertFalse(AstTraversal.walk(mRoot, new Recorder(visited, "A",
+                AstVisitor.Action.STOP)));
+        assertEquals(Arrays.asList("A"), visited);
+    }
+
+    @Test
+    public void testFindFirst()
+    {
+        assertSame(mRoot, AstTraversal.findFirst(mRoot, TokenTypes.CLASS_DEF));
+        assertEquals("m",
+                AstTraversal.findFirst(mRoot, TokenTypes.METHOD_DEF).getText());
+        assertEquals("xName", AstTraversal.findFirst(
+                mObjBlock.findFirstToken(TokenTypes.VARIABLE_DEF),
+                TokenTypes.IDENT).getText());
+        assertNull(AstTraversal.findFirst(mRoot, TokenTypes.LITERAL_FOR));
+        // siblings of the root are not searched
+        assertNull(AstTraversal.findFirst(
+                mObjBlock.getFirstChild(), TokenTypes.VARIABLE_DEF));
+    }
+
+    @Test
+    public void testFindAll()
+    {
+        assertEquals(Arrays.asList("A"), getTexts(AstTraversal.findAll(
+                mRoot, TokenTypes.CLASS_DEF, new ArrayList<DetailAST>())));
+        assertEquals(Arrays.asList("m", "n"), getTexts(AstTraversal.findAll(
+                mRoot, TokenTypes.METHOD_DEF, new ArrayList<DetailAST>())));
+        assertEquals(Arrays.asList("name", "mName", "xName", "nName"),
+                getTexts(AstTraversal.findAll(mRoot, TokenTypes.IDENT,
+                        new ArrayList<DetailAST>())));
+        assertTrue(AstTraversal.findAll(mRoot, TokenTypes.LITERAL_FOR,
+                new ArrayList<DetailAST>()).isEmpty());
+    }
+
+    @Test
+    public void testChildren()
+    {
+        assertEquals(Arrays.asList("modifiers", "name", "body"),
+                getTexts(AstTraversal.children(mRoot)));
+        assertEquals(Arrays.asList("m", "n"), getTexts(
+                AstTraversal.children(mObjBlock, TokenTypes.METHOD_DEF)));
+        assertEquals(Arrays.asList("x"), getTexts(
+                AstTraversal.children(mObjBlock, TokenTypes.VARIABLE_DEF)));
+        assertTrue(getTexts(AstTraversal.children(
+                mObjBlock, TokenTypes.IDENT)).isEmpty());
+        assertTrue(getTexts(AstTraversal.children(
+                mRoot.findFirstToken(TokenTypes.IDENT))).isEmpty());
+    }
+
+    @Test
+    public void testChildrenAreIteratedOnce()
+    {
+        final Iterable<DetailAST> children = AstTraversal.children(mRoot);
+        final Iterator<DetailAST> iterator = children.iterator();
+        assertEquals("modifiers", iterator.next().getText());
+        try {
+            children.iterator();
+            fail("Children should be iterated only once");
+        }
+        catch (final IllegalStateException e) {
+            assertEquals("name", iterator.next().getText());
+        }
+    }
+
+    private static DetailAST createNode(int aType, String aText)
+    {
+        final DetailAST result = new DetailAST();
+        result.initialize(aType, aText);
+        return result;
+    }
+
+    private static List<String> getTexts(Iterable<DetailAST> aNodes)
+    {
+        final List<String> result = new ArrayList<String>();
+        for (DetailAST node : aNodes) {
+            result.add(node.getText());
+        }
+        return result;
+    }
+
+    private static final class Recorder implements AstVisitor
+    {
+        private final List<String> mVisited;
+
+        private final String mText;
+
+        private final Action mAction;
+
+        Recorder(List<String> aVisited, String aText, Action aAction)
+        {
+            mVisited = aVisited;
+            mText = aText;
+            mAction = aAction;
+        }
+
+        @Override
+        public Action visit(DetailAST aNode)
+        {
+            mVisited.add(aNode.getText());
+            return aNode.getText().equals(mText) ? mAction : Action.CONTINUE;
+        }
+    }
+}
@@ -20,11 +20,15 @@ package com.github.sevntu.checkstyle.checks.coding;
 
 import static com.github.sevntu.checkstyle.checks.coding.AvoidDefaultSerializableInInnerClasses.*;
 
+import java.io.File;
+
 import org.junit.Test;
 
 import com.github.sevntu.checkstyle.BaseCheckTestSupport;
 import com.github.sevntu.checkstyle.checks.coding.AvoidDefaultSerializableInInnerClasses;
+import com.github.sevntu.checkstyle.walker.FusedTreeWalker;
 import com.puppycrawl.tools.checkstyle.DefaultConfiguration;
+import com.puppycrawl.tools.checkstyle.api.Configuration;
 
 public class AvoidDefaultSerializableInInnerClassesTest extends
     BaseCheckTestSupport
@@ -97,4 +101,50 @@ public class AvoidDefaultSerializableInInnerClassesTest extends
             "170: " + warningMessage, };
         verify(checkConfig, getPath("InputAvoidDefaultSerializableInInnerClasses1.java"), expected);
     }
+
+    @Test
+    public void testSerializableSupertypesWithoutHierarchy()
+        throws Exception
+    {
+        final DefaultConfiguration checkConfig = createCheckConfig(AvoidDefaultSerializableInInnerClasses.class);
+
+        final String[] expected = {};
+
+        verify(checkConfig,
+            getPath("hierarchy/InputAvoidDefaultSerializableDerived.java"),
+            expected);
+    }
+
+    @Test
+    public void testSerializableSupertypes()
+        throws Exception
+    {
+        final DefaultConfiguration checkConfig = createCheckConfig(AvoidDefaultSerializableInInnerClasses.class);
+        final String path =
+            getPath("hierarchy/InputAvoidDefaultSerializableDerived.java");
+        final DefaultConfiguration walkerConfig =
+            createCheckConfig(FusedTreeWalker.class);
+        walkerConfig.addAttribute("sourcePath", new File(path).getParent());
+        walkerConfig.addChild(checkConfig);
+        final String[] expected = {
+            "10: " + warningMessage,
+            "15: " + warningMessage,
+            "22: " + warningMessage, };
+        verify(createChecker(walkerConfig), path, expected);
+    }
+
+    @Override
+    protected DefaultConfiguration createCheckerConfig(Configuration aConfig)
+    {
+        final DefaultConfiguration result;
+        if (FusedTreeWalker.class.getName().equals(aConfig.getName())) {
+            result = new DefaultConfiguration("configuration");
+            result.addAttribute("charset", "iso-8859-1");
+            result.addChild(aConfig);
+        }
+        else {
+            result = super.createCheckerConfig(aConfig);
+        }
+        return result;
+    }
 }
@@ -75,5 +75,33 @@ public class MapIterationInForEachLoopTest extends BaseCheckTestSupport
                 getPath("InputMapIterationInForEachLoopSkipIf.java"),
                 expected);
     }
-    
+
+    @Test
+    public final void mapScopeTest() throws Exception
+    {
+        mCheckConfig.addAttribute("proposeValuesUsage", "true");
+        mCheckConfig.addAttribute("proposeKeySetUsage", "true");
+
+        final String[] expected = {
+            "11:9: " + getCheckMessage(MSG_KEY_VALUES),
+            "14:9: " + getCheckMessage(MSG_KEY_VALUES),};
+
+        verify(mCheckConfig,
+                getPath("InputMapIterationInForEachLoopScope.java"), expected);
+    }
+
+    @Test
+    public final void bracelessLoopTest() throws Exception
+    {
+        mCheckConfig.addAttribute("proposeValuesUsage", "true");
+        mCheckConfig.addAttribute("proposeKeySetUsage", "true");
+
+        final String[] expected = {
+            "17:9: " + getCheckMessage(MSG_KEY_VALUES),};
+
+        verify(mCheckConfig,
+                getPath("InputMapIterationInForEachLoopBraceless.java"),
+                expected);
+    }
+
 }
@@ -118,4 +118,40 @@ public class MultipleStringLiteralsExtendedCheckTest extends BaseCheckTestSuppor
 		verify(checkConfig, getPath("InputMultipleStringLiterals.java"), expected);
 	}
 
+	@Test
+	public void testIgnoreOccurrenceContextWithTokens() throws Exception
+	{
+		DefaultConfiguration checkConfig =
+				createCheckConfig(MultipleStringLiteralsExtendedCheck.class);
+		checkConfig.addAttribute("allowedDuplicates", "3");
+		checkConfig.addAttribute("ignoreStringsRegexp", "");
+		checkConfig.addAttribute("ignoreOccurrenceContext", "ANNOTATION");
+		checkConfig.addAttribute("tokens", "STRING_LITERAL");
+
+		final String[] expected = {
+				"8:17: " + getCheckMessage(MSG_KEY, "\"\"", 4),
+		};
+
+		verify(checkConfig, getPath("InputMultipleStringLiterals.java"), expected);
+	}
+
+	@Test
+	public void testIgnoreMethodCallsWithTokens() throws Exception
+	{
+		DefaultConfiguration checkConfig =
+				createCheckConfig(MultipleStringLiteralsExtendedCheck.class);
+		checkConfig.addAttribute("allowedDuplicates", "2");
+		checkConfig.addAttribute("ignoreStringsRegexp", "");
+		checkConfig.addAttribute("ignoreOccurrenceContext", "METHOD_CALL");
+		checkConfig.addAttribute("tokens", "STRING_LITERAL, METHOD_CALL");
+
+		final String[] expected = {
+				"8:17: " + getCheckMessage(MSG_KEY, "\"\"", 4),
+				"10:23: " + getCheckMessage(MSG_KEY, "\", \"", 3),
+				"19:23: " + getCheckMessage(MSG_KEY, "\"unchecked\"", 4),
+		};
+
+		verify(checkConfig, getPath("InputMultipleStringLiterals.java"), expected);
+	}
+
 }
@@ -330,4 +330,33 @@ public class OverridableMethodInConstructorCheckTest extends BaseCheckTestSuppor
 
         verify(checkConfig, getPath("InputOverridableMethodInConstructor25.java"), expected);
     }
+
+    @Test
+    public final void testRecursiveCallsThroughPrivateMethods() throws Exception
+    {
+
+        String[] expected = {
+            "4:48: " + getCheckMessage(MSG_KEY_LEADS, "a", mCtorKey, "y"),
+            "4:53: " + getCheckMessage(MSG_KEY_LEADS, "b", mCtorKey, "x"),
+            "4:58: " + getCheckMessage(MSG_KEY_LEADS, "c", mCtorKey, "y"),
+            "4:63: " + getCheckMessage(MSG_KEY_LEADS, "d", mCtorKey, "y"),
+            "5:53: " + getCheckMessage(MSG_KEY_LEADS, "b", mCtorKey, "x"),
+            "5:58: " + getCheckMessage(MSG_KEY_LEADS, "a", mCtorKey, "y"),
+            "5:63: " + getCheckMessage(MSG_KEY_LEADS, "d", mCtorKey, "y"),
+            "5:68: " + getCheckMessage(MSG_KEY_LEADS, "c", mCtorKey, "y"),
+            };
+
+        verify(checkConfig, getPath("InputOverridableMethodInConstructor28.java"), expected);
+    }
+
+    @Test
+    public final void testCyclicInheritance() throws Exception
+    {
+
+        String[] expected = {
+            "13:23: " + getCheckMessage(MSG_KEY, "overrideMe", mCtorKey),
+            };
+
+        verify(checkConfig, getPath("InputOverridableMethodInConstructor29.java"), expected);
+    }
 }
@@ -20,12 +20,16 @@ package com.github.sevntu.checkstyle.checks.design;
 
 import static com.github.sevntu.checkstyle.checks.design.CauseParameterInExceptionCheck.*;
 
+import java.io.File;
+
 import org.junit.Test;
 
 
 import com.github.sevntu.checkstyle.BaseCheckTestSupport;
 import com.github.sevntu.checkstyle.checks.design.CauseParameterInExceptionCheck;
+import com.github.sevntu.checkstyle.walker.FusedTreeWalker;
 import com.puppycrawl.tools.checkstyle.DefaultConfiguration;
+import com.puppycrawl.tools.checkstyle.api.Configuration;
 
 /**
  * @author <a href="mailto:Daniil.Yaroslavtsev@gmail.com"> Daniil
@@ -130,4 +134,74 @@ public class CauseParameterInExceptionCheckTest extends BaseCheckTestSupport
 
         verify(checkConfig, getPath("InputCauseParameterInException4.java"), expected);
     }
+
+    @Test
+    public void testSingleFile() throws Exception
+    {
+        final File[] files = {
+            new File(getPath("InputCauseParameterInExceptionBase.java")),
+            new File(getPath("InputCauseParameterInExceptionDerived.java")),
+        };
+
+        String[] expected = {
+            "13:5: " + getCheckMessage(MSG_KEY, "NotAnException"),
+            "20:5: " + getCheckMessage(MSG_KEY, "WrappedIOException"),
+            "28:5: " + getCheckMessage(MSG_KEY, "UnknownException"),
+        };
+
+        verify(createChecker(checkConfig), files, files[1].getPath(), expected);
+    }
+
+    @Test
+    public void testAllFilesOfAudit() throws Exception
+    {
+        final File[] files = {
+            new File(getPath("InputCauseParameterInExceptionBase.java")),
+            new File(getPath("InputCauseParameterInExceptionDerived.java")),
+        };
+        final DefaultConfiguration walkerConfig =
+                createCheckConfig(FusedTreeWalker.class);
+        walkerConfig.addChild(checkConfig);
+
+        String[] expected = {
+            "5:1: " + getCheckMessage(MSG_KEY,
+                    "InputCauseParameterInExceptionDerived"),
+            "28:5: " + getCheckMessage(MSG_KEY, "UnknownException"),
+            "35:5: " + getCheckMessage(MSG_KEY, "Failure"),
+        };
+
+        verify(createChecker(walkerConfig), files, files[1].getPath(), expected);
+    }
+
+    @Test
+    public void testSourcePath() throws Exception
+    {
+        final String path =
+            getPath("hierarchy/InputCauseParameterInExceptionCrash.java");
+        final DefaultConfiguration walkerConfig =
+                createCheckConfig(FusedTreeWalker.class);
+        walkerConfig.addAttribute("sourcePath", new File(path).getParent());
+        walkerConfig.addChild(checkConfig);
+
+        String[] expected = {
+            "5:5: " + getCheckMessage(MSG_KEY, "Crash"),
+        };
+
+        verify(createChecker(walkerConfig), path, expected);
+    }
+
+    @Override
+    protected DefaultConfiguration createCheckerConfig(Configuration aConfig)
+    {
+        final DefaultConfiguration result;
+        if (FusedTreeWalker.class.getName().equals(aConfig.getName())) {
+            result = new DefaultConfiguration("configuration");
+            result.addAttribute("charset", "iso-8859-1");
+            result.addChild(aConfig);
+        }
+        else {
+            result = super.createCheckerConfig(aConfig);
+        }
+        return result;
+    }
 }
@@ -0,0 +1,348 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.index;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TypeHierarchyCacheTest extends Assert
+{
+    private static final String PACKAGE_A = "com.example.hierarchy.a.";
+
+    private static final String PACKAGE_B = "com.example.hierarchy.b.";
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private File mSources;
+
+    private File mCacheFile;
+
+    @Before
+    public void setUp()
+        throws Exception
+    {
+        mSources = mFolder.newFolder("sources");
+        copy("hierarchy/a/InputHierarchyBase.java",
+                new File(mSources, "a/InputHierarchyBase.java"));
+        copy("hierarchy/b/InputHierarchyDerived.java",
+                new File(mSources, "b/InputHierarchyDerived.java"));
+        mCacheFile = new File(mFolder.getRoot(), "target/hierarchy.bin");
+    }
+
+    @Test
+    public void testUnchangedSources()
+        throws Exception
+    {
+        final TypeHierarchy built = build("UTF-8");
+        assertTrue(mCacheFile.isFile());
+        final long written = mCacheFile.lastModified();
+        final TypeHierarchy mapped = build("UTF-8");
+        assertEquals(dump(built), dump(mapped));
+        assertTrue(mapped.isSubtype(PACKAGE_B + "InputHierarchyDerived.Inner",
+                "java.util.Map"));
+        assertFalse(mapped.isSubtype(PACKAGE_B + "InputHierarchyCycleA",
+                "java.io.Serializable"));
+        assertEquals(written, mCacheFile.lastModified());
+        assertEquals(1, mCacheFile.getParentFile().list().length);
+    }
+
+    @Test
+    public void testChangedSource()
+        throws Exception
+    {
+        final TypeHierarchy built = build("UTF-8");
+        final File derived = new File(mSources, "b/InputHierarchyDerived.java");
+        final OutputStream output = new FileOutputStream(derived, true);
+        try {
+            output.write("class InputHierarchyAdded extends InputHierarchyDerived {}\n"
+                    .getBytes("UTF-8"));
+        }
+        finally {
+            output.close();
+        }
+        final TypeHierarchy changed = build("UTF-8");
+        assertTrue(changed.isSubtype(PACKAGE_B + "InputHierarchyAdded",
+                PACKAGE_A + "InputHierarchyBase"));
+        assertEquals(dump(built).size() + 2, dump(changed).size());
+        mCacheFile = null;
+        assertEquals(dump(build("UTF-8")), dump(changed));
+    }
+
+    @Test
+    public void testAddedAndRemovedSources()
+        throws Exception
+    {
+        build("UTF-8");
+        final File base = new File(mSources, "a/InputHierarchyBase.java");
+        final File copy = new File(mFolder.getRoot(), "InputHierarchyBase.java");
+        assertTrue(base.renameTo(copy));
+        TypeHierarchy hierarchy = build("UTF-8");
+        assertEquals(TypeHierarchy.NO_TYPE,
+                hierarchy.getTypeId(PACKAGE_A + "InputHierarchyBase"));
+        assertEquals(TypeHierarchy.NO_TYPE, hierarchy.getSuperclass(
+                hierarchy.getTypeId(PACKAGE_B + "InputHierarchyDerived")));
+
+        assertTrue(copy.renameTo(base));
+        hierarchy = build("UTF-8");
+        assertTrue(hierarchy.isSubtype(PACKAGE_B + "InputHierarchyDerived",
+                PACKAGE_A + "InputHierarchyBase"));
+    }
+
+    @Test
+    public void testInvalidCacheFile()
+        throws Exception
+    {
+        final List<String> expected = dump(build("UTF-8"));
+        assertEquals(expected, dump(build("ISO-8859-1")));
+
+        final RandomAccessFile file = new RandomAccessFile(mCacheFile, "rw");
+        try {
+            file.setLength(file.length() / 2);
+        }
+        finally {
+            file.close();
+        }
+        assertEquals(expected, dump(build("ISO-8859-1")));
+        assertEquals(expected, dump(build("ISO-8859-1")));
+    }
+
+    @Test
+    public void testDamagedDeclarations()
+        throws Exception
+    {
+        final List<String> expected = dump(build("UTF-8"));
+        // the length of the package name of the first source
+        damage(2);
+        // declarations of the first source are read from the cache
+        final File derived = new File(mSources, "b/InputHierarchyDerived.java");
+        assertTrue(derived.setLastModified(derived.lastModified() - 10000));
+
+        final RecordingHandler handler = RecordingHandler.start();
+        try {
+            assertEquals(expected, dump(build("UTF-8")));
+        }
+        finally {
+            handler.stop();
+        }
+        assertEquals(1, handler.mRecords.size());
+        assertTrue(handler.mRecords.get(0).getMessage(),
+                handler.mRecords.get(0).getMessage().startsWith(
+                    "Ignoring damaged cache of type hierarchy"));
+        assertEquals(expected, dump(build("UTF-8")));
+    }
+
+    @Test
+    public void testDamagedHierarchy()
+        throws Exception
+    {
+        final List<String> expected = dump(build("UTF-8"));
+        // the count of types of the hierarchy
+        damage(4);
+
+        final RecordingHandler handler = RecordingHandler.start();
+        try {
+            assertEquals(expected, dump(build("UTF-8")));
+        }
+        finally {
+            handler.stop();
+        }
+        assertEquals(1, handler.mRecords.size());
+        assertEquals(expected, dump(build("UTF-8")));
+    }
+
+    @Test
+    public void testFailedWriteIsReported()
+        throws Exception
+    {
+        final List<String> expected = dump(build("UTF-8"));
+        // the cache can not be written into a file
+        final File parent = new File(mFolder.getRoot(), "file");
+        assertTrue(parent.createNewFile());
+        mCacheFile = new File(parent, "hierarchy.bin");
+
+        final RecordingHandler handler = RecordingHandler.start();
+        try {
+            assertEquals(expected, dump(build("UTF-8")));
+        }
+        finally {
+            handler.stop();
+        }
+        final List<LogRecord> records = handler.mRecords;
+        assertEquals(1, records.size());
+        assertEquals(Level.WARNING, records.get(0).getLevel());
+        assertTrue(records.get(0).getMessage(), records.get(0).getMessage()
+                .startsWith("Unable to write cache of type hierarchy"));
+    }
+
+    @Test
+    public void testUnreadableSourceIsSkipped()
+        throws Exception
+    {
+        final List<String> expected = dump(build("UTF-8"));
+        // the file has vanished after the sources were listed
+        final File missing = new File(mSources, "InputHierarchyMissing.java");
+
+        final RecordingHandler handler = RecordingHandler.start();
+        try {
+            assertEquals(expected, dump(build("UTF-8", missing)));
+            // the file is not cached, so it is reported by every build
+            assertEquals(expected, dump(build("UTF-8", missing)));
+        }
+        finally {
+            handler.stop();
+        }
+        assertEquals(2, handler.mRecords.size());
+        final LogRecord record = handler.mRecords.get(0);
+        assertEquals(Level.WARNING, record.getLevel());
+        assertTrue(record.getMessage(), record.getMessage().startsWith(
+                "Unable to read " + missing.getAbsolutePath()));
+    }
+
+    private TypeHierarchy build(String aCharset, File... aFiles)
+        throws IOException
+    {
+        final TypeHierarchyBuilder builder = new TypeHierarchyBuilder(aCharset);
+        builder.setCacheFile(mCacheFile);
+        builder.addSources(mSources);
+        for (File file : aFiles) {
+            builder.addFile(file);
+        }
+        return builder.build(getClass().getClassLoader());
+    }
+
+    /**
+     * Overwrites the int at the offset stored in the header of the cache.
+     * @param aHeaderInt index of the int of the header which holds the
+     *        offset.
+     */
+    private void damage(int aHeaderInt)
+        throws IOException
+    {
+        final RandomAccessFile file = new RandomAccessFile(mCacheFile, "rw");
+        try {
+            file.seek(aHeaderInt * 4);
+            file.seek(file.readInt());
+            file.writeInt(Integer.MAX_VALUE);
+        }
+        finally {
+            file.close();
+        }
+    }
+
+    private static List<String> dump(TypeHierarchy aHierarchy)
+    {
+        final List<String> result = new ArrayList<String>();
+        for (int id = 0; id < aHierarchy.getTypeCount()
+            && aHierarchy.isDeclared(id); id++)
+        {
+            result.add(aHierarchy.getTypeName(id));
+        }
+        for (int id = 0; id < aHierarchy.getTypeCount()
+            && aHierarchy.isDeclared(id); id++)
+        {
+            final StringBuilder line = new StringBuilder(
+                    aHierarchy.getTypeName(id)).append(" extends ");
+            final int superclass = aHierarchy.getSuperclass(id);
+            line.append(superclass == TypeHierarchy.NO_TYPE ? "-"
+                    : aHierarchy.getTypeName(superclass));
+            for (int i = 0; i < aHierarchy.getInterfaceCount(id); i++) {
+                line.append(' ').append(
+                        aHierarchy.getTypeName(aHierarchy.getInterface(id, i)));
+            }
+            result.add(line.toString());
+        }
+        return result;
+    }
+
+    /**
+     * Records messages of the exception log of Checkstyle.
+     */
+    private static final class RecordingHandler extends Handler
+    {
+        private static final Logger LOGGER =
+            Logger.getLogger("com.puppycrawl.tools.checkstyle.ExceptionLog");
+
+        private final List<LogRecord> mRecords = new ArrayList<LogRecord>();
+
+        static RecordingHandler start()
+        {
+            final RecordingHandler result = new RecordingHandler();
+            LOGGER.addHandler(result);
+            return result;
+        }
+
+        void stop()
+        {
+            LOGGER.removeHandler(this);
+        }
+
+        @Override
+        public void publish(LogRecord aRecord)
+        {
+            mRecords.add(aRecord);
+        }
+
+        @Override
+        public void flush()
+        {
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+
+    private void copy(String aName, File aTarget)
+        throws IOException
+    {
+        aTarget.getParentFile().mkdirs();
+        final InputStream input = getClass().getResourceAsStream(aName);
+        final OutputStream output = new FileOutputStream(aTarget);
+        try {
+            final byte[] buffer = new byte[4096];
+            int count = input.read(buffer);
+            while (count >= 0) {
+                output.write(buffer, 0, count);
+                count = input.read(buffer);
+            }
+        }
+        finally {
+            input.close();
+            output.close();
+        }
+    }
+}
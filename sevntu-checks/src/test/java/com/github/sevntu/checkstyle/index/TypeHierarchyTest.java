@@ -0,0 +1,180 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.index;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.sevntu.checkstyle.ast.AstTraversal;
+import com.puppycrawl.tools.checkstyle.TreeWalker;
+import com.puppycrawl.tools.checkstyle.api.DetailAST;
+import com.puppycrawl.tools.checkstyle.api.FileContents;
+import com.puppycrawl.tools.checkstyle.api.FileText;
+import com.puppycrawl.tools.checkstyle.api.TokenTypes;
+
+public class TypeHierarchyTest extends Assert
+{
+    private static final String PACKAGE_A = "com.example.hierarchy.a.";
+
+    private static final String PACKAGE_B = "com.example.hierarchy.b.";
+
+    private TypeHierarchy mHierarchy;
+
+    @Before
+    public void setUp()
+        throws Exception
+    {
+        final TypeHierarchyBuilder builder = new TypeHierarchyBuilder("UTF-8");
+        builder.addSources(getInputFile("hierarchy"));
+        mHierarchy = builder.build(getClass().getClassLoader());
+    }
+
+    @Test
+    public void testDeclaredTypes()
+    {
+        final List<String> names = new ArrayList<String>();
+        for (int id = 0; id < mHierarchy.getTypeCount()
+            && mHierarchy.isDeclared(id); id++)
+        {
+            names.add(mHierarchy.getTypeName(id));
+            assertEquals(id, mHierarchy.getTypeId(mHierarchy.getTypeName(id)));
+        }
+        assertEquals(Arrays.asList(
+                PACKAGE_A + "InputHierarchyBase",
+                PACKAGE_A + "InputHierarchyBase.Nested",
+                PACKAGE_B + "InputHierarchyDerived",
+                PACKAGE_B + "InputHierarchyDerived.Inner",
+                PACKAGE_B + "InputHierarchyDerived.Local",
+                PACKAGE_B + "InputHierarchyMarker",
+                PACKAGE_B + "InputHierarchyKind",
+                PACKAGE_B + "InputHierarchyTag",
+                PACKAGE_B + "InputHierarchyCycleA",
+                PACKAGE_B + "InputHierarchyCycleB"), names);
+        assertEquals(TypeHierarchy.NO_TYPE,
+                mHierarchy.getTypeId(PACKAGE_A + "Commented"));
+        assertEquals(TypeHierarchy.NO_TYPE,
+                mHierarchy.getTypeId(PACKAGE_A + "InString"));
+    }
+
+    @Test
+    public void testParents()
+    {
+        final int base = getTypeId(PACKAGE_A + "InputHierarchyBase");
+        assertEquals(base,
+                mHierarchy.getSuperclass(getTypeId(PACKAGE_B + "InputHierarchyDerived")));
+        assertEquals(TypeHierarchy.NO_TYPE, mHierarchy.getSuperclass(base));
+        assertEquals(2, mHierarchy.getInterfaceCount(base));
+        assertEquals("java.io.Serializable",
+                mHierarchy.getTypeName(mHierarchy.getInterface(base, 0)));
+        assertEquals("java.lang.Comparable",
+                mHierarchy.getTypeName(mHierarchy.getInterface(base, 1)));
+        assertFalse(mHierarchy.isDeclared(mHierarchy.getInterface(base, 0)));
+
+        final int nested = getTypeId(PACKAGE_A + "InputHierarchyBase.Nested");
+        assertEquals("java.util.HashMap",
+                mHierarchy.getTypeName(mHierarchy.getSuperclass(nested)));
+        assertEquals(nested, mHierarchy.getSuperclass(
+                getTypeId(PACKAGE_B + "InputHierarchyDerived.Inner")));
+
+        final int marker = getTypeId(PACKAGE_B + "InputHierarchyMarker");
+        assertEquals(2, mHierarchy.getInterfaceCount(marker));
+        assertEquals("java.lang.Cloneable",
+                mHierarchy.getTypeName(mHierarchy.getInterface(marker, 1)));
+        assertEquals("java.lang.Enum", mHierarchy.getTypeName(
+                mHierarchy.getSuperclass(getTypeId(PACKAGE_B + "InputHierarchyKind"))));
+    }
+
+    @Test
+    public void testIsSubtype()
+    {
+        final String derived = PACKAGE_B + "InputHierarchyDerived";
+        assertTrue(mHierarchy.isSubtype(derived, derived));
+        assertTrue(mHierarchy.isSubtype(derived, PACKAGE_A + "InputHierarchyBase"));
+        assertTrue(mHierarchy.isSubtype(derived, "java.io.Serializable"));
+        assertTrue(mHierarchy.isSubtype(derived, "java.lang.Comparable"));
+        assertTrue(mHierarchy.isSubtype(derived, "java.lang.Object"));
+        assertFalse(mHierarchy.isSubtype(derived, "java.lang.Runnable"));
+        assertTrue(mHierarchy.isSubtype(derived + ".Inner", "java.util.Map"));
+        assertTrue(mHierarchy.isSubtype(derived + ".Inner", "java.io.Serializable"));
+        assertTrue(mHierarchy.isSubtype(PACKAGE_B + "InputHierarchyKind",
+                "java.util.RandomAccess"));
+        assertTrue(mHierarchy.isSubtype(PACKAGE_B + "InputHierarchyKind",
+                "java.lang.Enum"));
+        assertTrue(mHierarchy.isSubtype(PACKAGE_B + "InputHierarchyTag",
+                "java.lang.annotation.Annotation"));
+        assertFalse(mHierarchy.isSubtype(PACKAGE_B + "InputHierarchyCycleA",
+                "java.io.Serializable"));
+        assertFalse(mHierarchy.isSubtype(PACKAGE_B + "InputHierarchyCycleB",
+                PACKAGE_B + "InputHierarchyCycleB.Missing"));
+        assertTrue(mHierarchy.isSubtype("java.util.ArrayList", "java.util.List"));
+        assertFalse(mHierarchy.isSubtype("java.util.ArrayList", derived));
+        assertFalse(mHierarchy.isSubtype("com.example.Missing", "java.lang.Object"));
+    }
+
+    @Test
+    public void testResolve()
+        throws Exception
+    {
+        final File file = getInputFile("hierarchy/b/InputHierarchyDerived.java");
+        final DetailAST root = TreeWalker.parse(
+                new FileContents(new FileText(file, "UTF-8")));
+        final List<DetailAST> classDefs = new ArrayList<DetailAST>();
+        for (DetailAST node = root; node != null;
+            node = node.getNextSibling())
+        {
+            AstTraversal.findAll(node, TokenTypes.CLASS_DEF, classDefs);
+        }
+        final DetailAST inner = classDefs.get(1);
+        assertEquals(PACKAGE_B + "InputHierarchyDerived.Inner",
+                mHierarchy.getQualifiedName(inner));
+        assertEquals(PACKAGE_B + "InputHierarchyCycleB",
+                mHierarchy.getQualifiedName(classDefs.get(classDefs.size() - 1)));
+        assertEquals(PACKAGE_A + "InputHierarchyBase",
+                mHierarchy.resolve("InputHierarchyBase", inner));
+        assertEquals(PACKAGE_B + "InputHierarchyDerived.Inner",
+                mHierarchy.resolve("Inner", inner.getFirstChild()));
+        assertEquals(PACKAGE_B + "InputHierarchyMarker",
+                mHierarchy.resolve("InputHierarchyMarker", inner));
+        assertEquals(PACKAGE_A + "InputHierarchyBase.Nested",
+                mHierarchy.resolve("Nested", inner));
+        assertEquals("java.util.Map.Entry",
+                mHierarchy.resolve("Entry", inner.getFirstChild()));
+        assertEquals("java.lang.Runnable", mHierarchy.resolve("Runnable", inner));
+        assertEquals("java.util.Map", mHierarchy.resolve("java.util.Map", inner));
+        assertNull(mHierarchy.resolve("Map", inner));
+    }
+
+    private int getTypeId(String aName)
+    {
+        final int result = mHierarchy.getTypeId(aName);
+        assertTrue(aName, result != TypeHierarchy.NO_TYPE);
+        return result;
+    }
+
+    private File getInputFile(String aName)
+    {
+        return new File(getClass().getResource(aName).getPath());
+    }
+}
@@ -0,0 +1,160 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.index;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.sevntu.checkstyle.ast.AstTraversal;
+import com.puppycrawl.tools.checkstyle.TreeWalker;
+import com.puppycrawl.tools.checkstyle.api.DetailAST;
+import com.puppycrawl.tools.checkstyle.api.FileContents;
+import com.puppycrawl.tools.checkstyle.api.FileText;
+import com.puppycrawl.tools.checkstyle.api.TokenTypes;
+
+public class TypeIndexTest extends Assert
+{
+    private static final String PACKAGE = "com.example.index.";
+
+    private final ClassLoader mClassLoader = getClass().getClassLoader();
+
+    private TypeIndex mIndex;
+
+    @Before
+    public void setUp()
+        throws Exception
+    {
+        final File file =
+            new File(getClass().getResource("InputTypeIndex.java").getPath());
+        final DetailAST root = TreeWalker.parse(
+                new FileContents(new FileText(file, "UTF-8")));
+        mIndex = new TypeIndex();
+        final TypeIndex.Source source =
+            mIndex.addSource(file.getPath(), root);
+        assertEquals("com.example.index", source.getPackageName());
+        for (DetailAST node = root; node != null;
+            node = node.getNextSibling())
+        {
+            final List<DetailAST> classDefs = AstTraversal.findAll(node,
+                    TokenTypes.CLASS_DEF, new ArrayList<DetailAST>());
+            for (DetailAST classDef : classDefs) {
+                final TypeIndex.Type type = mIndex.addType(source, classDef);
+                for (DetailAST ctorDef : AstTraversal.children(
+                        classDef.findFirstToken(TokenTypes.OBJBLOCK),
+                        TokenTypes.CTOR_DEF))
+                {
+                    type.addConstructor(ctorDef);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testQualifiedNames()
+    {
+        final List<String> names = new ArrayList<String>();
+        for (TypeIndex.Type type : mIndex.getTypes()) {
+            names.add(type.getName());
+        }
+        assertEquals(Arrays.asList(PACKAGE + "InputTypeIndex",
+                PACKAGE + "InputTypeIndex.Member",
+                PACKAGE + "InputTypeIndex.Member.Inner",
+                PACKAGE + "InputTypeIndex.Base",
+                PACKAGE + "InputTypeIndex.Cycle",
+                PACKAGE + "InputTypeIndex.Unknown",
+                PACKAGE + "Plain",
+                PACKAGE + "Plain.Local"), names);
+        assertEquals("Inner",
+                mIndex.getType(PACKAGE + "InputTypeIndex.Member.Inner")
+                    .getSimpleName());
+        assertNull(mIndex.getType("InputTypeIndex"));
+    }
+
+    @Test
+    public void testResolve()
+    {
+        final TypeIndex.Type inner =
+            mIndex.getType(PACKAGE + "InputTypeIndex.Member.Inner");
+        assertEquals(PACKAGE + "InputTypeIndex.Member",
+                mIndex.resolve(inner, "Member", mClassLoader));
+        assertEquals(PACKAGE + "InputTypeIndex.Base",
+                mIndex.resolve(inner, "Base", mClassLoader));
+        assertEquals(PACKAGE + "Plain",
+                mIndex.resolve(inner, "Plain", mClassLoader));
+        assertEquals("java.io.IOException",
+                mIndex.resolve(inner, "IOException", mClassLoader));
+        assertEquals("java.util.AbstractList",
+                mIndex.resolve(inner, "AbstractList", mClassLoader));
+        assertEquals("java.util.Map.Entry",
+                mIndex.resolve(inner, "Map.Entry", mClassLoader));
+        assertEquals("java.lang.Error",
+                mIndex.resolve(inner, "Error", mClassLoader));
+        assertEquals("com.example.Missing",
+                mIndex.resolve(inner, "com.example.Missing", mClassLoader));
+        assertNull(mIndex.resolve(inner, "Missing", mClassLoader));
+    }
+
+    @Test
+    public void testExternalSuperclass()
+    {
+        assertEquals("java.util.AbstractList",
+                getExternalSuperclass("InputTypeIndex.Member.Inner"));
+        assertEquals("java.io.IOException",
+                getExternalSuperclass("InputTypeIndex"));
+        assertEquals("java.lang.Object", getExternalSuperclass("Plain"));
+        assertEquals("java.lang.RuntimeException",
+                getExternalSuperclass("Plain.Local"));
+        assertEquals("com.example.Missing",
+                getExternalSuperclass("InputTypeIndex.Unknown"));
+        assertNull(getExternalSuperclass("InputTypeIndex.Cycle"));
+    }
+
+    @Test
+    public void testConstructors()
+    {
+        final List<String[]> constructors =
+            mIndex.getType(PACKAGE + "InputTypeIndex.Base").getConstructors();
+        assertEquals(2, constructors.size());
+        assertEquals(Arrays.asList("String", "Throwable", "int"),
+                Arrays.asList(constructors.get(0)));
+        assertEquals(0, constructors.get(1).length);
+    }
+
+    @Test
+    public void testLoadClass()
+    {
+        assertSame(java.util.Map.Entry.class,
+                mIndex.loadClass("java.util.Map.Entry", mClassLoader));
+        assertNull(mIndex.loadClass("com.example.Missing", mClassLoader));
+        mIndex.clear();
+        assertTrue(mIndex.getTypes().isEmpty());
+    }
+
+    private String getExternalSuperclass(String aName)
+    {
+        return mIndex.getExternalSuperclass(mIndex.getType(PACKAGE + aName),
+                mClassLoader);
+    }
+}
@@ -0,0 +1,243 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.walker;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.sevntu.checkstyle.checks.coding.ForbidCertainImportsCheck;
+import com.github.sevntu.checkstyle.checks.coding.ForbidInstantiationCheck;
+import com.github.sevntu.checkstyle.checks.coding.MultipleStringLiteralsExtendedCheck;
+import com.github.sevntu.checkstyle.checks.coding.NestedTernaryCheck;
+import com.github.sevntu.checkstyle.checks.coding.OverridableMethodInConstructorCheck;
+import com.github.sevntu.checkstyle.checks.coding.ReturnCountExtendedCheck;
+import com.github.sevntu.checkstyle.checks.design.ChildBlockLengthCheck;
+import com.puppycrawl.tools.checkstyle.Checker;
+import com.puppycrawl.tools.checkstyle.DefaultConfiguration;
+import com.puppycrawl.tools.checkstyle.TreeWalker;
+import com.puppycrawl.tools.checkstyle.api.AuditEvent;
+import com.puppycrawl.tools.checkstyle.api.AuditListener;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.checks.coding.MagicNumberCheck;
+
+public class FusedTreeWalkerTest extends Assert
+{
+    @Test
+    public void testSameErrorsAsTreeWalker()
+        throws Exception
+    {
+        final List<File> files = Arrays.asList(
+                getInputFile("InputProfilingTreeWalker.java"),
+                getInputFile("InputProfilingTreeWalkerBroken.java"),
+                getInputFile("../checks/coding/InputMultipleStringLiterals.java"),
+                getInputFile("../checks/coding/InputNestedTernaryCheck.java"),
+                getInputFile("../checks/design/InputChildBlockLengthCheck.java"));
+
+        final List<String> expected = audit(
+                createConfig(new DefaultConfiguration(TreeWalker.class.getName())),
+                files);
+        assertTrue("Input files should contain many errors",
+                expected.size() > 10);
+
+        final DefaultConfiguration walker = new DefaultConfiguration(
+                FusedTreeWalker.class.getName());
+        final List<String> actual = audit(createConfig(walker), files);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testLexicalFiltering()
+        throws Exception
+    {
+        final List<File> files = new ArrayList<File>();
+        for (String name : new String[] {
+            "InputForbidsCertainImports.java",
+            "InputForbidCertainImportsDefaultPackageWithoutImports.java",
+            "InputForbidInstantiationCheck.java",
+            "InputForbidInstantiationCheckWithAsterisk.java",
+            "InputForbidInstantiationCheckWithoutDots.java",
+            "InputNestedTernaryCheck.java",
+        })
+        {
+            files.add(getInputFile("../checks/coding/" + name));
+        }
+
+        final List<String> expected = audit(createImportConfig(
+                new DefaultConfiguration(TreeWalker.class.getName())), files);
+        assertTrue("Input files should contain errors", expected.size() > 3);
+
+        final DefaultConfiguration walker = new DefaultConfiguration(
+                FusedTreeWalker.class.getName());
+        walker.addAttribute("lexicalFiltering", "true");
+        assertEquals(expected, audit(createImportConfig(walker), files));
+    }
+
+    @Test
+    public void testRejectedFileIsNotParsed()
+        throws Exception
+    {
+        final List<File> files = Arrays.asList(
+                getInputFile("InputFusedTreeWalkerBroken.java"));
+        final DefaultConfiguration walker = new DefaultConfiguration(
+                FusedTreeWalker.class.getName());
+        assertEquals("Lexer error should be reported", 1,
+                audit(createImportConfig(walker), files).size());
+
+        final DefaultConfiguration filteringWalker = new DefaultConfiguration(
+                FusedTreeWalker.class.getName());
+        filteringWalker.addAttribute("lexicalFiltering", "true");
+        assertEquals(new ArrayList<String>(),
+                audit(createImportConfig(filteringWalker), files));
+    }
+
+    @Test(expected = CheckstyleException.class)
+    public void testNotCheckChild()
+        throws Exception
+    {
+        final DefaultConfiguration walker = new DefaultConfiguration(
+                FusedTreeWalker.class.getName());
+        walker.addChild(new DefaultConfiguration(TreeWalker.class.getName()));
+        audit(walker, new ArrayList<File>());
+    }
+
+    @Test(expected = CheckstyleException.class)
+    public void testIllegalToken()
+        throws Exception
+    {
+        final DefaultConfiguration walker = new DefaultConfiguration(
+                FusedTreeWalker.class.getName());
+        final DefaultConfiguration check = new DefaultConfiguration(
+                MagicNumberCheck.class.getName());
+        check.addAttribute("tokens", "NO_SUCH_TOKEN");
+        walker.addChild(check);
+        audit(walker, new ArrayList<File>());
+    }
+
+    private static DefaultConfiguration createConfig(
+            DefaultConfiguration aWalker)
+    {
+        aWalker.addChild(new DefaultConfiguration(
+                OverridableMethodInConstructorCheck.class.getName()));
+        final DefaultConfiguration stringLiterals = new DefaultConfiguration(
+                MultipleStringLiteralsExtendedCheck.class.getName());
+        stringLiterals.addAttribute("allowedDuplicates", "0");
+        aWalker.addChild(stringLiterals);
+        aWalker.addChild(new DefaultConfiguration(
+                NestedTernaryCheck.class.getName()));
+        aWalker.addChild(new DefaultConfiguration(
+                ReturnCountExtendedCheck.class.getName()));
+        final DefaultConfiguration blockLength = new DefaultConfiguration(
+                ChildBlockLengthCheck.class.getName());
+        blockLength.addAttribute("blockTypes", "LITERAL_IF, LITERAL_FOR");
+        blockLength.addAttribute("ignoreBlockLinesCount", "0");
+        aWalker.addChild(blockLength);
+        // tokens are set, so acceptable tokens are used instead of default
+        final DefaultConfiguration magicNumber = new DefaultConfiguration(
+                MagicNumberCheck.class.getName());
+        magicNumber.addAttribute("tokens", "NUM_INT");
+        aWalker.addChild(magicNumber);
+        return aWalker;
+    }
+
+    private static DefaultConfiguration createImportConfig(
+            DefaultConfiguration aWalker)
+    {
+        final DefaultConfiguration imports = new DefaultConfiguration(
+                ForbidCertainImportsCheck.class.getName());
+        imports.addAttribute("packageNameRegexp", ".+\\.old\\..+");
+        imports.addAttribute("forbiddenImportsRegexp", ".+\\.api\\..+");
+        imports.addAttribute("forbiddenImportsExcludesRegexp", "");
+        aWalker.addChild(imports);
+        final DefaultConfiguration instantiation = new DefaultConfiguration(
+                ForbidInstantiationCheck.class.getName());
+        instantiation.addAttribute("forbiddenClasses",
+                "java.io.File, com.example.Nested");
+        aWalker.addChild(instantiation);
+        return aWalker;
+    }
+
+    private static List<String> audit(DefaultConfiguration aWalker,
+            List<File> aFiles)
+        throws Exception
+    {
+        final DefaultConfiguration config =
+            new DefaultConfiguration("configuration");
+        config.addAttribute("charset", "iso-8859-1");
+        config.addAttribute("localeLanguage", Locale.ENGLISH.getLanguage());
+        config.addChild(aWalker);
+
+        final Checker checker = new Checker();
+        checker.setModuleClassLoader(
+                Thread.currentThread().getContextClassLoader());
+        checker.configure(config);
+        final List<String> errors = new ArrayList<String>();
+        checker.addListener(new AuditListener() {
+            @Override
+            public void auditStarted(AuditEvent aEvt)
+            {
+            }
+
+            @Override
+            public void auditFinished(AuditEvent aEvt)
+            {
+            }
+
+            @Override
+            public void fileStarted(AuditEvent aEvt)
+            {
+            }
+
+            @Override
+            public void fileFinished(AuditEvent aEvt)
+            {
+            }
+
+            @Override
+            public void addError(AuditEvent aEvt)
+            {
+                errors.add(aEvt.getFileName() + ":" + aEvt.getLine() + ":"
+                        + aEvt.getColumn() + ": " + aEvt.getMessage());
+            }
+
+            @Override
+            public void addException(AuditEvent aEvt, Throwable aThrowable)
+            {
+                errors.add("exception " + aThrowable);
+            }
+        });
+        try {
+            checker.process(aFiles);
+        }
+        finally {
+            checker.destroy();
+        }
+        return errors;
+    }
+
+    private File getInputFile(String aName)
+    {
+        return new File(getClass().getResource(aName).getPath());
+    }
+}
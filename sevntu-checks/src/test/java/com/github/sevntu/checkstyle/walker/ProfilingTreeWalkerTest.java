@@ -0,0 +1,232 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.walker;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.sevntu.checkstyle.checks.coding.MultipleStringLiteralsExtendedCheck;
+import com.github.sevntu.checkstyle.checks.coding.OverridableMethodInConstructorCheck;
+import com.puppycrawl.tools.checkstyle.Checker;
+import com.puppycrawl.tools.checkstyle.DefaultConfiguration;
+import com.puppycrawl.tools.checkstyle.TreeWalker;
+import com.puppycrawl.tools.checkstyle.api.AuditEvent;
+import com.puppycrawl.tools.checkstyle.api.AuditListener;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+
+public class ProfilingTreeWalkerTest extends Assert
+{
+    @Test
+    public void testSameErrorsAsTreeWalker()
+        throws Exception
+    {
+        final List<File> files = Arrays.asList(
+                getInputFile("InputProfilingTreeWalker.java"),
+                getInputFile("InputProfilingTreeWalkerBroken.java"));
+
+        final List<String> expected = audit(
+                createConfig(new DefaultConfiguration(TreeWalker.class.getName())),
+                files);
+        assertFalse("Input files should contain errors", expected.isEmpty());
+
+        final List<String> actual =
+            audit(createConfig(createWalker()), files);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testReport()
+        throws Exception
+    {
+        final File report = createTempFile(".csv");
+        final DefaultConfiguration walker = createWalker();
+        walker.addAttribute("reportFile", report.getPath());
+        final File input = getInputFile("InputProfilingTreeWalker.java");
+        audit(createConfig(walker), Arrays.asList(input, input));
+
+        final List<String> lines = readLines(report);
+        assertEquals("file,check,nanos,calls,nodes", lines.get(0));
+        // header plus parsing and two checks for each of two files
+        assertEquals(7, lines.size());
+        final String prefix = input.getPath() + ",";
+        assertTrue(lines.get(1).startsWith(prefix
+                + ProfilingTreeWalker.PARSE_PROFILE_NAME + ","));
+        assertTrue(lines.get(2).startsWith(prefix
+                + "OverridableMethodInConstructorCheck,"));
+        assertTrue(lines.get(3).startsWith(prefix
+                + "MultipleStringLiteralsExtendedCheck,"));
+        final String[] values = lines.get(3).split(",");
+        assertTrue("Check should visit nodes", Long.parseLong(values[4]) > 0);
+    }
+
+    @Test
+    public void testSummary()
+        throws Exception
+    {
+        final File summary = createTempFile(".txt");
+        audit(createConfig(createWalker(summary)),
+                Arrays.asList(getInputFile("InputProfilingTreeWalker.java")));
+
+        final List<String> lines = readLines(summary);
+        assertTrue(lines.toString(),
+                lines.get(0).startsWith("Profile of 1 file(s)"));
+        // title, header, parsing and two checks
+        assertEquals(lines.toString(), 5, lines.size());
+        final String text = lines.toString();
+        assertTrue(text, text.contains(ProfilingTreeWalker.PARSE_PROFILE_NAME));
+        assertTrue(text, text.contains("OverridableMethodInConstructorCheck"));
+    }
+
+    @Test(expected = CheckstyleException.class)
+    public void testNotCheckChild()
+        throws Exception
+    {
+        final DefaultConfiguration walker = createWalker();
+        walker.addChild(new DefaultConfiguration(TreeWalker.class.getName()));
+        audit(walker, new ArrayList<File>());
+    }
+
+    /**
+     * Creates configuration of the walker which writes summary to a temporary
+     * file, so that profiles of tests do not get to the build log.
+     */
+    private static DefaultConfiguration createWalker()
+        throws IOException
+    {
+        return createWalker(createTempFile(".txt"));
+    }
+
+    private static DefaultConfiguration createWalker(File aSummary)
+    {
+        final DefaultConfiguration walker = new DefaultConfiguration(
+                ProfilingTreeWalker.class.getName());
+        walker.addAttribute("summaryFile", aSummary.getPath());
+        return walker;
+    }
+
+    private static File createTempFile(String aSuffix)
+        throws IOException
+    {
+        final File file = File.createTempFile("profile", aSuffix);
+        file.deleteOnExit();
+        return file;
+    }
+
+    private static DefaultConfiguration createConfig(
+            DefaultConfiguration aWalker)
+    {
+        aWalker.addChild(new DefaultConfiguration(
+                OverridableMethodInConstructorCheck.class.getName()));
+        final DefaultConfiguration stringLiterals = new DefaultConfiguration(
+                MultipleStringLiteralsExtendedCheck.class.getName());
+        stringLiterals.addAttribute("allowedDuplicates", "0");
+        aWalker.addChild(stringLiterals);
+        return aWalker;
+    }
+
+    private static List<String> audit(DefaultConfiguration aWalker,
+            List<File> aFiles)
+        throws Exception
+    {
+        final DefaultConfiguration config =
+            new DefaultConfiguration("configuration");
+        config.addAttribute("charset", "iso-8859-1");
+        config.addAttribute("localeLanguage", Locale.ENGLISH.getLanguage());
+        config.addChild(aWalker);
+
+        final Checker checker = new Checker();
+        checker.setModuleClassLoader(
+                Thread.currentThread().getContextClassLoader());
+        checker.configure(config);
+        final List<String> errors = new ArrayList<String>();
+        checker.addListener(new AuditListener() {
+            @Override
+            public void auditStarted(AuditEvent aEvt)
+            {
+            }
+
+            @Override
+            public void auditFinished(AuditEvent aEvt)
+            {
+            }
+
+            @Override
+            public void fileStarted(AuditEvent aEvt)
+            {
+            }
+
+            @Override
+            public void fileFinished(AuditEvent aEvt)
+            {
+            }
+
+            @Override
+            public void addError(AuditEvent aEvt)
+            {
+                errors.add(aEvt.getFileName() + ":" + aEvt.getLine() + ":"
+                        + aEvt.getColumn() + ": " + aEvt.getMessage());
+            }
+
+            @Override
+            public void addException(AuditEvent aEvt, Throwable aThrowable)
+            {
+                errors.add("exception " + aThrowable);
+            }
+        });
+        try {
+            checker.process(aFiles);
+        }
+        finally {
+            checker.destroy();
+        }
+        return errors;
+    }
+
+    private static List<String> readLines(File aFile)
+        throws IOException
+    {
+        final List<String> lines = new ArrayList<String>();
+        final BufferedReader reader = new BufferedReader(new FileReader(aFile));
+        try {
+            String line = reader.readLine();
+            while (line != null) {
+                lines.add(line);
+                line = reader.readLine();
+            }
+        }
+        finally {
+            reader.close();
+        }
+        return lines;
+    }
+
+    private File getInputFile(String aName)
+    {
+        return new File(getClass().getResource(aName).getPath());
+    }
+}
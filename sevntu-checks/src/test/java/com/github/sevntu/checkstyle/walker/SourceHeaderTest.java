@@ -0,0 +1,116 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.walker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.sevntu.checkstyle.walker.SourceHeader.Import;
+
+public class SourceHeaderTest extends Assert
+{
+    @Test
+    public void testDeclarations()
+    {
+        final SourceHeader header = SourceHeader.scan(Arrays.asList(
+                "/* license",
+                " * package not.this.one; */",
+                "package com . example // comment",
+                "    .app;",
+                "",
+                "import java.util.List; import static java.lang.Math.*;",
+                ";",
+                "import /* comment */ java.io.",
+                "    File;",
+                "",
+                "@SuppressWarnings(\"all\")",
+                "public class Input",
+                "{",
+                "    import java.util.Map;",
+                "}"));
+        assertTrue(header.isComplete());
+        assertEquals("com.example.app", header.getPackageName());
+        assertEquals(Arrays.asList("java.util.List", "static java.lang.Math.*",
+                "java.io.File"), toStrings(header.getImports()));
+        assertEquals(6, header.getImports().get(0).getLineNo());
+        assertEquals(6, header.getImports().get(1).getLineNo());
+        assertTrue(header.getImports().get(1).isStatic());
+        assertEquals(8, header.getImports().get(2).getLineNo());
+    }
+
+    @Test
+    public void testDefaultPackage()
+    {
+        final SourceHeader header = SourceHeader.scan(Arrays.asList(
+                "// comment", "class Input {}"));
+        assertTrue(header.isComplete());
+        assertNull(header.getPackageName());
+        assertTrue(header.getImports().isEmpty());
+
+        final SourceHeader empty =
+            SourceHeader.scan(new ArrayList<String>());
+        assertTrue(empty.isComplete());
+        assertNull(empty.getPackageName());
+    }
+
+    @Test
+    public void testIncomplete()
+    {
+        assertFalse(SourceHeader.scan(Arrays.asList(
+                "@Deprecated", "package com.example;")).isComplete());
+        assertFalse(SourceHeader.scan(Arrays.asList(
+                "\\u0070ackage com.example;")).isComplete());
+        assertFalse(SourceHeader.scan(Arrays.asList(
+                "package com.example")).isComplete());
+        assertFalse(SourceHeader.scan(Arrays.asList(
+                "package com.*;")).isComplete());
+        assertFalse(SourceHeader.scan(Arrays.asList(
+                "package com.example;", "import java.util.*.List;"))
+                .isComplete());
+    }
+
+    @Test
+    public void testContainsWord()
+    {
+        final SourceHeader header = SourceHeader.scan(Arrays.asList(
+                "package com.example;",
+                "class Input { Object o = new java.io.File(\"a\"); }"));
+        assertTrue(header.containsWord("new"));
+        assertTrue(header.containsWord("File"));
+        assertTrue(header.containsWord("Input"));
+        assertFalse(header.containsWord("Fil"));
+        assertFalse(header.containsWord("ile"));
+        assertFalse(header.containsWord("Object2"));
+        assertTrue(SourceHeader.scan(Arrays.asList("int \\u0061;"))
+                .containsWord("Object2"));
+    }
+
+    private static List<String> toStrings(List<Import> aImports)
+    {
+        final List<String> result = new ArrayList<String>();
+        for (Import element : aImports) {
+            result.add(element.toString());
+        }
+        return result;
+    }
+}
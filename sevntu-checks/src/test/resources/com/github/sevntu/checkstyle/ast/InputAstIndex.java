@@ -0,0 +1,42 @@
+package com.github.sevntu.checkstyle.ast;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class InputAstIndex
+{
+    private final Map<String, Integer> mCounts = new HashMap<String, Integer>();
+
+    public int count(String aName)
+    {
+        int result = 0;
+        for (String key : mCounts.keySet()) {
+            if (key.equals(aName)) {
+                result += mCounts.get(key);
+            }
+        }
+        return result;
+    }
+
+    class Inner
+    {
+        void run()
+        {
+            if (count("a") > 0) for (int i = 0; i < 2; i++) count("b");
+        }
+    }
+}
+
+class InputAstIndexSecond
+{
+    Object create()
+    {
+        return new Object() {
+            @Override
+            public String toString()
+            {
+                return "second";
+            }
+        };
+    }
+}
@@ -349,3 +349,19 @@ class Errors_5 {
     }
     
 }
+
+class InputCustomDeclarationOrderCheckNotSetter
+{
+    private int z;
+
+    public void method() {
+    }
+
+    public void setZ(int z) { // not a setter, the field is updated below
+        System.out.println(z);
+    }
+
+    public void reset() {
+        this.z = Integer.valueOf(0);
+    }
+}
@@ -0,0 +1,21 @@
+import java.util.HashMap;
+import java.util.Map;
+
+public class InputMapIterationInForEachLoopBraceless
+{
+    public void iterate()
+    {
+        Map<String, String> map = new HashMap<String, String>();
+        String key = "";
+        // the body of a loop without braces is not searched
+        for (String each : map.keySet())
+            System.out.println(map.get(each));
+        // nor is code after such a loop
+        for (String value : map.values())
+            System.out.println(value);
+        System.out.println(map.get(key));
+        for (String each : map.keySet()) {
+            System.out.println(map.get(each));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+import java.util.HashMap;
+import java.util.Map;
+
+public class InputMapIterationInForEachLoopScope
+{
+    private Map<String, String> mField = new HashMap<String, String>();
+
+    public void declare()
+    {
+        Map<String, String> map = new HashMap<String, String>();
+        for (String key : map.keySet()) {
+            System.out.println(map.get(key));
+        }
+        for (String key : mField.keySet()) {
+            System.out.println(mField.get(key));
+        }
+    }
+
+    public void iterate(Map<String, String> map)
+    {
+        // 'map' of this method is not the map declared above
+        for (String key : map.keySet()) {
+            System.out.println(map.get(key));
+        }
+    }
+}
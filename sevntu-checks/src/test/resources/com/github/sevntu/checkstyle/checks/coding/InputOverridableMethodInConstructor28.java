@@ -0,0 +1,17 @@
+package com.github.sevntu.checkstyle.checks.coding;
+
+public class InputOverridableMethodInConstructor28 {
+    InputOverridableMethodInConstructor28() { a(); b(); c(); d(); }
+    InputOverridableMethodInConstructor28(int i) { b(); a(); d(); c(); }
+    private void a() { b(); x(); }
+    private void b() { a(); y(); }
+    private void c() { c(); d(); e(); }
+    private void d() { e(); c(); z(); }
+    private final void e() { f(); }
+    private void f() { g(); a(); }
+    private void g() { }
+    public void x() {}
+    public void y() {}
+    public void z() {}
+    public Object clone() { b(); return null; }
+}
@@ -0,0 +1,19 @@
+package com.github.sevntu.checkstyle.checks.coding;
+
+public class InputOverridableMethodInConstructor29 {
+
+    class First extends Second {
+        First() {
+            undefined();
+        }
+    }
+
+    class Second extends First {
+        Second() {
+            overrideMe();
+        }
+
+        void overrideMe() {
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.github.sevntu.checkstyle.checks.coding.hierarchy;
+
+import java.io.Serializable;
+
+public class InputAvoidDefaultSerializableBase implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+}
+
+interface InputAvoidDefaultSerializableMarker extends Serializable
+{
+}
@@ -0,0 +1,46 @@
+package com.github.sevntu.checkstyle.checks.coding.hierarchy;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+
+public class InputAvoidDefaultSerializableDerived
+{
+    class SerializableBySuperclass extends InputAvoidDefaultSerializableBase
+    {
+    }
+
+    class SerializableByInterface
+        implements InputAvoidDefaultSerializableMarker, Runnable
+    {
+        public void run()
+        {
+        }
+    }
+
+    class SerializableByLibrarySuperclass extends ArrayList<String>
+    {
+    }
+
+    static class StaticNested extends InputAvoidDefaultSerializableBase
+    {
+    }
+
+    class NotSerializable extends Thread
+    {
+    }
+
+    class WithSerializationMethods extends InputAvoidDefaultSerializableBase
+    {
+        private void readObject(ObjectInputStream aInputStream)
+            throws ClassNotFoundException, IOException
+        {
+        }
+
+        private void writeObject(ObjectOutputStream aOutputStream)
+            throws IOException
+        {
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.github.sevntu.checkstyle.checks.design;
+
+public class InputCauseParameterInExceptionBase extends RuntimeException
+{
+    public InputCauseParameterInExceptionBase(String message, Throwable cause)
+    {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.sevntu.checkstyle.checks.design;
+
+import java.io.IOException;
+
+public class InputCauseParameterInExceptionDerived
+    extends InputCauseParameterInExceptionBase
+{
+    public InputCauseParameterInExceptionDerived(String message)
+    {
+        super(message, null);
+    }
+
+    class NotAnException
+    {
+        public NotAnException(String message)
+        {
+        }
+    }
+
+    static class WrappedIOException extends IOException
+    {
+        public WrappedIOException(String message, java.lang.Throwable cause)
+        {
+            super(message);
+        }
+    }
+
+    static class UnknownException extends project.ParentException
+    {
+        public UnknownException(String message)
+        {
+        }
+    }
+
+    static class Failure extends Error
+    {
+        public Failure(String message)
+        {
+        }
+
+        class InnerFailure extends Failure
+        {
+            public InnerFailure(Exception cause)
+            {
+                super(null);
+            }
+        }
+    }
+}
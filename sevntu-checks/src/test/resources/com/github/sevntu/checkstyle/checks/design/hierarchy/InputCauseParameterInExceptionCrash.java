@@ -0,0 +1,19 @@
+package com.github.sevntu.checkstyle.checks.design.hierarchy;
+
+public class InputCauseParameterInExceptionCrash
+{
+    static class Crash extends InputCauseParameterInExceptionFailure
+    {
+        public Crash(String message)
+        {
+            super(message, null);
+        }
+    }
+
+    static class Report extends Object
+    {
+        public Report(String message)
+        {
+        }
+    }
+}
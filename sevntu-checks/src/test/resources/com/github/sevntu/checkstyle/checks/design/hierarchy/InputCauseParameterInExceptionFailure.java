@@ -0,0 +1,10 @@
+package com.github.sevntu.checkstyle.checks.design.hierarchy;
+
+public class InputCauseParameterInExceptionFailure extends Error
+{
+    public InputCauseParameterInExceptionFailure(String message,
+        Throwable cause)
+    {
+        super(message, cause);
+    }
+}
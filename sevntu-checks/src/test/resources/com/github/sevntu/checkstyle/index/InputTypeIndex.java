@@ -0,0 +1,43 @@
+package com.example.index;
+
+import java.io.IOException;
+import java.util.*;
+
+public class InputTypeIndex extends IOException
+{
+    static class Member extends Base
+    {
+        class Inner extends Member
+        {
+        }
+    }
+
+    static class Base extends AbstractList
+    {
+        public Base(String message, Throwable cause, int... codes)
+        {
+        }
+
+        public Base()
+        {
+        }
+    }
+
+    static class Cycle extends Cycle
+    {
+    }
+
+    static class Unknown extends com.example.Missing
+    {
+    }
+}
+
+class Plain
+{
+    void method()
+    {
+        class Local extends RuntimeException
+        {
+        }
+    }
+}
@@ -0,0 +1,26 @@
+/* class Commented extends Thread */
+@Deprecated
+package com.example.hierarchy.a;
+
+import java.io.Serializable;
+import java.util.HashMap;
+
+public class InputHierarchyBase
+    implements Serializable, Comparable<InputHierarchyBase>
+{
+    private static final long serialVersionUID = 1L;
+
+    private final String mText = "class InString extends Thread {";
+
+    private final char mBrace = '{';
+
+    public int compareTo(InputHierarchyBase aOther)
+    {
+        return 0;
+    }
+
+    public static class Nested extends HashMap<String, String>
+    {
+        private static final long serialVersionUID = 1L;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.hierarchy.b;
+
+import static java.util.Collections.emptyList;
+
+import com.example.hierarchy.a.*;
+
+@SuppressWarnings({"serial", "unused"})
+public class InputHierarchyDerived extends InputHierarchyBase
+{
+    Class<?> mType = String.class;
+
+    class Inner extends Nested
+    {
+    }
+
+    Runnable mTask = new Runnable() {
+        public void run()
+        {
+            class Local extends Inner
+            {
+            }
+        }
+    };
+}
+
+interface InputHierarchyMarker extends java.util.RandomAccess, Cloneable
+{
+}
+
+enum InputHierarchyKind implements InputHierarchyMarker
+{
+    FIRST, SECOND;
+}
+
+@interface InputHierarchyTag
+{
+    String value() default "enum Fake {}";
+}
+
+class InputHierarchyCycleA extends InputHierarchyCycleB
+{
+}
+
+class InputHierarchyCycleB extends InputHierarchyCycleA
+{
+}
@@ -0,0 +1,3 @@
+class InputFusedTreeWalkerBroken {
+    String s = "unterminated;
+}
@@ -0,0 +1,3 @@
+class InputProfilingTreeWalkerBroken {
+    void method( {
+}
@@ -0,0 +1,635 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.puppycrawl.tools.checkstyle.api.LocalizedMessage;
+import com.puppycrawl.tools.checkstyle.api.SeverityLevel;
+import com.puppycrawl.tools.checkstyle.api.Utils;
+
+/**
+ * <p>
+ * Persistent cache of violations found in files. Every entry is identified
+ * by the path of the file and is valid only while the hash of the file
+ * content is the same. The whole cache is valid only for one key, which
+ * describes configuration of checks and versions of libraries; a cache
+ * created for another key is discarded on loading.
+ * </p>
+ * <p>
+ * The cache is written with {@link DataOutputStream}: the format version,
+ * the key and the count of files, then for every file its path, the hash
+ * and its messages. A message is stored as line, column, bundle, key,
+ * arguments, severity, module id, name of the source class and custom
+ * message. Arguments keep their type only if it is a string or a boxed
+ * primitive, other arguments are stored as text. No objects are
+ * deserialized, so a cache file from an untrusted build directory can only
+ * cause a full audit.
+ * </p>
+ */
+final class AuditCache
+{
+    /** Version of the format of the cache file. */
+    private static final int FORMAT_VERSION = 2;
+
+    /** Length which marks a null string. */
+    private static final int NULL_LENGTH = -1;
+
+    /** Encoding of strings. */
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /** Tag of a null argument. */
+    private static final byte NULL_ARGUMENT = 0;
+
+    /** Tag of a string argument, also of arguments stored as text. */
+    private static final byte STRING_ARGUMENT = 1;
+
+    /** Tag of an Integer argument. */
+    private static final byte INTEGER_ARGUMENT = 2;
+
+    /** Tag of a Long argument. */
+    private static final byte LONG_ARGUMENT = 3;
+
+    /** Tag of a Double argument. */
+    private static final byte DOUBLE_ARGUMENT = 4;
+
+    /** Tag of a Boolean argument. */
+    private static final byte BOOLEAN_ARGUMENT = 5;
+
+    /** Tag of a Character argument. */
+    private static final byte CHARACTER_ARGUMENT = 6;
+
+    /** The file to store the cache in. */
+    private final File mFile;
+
+    /** The key the cache is valid for. */
+    private final String mKey;
+
+    /** Class loader to resolve source classes of stored messages with. */
+    private final ClassLoader mClassLoader;
+
+    /** Cached files by their paths. */
+    private Map<String, CachedFile> mEntries =
+        new HashMap<String, CachedFile>();
+
+    /** Whether the cache was changed since loading. */
+    private boolean mChanged;
+
+    /** Length of the file which is being read, limits stored lengths. */
+    private long mLength;
+
+    /**
+     * Creates a cache, call {@link #load()} to read stored entries.
+     * @param aFile the file to store the cache in.
+     * @param aKey the key the cache is valid for.
+     * @param aClassLoader class loader to resolve source classes of stored
+     *        messages with, may be null.
+     */
+    AuditCache(File aFile, String aKey, ClassLoader aClassLoader)
+    {
+        mFile = aFile;
+        mKey = aKey;
+        mClassLoader = aClassLoader;
+    }
+
+    /**
+     * Reads entries stored in the file. Missing, damaged or outdated
+     * cache file is silently ignored, so all files will be audited again.
+     */
+    void load()
+    {
+        mEntries = new HashMap<String, CachedFile>();
+        mChanged = false;
+        if (!mFile.isFile()) {
+            return;
+        }
+        DataInputStream in = null;
+        try {
+            mLength = mFile.length();
+            in = new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(mFile)));
+            if (in.readInt() == FORMAT_VERSION
+                && mKey.equals(readString(in)))
+            {
+                mEntries = readEntries(in);
+            }
+            else {
+                mChanged = true;
+            }
+        }
+        catch (final IOException e) {
+            discard();
+        }
+        catch (final RuntimeException e) {
+            discard();
+        }
+        finally {
+            Utils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Gets violations stored for a file.
+     * @param aPath path of the file.
+     * @param aHash hash of the current content of the file.
+     * @return stored violations or null if the file is not cached or was
+     *         changed.
+     */
+    List<LocalizedMessage> get(String aPath, byte[] aHash)
+    {
+        final CachedFile entry = mEntries.get(aPath);
+        List<LocalizedMessage> result = null;
+        if (entry != null && Arrays.equals(entry.mHash, aHash)) {
+            result = entry.mMessages;
+        }
+        return result;
+    }
+
+    /**
+     * Stores violations of a file.
+     * @param aPath path of the file.
+     * @param aHash hash of the content of the file.
+     * @param aMessages violations found in the file.
+     */
+    void put(String aPath, byte[] aHash, Collection<LocalizedMessage> aMessages)
+    {
+        mEntries.put(aPath, new CachedFile(aHash,
+                new ArrayList<LocalizedMessage>(aMessages)));
+        mChanged = true;
+    }
+
+    /**
+     * Writes the cache to the file if it was changed. Entries of files
+     * which do not exist anymore are dropped. The cache is written to
+     * a temporary file first, so concurrent builds never see a partially
+     * written cache.
+     * @throws IOException if the cache cannot be written.
+     */
+    void save()
+        throws IOException
+    {
+        final Iterator<String> paths = mEntries.keySet().iterator();
+        while (paths.hasNext()) {
+            if (!new File(paths.next()).exists()) {
+                paths.remove();
+                mChanged = true;
+            }
+        }
+        if (!mChanged) {
+            return;
+        }
+        final File dir = mFile.getAbsoluteFile().getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create directory " + dir);
+        }
+        final File temp = File.createTempFile(mFile.getName(), ".tmp", dir);
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(temp)));
+            out.writeInt(FORMAT_VERSION);
+            writeString(out, mKey);
+            writeEntries(out);
+            out.close();
+            out = null;
+            if (!temp.renameTo(mFile)
+                && !(mFile.delete() && temp.renameTo(mFile)))
+            {
+                throw new IOException("Cannot write cache file " + mFile);
+            }
+            mChanged = false;
+        }
+        finally {
+            Utils.closeQuietly(out);
+            if (temp.exists() && !temp.delete()) {
+                temp.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * @return count of cached files.
+     */
+    int size()
+    {
+        return mEntries.size();
+    }
+
+    /** Drops all entries which were read so far. */
+    private void discard()
+    {
+        mEntries = new HashMap<String, CachedFile>();
+        mChanged = true;
+    }
+
+    /**
+     * Writes all entries.
+     * @param aOutput the output.
+     * @throws IOException if the output fails or a message cannot be stored.
+     */
+    private void writeEntries(DataOutputStream aOutput)
+        throws IOException
+    {
+        aOutput.writeInt(mEntries.size());
+        for (Map.Entry<String, CachedFile> entry : mEntries.entrySet()) {
+            final CachedFile file = entry.getValue();
+            writeString(aOutput, entry.getKey());
+            aOutput.writeInt(file.mHash.length);
+            aOutput.write(file.mHash);
+            aOutput.writeInt(file.mMessages.size());
+            for (LocalizedMessage message : file.mMessages) {
+                writeMessage(aOutput, message);
+            }
+        }
+    }
+
+    /**
+     * Reads all entries written by {@link #writeEntries}.
+     * @param aInput the input.
+     * @return cached files by their paths.
+     * @throws IOException if the input fails or the cache is damaged.
+     */
+    private Map<String, CachedFile> readEntries(DataInputStream aInput)
+        throws IOException
+    {
+        final int count = readCount(aInput);
+        final Map<String, CachedFile> result =
+            new HashMap<String, CachedFile>();
+        for (int i = 0; i < count; i++) {
+            final String path = readString(aInput);
+            final byte[] hash = new byte[readCount(aInput)];
+            aInput.readFully(hash);
+            final int messageCount = readCount(aInput);
+            final ArrayList<LocalizedMessage> messages =
+                new ArrayList<LocalizedMessage>(messageCount);
+            for (int j = 0; j < messageCount; j++) {
+                messages.add(readMessage(aInput));
+            }
+            result.put(path, new CachedFile(hash, messages));
+        }
+        return result;
+    }
+
+    /**
+     * Writes a message.
+     * @param aOutput the output.
+     * @param aMessage the message.
+     * @throws IOException if the output fails or the message cannot be
+     *         stored.
+     */
+    private static void writeMessage(DataOutputStream aOutput,
+            LocalizedMessage aMessage)
+        throws IOException
+    {
+        aOutput.writeInt(aMessage.getLineNo());
+        aOutput.writeInt(aMessage.getColumnNo());
+        writeString(aOutput,
+                (String) MessageFields.get(aMessage, MessageFields.BUNDLE));
+        writeString(aOutput, aMessage.getKey());
+        final Object[] args =
+            (Object[]) MessageFields.get(aMessage, MessageFields.ARGS);
+        if (args == null) {
+            aOutput.writeInt(NULL_LENGTH);
+        }
+        else {
+            aOutput.writeInt(args.length);
+            for (Object arg : args) {
+                writeArgument(aOutput, arg);
+            }
+        }
+        writeString(aOutput, aMessage.getSeverityLevel().getName());
+        writeString(aOutput, aMessage.getModuleId());
+        writeString(aOutput, aMessage.getSourceName());
+        writeString(aOutput, (String) MessageFields.get(aMessage,
+                MessageFields.CUSTOM_MESSAGE));
+    }
+
+    /**
+     * Reads a message written by {@link #writeMessage}.
+     * @param aInput the input.
+     * @return the message.
+     * @throws IOException if the input fails or the message is damaged.
+     */
+    private LocalizedMessage readMessage(DataInputStream aInput)
+        throws IOException
+    {
+        final int line = aInput.readInt();
+        final int column = aInput.readInt();
+        final String bundle = readString(aInput);
+        final String key = readString(aInput);
+        final int argCount = aInput.readInt();
+        Object[] args = null;
+        if (argCount != NULL_LENGTH) {
+            args = new Object[checkCount(argCount)];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = readArgument(aInput);
+            }
+        }
+        final SeverityLevel severity =
+            SeverityLevel.getInstance(readString(aInput));
+        final String moduleId = readString(aInput);
+        final Class<?> sourceClass = loadClass(readString(aInput));
+        final String customMessage = readString(aInput);
+        return new LocalizedMessage(line, column, bundle, key, args,
+                severity, moduleId, sourceClass, customMessage);
+    }
+
+    /**
+     * Writes an argument of a message.
+     * @param aOutput the output.
+     * @param aArg the argument.
+     * @throws IOException if the output fails.
+     */
+    private static void writeArgument(DataOutputStream aOutput, Object aArg)
+        throws IOException
+    {
+        if (aArg == null) {
+            aOutput.writeByte(NULL_ARGUMENT);
+        }
+        else if (aArg instanceof Integer) {
+            aOutput.writeByte(INTEGER_ARGUMENT);
+            aOutput.writeInt((Integer) aArg);
+        }
+        else if (aArg instanceof Long) {
+            aOutput.writeByte(LONG_ARGUMENT);
+            aOutput.writeLong((Long) aArg);
+        }
+        else if (aArg instanceof Double) {
+            aOutput.writeByte(DOUBLE_ARGUMENT);
+            aOutput.writeDouble((Double) aArg);
+        }
+        else if (aArg instanceof Boolean) {
+            aOutput.writeByte(BOOLEAN_ARGUMENT);
+            aOutput.writeBoolean((Boolean) aArg);
+        }
+        else if (aArg instanceof Character) {
+            aOutput.writeByte(CHARACTER_ARGUMENT);
+            aOutput.writeChar((Character) aArg);
+        }
+        else {
+            aOutput.writeByte(STRING_ARGUMENT);
+            writeString(aOutput, aArg.toString());
+        }
+    }
+
+    /**
+     * Reads an argument written by {@link #writeArgument}.
+     * @param aInput the input.
+     * @return the argument.
+     * @throws IOException if the input fails or the argument is damaged.
+     */
+    private Object readArgument(DataInputStream aInput)
+        throws IOException
+    {
+        final byte tag = aInput.readByte();
+        Object result;
+        switch (tag) {
+        case NULL_ARGUMENT:
+            result = null;
+            break;
+        case STRING_ARGUMENT:
+            result = readString(aInput);
+            break;
+        case INTEGER_ARGUMENT:
+            result = aInput.readInt();
+            break;
+        case LONG_ARGUMENT:
+            result = aInput.readLong();
+            break;
+        case DOUBLE_ARGUMENT:
+            result = aInput.readDouble();
+            break;
+        case BOOLEAN_ARGUMENT:
+            result = aInput.readBoolean();
+            break;
+        case CHARACTER_ARGUMENT:
+            result = aInput.readChar();
+            break;
+        default:
+            throw new IOException("Invalid argument type: " + tag);
+        }
+        return result;
+    }
+
+    /**
+     * Loads the source class of a message without initializing it.
+     * @param aName name of the class.
+     * @return the class.
+     * @throws IOException if the class is not found.
+     */
+    private Class<?> loadClass(String aName)
+        throws IOException
+    {
+        if (aName == null) {
+            throw new IOException("Missing source class");
+        }
+        Class<?> result = null;
+        if (mClassLoader != null) {
+            try {
+                result = Class.forName(aName, false, mClassLoader);
+            }
+            catch (final ClassNotFoundException e) {
+                result = null;
+            }
+        }
+        if (result == null) {
+            try {
+                result = Class.forName(aName, false,
+                        AuditCache.class.getClassLoader());
+            }
+            catch (final ClassNotFoundException e) {
+                throw new IOException("Unknown source class " + aName);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes a string which may be null.
+     * @param aOutput the output.
+     * @param aString the string.
+     * @throws IOException if the output fails.
+     */
+    private static void writeString(DataOutputStream aOutput, String aString)
+        throws IOException
+    {
+        if (aString == null) {
+            aOutput.writeInt(NULL_LENGTH);
+        }
+        else {
+            final ByteBuffer bytes = UTF_8.encode(aString);
+            aOutput.writeInt(bytes.limit());
+            aOutput.write(bytes.array(), bytes.arrayOffset(), bytes.limit());
+        }
+    }
+
+    /**
+     * Reads a string written by {@link #writeString}.
+     * @param aInput the input.
+     * @return the string, may be null.
+     * @throws IOException if the input fails or the string is damaged.
+     */
+    private String readString(DataInputStream aInput)
+        throws IOException
+    {
+        final int length = aInput.readInt();
+        String result = null;
+        if (length != NULL_LENGTH) {
+            final byte[] bytes = new byte[checkCount(length)];
+            aInput.readFully(bytes);
+            result = UTF_8.decode(ByteBuffer.wrap(bytes)).toString();
+        }
+        return result;
+    }
+
+    /**
+     * Reads a count of items, every item takes at least one byte.
+     * @param aInput the input.
+     * @return the count.
+     * @throws IOException if the input fails or the count is damaged.
+     */
+    private int readCount(DataInputStream aInput)
+        throws IOException
+    {
+        return checkCount(aInput.readInt());
+    }
+
+    /**
+     * Checks a stored count of items, every item takes at least one byte,
+     * so the count cannot exceed the length of the file.
+     * @param aCount the count.
+     * @return the count.
+     * @throws IOException if the count is damaged.
+     */
+    private int checkCount(int aCount)
+        throws IOException
+    {
+        if (aCount < 0 || aCount > mLength) {
+            throw new EOFException("Invalid count: " + aCount);
+        }
+        return aCount;
+    }
+
+    /**
+     * Violations found in a file with the given content.
+     */
+    private static final class CachedFile
+    {
+        /** Hash of the content of the file. */
+        private final byte[] mHash;
+
+        /** Violations found in the file. */
+        private final ArrayList<LocalizedMessage> mMessages;
+
+        /**
+         * Creates an entry.
+         * @param aHash hash of the content of the file.
+         * @param aMessages violations found in the file.
+         */
+        CachedFile(byte[] aHash, ArrayList<LocalizedMessage> aMessages)
+        {
+            mHash = aHash;
+            mMessages = aMessages;
+        }
+    }
+
+    /**
+     * Fields of LocalizedMessage which have no getters. Messages cannot be
+     * stored if the fields are not available.
+     */
+    private static final class MessageFields
+    {
+        /** Name of the bundle. */
+        static final String BUNDLE = "mBundle";
+
+        /** Arguments of the message. */
+        static final String ARGS = "mArgs";
+
+        /** Custom message. */
+        static final String CUSTOM_MESSAGE = "mCustomMessage";
+
+        /** Fields by their names. */
+        private static final Map<String, Field> FIELDS =
+            new HashMap<String, Field>();
+
+        static {
+            for (String name : new String[] {BUNDLE, ARGS, CUSTOM_MESSAGE}) {
+                try {
+                    final Field field =
+                        LocalizedMessage.class.getDeclaredField(name);
+                    field.setAccessible(true);
+                    FIELDS.put(name, field);
+                }
+                catch (final NoSuchFieldException e) {
+                    FIELDS.put(name, null);
+                }
+                catch (final SecurityException e) {
+                    FIELDS.put(name, null);
+                }
+            }
+        }
+
+        /** Prevents instantiation. */
+        private MessageFields()
+        {
+        }
+
+        /**
+         * Gets a field of a message.
+         * @param aMessage the message.
+         * @param aName name of the field.
+         * @return value of the field.
+         * @throws IOException if the field is not available.
+         */
+        static Object get(LocalizedMessage aMessage, String aName)
+            throws IOException
+        {
+            final Field field = FIELDS.get(aName);
+            if (field == null) {
+                throw new IOException("Unable to store messages, field "
+                        + aName + " of LocalizedMessage is not available");
+            }
+            try {
+                return field.get(aMessage);
+            }
+            catch (final IllegalAccessException e) {
+                throw new IOException("Unable to store messages, field "
+                        + aName + " of LocalizedMessage is not accessible");
+            }
+        }
+    }
+}
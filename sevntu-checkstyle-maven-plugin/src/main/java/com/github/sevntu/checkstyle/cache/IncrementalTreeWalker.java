@@ -0,0 +1,365 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+
+import com.puppycrawl.tools.checkstyle.DefaultConfiguration;
+import com.puppycrawl.tools.checkstyle.DefaultContext;
+import com.puppycrawl.tools.checkstyle.ModuleFactory;
+import com.puppycrawl.tools.checkstyle.TreeWalker;
+import com.puppycrawl.tools.checkstyle.api.AbstractFileSetCheck;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.Configuration;
+import com.puppycrawl.tools.checkstyle.api.LocalizedMessage;
+import com.puppycrawl.tools.checkstyle.api.Utils;
+
+/**
+ * <p>
+ * TreeWalker which remembers violations found in every file and does not
+ * audit a file again while its content, configuration of checks and
+ * versions of sevntu-checks and Checkstyle are the same. Violations of
+ * unchanged files are reported from the cache, so results of the audit
+ * are the same as results of TreeWalker.
+ * </p>
+ * <p>
+ * Unlike "cacheFile" property of TreeWalker, which remembers only files
+ * without violations and relies on time of modification, this cache is
+ * keyed by the hash of the file content and keeps files with violations too.
+ * </p>
+ * <p>
+ * To use it with maven-checkstyle-plugin replace
+ * <code>&lt;module name="TreeWalker"&gt;</code> with:
+ * </p>
+ * <pre>
+ * &lt;module name="IncrementalTreeWalker"&gt;
+ *     &lt;property name="cacheFile" value="${checkstyle.cache.file}"/&gt;
+ *     ...
+ * &lt;/module&gt;
+ * </pre>
+ * <p>
+ * All other properties and child checks are passed to TreeWalker. The cache
+ * must not be used with checks which report violations depending on other
+ * files, since such violations are not updated when other files change.
+ * </p>
+ * <p>
+ * The key of the cache covers the configuration of the walker and its
+ * checks, the severity inherited from Checker and versions of sevntu-checks
+ * and Checkstyle. It ignores the class path and files referenced by checks,
+ * such as import-control or suppression files, so the cache file should be
+ * deleted when they change.
+ * </p>
+ */
+public final class IncrementalTreeWalker extends AbstractFileSetCheck
+{
+    /** Name of the property with the cache file. */
+    private static final String CACHE_FILE_PROPERTY = "cacheFile";
+
+    /** Algorithm to hash content of files and configuration with. */
+    private static final String HASH_ALGORITHM = "SHA-1";
+
+    /** Encoding of text to hash. */
+    private static final String HASH_ENCODING = "UTF-8";
+
+    /** Properties of the sevntu-checks artifact. */
+    private static final String SEVNTU_POM_PROPERTIES = "/META-INF/maven/"
+        + "com.github.sevntu.checkstyle/sevntu-checks/pom.properties";
+
+    /** Version of a library which does not declare it. */
+    private static final String UNKNOWN_VERSION = "unknown";
+
+    /** TreeWalker to audit changed files with. */
+    private final TreeWalker mWalker = new TreeWalker();
+
+    /** Name of the file to store the cache in. */
+    private String mCacheFile;
+
+    /** Class loader to pass to checks. */
+    private ClassLoader mClassLoader;
+
+    /** Factory to create checks. */
+    private ModuleFactory mModuleFactory;
+
+    /** Key the cache is valid for. */
+    private String mCacheKey;
+
+    /** The cache, null if it is not configured. */
+    private AuditCache mCache;
+
+    /** Digest to hash content of files with. */
+    private MessageDigest mDigest;
+
+    /** Creates the walker. */
+    public IncrementalTreeWalker()
+    {
+        setFileExtensions(new String[] {"java"});
+    }
+
+    /**
+     * Sets distance between tab stops.
+     * @param aTabWidth the distance between tab stops
+     */
+    public void setTabWidth(int aTabWidth)
+    {
+        mWalker.setTabWidth(aTabWidth);
+    }
+
+    /**
+     * Sets the name of the file to store the cache in.
+     * @param aFileName name of the cache file, the cache is not used
+     *        if the name is empty.
+     */
+    public void setCacheFile(String aFileName)
+    {
+        mCacheFile = aFileName;
+    }
+
+    /**
+     * Sets the class loader to pass to checks.
+     * @param aClassLoader class loader to resolve classes with.
+     */
+    public void setClassLoader(ClassLoader aClassLoader)
+    {
+        mClassLoader = aClassLoader;
+    }
+
+    /**
+     * Sets the module factory for creating child modules (Checks).
+     * @param aModuleFactory the factory
+     */
+    public void setModuleFactory(ModuleFactory aModuleFactory)
+    {
+        mModuleFactory = aModuleFactory;
+    }
+
+    @Override
+    public void finishLocalSetup()
+        throws CheckstyleException
+    {
+        final Configuration config = getConfiguration();
+        final DefaultConfiguration walkerConfig =
+            new DefaultConfiguration(TreeWalker.class.getName());
+        for (String name : config.getAttributeNames()) {
+            if (!CACHE_FILE_PROPERTY.equals(name)) {
+                walkerConfig.addAttribute(name, config.getAttribute(name));
+            }
+        }
+        for (Configuration child : config.getChildren()) {
+            walkerConfig.addChild(child);
+        }
+
+        final DefaultContext walkerContext = new DefaultContext();
+        walkerContext.add("classLoader", mClassLoader);
+        walkerContext.add("moduleFactory", mModuleFactory);
+        walkerContext.add("severity", getSeverity());
+        mWalker.contextualize(walkerContext);
+        mWalker.configure(walkerConfig);
+
+        if (mCacheFile != null && mCacheFile.trim().length() > 0) {
+            try {
+                mDigest = MessageDigest.getInstance(HASH_ALGORITHM);
+            }
+            catch (final NoSuchAlgorithmException e) {
+                throw new CheckstyleException("Unable to create cache", e);
+            }
+            mCacheKey = createCacheKey(walkerConfig);
+        }
+    }
+
+    @Override
+    public void init()
+    {
+        mWalker.init();
+    }
+
+    @Override
+    public void beginProcessing(String aCharset)
+    {
+        mWalker.beginProcessing(aCharset);
+        if (mCacheKey != null && mCache == null) {
+            mCache = new AuditCache(new File(mCacheFile), mCacheKey,
+                    mClassLoader);
+            mCache.load();
+        }
+    }
+
+    @Override
+    protected void processFiltered(File aFile, List<String> aLines)
+    {
+        Collection<LocalizedMessage> messages = null;
+        if (mCache != null) {
+            final String path = aFile.getAbsolutePath();
+            final byte[] hash = hash(aLines);
+            messages = mCache.get(path, hash);
+            if (messages == null) {
+                messages = mWalker.process(aFile, aLines);
+                mCache.put(path, hash, messages);
+            }
+        }
+        else {
+            messages = mWalker.process(aFile, aLines);
+        }
+        for (LocalizedMessage message : messages) {
+            getMessageCollector().add(message);
+        }
+    }
+
+    @Override
+    public void finishProcessing()
+    {
+        mWalker.finishProcessing();
+        if (mCache != null) {
+            try {
+                mCache.save();
+            }
+            catch (final IOException e) {
+                Utils.getExceptionLogger().debug(
+                        "Unable to save cache file.", e);
+            }
+        }
+    }
+
+    @Override
+    public void destroy()
+    {
+        mWalker.destroy();
+        mCache = null;
+        super.destroy();
+    }
+
+    /**
+     * Hashes content of a file.
+     * @param aLines lines of the file.
+     * @return the hash.
+     */
+    private byte[] hash(List<String> aLines)
+    {
+        try {
+            for (String line : aLines) {
+                mDigest.update(line.getBytes(HASH_ENCODING));
+                mDigest.update((byte) '\n');
+            }
+        }
+        catch (final UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        return mDigest.digest();
+    }
+
+    /**
+     * Creates the key of the cache from the configuration of checks, the
+     * severity of the walker and versions of libraries which can change
+     * results of the audit.
+     * @param aConfig configuration of TreeWalker.
+     * @return the key.
+     */
+    private String createCacheKey(Configuration aConfig)
+    {
+        final StringBuilder text = new StringBuilder();
+        text.append("sevntu-checks ").append(getSevntuVersion()).append('\n');
+        final String checkstyleVersion =
+            TreeWalker.class.getPackage().getImplementationVersion();
+        text.append("checkstyle ")
+            .append(checkstyleVersion == null
+                ? UNKNOWN_VERSION : checkstyleVersion)
+            .append('\n');
+        text.append("severity ").append(getSeverity()).append('\n');
+        appendConfiguration(text, aConfig, 0);
+
+        final StringBuilder result = new StringBuilder();
+        try {
+            final byte[] hash = mDigest.digest(
+                    text.toString().getBytes(HASH_ENCODING));
+            for (byte b : hash) {
+                result.append(Integer.toHexString((b >> 4) & 0xF))
+                    .append(Integer.toHexString(b & 0xF));
+            }
+        }
+        catch (final UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Writes a configuration with its children as text.
+     * @param aText text to append the configuration to.
+     * @param aConfig the configuration.
+     * @param aDepth depth of the configuration in the tree.
+     */
+    private static void appendConfiguration(StringBuilder aText,
+            Configuration aConfig, int aDepth)
+    {
+        for (int i = 0; i < aDepth; i++) {
+            aText.append(' ');
+        }
+        aText.append(aConfig.getName());
+        final String[] names = aConfig.getAttributeNames();
+        Arrays.sort(names);
+        for (String name : names) {
+            try {
+                aText.append(' ').append(name).append('=')
+                    .append(aConfig.getAttribute(name));
+            }
+            catch (final CheckstyleException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        aText.append('\n');
+        for (Configuration child : aConfig.getChildren()) {
+            appendConfiguration(aText, child, aDepth + 1);
+        }
+    }
+
+    /**
+     * Reads the version of sevntu-checks from the properties which maven
+     * stores in the jar.
+     * @return the version or "unknown" if it is not available.
+     */
+    private static String getSevntuVersion()
+    {
+        String result = null;
+        final InputStream in =
+            IncrementalTreeWalker.class.getResourceAsStream(
+                    SEVNTU_POM_PROPERTIES);
+        if (in != null) {
+            try {
+                final Properties properties = new Properties();
+                properties.load(in);
+                result = properties.getProperty("version");
+            }
+            catch (final IOException e) {
+                result = null;
+            }
+            finally {
+                Utils.closeQuietly(in);
+            }
+        }
+        return result == null ? UNKNOWN_VERSION : result;
+    }
+}
@@ -0,0 +1,338 @@
+////////////////////////////////////////////////////////////////////////////////
+// checkstyle: Checks Java source code for adherence to a set of rules.
+// Copyright (C) 2001-2014  Oliver Burn
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+////////////////////////////////////////////////////////////////////////////////
+package com.github.sevntu.checkstyle.cache;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.puppycrawl.tools.checkstyle.Checker;
+import com.puppycrawl.tools.checkstyle.DefaultConfiguration;
+import com.puppycrawl.tools.checkstyle.TreeWalker;
+import com.puppycrawl.tools.checkstyle.api.AuditEvent;
+import com.puppycrawl.tools.checkstyle.api.AuditListener;
+import com.puppycrawl.tools.checkstyle.api.Check;
+import com.puppycrawl.tools.checkstyle.api.DetailAST;
+import com.puppycrawl.tools.checkstyle.api.SeverityLevel;
+import com.puppycrawl.tools.checkstyle.api.TokenTypes;
+
+public class IncrementalTreeWalkerTest extends Assert
+{
+    private File mDir;
+
+    private File mCacheFile;
+
+    private File mFirstFile;
+
+    private File mSecondFile;
+
+    @Before
+    public void setUp()
+        throws IOException
+    {
+        mDir = File.createTempFile("incremental", "");
+        assertTrue(mDir.delete());
+        assertTrue(mDir.mkdir());
+        mCacheFile = new File(mDir, "cache/audit.cache");
+        mFirstFile = new File(mDir, "First.java");
+        mSecondFile = new File(mDir, "Second.java");
+        write(mFirstFile, "class First {\n    class Inner {\n    }\n}\n");
+        write(mSecondFile, "class Second {\n}\n");
+        CountingCheck.sFiles = 0;
+    }
+
+    @After
+    public void tearDown()
+    {
+        for (File file : new File[] {mFirstFile, mSecondFile, mCacheFile,
+            mCacheFile.getParentFile(), mDir, })
+        {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testSameErrorsAsTreeWalker()
+        throws Exception
+    {
+        final List<String> expected = audit(createConfig(
+                TreeWalker.class.getName(), null, "class"));
+        assertEquals(3, expected.size());
+        assertEquals(2, CountingCheck.sFiles);
+
+        final DefaultConfiguration config = createConfig(
+                IncrementalTreeWalker.class.getName(), mCacheFile, "class");
+        assertEquals(expected, audit(config));
+        assertEquals(4, CountingCheck.sFiles);
+        assertTrue(mCacheFile.isFile());
+
+        // second audit is served from the cache
+        assertEquals(expected, audit(config));
+        assertEquals(4, CountingCheck.sFiles);
+    }
+
+    @Test
+    public void testChangedFile()
+        throws Exception
+    {
+        final DefaultConfiguration config = createConfig(
+                IncrementalTreeWalker.class.getName(), mCacheFile, "class");
+        audit(config);
+        assertEquals(2, CountingCheck.sFiles);
+
+        write(mSecondFile, "class Second {\n    class Inner {\n    }\n}\n");
+        final List<String> errors = audit(config);
+        assertEquals(1, CountingCheck.sFiles - 2);
+        assertEquals(4, errors.size());
+        assertEquals(mSecondFile.getPath() + ":2:5: class", errors.get(3));
+    }
+
+    @Test
+    public void testChangedConfiguration()
+        throws Exception
+    {
+        audit(createConfig(IncrementalTreeWalker.class.getName(),
+                mCacheFile, "class"));
+        assertEquals(2, CountingCheck.sFiles);
+
+        final List<String> errors = audit(createConfig(
+                IncrementalTreeWalker.class.getName(), mCacheFile, "type"));
+        assertEquals(4, CountingCheck.sFiles);
+        assertEquals(mFirstFile.getPath() + ":1:1: type", errors.get(0));
+    }
+
+    @Test
+    public void testChangedSeverity()
+        throws Exception
+    {
+        final DefaultConfiguration walker = createConfig(
+                IncrementalTreeWalker.class.getName(), mCacheFile, "class");
+        audit(walker);
+        assertEquals(2, CountingCheck.sFiles);
+
+        final List<String> errors = audit(walker, "warning");
+        assertEquals(4, CountingCheck.sFiles);
+        assertEquals(mFirstFile.getPath() + ":1:1: class warning",
+                errors.get(0));
+    }
+
+    @Test
+    public void testDamagedCache()
+        throws Exception
+    {
+        assertTrue(mCacheFile.getParentFile().mkdirs());
+        write(mCacheFile, "damaged");
+        final List<String> errors = audit(createConfig(
+                IncrementalTreeWalker.class.getName(), mCacheFile, "class"));
+        assertEquals(3, errors.size());
+        assertEquals(2, CountingCheck.sFiles);
+    }
+
+    @Test
+    public void testMessageArguments()
+        throws Exception
+    {
+        final String message = "{0} {1} {2}";
+        final List<String> expected = audit(createConfig(
+                TreeWalker.class.getName(), null, message));
+        assertEquals(mFirstFile.getPath() + ":2:5: 2,000 Inner true",
+                expected.get(1));
+
+        final DefaultConfiguration config = createConfig(
+                IncrementalTreeWalker.class.getName(), mCacheFile, message);
+        assertEquals(expected, audit(config));
+        assertEquals(expected, audit(config));
+        assertEquals(4, CountingCheck.sFiles);
+    }
+
+    @Test
+    public void testTruncatedCache()
+        throws Exception
+    {
+        final DefaultConfiguration config = createConfig(
+                IncrementalTreeWalker.class.getName(), mCacheFile, "class");
+        final List<String> expected = audit(config);
+        final RandomAccessFile file = new RandomAccessFile(mCacheFile, "rw");
+        try {
+            file.setLength(file.length() - 1);
+        }
+        finally {
+            file.close();
+        }
+        assertEquals(expected, audit(config));
+        assertEquals(4, CountingCheck.sFiles);
+        assertEquals(expected, audit(config));
+        assertEquals(4, CountingCheck.sFiles);
+    }
+
+    @Test
+    public void testWithoutCache()
+        throws Exception
+    {
+        final DefaultConfiguration config = createConfig(
+                IncrementalTreeWalker.class.getName(), null, "class");
+        assertEquals(3, audit(config).size());
+        assertEquals(3, audit(config).size());
+        assertEquals(4, CountingCheck.sFiles);
+    }
+
+    private static DefaultConfiguration createConfig(String aWalker,
+            File aCacheFile, String aMessage)
+    {
+        final DefaultConfiguration walker = new DefaultConfiguration(aWalker);
+        if (aCacheFile != null) {
+            walker.addAttribute("cacheFile", aCacheFile.getPath());
+        }
+        final DefaultConfiguration check =
+            new DefaultConfiguration(CountingCheck.class.getName());
+        check.addAttribute("message", aMessage);
+        walker.addChild(check);
+        return walker;
+    }
+
+    private List<String> audit(DefaultConfiguration aWalker)
+        throws Exception
+    {
+        return audit(aWalker, null);
+    }
+
+    private List<String> audit(DefaultConfiguration aWalker,
+            String aSeverity)
+        throws Exception
+    {
+        final DefaultConfiguration config =
+            new DefaultConfiguration("configuration");
+        config.addAttribute("charset", "UTF-8");
+        if (aSeverity != null) {
+            config.addAttribute("severity", aSeverity);
+        }
+        config.addAttribute("localeLanguage", Locale.ENGLISH.getLanguage());
+        config.addChild(aWalker);
+
+        final Checker checker = new Checker();
+        checker.setModuleClassLoader(getClass().getClassLoader());
+        checker.configure(config);
+        final List<String> errors = new ArrayList<String>();
+        checker.addListener(new AuditListener() {
+            @Override
+            public void auditStarted(AuditEvent aEvt)
+            {
+            }
+
+            @Override
+            public void auditFinished(AuditEvent aEvt)
+            {
+            }
+
+            @Override
+            public void fileStarted(AuditEvent aEvt)
+            {
+            }
+
+            @Override
+            public void fileFinished(AuditEvent aEvt)
+            {
+            }
+
+            @Override
+            public void addError(AuditEvent aEvt)
+            {
+                final String severity = aEvt.getSeverityLevel()
+                    == SeverityLevel.ERROR
+                    ? "" : " " + aEvt.getSeverityLevel().getName();
+                errors.add(aEvt.getFileName() + ":" + aEvt.getLine() + ":"
+                        + aEvt.getColumn() + ": " + aEvt.getMessage()
+                        + severity);
+            }
+
+            @Override
+            public void addException(AuditEvent aEvt, Throwable aThrowable)
+            {
+                errors.add("exception " + aThrowable);
+            }
+        });
+        try {
+            checker.process(Arrays.asList(mFirstFile, mSecondFile));
+        }
+        finally {
+            checker.destroy();
+        }
+        return errors;
+    }
+
+    private static void write(File aFile, String aText)
+        throws IOException
+    {
+        final Writer writer =
+            new OutputStreamWriter(new FileOutputStream(aFile), "UTF-8");
+        try {
+            writer.write(aText);
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Logs every class and counts audited files.
+     */
+    public static class CountingCheck extends Check
+    {
+        private static int sFiles;
+
+        private String mMessage;
+
+        public void setMessage(String aMessage)
+        {
+            mMessage = aMessage;
+        }
+
+        @Override
+        public int[] getDefaultTokens()
+        {
+            return new int[] {TokenTypes.CLASS_DEF};
+        }
+
+        @Override
+        public void beginTree(DetailAST aRootAST)
+        {
+            sFiles++;
+        }
+
+        @Override
+        public void visitToken(DetailAST aAST)
+        {
+            log(aAST, mMessage, aAST.getLineNo() * 1000,
+                    aAST.findFirstToken(TokenTypes.IDENT).getText(),
+                    Boolean.TRUE);
+        }
+    }
+}
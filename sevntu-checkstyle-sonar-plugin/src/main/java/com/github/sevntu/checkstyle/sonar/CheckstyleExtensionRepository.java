@@ -6,8 +6,11 @@ import java.util.List;
 import org.apache.commons.io.IOUtils;
 import org.sonar.api.rules.Rule;
 import org.sonar.api.rules.RuleRepository;
-import org.sonar.api.rules.XMLRuleParser;
 
+/**
+ * Repository of sevntu checks. Rules are loaded from the catalog generated
+ * at build time by {@link RuleCatalogGenerator}.
+ */
 public final class CheckstyleExtensionRepository extends RuleRepository {
 
 	private static final String REPOSITORY_KEY = "checkstyle";
@@ -16,21 +19,18 @@ public final class CheckstyleExtensionRepository extends RuleRepository {
 
 	private static final String REPOSITORY_LANGUAGE = "java";
 
-	private static final String RULES_RELATIVE_FILE_PATH = "/com/github/sevntu/checkstyle/sonar/checkstyle-extensions.xml";
+	private static final String RULES_RELATIVE_FILE_PATH = "/com/github/sevntu/checkstyle/sonar/checkstyle-extensions.catalog";
 
-	private XMLRuleParser xmlRuleParser;
-
-	public CheckstyleExtensionRepository(XMLRuleParser xmlRuleParser) {
+	public CheckstyleExtensionRepository() {
 		super(REPOSITORY_KEY, REPOSITORY_LANGUAGE);
 		setName(REPOSITORY_NAME);
-		this.xmlRuleParser = xmlRuleParser;
 	}
 
 	@Override
 	public List<Rule> createRules() {
 		InputStream input = getClass().getResourceAsStream(RULES_RELATIVE_FILE_PATH);
 		try {
-			return xmlRuleParser.parse(input);
+			return RuleCatalog.read(input);
 
 		} finally {
 			IOUtils.closeQuietly(input);
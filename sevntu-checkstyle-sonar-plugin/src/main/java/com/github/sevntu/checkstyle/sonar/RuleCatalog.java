@@ -0,0 +1,89 @@
+package com.github.sevntu.checkstyle.sonar;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.sonar.api.rules.Rule;
+import org.sonar.api.rules.RuleParam;
+import org.sonar.api.rules.RulePriority;
+import org.sonar.api.utils.SonarException;
+import org.sonar.check.Cardinality;
+
+/**
+ * Reads the rule catalog generated by {@link RuleCatalogGenerator} at build
+ * time. The catalog is a {@link java.io.DataOutputStream} dump of rules and
+ * their parameters, so rules are created without XML parsing.
+ */
+public final class RuleCatalog {
+
+	/** Marks the start of a catalog. */
+	static final int MAGIC = 0x53455654;
+
+	/** Version of the catalog format. */
+	static final int VERSION = 2;
+
+	private RuleCatalog() {
+	}
+
+	/**
+	 * Reads rules from a catalog.
+	 * @param input stream of the catalog.
+	 * @return rules of the catalog.
+	 */
+	public static List<Rule> read(InputStream input) {
+		if (input == null) {
+			throw new SonarException("Rule catalog is not found");
+		}
+		final DataInputStream data = new DataInputStream(new BufferedInputStream(input));
+		try {
+			if (data.readInt() != MAGIC || data.readUnsignedShort() != VERSION) {
+				throw new SonarException("Unsupported rule catalog");
+			}
+			final int ruleCount = data.readInt();
+			final List<Rule> rules = new ArrayList<Rule>(ruleCount);
+			for (int i = 0; i < ruleCount; i++) {
+				rules.add(readRule(data));
+			}
+			return rules;
+
+		} catch (IOException e) {
+			throw new SonarException("Unable to read rule catalog", e);
+		}
+	}
+
+	private static Rule readRule(DataInputStream data) throws IOException {
+		final Rule rule = Rule.create();
+		rule.setKey(data.readUTF());
+		rule.setName(data.readUTF());
+		rule.setDescription(readNullable(data));
+		rule.setConfigKey(readNullable(data));
+		final String priority = readNullable(data);
+		if (priority != null) {
+			rule.setSeverity(RulePriority.valueOf(priority));
+		}
+		final String cardinality = readNullable(data);
+		if (cardinality != null) {
+			rule.setCardinality(Cardinality.valueOf(cardinality));
+		}
+		final int paramCount = data.readUnsignedShort();
+		for (int i = 0; i < paramCount; i++) {
+			final RuleParam param = rule.createParameter(data.readUTF());
+			param.setType(readNullable(data));
+			param.setDefaultValue(readNullable(data));
+			// setDescription turns null into an empty string, XMLRuleParser does not call it
+			final String description = readNullable(data);
+			if (description != null) {
+				param.setDescription(description);
+			}
+		}
+		return rule;
+	}
+
+	private static String readNullable(DataInputStream data) throws IOException {
+		return data.readBoolean() ? data.readUTF() : null;
+	}
+}
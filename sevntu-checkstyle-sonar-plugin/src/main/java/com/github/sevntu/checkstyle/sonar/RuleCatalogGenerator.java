@@ -0,0 +1,242 @@
+package com.github.sevntu.checkstyle.sonar;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import org.sonar.api.rules.RulePriority;
+import org.sonar.check.Cardinality;
+
+import com.puppycrawl.tools.checkstyle.api.Check;
+import com.puppycrawl.tools.checkstyle.api.FileSetCheck;
+
+/**
+ * Generates the rule catalog read by {@link RuleCatalog} from the rules
+ * description in the format of Sonar XML rules. Runs at build time, every
+ * rule is verified against its check class: the class should exist, its
+ * config key should match the parent module of the check and every
+ * parameter should have a setter.
+ */
+public final class RuleCatalogGenerator {
+
+	private RuleCatalogGenerator() {
+	}
+
+	/**
+	 * Generates the catalog.
+	 * @param args path of the rules description and path of the catalog.
+	 * @throws Exception if the rules description is invalid.
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length != 2) {
+			throw new IllegalArgumentException("Usage: RuleCatalogGenerator <rules.xml> <catalog>");
+		}
+		final List<String> errors = new ArrayList<String>();
+		final List<RuleEntry> rules = parse(new File(args[0]), errors);
+		for (RuleEntry rule : rules) {
+			verify(rule, errors);
+		}
+		if (!errors.isEmpty()) {
+			final StringBuilder message = new StringBuilder("Invalid rules description " + args[0] + ":");
+			for (String error : errors) {
+				message.append("\n  ").append(error);
+			}
+			throw new IllegalStateException(message.toString());
+		}
+		final File catalog = new File(args[1]);
+		catalog.getParentFile().mkdirs();
+		write(rules, catalog);
+	}
+
+	private static List<RuleEntry> parse(File file, List<String> errors) throws Exception {
+		final Element root = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(file)
+				.getDocumentElement();
+		final List<RuleEntry> rules = new ArrayList<RuleEntry>();
+		for (Element ruleElement : children(root)) {
+			final RuleEntry rule = new RuleEntry();
+			rule.key = attribute(ruleElement, "key");
+			rule.priority = attribute(ruleElement, "priority");
+			for (Element element : children(ruleElement)) {
+				final String name = element.getTagName();
+				if ("key".equals(name)) {
+					rule.key = text(element);
+				} else if ("name".equals(name)) {
+					rule.name = text(element);
+				} else if ("description".equals(name)) {
+					rule.description = text(element);
+				} else if ("configKey".equals(name)) {
+					rule.configKey = text(element);
+				} else if ("priority".equals(name)) {
+					rule.priority = text(element);
+				} else if ("cardinality".equals(name)) {
+					rule.cardinality = text(element);
+				} else if ("param".equals(name)) {
+					rule.params.add(parseParam(element));
+				} else if (!"category".equals(name)) {
+					errors.add("Unsupported element <" + name + "> in rule " + rule.key);
+				}
+			}
+			if (rule.key == null || rule.name == null) {
+				errors.add("Rule without key or name: " + rule.key);
+			} else {
+				rules.add(rule);
+			}
+		}
+		return rules;
+	}
+
+	private static ParamEntry parseParam(Element paramElement) {
+		final ParamEntry param = new ParamEntry();
+		param.key = attribute(paramElement, "key");
+		param.type = attribute(paramElement, "type");
+		for (Element element : children(paramElement)) {
+			final String name = element.getTagName();
+			if ("key".equals(name)) {
+				param.key = text(element);
+			} else if ("type".equals(name)) {
+				param.type = text(element);
+			} else if ("defaultValue".equals(name)) {
+				param.defaultValue = text(element);
+			} else if ("description".equals(name)) {
+				param.description = text(element);
+			}
+		}
+		return param;
+	}
+
+	private static void verify(RuleEntry rule, List<String> errors) {
+		final Class<?> checkClass;
+		try {
+			checkClass = Class.forName(rule.key, false, RuleCatalogGenerator.class.getClassLoader());
+		} catch (ClassNotFoundException e) {
+			errors.add("Check class is not found: " + rule.key);
+			return;
+		}
+		final String expectedConfigKey;
+		if (Check.class.isAssignableFrom(checkClass)) {
+			expectedConfigKey = "Checker/TreeWalker/" + rule.key;
+		} else if (FileSetCheck.class.isAssignableFrom(checkClass)) {
+			expectedConfigKey = "Checker/" + rule.key;
+		} else {
+			errors.add("Class is not a check: " + rule.key);
+			return;
+		}
+		if (!expectedConfigKey.equals(rule.configKey)) {
+			errors.add("Config key of " + rule.key + " should be " + expectedConfigKey);
+		}
+		if (rule.priority != null && !isEnumConstant(RulePriority.class, rule.priority)) {
+			errors.add("Unknown priority " + rule.priority + " of rule " + rule.key);
+		}
+		if (rule.cardinality != null && !isEnumConstant(Cardinality.class, rule.cardinality)) {
+			errors.add("Unknown cardinality " + rule.cardinality + " of rule " + rule.key);
+		}
+		for (ParamEntry param : rule.params) {
+			if (param.key == null) {
+				errors.add("Parameter without key in rule " + rule.key);
+			} else if (param.type == null) {
+				errors.add("Parameter " + param.key + " of rule " + rule.key + " has no type");
+			} else if (!hasSetter(checkClass, param.key)) {
+				errors.add("Check " + rule.key + " has no setter for parameter " + param.key);
+			}
+		}
+	}
+
+	private static <E extends Enum<E>> boolean isEnumConstant(Class<E> enumClass, String name) {
+		try {
+			Enum.valueOf(enumClass, name);
+			return true;
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	private static boolean hasSetter(Class<?> checkClass, String property) {
+		final String setterName = "set" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+		for (Method method : checkClass.getMethods()) {
+			if (setterName.equals(method.getName()) && method.getParameterTypes().length == 1) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void write(List<RuleEntry> rules, File catalog) throws IOException {
+		final DataOutputStream data = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(catalog)));
+		try {
+			data.writeInt(RuleCatalog.MAGIC);
+			data.writeShort(RuleCatalog.VERSION);
+			data.writeInt(rules.size());
+			for (RuleEntry rule : rules) {
+				data.writeUTF(rule.key);
+				data.writeUTF(rule.name);
+				writeNullable(data, rule.description);
+				writeNullable(data, rule.configKey);
+				writeNullable(data, rule.priority);
+				writeNullable(data, rule.cardinality);
+				data.writeShort(rule.params.size());
+				for (ParamEntry param : rule.params) {
+					data.writeUTF(param.key);
+					writeNullable(data, param.type);
+					writeNullable(data, param.defaultValue);
+					writeNullable(data, param.description);
+				}
+			}
+		} finally {
+			data.close();
+		}
+	}
+
+	private static void writeNullable(DataOutputStream data, String value) throws IOException {
+		data.writeBoolean(value != null);
+		if (value != null) {
+			data.writeUTF(value);
+		}
+	}
+
+	private static List<Element> children(Element parent) {
+		final List<Element> result = new ArrayList<Element>();
+		for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+			if (node.getNodeType() == Node.ELEMENT_NODE) {
+				result.add((Element) node);
+			}
+		}
+		return result;
+	}
+
+	/** Trims text the way XMLRuleParser does, blank text is kept as empty string. */
+	private static String text(Element element) {
+		return element.getTextContent().trim();
+	}
+
+	private static String attribute(Element element, String name) {
+		final String value = element.getAttribute(name).trim();
+		return value.length() == 0 ? null : value;
+	}
+
+	private static final class RuleEntry {
+		private String key;
+		private String name;
+		private String description;
+		private String configKey;
+		private String priority;
+		private String cardinality;
+		private final List<ParamEntry> params = new ArrayList<ParamEntry>();
+	}
+
+	private static final class ParamEntry {
+		private String key;
+		private String type;
+		private String defaultValue;
+		private String description;
+	}
+}
@@ -0,0 +1,80 @@
+package com.github.sevntu.checkstyle.sonar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.rules.RuleParam;
+import org.sonar.api.rules.XMLRuleParser;
+
+public class RuleCatalogTest {
+
+	private static final File RULES = new File("src/main/rules/checkstyle-extensions.xml");
+
+	private static final int RULE_COUNT = 38;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testSameRulesAsXmlRuleParser() throws Exception {
+		final List<org.sonar.api.rules.Rule> expected = new XMLRuleParser().parse(RULES);
+		final List<org.sonar.api.rules.Rule> actual = generate();
+
+		assertEquals(RULE_COUNT, expected.size());
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			final org.sonar.api.rules.Rule expectedRule = expected.get(i);
+			final org.sonar.api.rules.Rule actualRule = actual.get(i);
+			final String key = expectedRule.getKey();
+			assertEquals(key, actualRule.getKey());
+			assertEquals(key, expectedRule.getName(), actualRule.getName());
+			assertEquals(key, expectedRule.getDescription(), actualRule.getDescription());
+			assertEquals(key, expectedRule.getConfigKey(), actualRule.getConfigKey());
+			assertEquals(key, expectedRule.getSeverity(), actualRule.getSeverity());
+			assertEquals(key, expectedRule.getCardinality(), actualRule.getCardinality());
+			assertEquals(key, expectedRule.getParams().size(), actualRule.getParams().size());
+			for (int j = 0; j < expectedRule.getParams().size(); j++) {
+				final RuleParam expectedParam = expectedRule.getParams().get(j);
+				final RuleParam actualParam = actualRule.getParams().get(j);
+				final String paramKey = key + "." + expectedParam.getKey();
+				assertEquals(paramKey, expectedParam.getKey(), actualParam.getKey());
+				assertNotNull(paramKey, actualParam.getType());
+				assertEquals(paramKey, expectedParam.getType(), actualParam.getType());
+				assertEquals(paramKey, expectedParam.getDefaultValue(), actualParam.getDefaultValue());
+				assertEquals(paramKey, expectedParam.getDescription(), actualParam.getDescription());
+			}
+		}
+	}
+
+	@Test
+	public void testRule() throws Exception {
+		final org.sonar.api.rules.Rule rule = generate().get(0);
+		assertEquals("com.github.sevntu.checkstyle.checks.sizes.LineLengthExtendedCheck", rule.getKey());
+		assertEquals("Checker/TreeWalker/com.github.sevntu.checkstyle.checks.sizes.LineLengthExtendedCheck",
+				rule.getConfigKey());
+		final RuleParam max = rule.getParam("max");
+		assertEquals("INTEGER", max.getType());
+		assertEquals("80", max.getDefaultValue());
+		assertEquals("REGULAR_EXPRESSION", rule.getParam("ignorePattern").getType());
+		assertEquals("^$", rule.getParam("ignorePattern").getDefaultValue());
+	}
+
+	private List<org.sonar.api.rules.Rule> generate() throws Exception {
+		final File catalog = new File(folder.getRoot(), "rules.catalog");
+		RuleCatalogGenerator.main(new String[] {RULES.getPath(), catalog.getPath()});
+		final InputStream input = new FileInputStream(catalog);
+		try {
+			return RuleCatalog.read(input);
+		} finally {
+			input.close();
+		}
+	}
+}